@@ -18,6 +18,8 @@ public class EndpointsProperties {
     private EndpointMatrixProperties matrix;
     private EndpointIsochroneProperties isochrone;
     private EndpointSnapProperties snap;
+    private EndpointCoalescingProperties coalescing = new EndpointCoalescingProperties();
+    private EndpointSpeedsProperties speeds = new EndpointSpeedsProperties();
     private String swaggerDocumentationUrl;
 
     public void setSwaggerDocumentationUrl(String swaggerDocumentationUrl) {
@@ -68,6 +70,22 @@ public class EndpointsProperties {
         this.snap = snap;
     }
 
+    public EndpointCoalescingProperties getCoalescing() {
+        return coalescing;
+    }
+
+    public void setCoalescing(EndpointCoalescingProperties coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    public EndpointSpeedsProperties getSpeeds() {
+        return speeds;
+    }
+
+    public void setSpeeds(EndpointSpeedsProperties speeds) {
+        this.speeds = speeds;
+    }
+
     public static class EndpointDefaultProperties {
         private String attribution;
 
@@ -80,6 +98,93 @@ public class EndpointsProperties {
         }
     }
 
+    public static class EndpointCoalescingProperties {
+        private boolean enabled = false;
+        private int maximumRequests = 1000;
+        private long timeout = 60;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaximumRequests() {
+            return maximumRequests;
+        }
+
+        public void setMaximumRequests(int maximumRequests) {
+            this.maximumRequests = maximumRequests;
+        }
+
+        public long getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(long timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    public static class EndpointSpeedsProperties {
+        private boolean enabled = false;
+        private String apiKey = "";
+        private int maximumUpdates = 100000;
+        private String watchDirectory = "";
+        private long watchInterval = 10;
+        private long expiryInterval = 60;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getApiKey() {
+            return apiKey;
+        }
+
+        public void setApiKey(String apiKey) {
+            this.apiKey = apiKey;
+        }
+
+        public int getMaximumUpdates() {
+            return maximumUpdates;
+        }
+
+        public void setMaximumUpdates(int maximumUpdates) {
+            this.maximumUpdates = maximumUpdates;
+        }
+
+        public String getWatchDirectory() {
+            return watchDirectory;
+        }
+
+        public void setWatchDirectory(String watchDirectory) {
+            this.watchDirectory = watchDirectory;
+        }
+
+        public long getWatchInterval() {
+            return watchInterval;
+        }
+
+        public void setWatchInterval(long watchInterval) {
+            this.watchInterval = watchInterval;
+        }
+
+        public long getExpiryInterval() {
+            return expiryInterval;
+        }
+
+        public void setExpiryInterval(long expiryInterval) {
+            this.expiryInterval = expiryInterval;
+        }
+    }
+
     public static class EndpointRoutingProperties {
         private boolean enabled;
         private String attribution;
@@ -92,6 +197,7 @@ public class EndpointsProperties {
         private double maximumAvoidPolygonArea;
         private double maximumAvoidPolygonExtent;
         private int maximumAlternativeRoutes;
+        private EndpointRoutingBatchProperties batch = new EndpointRoutingBatchProperties();
 
         public boolean isEnabled() {
             return enabled;
@@ -182,7 +288,43 @@ public class EndpointsProperties {
             this.maximumAlternativeRoutes = maximumAlternativeRoutes;
         }
 
+        public EndpointRoutingBatchProperties getBatch() {
+            return batch;
+        }
 
+        public void setBatch(EndpointRoutingBatchProperties batch) {
+            this.batch = batch;
+        }
+    }
+
+    public static class EndpointRoutingBatchProperties {
+        private boolean enabled = false;
+        private int maximumPairs = 1000;
+        private int threads = 2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaximumPairs() {
+            return maximumPairs;
+        }
+
+        public void setMaximumPairs(int maximumPairs) {
+            this.maximumPairs = maximumPairs;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
     }
 
     public static class EndpointMatrixProperties {
@@ -195,7 +337,7 @@ public class EndpointsProperties {
         // TODO: this parameter is only used in a binary check for infinity (==-1);
         //       Can't we reduce it to a boolean "forbid_u_turns"?
         private double uTurnCost = INFINITE_U_TURN_COSTS;
-
+        private EndpointMatrixJobsProperties jobs = new EndpointMatrixJobsProperties();
 
         public boolean isEnabled() {
             return enabled;
@@ -248,6 +390,80 @@ public class EndpointsProperties {
         public void setUTurnCost(double uTurnCosts) {
             this.uTurnCost = uTurnCosts;
         }
+
+        public EndpointMatrixJobsProperties getJobs() {
+            return jobs;
+        }
+
+        public void setJobs(EndpointMatrixJobsProperties jobs) {
+            this.jobs = jobs;
+        }
+    }
+
+    public static class EndpointMatrixJobsProperties {
+        private boolean enabled = false;
+        private int maximumLocations = 20000;
+        private int tileSize = 1000;
+        private int threads = 1;
+        private int maximumJobs = 2;
+        private String resultDirectory = "./matrix_jobs";
+        private long retentionTime = 86400;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaximumLocations() {
+            return maximumLocations;
+        }
+
+        public void setMaximumLocations(int maximumLocations) {
+            this.maximumLocations = maximumLocations;
+        }
+
+        public int getTileSize() {
+            return tileSize;
+        }
+
+        public void setTileSize(int tileSize) {
+            this.tileSize = tileSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getMaximumJobs() {
+            return maximumJobs;
+        }
+
+        public void setMaximumJobs(int maximumJobs) {
+            this.maximumJobs = maximumJobs;
+        }
+
+        public String getResultDirectory() {
+            return resultDirectory;
+        }
+
+        public void setResultDirectory(String resultDirectory) {
+            this.resultDirectory = resultDirectory;
+        }
+
+        public long getRetentionTime() {
+            return retentionTime;
+        }
+
+        public void setRetentionTime(long retentionTime) {
+            this.retentionTime = retentionTime;
+        }
     }
 
     public static class MaximumRangeProperties {
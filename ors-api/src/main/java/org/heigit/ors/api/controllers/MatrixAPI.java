@@ -31,19 +31,27 @@ import org.heigit.ors.api.EndpointsProperties;
 import org.heigit.ors.api.SystemMessageProperties;
 import org.heigit.ors.api.errors.CommonResponseEntityExceptionHandler;
 import org.heigit.ors.api.requests.matrix.MatrixRequest;
+import org.heigit.ors.api.responses.matrix.binary.BinaryMatrixResponse;
+import org.heigit.ors.api.responses.matrix.json.JSONMatrixJobBlockResponse;
+import org.heigit.ors.api.responses.matrix.json.JSONMatrixJobResponse;
 import org.heigit.ors.api.responses.matrix.json.JSONMatrixResponse;
+import org.heigit.ors.api.services.MatrixJobService;
 import org.heigit.ors.api.services.MatrixService;
+import org.heigit.ors.common.StatusCode;
 import org.heigit.ors.api.util.AppConfigMigration;
 import org.heigit.ors.exceptions.*;
 import org.heigit.ors.matrix.MatrixErrorCodes;
 import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.jobs.MatrixJob;
 import org.heigit.ors.routing.APIEnums;
 import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @Tag(name = "Matrix Service", description = "Obtain one-to-many, many-to-one and many-to-many matrices for time and distance")
@@ -60,11 +68,13 @@ public class MatrixAPI {
     private final EndpointsProperties endpointsProperties;
     private final SystemMessageProperties systemMessageProperties;
     private final MatrixService matrixService;
+    private final MatrixJobService matrixJobService;
 
-    public MatrixAPI(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, MatrixService matrixService) {
+    public MatrixAPI(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, MatrixService matrixService, MatrixJobService matrixJobService) {
         this.endpointsProperties = AppConfigMigration.overrideEndpointsProperties(endpointsProperties);
         this.systemMessageProperties = systemMessageProperties;
         this.matrixService = matrixService;
+        this.matrixJobService = matrixJobService;
     }
 
     // generic catch methods - when extra info is provided in the url, the other methods are accessed.
@@ -133,6 +143,138 @@ public class MatrixAPI {
         return new JSONMatrixResponse(matrixResult, originalRequest, systemMessageProperties, endpointsProperties);
     }
 
+    @PostMapping(value = "/{profile}/binary", produces = {BinaryMatrixResponse.MEDIA_TYPE})
+    @Operation(
+            description = """
+                    Returns the matrix in a compact little-endian binary encoding for clients which fetch large matrices. \
+                    The layout is described in the Matrix Response documentation.\
+                    """,
+            summary = "Matrix Service binary"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Standard response for successfully processed requests. Returns the binary encoded matrix.",
+            content = {@Content(
+                    mediaType = BinaryMatrixResponse.MEDIA_TYPE,
+                    schema = @Schema(type = "string", format = "binary")
+            )
+            })
+    public ResponseEntity<StreamingResponseBody> getBinaryMime(
+            @Parameter(description = "Specifies the matrix profile.", required = true, example = "driving-car") @PathVariable APIEnums.Profile profile,
+            @Parameter(description = "The request payload", required = true) @RequestBody MatrixRequest originalRequest) throws StatusCodeException {
+        originalRequest.setProfile(profile);
+        originalRequest.setResponseType(APIEnums.MatrixResponseType.BINARY);
+        MatrixResult matrixResult = matrixService.generateMatrixFromRequest(originalRequest);
+
+        BinaryMatrixResponse response = new BinaryMatrixResponse(matrixResult, originalRequest, systemMessageProperties, endpointsProperties);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(response.getContentLength())
+                .body(response::writeTo);
+    }
+
+    @PostMapping(value = "/{profile}/jobs", produces = {"application/json;charset=UTF-8"})
+    @Operation(
+            description = """
+                    Queues the computation of a large matrix in the background. The matrix is computed in tiles of \
+                    `tile_size` sources and destinations, which can be downloaded as soon as they are finished.\
+                    """,
+            summary = "Matrix Service job"
+    )
+    @ApiResponse(
+            responseCode = "202",
+            description = "The job has been queued. Returns the state of the job.",
+            content = {@Content(
+                    mediaType = "application/json;charset=UTF-8",
+                    schema = @Schema(implementation = JSONMatrixJobResponse.class)
+            )
+            })
+    public ResponseEntity<JSONMatrixJobResponse> submitJob(
+            @Parameter(description = "Specifies the matrix profile.", required = true, example = "driving-car") @PathVariable APIEnums.Profile profile,
+            @Parameter(description = "The request payload", required = true) @RequestBody MatrixRequest originalRequest) throws StatusCodeException {
+        originalRequest.setProfile(profile);
+        originalRequest.setResponseType(APIEnums.MatrixResponseType.JSON);
+        MatrixJob job = matrixJobService.submitJob(originalRequest);
+        return ResponseEntity.accepted().body(new JSONMatrixJobResponse(job));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}", produces = {"application/json;charset=UTF-8"})
+    @Operation(summary = "Get the state of a matrix job")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Returns the state of the job.",
+            content = {@Content(
+                    mediaType = "application/json;charset=UTF-8",
+                    schema = @Schema(implementation = JSONMatrixJobResponse.class)
+            )
+            })
+    public JSONMatrixJobResponse getJob(@Parameter(description = "Id of the matrix job.", required = true) @PathVariable String jobId) throws StatusCodeException {
+        return new JSONMatrixJobResponse(matrixJobService.getJob(jobId));
+    }
+
+    @DeleteMapping(value = "/jobs/{jobId}", produces = {"application/json;charset=UTF-8"})
+    @Operation(summary = "Cancel a matrix job and delete its result")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Returns the final state of the job.",
+            content = {@Content(
+                    mediaType = "application/json;charset=UTF-8",
+                    schema = @Schema(implementation = JSONMatrixJobResponse.class)
+            )
+            })
+    public JSONMatrixJobResponse deleteJob(@Parameter(description = "Id of the matrix job.", required = true) @PathVariable String jobId) throws StatusCodeException {
+        return new JSONMatrixJobResponse(matrixJobService.removeJob(jobId));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/tiles/{tileRow}/{tileColumn}", produces = {"application/json;charset=UTF-8"})
+    @Operation(summary = "Get one finished tile of a matrix job")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Returns the values, sources and destinations of the tile.",
+            content = {@Content(
+                    mediaType = "application/json;charset=UTF-8",
+                    schema = @Schema(implementation = JSONMatrixJobBlockResponse.class)
+            )
+            })
+    public JSONMatrixJobBlockResponse getJobTile(@Parameter(description = "Id of the matrix job.", required = true) @PathVariable String jobId,
+                                                @Parameter(description = "Row index of the tile.", required = true) @PathVariable int tileRow,
+                                                @Parameter(description = "Column index of the tile.", required = true) @PathVariable int tileColumn) throws StatusCodeException {
+        MatrixJob job = matrixJobService.getJob(jobId);
+        if (tileRow < 0 || tileRow >= job.getTileRows() || tileColumn < 0 || tileColumn >= job.getTileColumns())
+            throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_VALUE, "tile");
+        if (!job.isTileFinished(tileRow, tileColumn))
+            throw new StatusCodeException(StatusCode.NOT_FOUND, MatrixErrorCodes.JOB_NOT_FINISHED, "The tile has not been computed yet.");
+
+        int fromRow = tileRow * job.getTileSize();
+        int fromColumn = tileColumn * job.getTileSize();
+        return new JSONMatrixJobBlockResponse(job, fromRow, Math.min(job.getTileSize(), job.getRows() - fromRow),
+                fromColumn, Math.min(job.getTileSize(), job.getColumns() - fromColumn));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/rows", produces = {"application/json;charset=UTF-8"})
+    @Operation(summary = "Get complete rows of a matrix job", description = "Returns the rows [from, to) of the matrix. At most `tile_size` rows can be requested at once and all tiles covering them have to be finished.")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Returns the values and sources of the rows and all destinations.",
+            content = {@Content(
+                    mediaType = "application/json;charset=UTF-8",
+                    schema = @Schema(implementation = JSONMatrixJobBlockResponse.class)
+            )
+            })
+    public JSONMatrixJobBlockResponse getJobRows(@Parameter(description = "Id of the matrix job.", required = true) @PathVariable String jobId,
+                                                @Parameter(description = "Index of the first row.", required = true) @RequestParam int from,
+                                                @Parameter(description = "Index after the last row.", required = true) @RequestParam int to) throws StatusCodeException {
+        MatrixJob job = matrixJobService.getJob(jobId);
+        if (from < 0 || to > job.getRows() || from >= to)
+            throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_VALUE, "from");
+        if (to - from > job.getTileSize())
+            throw new ServerLimitExceededException(MatrixErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM, "Only " + job.getTileSize() + " rows can be requested at once.");
+        if (!job.areRowsFinished(from, to))
+            throw new StatusCodeException(StatusCode.NOT_FOUND, MatrixErrorCodes.JOB_NOT_FINISHED, "The rows have not been computed yet.");
+
+        return new JSONMatrixJobBlockResponse(job, from, to - from, 0, job.getColumns());
+    }
+
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<Object> handleMissingParams(final MissingServletRequestParameterException e) {
         return errorHandler.handleStatusCodeException(new MissingParameterException(MatrixErrorCodes.MISSING_PARAMETER, e.getParameterName()));
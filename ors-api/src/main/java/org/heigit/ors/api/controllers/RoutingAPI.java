@@ -15,6 +15,7 @@
 
 package org.heigit.ors.api.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.fasterxml.jackson.databind.exc.MismatchedInputException;
@@ -29,9 +30,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.heigit.ors.api.EndpointsProperties;
 import org.heigit.ors.api.SystemMessageProperties;
 import org.heigit.ors.api.errors.CommonResponseEntityExceptionHandler;
+import org.heigit.ors.api.requests.routing.RouteBatchRequest;
 import org.heigit.ors.api.requests.routing.RouteRequest;
 import org.heigit.ors.api.responses.routing.geojson.GeoJSONRouteResponse;
 import org.heigit.ors.api.responses.routing.gpx.GPXRouteResponse;
+import org.heigit.ors.api.responses.routing.json.JSONRouteBatchEntry;
 import org.heigit.ors.api.responses.routing.json.JSONRouteResponse;
 import org.heigit.ors.api.services.RoutingService;
 import org.heigit.ors.api.util.AppConfigMigration;
@@ -39,13 +42,19 @@ import org.heigit.ors.exceptions.*;
 import org.heigit.ors.routing.APIEnums;
 import org.heigit.ors.routing.RouteResult;
 import org.heigit.ors.routing.RoutingErrorCodes;
+import org.heigit.ors.routing.RoutingRequest;
 import org.locationtech.jts.geom.Coordinate;
 import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @Tag(name = "Directions Service", description = "Get directions for different modes of transport")
@@ -63,11 +72,13 @@ public class RoutingAPI {
     private final EndpointsProperties endpointsProperties;
     private final SystemMessageProperties systemMessageProperties;
     private final RoutingService routingService;
+    private final ObjectMapper objectMapper;
 
-    public RoutingAPI(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, RoutingService routingService) {
+    public RoutingAPI(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, RoutingService routingService, ObjectMapper objectMapper) {
         this.endpointsProperties = AppConfigMigration.overrideEndpointsProperties(endpointsProperties);
         this.systemMessageProperties = systemMessageProperties;
         this.routingService = routingService;
+        this.objectMapper = objectMapper;
     }
 
     // generic catch methods - when extra info is provided in the url, the other methods are accessed.
@@ -208,6 +219,47 @@ public class RoutingAPI {
         return new GeoJSONRouteResponse(result, request, systemMessageProperties, endpointsProperties);
     }
 
+    @PostMapping(value = "/{profile}/batch", produces = "application/x-ndjson;charset=UTF-8")
+    @Operation(
+            description = """
+                    Returns the routes of many independent origin-destination pairs which share the same options. \
+                    Each pair is written as a separate JSON line as soon as its route has been computed, so the lines \
+                    are not ordered by the index of the pair. A pair which can not be routed yields a line with an error \
+                    instead of failing the whole batch.\
+                    """,
+            summary = "Directions Service batch"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Standard response for successfully processed requests. Returns one JSON object per line.",
+            content = {@Content(
+                    mediaType = "application/x-ndjson",
+                    schema = @Schema(implementation = JSONRouteBatchEntry.class)
+            )
+            })
+    public ResponseEntity<StreamingResponseBody> getBatchRoutes(
+            @Parameter(description = "Specifies the route profile.", required = true, example = "driving-car") @PathVariable APIEnums.Profile profile,
+            @Parameter(description = "The request payload", required = true) @RequestBody RouteBatchRequest request) throws StatusCodeException {
+        request.setProfile(profile);
+        request.setResponseType(APIEnums.RouteResponseType.JSON);
+
+        RoutingRequest routingRequest = routingService.convertRouteBatchRequest(request);
+        List<Coordinate[]> pairs = routingService.convertRouteBatchPairs(request);
+
+        StreamingResponseBody body = outputStream -> routingService.computeRouteBatch(routingRequest, pairs, result -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(new JSONRouteBatchEntry(result, request)));
+            } catch (StatusCodeException e) {
+                throw new IOException(e);
+            }
+            outputStream.write('\n');
+            outputStream.flush();
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson;charset=UTF-8"))
+                .body(body);
+    }
+
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<Object> handleMissingParams(final MissingServletRequestParameterException e) {
         return errorHandler.handleStatusCodeException(new MissingParameterException(RoutingErrorCodes.MISSING_PARAMETER, e.getParameterName()));
@@ -0,0 +1,75 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.controllers;
+
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import io.swagger.v3.oas.annotations.Operation;
+import org.heigit.ors.api.errors.CommonResponseEntityExceptionHandler;
+import org.heigit.ors.api.requests.speeds.SpeedsRequest;
+import org.heigit.ors.api.responses.speeds.SpeedsResponse;
+import org.heigit.ors.api.services.SpeedsService;
+import org.heigit.ors.exceptions.*;
+import org.heigit.ors.routing.APIEnums;
+import org.heigit.ors.routing.RoutingErrorCodes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Internal endpoint to feed live speeds into the graphs of the profiles, see {@link SpeedsService}.
+ */
+@RestController
+@RequestMapping("/v2/speeds")
+public class SpeedsAPI {
+    static final CommonResponseEntityExceptionHandler errorHandler = new CommonResponseEntityExceptionHandler(RoutingErrorCodes.BASE);
+
+    private final SpeedsService speedsService;
+
+    public SpeedsAPI(SpeedsService speedsService) {
+        this.speedsService = speedsService;
+    }
+
+    @PostMapping(value = "/{profile}", produces = {"application/json;charset=UTF-8"})
+    @Operation(hidden = true)
+    public SpeedsResponse postSpeeds(@PathVariable APIEnums.Profile profile,
+                                     @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                     @RequestBody SpeedsRequest request) throws StatusCodeException {
+        speedsService.checkAuthorization(authorization);
+        request.setProfile(profile);
+        return new SpeedsResponse(speedsService.applyUpdates(request));
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Object> handleReadingBodyException(final HttpMessageNotReadableException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof UnrecognizedPropertyException exception) {
+            return errorHandler.handleUnknownParameterException(new UnknownParameterException(RoutingErrorCodes.UNKNOWN_PARAMETER, exception.getPropertyName()));
+        } else if (cause instanceof InvalidFormatException exception) {
+            return errorHandler.handleStatusCodeException(new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_FORMAT, exception.getValue().toString()));
+        } else if (cause instanceof MismatchedInputException exception && !exception.getPath().isEmpty()) {
+            return errorHandler.handleStatusCodeException(new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_FORMAT, exception.getPath().get(0).getFieldName()));
+        }
+        return errorHandler.handleStatusCodeException(new EmptyElementException(RoutingErrorCodes.MISSING_PARAMETER, "Request body could not be read"));
+    }
+
+    @ExceptionHandler(StatusCodeException.class)
+    public ResponseEntity<Object> handleException(final StatusCodeException e) {
+        return errorHandler.handleStatusCodeException(e);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.requests.routing;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(title = "Directions Batch Service", name = "directionsBatchService", description = "The JSON body request sent to the batch routing service. All options of the directions service apply to every origin-destination pair.")
+public class RouteBatchRequest extends RouteRequest {
+    public static final String PARAM_PAIRS = "pairs";
+    public static final String PARAM_SUMMARY_ONLY = "summary_only";
+
+    @Schema(name = PARAM_PAIRS, description = "The independent routes to compute as an array of origin-destination pairs, each given as two `longitude/latitude` pairs in WGS 84 (EPSG:4326)",
+            example = "[[[8.681495,49.41461],[8.687872,49.420318]],[[8.686507,49.41943],[8.681495,49.41461]]]",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    @JsonProperty(PARAM_PAIRS)
+    private List<List<List<Double>>> pairs;
+
+    @Schema(name = PARAM_SUMMARY_ONLY, description = "Only return the distance and duration of each route, without geometry and instructions.",
+            defaultValue = "false")
+    @JsonProperty(PARAM_SUMMARY_ONLY)
+    private boolean summaryOnly;
+    @JsonIgnore
+    private boolean hasSummaryOnly = false;
+
+    @JsonCreator
+    public RouteBatchRequest(@JsonProperty(value = PARAM_PAIRS, required = true) List<List<List<Double>>> pairs) {
+        // the options are validated with the first pair
+        super(pairs == null || pairs.isEmpty() ? null : pairs.get(0));
+        this.pairs = pairs;
+    }
+
+    public List<List<List<Double>>> getPairs() {
+        return pairs;
+    }
+
+    public void setPairs(List<List<List<Double>>> pairs) {
+        this.pairs = pairs;
+    }
+
+    public boolean getSummaryOnly() {
+        return summaryOnly;
+    }
+
+    public void setSummaryOnly(Boolean summaryOnly) {
+        this.summaryOnly = summaryOnly;
+        hasSummaryOnly = true;
+    }
+
+    public boolean hasSummaryOnly() {
+        return hasSummaryOnly;
+    }
+}
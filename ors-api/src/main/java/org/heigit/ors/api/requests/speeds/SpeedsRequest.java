@@ -0,0 +1,113 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.requests.speeds;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.heigit.ors.routing.APIEnums;
+import org.heigit.ors.routing.graphhopper.extensions.ORSSpeedUpdate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(name = "Speeds Service", description = "A batch of live speeds for the edges of a profile graph.")
+public class SpeedsRequest {
+    public static final String PARAM_PROFILE = "profile";
+    public static final String PARAM_UPDATES = "updates";
+
+    @Schema(name = PARAM_PROFILE, hidden = true)
+    @JsonProperty(PARAM_PROFILE)
+    private APIEnums.Profile profile;
+
+    @Schema(name = PARAM_UPDATES, description = "The live speeds to apply.", requiredMode = Schema.RequiredMode.REQUIRED)
+    @JsonProperty(PARAM_UPDATES)
+    private List<SpeedUpdate> updates = new ArrayList<>();
+
+    public APIEnums.Profile getProfile() {
+        return profile;
+    }
+
+    public void setProfile(APIEnums.Profile profile) {
+        this.profile = profile;
+    }
+
+    public List<SpeedUpdate> getUpdates() {
+        return updates;
+    }
+
+    public void setUpdates(List<SpeedUpdate> updates) {
+        this.updates = updates;
+    }
+
+    public static class SpeedUpdate {
+        @Schema(description = "The id of the graph edge.", example = "1234")
+        @JsonProperty("edge_id")
+        private int edgeId;
+
+        @Schema(description = "Whether the speed applies against the storage direction of the edge.", defaultValue = "false")
+        @JsonProperty("reverse")
+        private boolean reverse;
+
+        @Schema(description = "The speed in km/h, from 0 to 127.", example = "30")
+        @JsonProperty("speed")
+        private int speed;
+
+        @Schema(description = "The number of minutes after which the speed expires. The speed does not expire if it is not set.", example = "15")
+        @JsonProperty("duration_min")
+        private int durationMin;
+
+        public int getEdgeId() {
+            return edgeId;
+        }
+
+        public void setEdgeId(int edgeId) {
+            this.edgeId = edgeId;
+        }
+
+        public boolean isReverse() {
+            return reverse;
+        }
+
+        public void setReverse(boolean reverse) {
+            this.reverse = reverse;
+        }
+
+        public int getSpeed() {
+            return speed;
+        }
+
+        public void setSpeed(int speed) {
+            this.speed = speed;
+        }
+
+        public int getDurationMin() {
+            return durationMin;
+        }
+
+        public void setDurationMin(int durationMin) {
+            this.durationMin = durationMin;
+        }
+
+        public ORSSpeedUpdate toSpeedUpdate() {
+            ORSSpeedUpdate update = new ORSSpeedUpdate();
+            update.setEdgeId(edgeId);
+            update.setReverse(reverse);
+            update.setSpeed(speed);
+            update.setDurationMin(durationMin);
+            return update;
+        }
+    }
+}
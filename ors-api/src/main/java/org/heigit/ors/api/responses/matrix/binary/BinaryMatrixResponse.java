@@ -0,0 +1,142 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.responses.matrix.binary;
+
+import org.heigit.ors.api.EndpointsProperties;
+import org.heigit.ors.api.SystemMessageProperties;
+import org.heigit.ors.api.requests.matrix.MatrixRequest;
+import org.heigit.ors.api.responses.matrix.MatrixResponse;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.ResolvedLocation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compact binary encoding of a matrix result for clients which fetch large matrices. All numbers are little endian.
+ * <pre>
+ * header (24 bytes)
+ *   int8[4]  magic "ORSM"
+ *   int32    format version, currently 1
+ *   int32    number of sources (rows)
+ *   int32    number of destinations (columns)
+ *   int32    metrics bit mask: 1 = durations, 2 = distances, 4 = weights
+ *   int32    length of the location section in bytes
+ * tables, one per bit set in the mask, in ascending bit order
+ *   float32[rows * columns]  row-major values, NaN if a value can't be determined
+ * locations, first all sources then all destinations
+ *   int32    snapped longitude in 1e-6 degrees
+ *   int32    snapped latitude in 1e-6 degrees
+ *   int32    snapped distance in centimeters
+ *   (all three are {@link #NO_LOCATION} if the location could not be resolved)
+ * </pre>
+ * Durations are given in seconds and distances in the unit of the request. Unlike the JSON response the values
+ * are not rounded.
+ */
+public class BinaryMatrixResponse extends MatrixResponse {
+    public static final String MEDIA_TYPE = "application/octet-stream";
+    public static final byte[] MAGIC = {'O', 'R', 'S', 'M'};
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24;
+    public static final int LOCATION_SIZE = 12;
+    public static final int NO_LOCATION = Integer.MIN_VALUE;
+    private static final int[] METRICS = {MatrixMetricsType.DURATION, MatrixMetricsType.DISTANCE, MatrixMetricsType.WEIGHT};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public BinaryMatrixResponse(MatrixResult result, MatrixRequest request, SystemMessageProperties systemMessageProperties, EndpointsProperties endpointsProperties) {
+        super(result, request, systemMessageProperties, endpointsProperties);
+    }
+
+    public int getMetrics() {
+        int metrics = 0;
+        for (int metric : METRICS) {
+            if (matrixResult.getTable(metric) != null)
+                metrics |= metric;
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the number of bytes {@link #writeTo(OutputStream)} writes
+     */
+    public long getContentLength() {
+        long cells = (long) matrixResult.getSources().length * matrixResult.getDestinations().length;
+        return HEADER_SIZE + Integer.bitCount(getMetrics()) * cells * Float.BYTES + getLocationSectionSize();
+    }
+
+    private int getLocationSectionSize() {
+        return (matrixResult.getSources().length + matrixResult.getDestinations().length) * LOCATION_SIZE;
+    }
+
+    /**
+     * Writes the response in chunks of a fixed size buffer, so no copy of the whole matrix is created.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        int rows = matrixResult.getSources().length;
+        int columns = matrixResult.getDestinations().length;
+        int metrics = getMetrics();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(rows);
+        buffer.putInt(columns);
+        buffer.putInt(metrics);
+        buffer.putInt(getLocationSectionSize());
+
+        int cells = rows * columns;
+        for (int metric : METRICS) {
+            if (!MatrixMetricsType.isSet(metrics, metric))
+                continue;
+            float[] table = matrixResult.getTable(metric);
+            for (int i = 0; i < cells; i++) {
+                if (buffer.remaining() < Float.BYTES)
+                    drain(buffer, out);
+                float value = table[i];
+                buffer.putFloat(value == -1 ? Float.NaN : value);
+            }
+        }
+
+        writeLocations(matrixResult.getSources(), buffer, out);
+        writeLocations(matrixResult.getDestinations(), buffer, out);
+        drain(buffer, out);
+        out.flush();
+    }
+
+    private static void writeLocations(ResolvedLocation[] locations, ByteBuffer buffer, OutputStream out) throws IOException {
+        for (ResolvedLocation location : locations) {
+            if (buffer.remaining() < LOCATION_SIZE)
+                drain(buffer, out);
+            if (location == null || location.getCoordinate() == null) {
+                buffer.putInt(NO_LOCATION);
+                buffer.putInt(NO_LOCATION);
+                buffer.putInt(NO_LOCATION);
+            } else {
+                buffer.putInt((int) Math.round(location.getCoordinate().x * 1e6));
+                buffer.putInt((int) Math.round(location.getCoordinate().y * 1e6));
+                buffer.putInt((int) Math.round(location.getSnappedDistance() * 100));
+            }
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, OutputStream out) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.responses.matrix.json;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.ResolvedLocation;
+import org.heigit.ors.matrix.jobs.MatrixJob;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "MatrixJobBlockResponse", description = "A block of rows and columns of the result of a matrix job.")
+public class JSONMatrixJobBlockResponse {
+    @Schema(description = "Index of the first source contained in the block.", example = "1000")
+    @JsonProperty("from_row")
+    private final int fromRow;
+
+    @Schema(description = "Index of the first destination contained in the block.", example = "0")
+    @JsonProperty("from_column")
+    private final int fromColumn;
+
+    @Schema(description = "The durations of the block.", implementation = Double[][].class, example = "[[0,25],[25,0]]")
+    @JsonProperty("durations")
+    private JSONMatrixTable durations;
+
+    @Schema(description = "The distances of the block.", implementation = Double[][].class, example = "[[0,0.25],[0.25,0]]")
+    @JsonProperty("distances")
+    private JSONMatrixTable distances;
+
+    @Schema(description = "The sources of the block.")
+    @JsonProperty("sources")
+    private final List<JSON2DSources> sources;
+
+    @Schema(description = "The destinations of the block.")
+    @JsonProperty("destinations")
+    private final List<JSON2DDestinations> destinations;
+
+    public JSONMatrixJobBlockResponse(MatrixJob job, int fromRow, int rowCount, int fromColumn, int columnCount) {
+        this.fromRow = fromRow;
+        this.fromColumn = fromColumn;
+        boolean includeResolveLocations = job.getRequest().getResolveLocations();
+
+        if (job.hasMetric(MatrixMetricsType.DURATION))
+            durations = new JSONMatrixTable(readTable(job, MatrixMetricsType.DURATION, fromRow, rowCount, fromColumn, columnCount), rowCount, columnCount);
+        if (job.hasMetric(MatrixMetricsType.DISTANCE))
+            distances = new JSONMatrixTable(readTable(job, MatrixMetricsType.DISTANCE, fromRow, rowCount, fromColumn, columnCount), rowCount, columnCount);
+
+        sources = new ArrayList<>(rowCount);
+        for (int i = fromRow; i < fromRow + rowCount; i++) {
+            ResolvedLocation location = job.getSource(i);
+            sources.add(location == null ? null : new JSON2DSources(location, includeResolveLocations));
+        }
+        destinations = new ArrayList<>(columnCount);
+        for (int j = fromColumn; j < fromColumn + columnCount; j++) {
+            ResolvedLocation location = job.getDestination(j);
+            destinations.add(location == null ? null : new JSON2DDestinations(location, includeResolveLocations));
+        }
+    }
+
+    private static float[] readTable(MatrixJob job, int metric, int fromRow, int rowCount, int fromColumn, int columnCount) {
+        float[] table = new float[rowCount * columnCount];
+        float[] row = new float[columnCount];
+        for (int i = 0; i < rowCount; i++) {
+            job.readRow(metric, fromRow + i, fromColumn, row);
+            System.arraycopy(row, 0, table, i * columnCount, columnCount);
+        }
+        return table;
+    }
+
+    public int getFromRow() {
+        return fromRow;
+    }
+
+    public int getFromColumn() {
+        return fromColumn;
+    }
+
+    public JSONMatrixTable getDurations() {
+        return durations;
+    }
+
+    public JSONMatrixTable getDistances() {
+        return distances;
+    }
+
+    public List<JSON2DSources> getSources() {
+        return sources;
+    }
+
+    public List<JSON2DDestinations> getDestinations() {
+        return destinations;
+    }
+}
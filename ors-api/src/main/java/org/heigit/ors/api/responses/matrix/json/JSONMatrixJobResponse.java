@@ -0,0 +1,131 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.responses.matrix.json;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.jobs.MatrixJob;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "MatrixJobResponse", description = "The state of a matrix job.")
+public class JSONMatrixJobResponse {
+    @Schema(description = "Id of the job, used to query its state and results.", example = "7d5a4d3e-3f0a-4f55-9d0e-2b1c9a0f7c11")
+    @JsonProperty("id")
+    private final String id;
+
+    @Schema(description = "State of the job.", allowableValues = {"queued", "running", "finished", "failed", "cancelled"}, example = "running")
+    @JsonProperty("status")
+    private final String status;
+
+    @Schema(description = "Number of sources, i.e. rows of the matrix.", example = "20000")
+    @JsonProperty("rows")
+    private final int rows;
+
+    @Schema(description = "Number of destinations, i.e. columns of the matrix.", example = "20000")
+    @JsonProperty("columns")
+    private final int columns;
+
+    @Schema(description = "Number of sources and destinations per tile.", example = "1000")
+    @JsonProperty("tile_size")
+    private final int tileSize;
+
+    @Schema(description = "Number of tiles in the direction of the rows.", example = "20")
+    @JsonProperty("tile_rows")
+    private final int tileRows;
+
+    @Schema(description = "Number of tiles in the direction of the columns.", example = "20")
+    @JsonProperty("tile_columns")
+    private final int tileColumns;
+
+    @Schema(description = "Number of tiles which have been computed.", example = "123")
+    @JsonProperty("finished_tiles")
+    private final int finishedTiles;
+
+    @Schema(description = "The metrics contained in the result.", example = "[\"duration\"]")
+    @JsonProperty("metrics")
+    private final String[] metrics;
+
+    @Schema(description = "The reason why the job failed.")
+    @JsonProperty("error")
+    private final String error;
+
+    @Schema(description = "Date of the graph the matrix has been computed on.", example = "2019-02-07T14:28:11Z")
+    @JsonProperty("graph_date")
+    private final String graphDate;
+
+    public JSONMatrixJobResponse(MatrixJob job) {
+        id = job.getId();
+        status = job.getStatus().name().toLowerCase();
+        rows = job.getRows();
+        columns = job.getColumns();
+        tileSize = job.getTileSize();
+        tileRows = job.getTileRows();
+        tileColumns = job.getTileColumns();
+        finishedTiles = job.getFinishedTileCount();
+        int[] types = job.getMetrics();
+        metrics = new String[types.length];
+        for (int i = 0; i < types.length; i++)
+            metrics[i] = MatrixMetricsType.getMetricNameFromInt(types[i]);
+        error = job.getError();
+        graphDate = job.getGraphDate();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getTileRows() {
+        return tileRows;
+    }
+
+    public int getTileColumns() {
+        return tileColumns;
+    }
+
+    public int getFinishedTiles() {
+        return finishedTiles;
+    }
+
+    public String[] getMetrics() {
+        return metrics;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getGraphDate() {
+        return graphDate;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.responses.matrix.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.heigit.ors.util.FormatUtility;
+
+import java.io.IOException;
+
+/**
+ * View of one row-major metric table of a {@link org.heigit.ors.matrix.MatrixResult}. The table is serialized as
+ * a nested JSON array directly from the underlying float values, so no boxed copy of the matrix is created.
+ * Unreachable entries (-1) are written as null, all other values are rounded to two decimals.
+ */
+@JsonSerialize(using = JSONMatrixTable.Serializer.class)
+public class JSONMatrixTable {
+    private static final int DECIMAL_PLACES = 2;
+
+    private final float[] table;
+    private final int rowCount;
+    private final int columnCount;
+
+    public JSONMatrixTable(float[] table, int rowCount, int columnCount) {
+        if (table.length < rowCount * columnCount)
+            throw new IllegalArgumentException("Table holds %d values, but %d x %d are required.".formatted(table.length, rowCount, columnCount));
+        this.table = table;
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @return the formatted value of the given cell, or null if the destination is unreachable from the source
+     */
+    public Double getValue(int row, int column) {
+        double value = table[row * columnCount + column];
+        return value == -1 ? null : FormatUtility.roundToDecimals(value, DECIMAL_PLACES);
+    }
+
+    public Double[] getRow(int row) {
+        Double[] values = new Double[columnCount];
+        for (int j = 0; j < columnCount; j++)
+            values[j] = getValue(row, j);
+        return values;
+    }
+
+    static class Serializer extends StdSerializer<JSONMatrixTable> {
+        Serializer() {
+            super(JSONMatrixTable.class);
+        }
+
+        @Override
+        public void serialize(JSONMatrixTable value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            float[] table = value.table;
+            int columnCount = value.columnCount;
+            gen.writeStartArray(value, value.rowCount);
+            for (int i = 0; i < value.rowCount; i++) {
+                gen.writeStartArray(null, columnCount);
+                int offset = i * columnCount;
+                for (int j = offset; j < offset + columnCount; j++) {
+                    double cell = table[j];
+                    if (cell == -1)
+                        gen.writeNull();
+                    else
+                        gen.writeNumber(FormatUtility.roundToDecimals(cell, DECIMAL_PLACES));
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.responses.routing.json;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.heigit.ors.api.requests.routing.RouteBatchRequest;
+import org.heigit.ors.exceptions.StatusCodeException;
+import org.heigit.ors.routing.RouteBatchResult;
+import org.heigit.ors.routing.RouteResult;
+import org.heigit.ors.routing.RouteSummary;
+import org.heigit.ors.routing.RoutingErrorCodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "The result of a single origin-destination pair of a batch, written as one line of the response.")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JSONRouteBatchEntry {
+    @Schema(description = "The index of the pair in the request.", example = "0")
+    @JsonProperty("index")
+    private final int index;
+
+    @Schema(description = "The computed routes of the pair, omitted if `summary_only` is set or the route failed.")
+    @JsonProperty("routes")
+    private List<JSONIndividualRouteResponse> routes;
+
+    @Schema(description = "The distance and duration of the route, only present if `summary_only` is set.")
+    @JsonProperty("summary")
+    private JSONSummary summary;
+
+    @Schema(description = "The reason why the route of the pair could not be computed.")
+    @JsonProperty("error")
+    private Error error;
+
+    public JSONRouteBatchEntry(RouteBatchResult result, RouteBatchRequest request) throws StatusCodeException {
+        index = result.index();
+        if (result.hasError()) {
+            error = new Error(result.error());
+        } else if (request.hasSummaryOnly() && request.getSummaryOnly()) {
+            RouteSummary routeSummary = result.routes()[0].getSummary();
+            summary = new JSONSummary(routeSummary.getDistance(), routeSummary.getDuration());
+        } else {
+            routes = new ArrayList<>(result.routes().length);
+            for (RouteResult route : result.routes())
+                routes.add(new JSONIndividualRouteResponse(route, request));
+        }
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public List<JSONIndividualRouteResponse> getRoutes() {
+        return routes;
+    }
+
+    public JSONSummary getSummary() {
+        return summary;
+    }
+
+    public Error getError() {
+        return error;
+    }
+
+    public static class Error {
+        @JsonProperty("code")
+        private final int code;
+        @JsonProperty("message")
+        private final String message;
+
+        Error(Exception exception) {
+            code = exception instanceof StatusCodeException statusCodeException ? statusCodeException.getInternalCode() : RoutingErrorCodes.UNKNOWN;
+            message = exception.getMessage();
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.responses.speeds;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.heigit.ors.routing.graphhopper.extensions.storages.SpeedStorage;
+
+@Schema(description = "The number of live speeds which have been changed by a batch of updates.")
+public class SpeedsResponse {
+    @Schema(description = "The number of applied updates.", example = "1000")
+    @JsonProperty("applied")
+    private final int applied;
+
+    @Schema(description = "The number of updates which have been rejected because of an unknown edge or an invalid speed.", example = "0")
+    @JsonProperty("rejected")
+    private final int rejected;
+
+    @Schema(description = "The number of previous speeds which have expired.", example = "12")
+    @JsonProperty("expired")
+    private final int expired;
+
+    public SpeedsResponse(SpeedStorage.UpdateResult result) {
+        applied = result.applied();
+        rejected = result.rejected();
+        expired = result.expired();
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public int getExpired() {
+        return expired;
+    }
+}
@@ -1,11 +1,13 @@
 package org.heigit.ors.api.services;
 
+import io.micrometer.core.instrument.Metrics;
 import org.heigit.ors.api.EndpointsProperties;
 import org.heigit.ors.api.requests.common.APIRequest;
 import org.heigit.ors.api.requests.common.RequestOptions;
 import org.heigit.ors.api.requests.routing.RequestProfileParamsRestrictions;
 import org.heigit.ors.api.requests.routing.RequestProfileParamsWeightings;
 import org.heigit.ors.api.requests.routing.RouteRequest;
+import org.heigit.ors.api.util.RequestCoalescer;
 import org.heigit.ors.common.DistanceUnit;
 import org.heigit.ors.common.StatusCode;
 import org.heigit.ors.exceptions.*;
@@ -34,6 +36,18 @@ public class ApiService {
 
     protected EndpointsProperties endpointsProperties;
 
+    /**
+     * @return a coalescer for identical concurrent requests of the service or null if coalescing is disabled
+     */
+    protected <V> RequestCoalescer<V> createCoalescer(String service) {
+        EndpointsProperties.EndpointCoalescingProperties properties = endpointsProperties.getCoalescing();
+        if (properties == null || !properties.isEnabled())
+            return null;
+        RequestCoalescer<V> coalescer = new RequestCoalescer<>(properties.getMaximumRequests(), properties.getTimeout());
+        coalescer.bindTo(Metrics.globalRegistry, service);
+        return coalescer;
+    }
+
     double getMaximumAvoidPolygonArea() {
         return 0d;
     }
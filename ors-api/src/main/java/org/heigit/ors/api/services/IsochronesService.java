@@ -4,7 +4,9 @@ import org.heigit.ors.api.EndpointsProperties;
 import org.heigit.ors.api.requests.isochrones.IsochronesRequest;
 import org.heigit.ors.api.requests.isochrones.IsochronesRequestEnums;
 import org.heigit.ors.api.requests.routing.RouteRequestOptions;
+import org.heigit.ors.api.util.RequestCoalescer;
 import org.heigit.ors.common.DistanceUnit;
+import org.heigit.ors.common.RequestKeyBuilder;
 import org.heigit.ors.common.StatusCode;
 import org.heigit.ors.common.TravelRangeType;
 import org.heigit.ors.common.TravellerInfo;
@@ -17,6 +19,7 @@ import org.heigit.ors.isochrones.*;
 import org.heigit.ors.isochrones.statistics.StatisticsProviderConfiguration;
 import org.heigit.ors.routing.APIEnums;
 import org.heigit.ors.routing.RouteSearchParameters;
+import org.heigit.ors.routing.RoutingProfile;
 import org.heigit.ors.routing.RoutingProfileManager;
 import org.heigit.ors.routing.RoutingProfileType;
 import org.heigit.ors.util.DistanceUnitUtil;
@@ -24,6 +27,7 @@ import org.locationtech.jts.geom.Coordinate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -37,10 +41,12 @@ import static org.heigit.ors.common.TravelRangeType.DISTANCE;
 
 @Service
 public class IsochronesService extends ApiService {
+    private final RequestCoalescer<IsochroneMapCollection> coalescer;
 
     @Autowired
     public IsochronesService(EndpointsProperties endpointsProperties) {
         this.endpointsProperties = endpointsProperties;
+        this.coalescer = createCoalescer("isochrones");
     }
 
     public void generateIsochronesFromRequest(IsochronesRequest isochronesRequest) throws Exception {
@@ -52,15 +58,40 @@ public class IsochronesService extends ApiService {
         validateAgainstConfig(isochronesRequest.getIsochroneRequest(), travellers);
 
         if (!travellers.isEmpty()) {
-            isochronesRequest.setIsoMaps(new IsochroneMapCollection());
+            // the search parameters are created only once, as creating them converts the ranges of the travellers
+            List<IsochroneSearchParameters> searchParameters = new ArrayList<>(travellers.size());
+            for (int i = 0; i < travellers.size(); ++i)
+                searchParameters.add(isochronesRequest.getIsochroneRequest().getSearchParameters(i));
+
+            if (coalescer == null)
+                isochronesRequest.setIsoMaps(buildIsochrones(searchParameters));
+            else
+                isochronesRequest.setIsoMaps(coalescer.execute(createKey(searchParameters), () -> buildIsochrones(searchParameters)));
+        }
+    }
 
-            for (int i = 0; i < travellers.size(); ++i) {
-                IsochroneSearchParameters searchParams = isochronesRequest.getIsochroneRequest().getSearchParameters(i);
-                IsochroneMap isochroneMap = RoutingProfileManager.getInstance().buildIsochrone(searchParams);
-                isochronesRequest.getIsoMaps().add(isochroneMap);
-            }
+    private static IsochroneMapCollection buildIsochrones(List<IsochroneSearchParameters> searchParameters) throws Exception {
+        IsochroneMapCollection isoMaps = new IsochroneMapCollection();
+        for (IsochroneMap isochroneMap : RoutingProfileManager.getInstance().buildIsochrones(searchParameters))
+            isoMaps.add(isochroneMap);
+        return isoMaps;
+    }
 
+    private static String createKey(List<IsochroneSearchParameters> searchParameters) {
+        RequestKeyBuilder key = new RequestKeyBuilder();
+        for (IsochroneSearchParameters searchParams : searchParameters) {
+            key.add(searchParams.getLocation())
+                    .add(searchParams.getReverseDirection())
+                    .add(searchParams.getRangeType())
+                    .add(searchParams.getRanges())
+                    .add(searchParams.getCalcMethod())
+                    .add(searchParams.getSmoothingFactor())
+                    .add(searchParams.getAttributes())
+                    .add(searchParams.getUnits())
+                    .add(searchParams.getAreaUnits())
+                    .add(searchParams.getRouteParameters());
         }
+        return key.build();
     }
 
     Float convertSmoothing(Double smoothingValue) throws ParameterValueException {
@@ -297,7 +328,12 @@ public class IsochronesService extends ApiService {
         Integer res;
 
         RoutingProfileManager rpm = RoutingProfileManager.getInstance();
-        FastIsochroneFactory fastIsochroneFactory = rpm.getProfiles().getRouteProfile(profileType).getGraphhopper().getFastIsochroneFactory();
+        RoutingProfile profile = rpm.getProfiles().getRouteProfile(profileType);
+        // the isochrone method of the profile replaces the default method of requests without options, so
+        // e.g. phast and raster isochrones are limited like concaveballs isochrones
+        if (calcMethod.equalsIgnoreCase("fastisochrone") && profile.getIsochroneMethod() != null)
+            calcMethod = profile.getIsochroneMethod();
+        FastIsochroneFactory fastIsochroneFactory = profile.getGraphhopper().getFastIsochroneFactory();
         if (fastIsochroneFactory.isEnabled() && calcMethod.equalsIgnoreCase("fastisochrone"))
             return getMaximumRangeFastIsochrone(traveller, isochroneRequest);
 
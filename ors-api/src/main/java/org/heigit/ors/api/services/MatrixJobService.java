@@ -0,0 +1,92 @@
+package org.heigit.ors.api.services;
+
+import org.heigit.ors.api.EndpointsProperties;
+import org.heigit.ors.api.requests.matrix.MatrixRequest;
+import org.heigit.ors.common.StatusCode;
+import org.heigit.ors.exceptions.ServerLimitExceededException;
+import org.heigit.ors.exceptions.StatusCodeException;
+import org.heigit.ors.matrix.MatrixErrorCodes;
+import org.heigit.ors.matrix.jobs.MatrixJob;
+import org.heigit.ors.matrix.jobs.MatrixJobManager;
+import org.heigit.ors.routing.RoutingProfileManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Submits large matrix requests as background {@link MatrixJob}s and gives access to their results.
+ */
+@Service
+public class MatrixJobService extends ApiService implements DisposableBean {
+    private final MatrixService matrixService;
+    private MatrixJobManager jobManager;
+
+    @Autowired
+    public MatrixJobService(EndpointsProperties endpointsProperties, MatrixService matrixService) {
+        this.endpointsProperties = endpointsProperties;
+        this.matrixService = matrixService;
+    }
+
+    private EndpointsProperties.EndpointMatrixJobsProperties getJobsProperties() {
+        return endpointsProperties.getMatrix().getJobs();
+    }
+
+    private synchronized MatrixJobManager getJobManager() throws StatusCodeException {
+        if (!getJobsProperties().isEnabled())
+            throw new StatusCodeException(StatusCode.SERVICE_UNAVAILABLE, MatrixErrorCodes.JOBS_UNAVAILABLE, "Matrix jobs are not enabled.");
+        if (jobManager == null) {
+            EndpointsProperties.EndpointMatrixJobsProperties properties = getJobsProperties();
+            try {
+                jobManager = new MatrixJobManager(RoutingProfileManager.getInstance()::computeMatrix,
+                        Paths.get(properties.getResultDirectory()), properties.getTileSize(), properties.getThreads(),
+                        properties.getMaximumJobs(), properties.getRetentionTime() * 1000);
+            } catch (IOException e) {
+                throw new StatusCodeException(StatusCode.INTERNAL_SERVER_ERROR, MatrixErrorCodes.UNKNOWN, "Unable to create the matrix job directory.");
+            }
+        }
+        return jobManager;
+    }
+
+    public int getTileSize() throws StatusCodeException {
+        return getJobManager().getTileSize();
+    }
+
+    public MatrixJob submitJob(MatrixRequest matrixRequest) throws StatusCodeException {
+        MatrixJobManager manager = getJobManager();
+        int maximumLocations = getJobsProperties().getMaximumLocations();
+        org.heigit.ors.matrix.MatrixRequest coreRequest = matrixService.convertMatrixRequest(matrixRequest, (long) maximumLocations * maximumLocations);
+        if (coreRequest.getSources().length > maximumLocations || coreRequest.getDestinations().length > maximumLocations)
+            throw new ServerLimitExceededException(MatrixErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM, "Only " + maximumLocations + " sources and destinations are allowed.");
+
+        try {
+            return manager.submit(coreRequest);
+        } catch (RejectedExecutionException e) {
+            throw new StatusCodeException(StatusCode.SERVICE_UNAVAILABLE, MatrixErrorCodes.JOBS_UNAVAILABLE, e.getMessage());
+        } catch (IOException e) {
+            throw new StatusCodeException(StatusCode.INTERNAL_SERVER_ERROR, MatrixErrorCodes.UNKNOWN, "Unable to create the matrix job result file.");
+        }
+    }
+
+    public MatrixJob getJob(String jobId) throws StatusCodeException {
+        MatrixJob job = getJobManager().getJob(jobId);
+        if (job == null)
+            throw new StatusCodeException(StatusCode.NOT_FOUND, MatrixErrorCodes.JOB_NOT_FOUND, "Matrix job " + jobId + " does not exist or has expired.");
+        return job;
+    }
+
+    public MatrixJob removeJob(String jobId) throws StatusCodeException {
+        MatrixJob job = getJob(jobId);
+        getJobManager().removeJob(jobId);
+        return job;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (jobManager != null)
+            jobManager.close();
+    }
+}
@@ -4,6 +4,8 @@ import org.heigit.ors.api.EndpointsProperties;
 import org.heigit.ors.api.requests.matrix.MatrixRequest;
 import org.heigit.ors.api.requests.matrix.MatrixRequestEnums;
 import org.heigit.ors.api.requests.routing.RouteRequest;
+import org.heigit.ors.api.util.RequestCoalescer;
+import org.heigit.ors.common.RequestKeyBuilder;
 import org.heigit.ors.exceptions.ParameterValueException;
 import org.heigit.ors.exceptions.ServerLimitExceededException;
 import org.heigit.ors.exceptions.StatusCodeException;
@@ -26,17 +28,21 @@ import static org.heigit.ors.api.requests.matrix.MatrixRequest.isFlexibleMode;
 
 @Service
 public class MatrixService extends ApiService {
+    private final RequestCoalescer<MatrixResult> coalescer;
 
     @Autowired
     public MatrixService(EndpointsProperties endpointsProperties) {
         this.endpointsProperties = endpointsProperties;
+        this.coalescer = createCoalescer("matrix");
     }
 
     public MatrixResult generateMatrixFromRequest(MatrixRequest matrixRequest) throws StatusCodeException {
         org.heigit.ors.matrix.MatrixRequest coreRequest = this.convertMatrixRequest(matrixRequest);
 
         try {
-            return RoutingProfileManager.getInstance().computeMatrix(coreRequest);
+            if (coalescer == null)
+                return RoutingProfileManager.getInstance().computeMatrix(coreRequest);
+            return coalescer.execute(createKey(coreRequest), () -> RoutingProfileManager.getInstance().computeMatrix(coreRequest));
         } catch (StatusCodeException e) {
             throw e;
         } catch (Exception e) {
@@ -44,7 +50,32 @@ public class MatrixService extends ApiService {
         }
     }
 
+    private static String createKey(org.heigit.ors.matrix.MatrixRequest coreRequest) {
+        return new RequestKeyBuilder()
+                .add(coreRequest.getSources())
+                .add(coreRequest.getDestinations())
+                .add(coreRequest.getProfileType())
+                .add(coreRequest.getMetrics())
+                .add(coreRequest.getWeightingMethod())
+                .add(coreRequest.getUnits())
+                .add(coreRequest.getResolveLocations())
+                .add(coreRequest.getFlexibleMode())
+                .add(coreRequest.getAlgorithm())
+                .add(coreRequest.getMaximumSearchRadius())
+                .add(coreRequest.getMaximumVisitedNodes())
+                .add(coreRequest.hasInfiniteUTurnCosts())
+                .add(coreRequest.getSearchParameters())
+                .build();
+    }
+
     public org.heigit.ors.matrix.MatrixRequest convertMatrixRequest(MatrixRequest matrixRequest) throws StatusCodeException {
+        return convertMatrixRequest(matrixRequest, endpointsProperties.getMatrix().getMaximumRoutes(false));
+    }
+
+    /**
+     * Converts the request, allowing up to maximumRoutes source/destination pairs.
+     */
+    public org.heigit.ors.matrix.MatrixRequest convertMatrixRequest(MatrixRequest matrixRequest, long maximumRoutes) throws StatusCodeException {
         org.heigit.ors.matrix.MatrixRequest coreRequest = new org.heigit.ors.matrix.MatrixRequest(
                 endpointsProperties.getMatrix().getMaximumSearchRadius(),
                 endpointsProperties.getMatrix().getMaximumVisitedNodes(),
@@ -52,7 +83,7 @@ public class MatrixService extends ApiService {
 
         int numberOfSources = matrixRequest.getSources() == null ? matrixRequest.getLocations().size() : matrixRequest.getSources().length;
         int numberODestinations = matrixRequest.getDestinations() == null ? matrixRequest.getLocations().size() : matrixRequest.getDestinations().length;
-        Coordinate[] locations = convertLocations(matrixRequest.getLocations(), numberOfSources * numberODestinations, endpointsProperties);
+        Coordinate[] locations = convertLocations(matrixRequest.getLocations(), (long) numberOfSources * numberODestinations, maximumRoutes);
 
         coreRequest.setProfileType(convertToMatrixProfileType(matrixRequest.getProfile()));
 
@@ -118,9 +149,12 @@ public class MatrixService extends ApiService {
     }
 
     protected Coordinate[] convertLocations(List<List<Double>> locations, int numberOfRoutes, EndpointsProperties endpointsProperties) throws ParameterValueException, ServerLimitExceededException {
+        return convertLocations(locations, numberOfRoutes, endpointsProperties.getMatrix().getMaximumRoutes(false));
+    }
+
+    protected Coordinate[] convertLocations(List<List<Double>> locations, long numberOfRoutes, long maximumNumberOfRoutes) throws ParameterValueException, ServerLimitExceededException {
         if (locations == null || locations.size() < 2)
             throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_VALUE, MatrixRequest.PARAM_LOCATIONS);
-        int maximumNumberOfRoutes = endpointsProperties.getMatrix().getMaximumRoutes(false);
         if (numberOfRoutes > maximumNumberOfRoutes)
             throw new ServerLimitExceededException(MatrixErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM, "Only a total of " + maximumNumberOfRoutes + " routes are allowed.");
         ArrayList<Coordinate> locationCoordinates = new ArrayList<>();
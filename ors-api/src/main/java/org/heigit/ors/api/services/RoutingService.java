@@ -1,28 +1,39 @@
 package org.heigit.ors.api.services;
 
 import org.heigit.ors.api.EndpointsProperties;
+import org.heigit.ors.api.requests.routing.RouteBatchRequest;
 import org.heigit.ors.api.requests.routing.RouteRequest;
 import org.heigit.ors.api.requests.routing.RouteRequestRoundTripOptions;
+import org.heigit.ors.api.util.RequestCoalescer;
+import org.heigit.ors.common.RequestKeyBuilder;
 import org.heigit.ors.common.StatusCode;
 import org.heigit.ors.exceptions.*;
 import org.heigit.ors.localization.LocalizationManager;
 import org.heigit.ors.routing.*;
 import org.locationtech.jts.geom.Coordinate;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.stream.Stream;
 
 
 @Service
-public class RoutingService extends ApiService {
+public class RoutingService extends ApiService implements DisposableBean {
+    private final RequestCoalescer<RouteResult[]> coalescer;
+    private ExecutorService batchExecutor;
 
     @Autowired
     public RoutingService(EndpointsProperties endpointsProperties) {
         this.endpointsProperties = endpointsProperties;
+        this.coalescer = createCoalescer("routing");
     }
 
     @Override
@@ -39,7 +50,7 @@ public class RoutingService extends ApiService {
         RoutingRequest routingRequest = this.convertRouteRequest(request);
 
         try {
-            return RoutingProfileManager.getInstance().computeRoute(routingRequest);
+            return computeRoute(routingRequest);
         } catch (StatusCodeException e) {
             throw e;
         } catch (Exception e) {
@@ -47,6 +58,86 @@ public class RoutingService extends ApiService {
         }
     }
 
+    private RouteResult[] computeRoute(RoutingRequest routingRequest) throws Exception {
+        if (coalescer == null)
+            return RoutingProfileManager.getInstance().computeRoute(routingRequest);
+        String key = new RequestKeyBuilder()
+                .add(routingRequest.getCoordinates())
+                .addOutputOptions(routingRequest)
+                .add(routingRequest.getSearchParameters())
+                .build();
+        return coalescer.execute(key, () -> RoutingProfileManager.getInstance().computeRoute(routingRequest));
+    }
+
+    /**
+     * Converts the options which are shared by all routes of a batch. The coordinates of the returned request are
+     * those of the first pair.
+     */
+    public RoutingRequest convertRouteBatchRequest(RouteBatchRequest request) throws StatusCodeException {
+        EndpointsProperties.EndpointRoutingBatchProperties batchProperties = endpointsProperties.getRouting().getBatch();
+        if (!batchProperties.isEnabled())
+            throw new StatusCodeException(StatusCode.SERVICE_UNAVAILABLE, RoutingErrorCodes.BATCH_UNAVAILABLE, "Batch routing is not enabled.");
+        if (request.getPairs() == null || request.getPairs().isEmpty())
+            throw new EmptyElementException(RoutingErrorCodes.EMPTY_ELEMENT, RouteBatchRequest.PARAM_PAIRS);
+        if (request.getPairs().size() > batchProperties.getMaximumPairs())
+            throw new ServerLimitExceededException(RoutingErrorCodes.REQUEST_EXCEEDS_SERVER_LIMIT, "Only " + batchProperties.getMaximumPairs() + " pairs are allowed in a batch.");
+        if (request.hasAlternativeRoutes())
+            throw new IncompatibleParameterException(RoutingErrorCodes.INCOMPATIBLE_PARAMETERS, RouteRequest.PARAM_ALTERNATIVE_ROUTES, "*", RouteBatchRequest.PARAM_PAIRS, "*");
+
+        RoutingRequest routingRequest = convertRouteRequest(request);
+        if (request.hasSummaryOnly() && request.getSummaryOnly()) {
+            routingRequest.setIncludeGeometry(false);
+            routingRequest.setIncludeInstructions(false);
+        }
+        return routingRequest;
+    }
+
+    public List<Coordinate[]> convertRouteBatchPairs(RouteBatchRequest request) throws ParameterValueException {
+        List<Coordinate[]> pairs = new ArrayList<>(request.getPairs().size());
+        for (List<List<Double>> pair : request.getPairs()) {
+            if (pair == null || pair.size() != 2)
+                throw new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_VALUE, RouteBatchRequest.PARAM_PAIRS, String.valueOf(pair), "Each pair must consist of exactly two coordinates.");
+            pairs.add(convertCoordinates(pair, false));
+        }
+        return pairs;
+    }
+
+    /**
+     * Computes the routes of a batch on the batch pool and passes each result to the handler as soon as it is
+     * available.
+     */
+    public void computeRouteBatch(RoutingRequest routingRequest, List<Coordinate[]> pairs, RouteBatchHandler handler) throws IOException {
+        try {
+            RoutingProfileManager.getInstance().computeRouteBatch(routingRequest, pairs, getBatchExecutor(), handler);
+        } catch (IOException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch routing has been interrupted.", e);
+        } catch (Exception e) {
+            throw new IOException("Unable to compute the batch.", e);
+        }
+    }
+
+    private synchronized ExecutorService getBatchExecutor() {
+        if (batchExecutor == null) {
+            ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+            batchExecutor = Executors.newFixedThreadPool(Math.max(1, endpointsProperties.getRouting().getBatch().getThreads()), runnable -> {
+                Thread thread = defaultFactory.newThread(runnable);
+                thread.setName("ors-batch-" + thread.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return batchExecutor;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (batchExecutor != null)
+            batchExecutor.shutdownNow();
+    }
+
     public RoutingRequest convertRouteRequest(RouteRequest request) throws StatusCodeException {
         RoutingRequest routingRequest = new RoutingRequest();
         boolean isRoundTrip = request.hasRouteOptions() && request.getRouteOptions().hasRoundTripOptions();
@@ -0,0 +1,151 @@
+package org.heigit.ors.api.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.log4j.Logger;
+import org.heigit.ors.api.EndpointsProperties;
+import org.heigit.ors.api.requests.speeds.SpeedsRequest;
+import org.heigit.ors.common.StatusCode;
+import org.heigit.ors.exceptions.*;
+import org.heigit.ors.routing.*;
+import org.heigit.ors.routing.graphhopper.extensions.ORSSpeedUpdate;
+import org.heigit.ors.routing.graphhopper.extensions.storages.SpeedStorage;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies live speed updates to the {@link SpeedStorage} of the profile graphs. The updates are either posted to the
+ * speeds endpoint or dropped as JSON files into the watch directory. Expired speeds are removed periodically.
+ */
+@Service
+public class SpeedsService extends ApiService implements InitializingBean, DisposableBean {
+    private static final Logger LOGGER = Logger.getLogger(SpeedsService.class.getName());
+    private static final String AUTHORIZATION_SCHEME = "Bearer ";
+
+    private final ObjectMapper objectMapper;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public SpeedsService(EndpointsProperties endpointsProperties, ObjectMapper objectMapper) {
+        this.endpointsProperties = endpointsProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    private EndpointsProperties.EndpointSpeedsProperties getSpeedsProperties() {
+        return endpointsProperties.getSpeeds();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        EndpointsProperties.EndpointSpeedsProperties properties = getSpeedsProperties();
+        if (!properties.isEnabled())
+            return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ors-speeds");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::expireSpeeds, properties.getExpiryInterval(), properties.getExpiryInterval(), TimeUnit.SECONDS);
+        if (properties.getWatchDirectory() != null && !properties.getWatchDirectory().isEmpty())
+            scheduler.scheduleWithFixedDelay(this::processWatchDirectory, properties.getWatchInterval(), properties.getWatchInterval(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Checks the value of the Authorization header against the configured key.
+     */
+    public void checkAuthorization(String authorization) throws StatusCodeException {
+        String apiKey = getSpeedsProperties().getApiKey();
+        if (!getSpeedsProperties().isEnabled() || apiKey == null || apiKey.isEmpty())
+            throw new StatusCodeException(StatusCode.SERVICE_UNAVAILABLE, RoutingErrorCodes.SPEEDS_UNAVAILABLE, "Live speed updates are not enabled.");
+        byte[] expected = (AUTHORIZATION_SCHEME + apiKey).getBytes(StandardCharsets.UTF_8);
+        if (authorization == null || !MessageDigest.isEqual(expected, authorization.getBytes(StandardCharsets.UTF_8)))
+            throw new StatusCodeException(StatusCode.UNAUTHORIZED, RoutingErrorCodes.SPEEDS_UNAUTHORIZED, "Missing or invalid key for live speed updates.");
+    }
+
+    public SpeedStorage.UpdateResult applyUpdates(SpeedsRequest request) throws StatusCodeException {
+        List<SpeedsRequest.SpeedUpdate> updates = request.getUpdates();
+        if (updates == null || updates.isEmpty())
+            throw new EmptyElementException(RoutingErrorCodes.EMPTY_ELEMENT, "No speed updates have been specified.");
+        int maximumUpdates = getSpeedsProperties().getMaximumUpdates();
+        if (updates.size() > maximumUpdates)
+            throw new ServerLimitExceededException(RoutingErrorCodes.REQUEST_EXCEEDS_SERVER_LIMIT, "Only " + maximumUpdates + " speed updates are allowed per request.");
+
+        RoutingProfile profile = getProfile(request.getProfile());
+        List<ORSSpeedUpdate> speedUpdates = new ArrayList<>(updates.size());
+        for (SpeedsRequest.SpeedUpdate update : updates)
+            speedUpdates.add(update.toSpeedUpdate());
+        return profile.applySpeedUpdates(speedUpdates);
+    }
+
+    private RoutingProfile getProfile(APIEnums.Profile profile) throws StatusCodeException {
+        if (profile == null)
+            throw new MissingParameterException(RoutingErrorCodes.MISSING_PARAMETER, SpeedsRequest.PARAM_PROFILE);
+        if (!RoutingProfileManagerStatus.isReady())
+            throw new StatusCodeException(StatusCode.SERVICE_UNAVAILABLE, RoutingErrorCodes.UNKNOWN, "The profiles have not been loaded yet.");
+        RoutingProfile routingProfile = RoutingProfileManager.getInstance().getProfiles().getRouteProfile(convertRouteProfileType(profile));
+        if (routingProfile == null || !routingProfile.hasSpeedStorage())
+            throw new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_VALUE, SpeedsRequest.PARAM_PROFILE, profile.toString(),
+                    "The profile does not exist or has no Speed storage.");
+        return routingProfile;
+    }
+
+    private void expireSpeeds() {
+        if (!RoutingProfileManagerStatus.isReady())
+            return;
+        try {
+            for (RoutingProfile profile : RoutingProfileManager.getInstance().getProfiles().getUniqueProfiles()) {
+                if (profile.hasSpeedStorage())
+                    profile.applySpeedUpdates(Collections.emptyList());
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to remove expired speeds: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies the updates of every *.json file in the watch directory and deletes the file afterwards. Files which
+     * can not be applied are renamed to *.json.failed. To avoid reading incomplete files, they should be written under
+     * a different name and renamed when they are complete.
+     */
+    private void processWatchDirectory() {
+        Path directory = Paths.get(getSpeedsProperties().getWatchDirectory());
+        if (!RoutingProfileManagerStatus.isReady() || !Files.isDirectory(directory))
+            return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files)
+                processFile(file);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Unable to read speed updates from %s: %s".formatted(directory, e.getMessage()));
+        }
+    }
+
+    private void processFile(Path file) throws IOException {
+        try {
+            SpeedsRequest request = objectMapper.readValue(file.toFile(), SpeedsRequest.class);
+            SpeedStorage.UpdateResult result = applyUpdates(request);
+            LOGGER.info("Applied %d speed updates from %s, %d rejected, %d expired".formatted(result.applied(), file.getFileName(), result.rejected(), result.expired()));
+            Files.delete(file);
+        } catch (IOException | StatusCodeException e) {
+            LOGGER.warn("Unable to apply speed updates from %s: %s".formatted(file.getFileName(), e.getMessage()));
+            Files.move(file, file.resolveSibling(file.getFileName() + ".failed"), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,120 @@
+package org.heigit.ors.api.util;
+
+import io.micrometer.core.instrument.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets concurrent identical requests share a single computation. The first request for a key computes the result,
+ * requests with the same key which arrive while it is running wait for its result or error instead of computing it
+ * again.
+ * <p>
+ * The number of computations which can be joined is bounded; if it is reached, new requests are computed on their
+ * own. Waiting requests compute the result themselves if the running computation takes longer than the timeout or is
+ * aborted. Results are shared between requests and must therefore not be modified.
+ */
+public class RequestCoalescer<V> {
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final int maximumRequests;
+    private final long timeoutMillis;
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong followers = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+
+    /**
+     * @param maximumRequests maximum number of distinct computations which can be joined at the same time
+     * @param timeout         time in seconds a request waits for the result of an identical one
+     */
+    public RequestCoalescer(int maximumRequests, long timeout) {
+        this.maximumRequests = maximumRequests;
+        this.timeoutMillis = timeout * 1000;
+    }
+
+    /**
+     * Returns the result of the computation for the key, joining a running computation with the same key if there is
+     * one.
+     */
+    public V execute(String key, Callable<V> computation) throws Exception {
+        CompletableFuture<V> running = inFlight.get(key);
+        if (running == null) {
+            if (inFlight.size() >= maximumRequests) {
+                bypassed.incrementAndGet();
+                return computation.call();
+            }
+            CompletableFuture<V> future = new CompletableFuture<>();
+            running = inFlight.putIfAbsent(key, future);
+            if (running == null)
+                return lead(key, future, computation);
+        }
+        return follow(running, computation);
+    }
+
+    private V lead(String key, CompletableFuture<V> future, Callable<V> computation) throws Exception {
+        leaders.incrementAndGet();
+        try {
+            V result = computation.call();
+            future.complete(result);
+            return result;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            // lets waiting requests compute on their own if the computation failed with an error
+            future.cancel(false);
+            inFlight.remove(key, future);
+        }
+    }
+
+    private V follow(CompletableFuture<V> running, Callable<V> computation) throws Exception {
+        try {
+            V result = running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            followers.incrementAndGet();
+            return result;
+        } catch (TimeoutException e) {
+            timeouts.incrementAndGet();
+        } catch (CancellationException e) {
+            bypassed.incrementAndGet();
+        } catch (ExecutionException e) {
+            followers.incrementAndGet();
+            if (e.getCause() instanceof Exception cause)
+                throw cause;
+            throw e;
+        }
+        return computation.call();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    public long getLeaders() {
+        return leaders.get();
+    }
+
+    public long getFollowers() {
+        return followers.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    public long getBypassed() {
+        return bypassed.get();
+    }
+
+    /**
+     * Registers counters of the computed, joined, timed out and uncoalesced requests as well as the number of running
+     * computations with the given registry.
+     */
+    public void bindTo(MeterRegistry registry, String service) {
+        Tags tags = Tags.of("service", service);
+        FunctionCounter.builder("ors.coalescing.leaders", this, RequestCoalescer::getLeaders).tags(tags).register(registry);
+        FunctionCounter.builder("ors.coalescing.followers", this, RequestCoalescer::getFollowers).tags(tags).register(registry);
+        FunctionCounter.builder("ors.coalescing.timeouts", this, RequestCoalescer::getTimeouts).tags(tags).register(registry);
+        FunctionCounter.builder("ors.coalescing.bypassed", this, RequestCoalescer::getBypassed).tags(tags).register(registry);
+        Gauge.builder("ors.coalescing.in_flight", this, RequestCoalescer::getInFlight).tags(tags).register(registry);
+    }
+}
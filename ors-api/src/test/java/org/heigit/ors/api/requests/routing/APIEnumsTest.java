@@ -63,6 +63,7 @@ class APIEnumsTest {
     @Test
     void testMatrixResponseTypeEnumCreation() throws ParameterValueException {
         assertEquals(APIEnums.MatrixResponseType.JSON, APIEnums.MatrixResponseType.forValue("json"));
+        assertEquals(APIEnums.MatrixResponseType.BINARY, APIEnums.MatrixResponseType.forValue("binary"));
         assertThrows(ParameterValueException.class, () -> APIEnums.MatrixResponseType.forValue("invalid"));
     }
 
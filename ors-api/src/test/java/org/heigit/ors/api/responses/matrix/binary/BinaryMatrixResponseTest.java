@@ -0,0 +1,150 @@
+package org.heigit.ors.api.responses.matrix.binary;
+
+import org.heigit.ors.api.EndpointsProperties;
+import org.heigit.ors.api.SystemMessageProperties;
+import org.heigit.ors.api.requests.matrix.MatrixRequest;
+import org.heigit.ors.api.requests.matrix.MatrixRequestEnums;
+import org.heigit.ors.exceptions.StatusCodeException;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.ResolvedLocation;
+import org.heigit.ors.routing.APIEnums;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("unittest")
+class BinaryMatrixResponseTest {
+    private final Double[][] bareCoordinates = new Double[][]{{8.681495, 49.41461}, {8.686507, 49.41943}, {8.687872, 49.420318}};
+    private final float[] durations = new float[]{0, 1.5f, -1, 3, 0, 5.25f};
+    private final float[] distances = new float[]{0, 10.125f, -1, 30, 0, 50};
+    private MatrixResult matrixResult;
+    private MatrixRequest matrixRequest;
+    @Autowired
+    private final SystemMessageProperties systemMessageProperties = new SystemMessageProperties();
+    @Autowired
+    private final EndpointsProperties endpointsProperties = new EndpointsProperties();
+
+    @BeforeEach
+    void setUp() throws StatusCodeException {
+        ResolvedLocation[] sources = new ResolvedLocation[]{
+                new ResolvedLocation(new Coordinate(8.681495, 49.41461), "foo", 1.234),
+                null
+        };
+        ResolvedLocation[] destinations = new ResolvedLocation[]{
+                new ResolvedLocation(new Coordinate(8.681495, 49.41461), "foo", 0.0),
+                new ResolvedLocation(new Coordinate(8.686507, 49.41943), "foo", 0.0),
+                new ResolvedLocation(new Coordinate(8.687872, 49.420318), "foo", 12.5)
+        };
+        matrixResult = new MatrixResult(sources, destinations);
+        matrixResult.setTable(MatrixMetricsType.DURATION, durations);
+        matrixResult.setTable(MatrixMetricsType.DISTANCE, distances);
+
+        matrixRequest = new MatrixRequest(bareCoordinates, endpointsProperties);
+        matrixRequest.setProfile(APIEnums.Profile.DRIVING_CAR);
+        matrixRequest.setMetrics(new MatrixRequestEnums.Metrics[]{MatrixRequestEnums.Metrics.DISTANCE, MatrixRequestEnums.Metrics.DURATION});
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        BinaryMatrixResponse response = new BinaryMatrixResponse(matrixResult, matrixRequest, systemMessageProperties, endpointsProperties);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.writeTo(out);
+        byte[] bytes = out.toByteArray();
+        assertEquals(response.getContentLength(), bytes.length);
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = new byte[4];
+        buffer.get(magic);
+        assertArrayEquals(BinaryMatrixResponse.MAGIC, magic);
+        assertEquals(BinaryMatrixResponse.VERSION, buffer.getInt());
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+        assertEquals(2, rows);
+        assertEquals(3, columns);
+        assertEquals(MatrixMetricsType.DURATION | MatrixMetricsType.DISTANCE, buffer.getInt());
+        assertEquals(5 * BinaryMatrixResponse.LOCATION_SIZE, buffer.getInt());
+        assertEquals(BinaryMatrixResponse.HEADER_SIZE, buffer.position());
+
+        assertTableEquals(durations, buffer, rows * columns);
+        assertTableEquals(distances, buffer, rows * columns);
+
+        assertEquals(8681495, buffer.getInt());
+        assertEquals(49414610, buffer.getInt());
+        assertEquals(123, buffer.getInt());
+        for (int i = 0; i < 3; i++)
+            assertEquals(BinaryMatrixResponse.NO_LOCATION, buffer.getInt());
+        assertEquals(8681495, buffer.getInt());
+        assertEquals(49414610, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertEquals(8686507, buffer.getInt());
+        assertEquals(49419430, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertEquals(8687872, buffer.getInt());
+        assertEquals(49420318, buffer.getInt());
+        assertEquals(1250, buffer.getInt());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void writesOnlyRequestedTables() throws IOException {
+        matrixResult.setTable(MatrixMetricsType.DURATION, null);
+        BinaryMatrixResponse response = new BinaryMatrixResponse(matrixResult, matrixRequest, systemMessageProperties, endpointsProperties);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.writeTo(out);
+
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(MatrixMetricsType.DISTANCE, buffer.getInt(16));
+        buffer.position(BinaryMatrixResponse.HEADER_SIZE);
+        assertTableEquals(distances, buffer, 6);
+        assertEquals(5 * BinaryMatrixResponse.LOCATION_SIZE, buffer.remaining());
+    }
+
+    @Test
+    void largeMatrixSpansSeveralBuffers() throws IOException {
+        int size = 300;
+        float[] table = new float[size * size];
+        for (int i = 0; i < table.length; i++)
+            table[i] = i * 0.5f;
+        ResolvedLocation[] locations = new ResolvedLocation[size];
+        for (int i = 0; i < size; i++)
+            locations[i] = new ResolvedLocation(new Coordinate(8 + i * 1e-4, 49), "foo", 0.0);
+        MatrixResult result = new MatrixResult(locations, locations);
+        result.setTable(MatrixMetricsType.DURATION, table);
+
+        BinaryMatrixResponse response = new BinaryMatrixResponse(result, matrixRequest, systemMessageProperties, endpointsProperties);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.writeTo(out);
+        assertEquals(response.getContentLength(), out.size());
+
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(BinaryMatrixResponse.HEADER_SIZE);
+        assertTableEquals(table, buffer, table.length);
+        for (int i = 0; i < 2 * size; i++) {
+            assertEquals(8000000 + (i % size) * 100, buffer.getInt());
+            assertEquals(49000000, buffer.getInt());
+            assertEquals(0, buffer.getInt());
+        }
+    }
+
+    private static void assertTableEquals(float[] expected, ByteBuffer buffer, int cells) {
+        for (int i = 0; i < cells; i++) {
+            float value = buffer.getFloat();
+            if (expected[i] == -1)
+                assertTrue(Float.isNaN(value));
+            else
+                assertEquals(expected[i], value);
+        }
+    }
+}
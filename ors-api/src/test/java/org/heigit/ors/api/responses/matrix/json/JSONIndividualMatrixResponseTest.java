@@ -96,33 +96,33 @@ class JSONIndividualMatrixResponseTest {
     @Test
     void getDistances() {
         assertNull(durationsMatrixResponse.getDistances());
-        assertArrayEquals(new Double[]{0.0, 1.0, 2.0}, distancesMatrixResponse.getDistances()[0]);
+        assertArrayEquals(new Double[]{0.0, 1.0, 2.0}, distancesMatrixResponse.getDistances().getRow(0));
 
-        assertArrayEquals(new Double[]{3.0, 4.0, 5.0}, combinedMatrixResponse.getDistances()[1]);
+        assertArrayEquals(new Double[]{3.0, 4.0, 5.0}, combinedMatrixResponse.getDistances().getRow(1));
     }
 
     @Test
     void setDistances() {
-        distancesMatrixResponse.setDistances(new Double[][]{{1.0, 2.0, 3.0}, {1.0, 2.0, 3.0}, {1.0, 2.0, 3.0}});
-        assertEquals(3, distancesMatrixResponse.getDistances().length);
-        assertArrayEquals(new Double[]{1.0, 2.0, 3.0}, distancesMatrixResponse.getDistances()[0]);
+        distancesMatrixResponse.setDistances(new JSONMatrixTable(new float[]{1, 2, 3, 1, 2, 3, 1, 2, 3}, 3, 3));
+        assertEquals(3, distancesMatrixResponse.getDistances().getRowCount());
+        assertArrayEquals(new Double[]{1.0, 2.0, 3.0}, distancesMatrixResponse.getDistances().getRow(0));
         assertNull(durationsMatrixResponse.getDistances());
     }
 
     @Test
     void getDurations() {
-        assertEquals(3, durationsMatrixResponse.getDurations().length);
-        assertArrayEquals(new Double[]{0.0, 1.0, 2.0}, durationsMatrixResponse.getDurations()[0]);
+        assertEquals(3, durationsMatrixResponse.getDurations().getRowCount());
+        assertArrayEquals(new Double[]{0.0, 1.0, 2.0}, durationsMatrixResponse.getDurations().getRow(0));
         assertNull(distancesMatrixResponse.getDurations());
 
-        assertArrayEquals(new Double[]{3.0, 4.0, 5.0}, combinedMatrixResponse.getDurations()[1]);
+        assertArrayEquals(new Double[]{3.0, 4.0, 5.0}, combinedMatrixResponse.getDurations().getRow(1));
     }
 
     @Test
     void setDurations() {
-        durationsMatrixResponse.setDurations(new Double[][]{{1.0, 2.0, 3.0}, {1.0, 2.0, 3.0}, {1.0, 2.0, 3.0}});
-        assertEquals(3, durationsMatrixResponse.getDurations().length);
-        assertArrayEquals(new Double[]{1.0, 2.0, 3.0}, durationsMatrixResponse.getDurations()[0]);
+        durationsMatrixResponse.setDurations(new JSONMatrixTable(new float[]{1, 2, 3, 1, 2, 3, 1, 2, 3}, 3, 3));
+        assertEquals(3, durationsMatrixResponse.getDurations().getRowCount());
+        assertArrayEquals(new Double[]{1.0, 2.0, 3.0}, durationsMatrixResponse.getDurations().getRow(0));
         assertNull(distancesMatrixResponse.getDurations());
 
     }
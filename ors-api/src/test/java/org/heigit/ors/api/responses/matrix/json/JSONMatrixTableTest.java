@@ -0,0 +1,36 @@
+package org.heigit.ors.api.responses.matrix.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JSONMatrixTableTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void serializesRowsWithRoundingAndNulls() throws Exception {
+        JSONMatrixTable table = new JSONMatrixTable(new float[]{0, 1.2345f, -1, 25.999f, -1, 3}, 2, 3);
+        assertEquals("[[0.0,1.23,null],[26.0,null,3.0]]", mapper.writeValueAsString(table));
+    }
+
+    @Test
+    void serializationMatchesBoxedRows() throws Exception {
+        float[] values = new float[]{12.345f, 0.004f, 7, -1, 100.5f, 9.99f};
+        JSONMatrixTable table = new JSONMatrixTable(values, 3, 2);
+        Double[][] boxed = new Double[3][];
+        for (int i = 0; i < 3; i++)
+            boxed[i] = table.getRow(i);
+        assertEquals(mapper.writeValueAsString(boxed), mapper.writeValueAsString(table));
+    }
+
+    @Test
+    void emptyTable() throws Exception {
+        assertEquals("[]", mapper.writeValueAsString(new JSONMatrixTable(new float[0], 0, 0)));
+    }
+
+    @Test
+    void rejectsTooSmallTable() {
+        assertThrows(IllegalArgumentException.class, () -> new JSONMatrixTable(new float[3], 2, 2));
+    }
+}
@@ -444,6 +444,26 @@ class RoutingServiceTest {
         assertEquals(1, generatedRoutingRequest.getCoordinates().length);
     }
 
+    @Test
+    void testBatchNeedsToBeEnabled() {
+        List<List<List<Double>>> pairs = new ArrayList<>();
+        pairs.add(new ArrayList<>(Arrays.asList(Arrays.asList(8.681495, 49.41461), Arrays.asList(8.687872, 49.420318))));
+        RouteBatchRequest batchRequest = new RouteBatchRequest(pairs);
+
+        StatusCodeException exception = assertThrows(StatusCodeException.class, () -> routingService.convertRouteBatchRequest(batchRequest));
+        assertEquals(RoutingErrorCodes.BATCH_UNAVAILABLE, exception.getInternalCode());
+    }
+
+    @Test
+    void testBatchPairsNeedTwoCoordinates() {
+        List<List<List<Double>>> pairs = new ArrayList<>();
+        pairs.add(new ArrayList<>(Arrays.asList(Arrays.asList(8.681495, 49.41461), Arrays.asList(8.687872, 49.420318))));
+        pairs.add(new ArrayList<>(List.of(Arrays.asList(8.681495, 49.41461))));
+        RouteBatchRequest batchRequest = new RouteBatchRequest(pairs);
+
+        assertThrows(ParameterValueException.class, () -> routingService.convertRouteBatchPairs(batchRequest));
+    }
+
     private void checkPolygon(Polygon[] requestPolys, JSONObject apiPolys) {
         assertEquals(1, requestPolys.length);
 
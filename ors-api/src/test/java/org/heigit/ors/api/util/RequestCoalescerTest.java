@@ -0,0 +1,111 @@
+package org.heigit.ors.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+    /**
+     * Starts a request in a new thread and returns once the thread waits, either in the computation or for the result
+     * of a running computation.
+     */
+    private static Thread startRequest(RequestCoalescer<Integer> coalescer, Callable<Integer> computation, AtomicReference<Object> outcome) throws InterruptedException {
+        Thread thread = new Thread(() -> {
+            try {
+                outcome.set(coalescer.execute("a", computation));
+            } catch (Exception e) {
+                outcome.set(e);
+            }
+        });
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING && thread.isAlive())
+            Thread.sleep(1);
+        return thread;
+    }
+
+    @Test
+    void followersShareResultOfLeader() throws Exception {
+        RequestCoalescer<Integer> coalescer = new RequestCoalescer<>(10, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        AtomicReference<Object> leaderOutcome = new AtomicReference<>();
+        AtomicReference<Object> followerOutcome = new AtomicReference<>();
+
+        Thread leader = startRequest(coalescer, () -> {
+            computations.incrementAndGet();
+            release.await();
+            return 42;
+        }, leaderOutcome);
+        Thread follower = startRequest(coalescer, computations::incrementAndGet, followerOutcome);
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals(42, leaderOutcome.get());
+        assertEquals(42, followerOutcome.get());
+        assertEquals(1, computations.get());
+        assertEquals(1, coalescer.getLeaders());
+        assertEquals(1, coalescer.getFollowers());
+        assertEquals(0, coalescer.getInFlight());
+    }
+
+    @Test
+    void followersReceiveErrorOfLeader() throws Exception {
+        RequestCoalescer<Integer> coalescer = new RequestCoalescer<>(10, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Object> leaderOutcome = new AtomicReference<>();
+        AtomicReference<Object> followerOutcome = new AtomicReference<>();
+
+        Thread leader = startRequest(coalescer, () -> {
+            release.await();
+            throw new IllegalStateException("failed");
+        }, leaderOutcome);
+        Thread follower = startRequest(coalescer, () -> 1, followerOutcome);
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertInstanceOf(IllegalStateException.class, leaderOutcome.get());
+        assertSame(leaderOutcome.get(), followerOutcome.get());
+    }
+
+    @Test
+    void followersComputeOnTheirOwnAfterTimeout() throws Exception {
+        RequestCoalescer<Integer> coalescer = new RequestCoalescer<>(10, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Object> leaderOutcome = new AtomicReference<>();
+
+        Thread leader = startRequest(coalescer, () -> {
+            release.await();
+            return 42;
+        }, leaderOutcome);
+        assertEquals(1, coalescer.execute("a", () -> 1));
+        release.countDown();
+        leader.join();
+
+        assertEquals(42, leaderOutcome.get());
+        assertEquals(1, coalescer.getTimeouts());
+    }
+
+    @Test
+    void computesOnItsOwnWhenLimitIsReached() throws Exception {
+        RequestCoalescer<Integer> coalescer = new RequestCoalescer<>(0, 10);
+        assertEquals(1, coalescer.execute("a", () -> 1));
+        assertEquals(1, coalescer.getBypassed());
+        assertEquals(0, coalescer.getLeaders());
+    }
+
+    @Test
+    void doesNotKeepFinishedComputations() throws Exception {
+        RequestCoalescer<Integer> coalescer = new RequestCoalescer<>(10, 10);
+        assertEquals(1, coalescer.execute("a", () -> 1));
+        assertEquals(2, coalescer.execute("a", () -> 2));
+        assertEquals(2, coalescer.getLeaders());
+        assertEquals(0, coalescer.getInFlight());
+    }
+}
@@ -0,0 +1,79 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.GHUtility;
+
+import java.util.Random;
+
+/**
+ * Synthetic road networks for the benchmarks. They are generated from a fixed seed, so every run measures the same
+ * graph without requiring an OSM extract.
+ */
+public final class BenchmarkGraphs {
+    // spacing of the grid nodes in degrees, about 100m at the latitude of Heidelberg
+    private static final double LAT_SPACING = 0.0009;
+    private static final double LON_SPACING = 0.0014;
+    private static final double MIN_LAT = 49.35;
+    private static final double MIN_LON = 8.6;
+    private static final int[] SPEEDS = {30, 50, 50, 70, 100};
+
+    private BenchmarkGraphs() {
+    }
+
+    /**
+     * Fills the storage with a grid of size x size nodes, which is the shape of many city centers. The node positions
+     * are slightly perturbed and every edge gets the speed of a random road class. Every row is connected and one in
+     * five vertical edges is missing, except in the first column, so the graph stays connected but irregular.
+     */
+    public static GraphHopperStorage createGrid(GraphHopperStorage g, FlagEncoder encoder, int size, long seed) {
+        Random random = new Random(seed);
+        NodeAccess nodeAccess = g.getNodeAccess();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                double lat = MIN_LAT + (row + 0.3 * (random.nextDouble() - 0.5)) * LAT_SPACING;
+                double lon = MIN_LON + (col + 0.3 * (random.nextDouble() - 0.5)) * LON_SPACING;
+                nodeAccess.setNode(row * size + col, lat, lon);
+            }
+        }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int node = row * size + col;
+                if (col + 1 < size)
+                    addEdge(g, encoder, random, node, node + 1);
+                if (row + 1 < size && (col == 0 || random.nextInt(5) > 0))
+                    addEdge(g, encoder, random, node, node + size);
+            }
+        }
+        return g;
+    }
+
+    private static void addEdge(GraphHopperStorage g, FlagEncoder encoder, Random random, int from, int to) {
+        NodeAccess nodeAccess = g.getNodeAccess();
+        double distance = DistanceCalcEarth.DIST_EARTH.calcDist(nodeAccess.getLat(from), nodeAccess.getLon(from), nodeAccess.getLat(to), nodeAccess.getLon(to));
+        int speed = SPEEDS[random.nextInt(SPEEDS.length)];
+        GHUtility.setSpeed(speed, speed, encoder, g.edge(from, to).setDistance(distance));
+    }
+
+    /**
+     * @return count distinct random node ids of a graph with the given number of nodes
+     */
+    public static int[] randomNodes(int nodes, int count, long seed) {
+        return new Random(seed).ints(0, nodes).distinct().limit(count).toArray();
+    }
+}
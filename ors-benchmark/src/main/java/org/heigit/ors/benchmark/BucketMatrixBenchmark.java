@@ -0,0 +1,106 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHConfig;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.storage.RoutingCHGraph;
+import org.heigit.ors.matrix.MatrixLocations;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.ResolvedLocation;
+import org.heigit.ors.matrix.algorithms.bucket.BucketMatrixAlgorithm;
+import org.heigit.ors.matrix.algorithms.rphast.RPHASTMatrixAlgorithm;
+import org.locationtech.jts.geom.Coordinate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the bucket based many-to-many algorithm with RPHAST for square matrices, including the extraction of
+ * durations and distances. The smallest number of locations for which RPHAST is faster is the value for
+ * execution.matrix.bucket_maximum_locations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BucketMatrixBenchmark {
+    private static final long SEED = 42;
+    private static final int METRICS = MatrixMetricsType.DURATION | MatrixMetricsType.DISTANCE;
+
+    @Param({"300"})
+    public int gridSize;
+
+    @Param({"10", "20", "50", "100"})
+    public int locations;
+
+    private CarFlagEncoder encoder;
+    private RoutingCHGraph chGraph;
+    private Weighting weighting;
+    private MatrixRequest request;
+    private MatrixLocations sources;
+    private MatrixLocations destinations;
+
+    @Setup
+    public void setUp() {
+        encoder = new CarFlagEncoder();
+        EncodingManager encodingManager = EncodingManager.create(encoder);
+        weighting = new FastestWeighting(encoder);
+        CHConfig chConfig = CHConfig.nodeBased("car", weighting);
+        GraphHopperStorage g = new GraphBuilder(encodingManager).setCHConfigs(chConfig).create();
+        BenchmarkGraphs.createGrid(g, encoder, gridSize, SEED);
+        g.freeze();
+        PrepareContractionHierarchies.fromGraphHopperStorage(g, chConfig).doWork();
+        chGraph = g.getRoutingCHGraph();
+
+        request = new MatrixRequest(-1, Integer.MAX_VALUE, -1);
+        request.setMetrics(METRICS);
+        sources = createLocations(g.getNodeAccess(), BenchmarkGraphs.randomNodes(g.getNodes(), locations, SEED + 1));
+        destinations = createLocations(g.getNodeAccess(), BenchmarkGraphs.randomNodes(g.getNodes(), locations, SEED + 2));
+    }
+
+    private static MatrixLocations createLocations(NodeAccess nodeAccess, int[] nodes) {
+        MatrixLocations matrixLocations = new MatrixLocations(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            Coordinate coordinate = new Coordinate(nodeAccess.getLon(nodes[i]), nodeAccess.getLat(nodes[i]));
+            matrixLocations.setData(i, nodes[i], new ResolvedLocation(coordinate, null, 0));
+        }
+        return matrixLocations;
+    }
+
+    @Benchmark
+    public MatrixResult bucket() throws Exception {
+        BucketMatrixAlgorithm algorithm = new BucketMatrixAlgorithm();
+        algorithm.init(request, null, chGraph, encoder, weighting);
+        return algorithm.compute(sources, destinations, METRICS);
+    }
+
+    @Benchmark
+    public MatrixResult rphast() throws Exception {
+        RPHASTMatrixAlgorithm algorithm = new RPHASTMatrixAlgorithm();
+        algorithm.init(request, null, chGraph, encoder, weighting);
+        return algorithm.compute(sources, destinations, METRICS);
+    }
+}
@@ -0,0 +1,69 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import org.heigit.ors.isochrones.builders.ConcaveHull;
+import org.locationtech.jts.geom.*;
+import org.opensphere.geometry.algorithm.ConcaveHullOpenSphere;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the concave hull on triangulation arrays, which the concaveballs and fastisochrone builders use, with the
+ * object based OpenSphere hull. The points are spread over an L-shaped area of about 7 by 11 km, like the points of
+ * an isochrone along a river or coast.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcaveHullBenchmark {
+    private static final long SEED = 42;
+    private static final double THRESHOLD = 0.006;
+
+    @Param({"2000", "20000"})
+    public int points;
+
+    private GeometryCollection geometries;
+
+    @Setup
+    public void setUp() {
+        GeometryFactory geometryFactory = new GeometryFactory();
+        Random random = new Random(SEED);
+        Geometry[] geometryArray = new Geometry[points];
+        int i = 0;
+        while (i < points) {
+            double x = random.nextDouble() * 0.1;
+            double y = random.nextDouble() * 0.1;
+            if (x > 0.04 && y > 0.04)
+                continue;
+            geometryArray[i++] = geometryFactory.createPoint(new Coordinate(8.6 + x, 49.4 + y));
+        }
+        geometries = geometryFactory.createGeometryCollection(geometryArray);
+    }
+
+    @Benchmark
+    public Geometry arrays() {
+        return new ConcaveHull(geometries, THRESHOLD).getConcaveHull();
+    }
+
+    @Benchmark
+    public Geometry openSphere() {
+        return new ConcaveHullOpenSphere(geometries, THRESHOLD, false).getConcaveHull();
+    }
+}
@@ -0,0 +1,123 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntObjectMap;
+import com.graphhopper.routing.SPTEntry;
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHConfig;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import org.heigit.ors.fastisochrones.Eccentricity;
+import org.heigit.ors.fastisochrones.FastIsochroneAlgorithm;
+import org.heigit.ors.fastisochrones.partitioning.PreparePartition;
+import org.heigit.ors.routing.algorithms.DijkstraCostCondition;
+import org.heigit.ors.routing.algorithms.PHASTAlgorithm;
+import org.heigit.ors.routing.algorithms.PHASTGraph;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.EdgeFilterSequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the searches for the costs of the nodes within the range of an isochrone: the Dijkstra search of the
+ * concaveballs and raster methods, the PHAST search of the phast method and the search on the partitioned graph of
+ * the fastisochrone method. The PHAST graph and the partitions are built in the setup, as they are when a profile is
+ * loaded, and the building of the polygons is not measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IsochroneBenchmark {
+    private static final long SEED = 42;
+    private static final int START_NODES = 20;
+
+    @Param({"200"})
+    public int gridSize;
+
+    // seconds
+    @Param({"300", "900"})
+    public double range;
+
+    private Graph graph;
+    private Weighting weighting;
+    private PHASTGraph phastGraph;
+    private PreparePartition partition;
+    private Eccentricity eccentricity;
+    private int[] startNodes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        CarFlagEncoder encoder = new CarFlagEncoder();
+        EncodingManager encodingManager = EncodingManager.create(encoder);
+        weighting = new FastestWeighting(encoder);
+        CHConfig chConfig = CHConfig.nodeBased("car", weighting);
+        GraphHopperStorage g = new GraphBuilder(encodingManager).setCHConfigs(chConfig).create();
+        BenchmarkGraphs.createGrid(g, encoder, gridSize, SEED);
+        g.freeze();
+        PrepareContractionHierarchies.fromGraphHopperStorage(g, chConfig).doWork();
+        graph = g.getBaseGraph();
+        phastGraph = PHASTGraph.create(g.getRoutingCHGraph(), false);
+
+        partition = new PreparePartition(g, null).prepare();
+        eccentricity = new Eccentricity(g, null, partition.getIsochroneNodeStorage(), partition.getCellStorage());
+        eccentricity.loadExisting(weighting);
+        eccentricity.calcEccentricities(weighting, new EdgeFilterSequence(), encoder);
+        eccentricity.calcBorderNodeDistances(weighting, new EdgeFilterSequence(), encoder);
+
+        startNodes = BenchmarkGraphs.randomNodes(g.getNodes(), START_NODES, SEED + 1);
+    }
+
+    private int nextStartNode() {
+        next = (next + 1) % startNodes.length;
+        return startNodes[next];
+    }
+
+    @Benchmark
+    public IntObjectMap<SPTEntry> dijkstra() {
+        DijkstraCostCondition algorithm = new DijkstraCostCondition(graph, weighting, range, false, TraversalMode.NODE_BASED);
+        algorithm.calcPath(nextStartNode(), Integer.MIN_VALUE);
+        return algorithm.getMap();
+    }
+
+    @Benchmark
+    public IntArrayList phast() {
+        PHASTAlgorithm algorithm = new PHASTAlgorithm(phastGraph, range);
+        algorithm.calcWeights(new int[]{nextStartNode()}, new double[]{0});
+        IntArrayList reachedNodes = algorithm.getReachedNodes();
+        algorithm.release();
+        return reachedNodes;
+    }
+
+    @Benchmark
+    public Map<Integer, IntObjectMap<SPTEntry>> fastIsochrone() {
+        FastIsochroneAlgorithm algorithm = new FastIsochroneAlgorithm(graph, weighting, TraversalMode.NODE_BASED,
+                partition.getCellStorage(), partition.getIsochroneNodeStorage(), eccentricity.getEccentricityStorage(weighting),
+                eccentricity.getBorderNodeDistanceStorage(weighting), null);
+        algorithm.calcIsochroneNodes(nextStartNode(), range);
+        return algorithm.getActiveCellMaps();
+    }
+}
@@ -0,0 +1,123 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.GraphHopper;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.shapes.GHPoint3D;
+import org.heigit.ors.isochrones.IsochroneMap;
+import org.heigit.ors.isochrones.IsochroneMapBuilderFactory;
+import org.heigit.ors.isochrones.IsochroneSearchParameters;
+import org.heigit.ors.isochrones.builders.IsochroneMapBuilder;
+import org.heigit.ors.isochrones.builders.concaveballs.ConcaveBallsIsochroneMapBuilder;
+import org.heigit.ors.isochrones.builders.raster.RasterIsochroneMapBuilder;
+import org.heigit.ors.routing.RouteSearchContext;
+import org.heigit.ors.routing.algorithms.DijkstraCostCondition;
+import org.heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
+import org.locationtech.jts.geom.Coordinate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the isochrone polygons of the concaveballs method with the ones traced from a cost grid by the raster
+ * method. Both builders search the costs of the nodes with the same Dijkstra search from a node of the grid, so the
+ * difference of the timings is the time spent on building the polygons.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IsochronePolygonBenchmark {
+    private static final long SEED = 42;
+    private static final int START_NODES = 20;
+
+    @Param({"200"})
+    public int gridSize;
+
+    // seconds, the isochrones are built for half the range and the range
+    @Param({"300", "900"})
+    public double range;
+
+    private GraphHopperStorage graph;
+    private Weighting weighting;
+    private RouteSearchContext searchContext;
+    private int[] startNodes;
+    private int next;
+    private int startNode;
+
+    @Setup
+    public void setUp() {
+        CarFlagEncoder encoder = new CarFlagEncoder();
+        EncodingManager encodingManager = EncodingManager.create(encoder);
+        weighting = new FastestWeighting(encoder);
+        graph = new GraphBuilder(encodingManager).create();
+        BenchmarkGraphs.createGrid(graph, encoder, gridSize, SEED);
+        graph.freeze();
+        // the builders only take the graph storage from the GraphHopper instance
+        GraphHopper gh = new GraphHopper() {
+            @Override
+            public GraphHopperStorage getGraphHopperStorage() {
+                return graph;
+            }
+        };
+        searchContext = new RouteSearchContext(gh, encoder, "car", "car");
+        startNodes = BenchmarkGraphs.randomNodes(graph.getNodes(), START_NODES, SEED + 1);
+    }
+
+    private IsochroneMap compute(IsochroneMapBuilder builder) throws Exception {
+        next = (next + 1) % startNodes.length;
+        NodeAccess nodeAccess = graph.getNodeAccess();
+        startNode = startNodes[next];
+        IsochroneSearchParameters parameters = new IsochroneSearchParameters(0,
+                new Coordinate(nodeAccess.getLon(startNode), nodeAccess.getLat(startNode)), new double[]{range / 2, range});
+        builder.initialize(searchContext);
+        return builder.compute(parameters);
+    }
+
+    private AccessibilityMap findEdgeMap(Coordinate location) {
+        DijkstraCostCondition algorithm = new DijkstraCostCondition(graph.getBaseGraph(), weighting, range, false, TraversalMode.NODE_BASED);
+        algorithm.calcPath(startNode, Integer.MIN_VALUE);
+        return new AccessibilityMap(algorithm.getMap(), algorithm.getCurrentEdge(), new GHPoint3D(location.y, location.x, 0));
+    }
+
+    @Benchmark
+    public IsochroneMap concaveBalls() throws Exception {
+        return compute(new ConcaveBallsIsochroneMapBuilder() {
+            @Override
+            protected AccessibilityMap findEdgeMap(RouteSearchContext searchContext, IsochroneSearchParameters parameters) {
+                return IsochronePolygonBenchmark.this.findEdgeMap(parameters.getLocation());
+            }
+        });
+    }
+
+    @Benchmark
+    public IsochroneMap raster() throws Exception {
+        return compute(new RasterIsochroneMapBuilder(IsochroneMapBuilderFactory.DEFAULT_RASTER_CELL_SIZE) {
+            @Override
+            protected AccessibilityMap findEdgeMap(RouteSearchContext searchContext, IsochroneSearchParameters parameters) {
+                return IsochronePolygonBenchmark.this.findEdgeMap(parameters.getLocation());
+            }
+        });
+    }
+}
@@ -0,0 +1,95 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.GraphHopperConfig;
+import com.graphhopper.config.Profile;
+import com.graphhopper.gtfs.*;
+import com.graphhopper.util.TranslationMap;
+import com.graphhopper.util.shapes.GHPoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares public transport routes computed by a router shared by all requests of a profile with routes computed by a
+ * new router per request, which also imports the translations again. Unlike the other benchmarks it needs real data:
+ * the Heidelberg OSM extract and the VRN GTFS feed of the API tests. The paths are relative to the project root and
+ * can be changed with {@code -p osmFile=... -p gtfsFile=...}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PtRouterBenchmark {
+    @Param({"ors-api/src/test/files/heidelberg.osm.gz"})
+    public String osmFile;
+
+    @Param({"ors-api/src/test/files/vrn_gtfs_cut.zip"})
+    public String gtfsFile;
+
+    private GraphHopperGtfs gh;
+    private GraphHopperConfig config;
+    private PtRouter sharedRouter;
+
+    @Setup
+    public void setUp() throws IOException {
+        config = new GraphHopperConfig();
+        config.putObject("graph.location", Files.createTempDirectory("ors-benchmark-pt").toString());
+        config.putObject("datareader.file", osmFile);
+        config.putObject("gtfs.file", gtfsFile);
+        config.putObject("graph.flag_encoders", "foot");
+        config.setProfiles(Collections.singletonList(new Profile("foot").setVehicle("foot").setWeighting("fastest")));
+        gh = new GraphHopperGtfs(config);
+        gh.init(config);
+        gh.importOrLoad();
+        sharedRouter = new PtRouterImpl.Factory(config, gh.getTranslationMap(), gh.getGraphHopperStorage(), gh.getLocationIndex(), gh.getGtfsStorage())
+                .createWithoutRealtimeFeed();
+    }
+
+    @TearDown
+    public void tearDown() {
+        gh.close();
+        gh.clean();
+    }
+
+    // the route of the public transport tests of the API
+    private static Request createRequest() {
+        Request request = new Request(Arrays.asList(new GHPointLocation(new GHPoint(49.403378, 8.704433)),
+                new GHPointLocation(new GHPoint(49.408324, 8.676101))), Instant.parse("2022-07-04T13:02:26Z"));
+        request.setLimitStreetTime(Duration.ofMinutes(30));
+        return request;
+    }
+
+    @Benchmark
+    public GHResponse sharedRouter() {
+        return sharedRouter.route(createRequest());
+    }
+
+    @Benchmark
+    public GHResponse routerPerRequest() {
+        PtRouter router = new PtRouterImpl.Factory(config, new TranslationMap().doImport(), gh.getGraphHopperStorage(), gh.getLocationIndex(), gh.getGtfsStorage())
+                .createWithoutRealtimeFeed();
+        return router.route(createRequest());
+    }
+}
@@ -0,0 +1,86 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHConfig;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RoutingCHGraph;
+import org.heigit.ors.routing.algorithms.RPHASTAlgorithm;
+import org.heigit.ors.routing.algorithms.RPHASTArrayAlgorithm;
+import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntry;
+import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the RPHAST implementation with one object per node and source to the array based one, which is selected
+ * with execution.matrix.rphast_flat_storage. Both compute the full matrix in a single source block.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RPHASTMatrixBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"300"})
+    public int gridSize;
+
+    @Param({"25", "100"})
+    public int locations;
+
+    private RoutingCHGraph chGraph;
+    private Weighting weighting;
+    private int[] sources;
+    private int[] targets;
+
+    @Setup
+    public void setUp() {
+        CarFlagEncoder encoder = new CarFlagEncoder();
+        EncodingManager encodingManager = EncodingManager.create(encoder);
+        weighting = new FastestWeighting(encoder);
+        CHConfig chConfig = CHConfig.nodeBased("car", weighting);
+        GraphHopperStorage g = new GraphBuilder(encodingManager).setCHConfigs(chConfig).create();
+        BenchmarkGraphs.createGrid(g, encoder, gridSize, SEED);
+        g.freeze();
+        PrepareContractionHierarchies.fromGraphHopperStorage(g, chConfig).doWork();
+        chGraph = g.getRoutingCHGraph();
+        sources = BenchmarkGraphs.randomNodes(g.getNodes(), locations, SEED + 1);
+        targets = BenchmarkGraphs.randomNodes(g.getNodes(), locations, SEED + 2);
+    }
+
+    @Benchmark
+    public MultiTreeSPEntry[] objectEntries() {
+        RPHASTAlgorithm algorithm = new RPHASTAlgorithm(chGraph, weighting, TraversalMode.NODE_BASED);
+        algorithm.prepare(sources, targets);
+        return algorithm.calcPaths(sources, targets);
+    }
+
+    @Benchmark
+    public MultiTreeSPTable flatTable() {
+        RPHASTArrayAlgorithm algorithm = new RPHASTArrayAlgorithm(chGraph, weighting, TraversalMode.NODE_BASED);
+        algorithm.prepare(sources, targets);
+        return algorithm.calcPaths(sources, targets);
+    }
+}
@@ -0,0 +1,152 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.SpeedCalculator;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.util.EdgeIteratorState;
+import org.heigit.ors.routing.algorithms.TDDijkstraCostCondition;
+import org.heigit.ors.routing.graphhopper.extensions.reader.traffic.TrafficEnums;
+import org.heigit.ors.routing.graphhopper.extensions.storages.TrafficGraphStorage;
+import org.heigit.ors.routing.traffic.TrafficSpeedCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the traffic speeds of a time-dependent search when every edge decodes its time with a Calendar, as
+ * TrafficGraphStorage.getSpeedValue did before, against the week slot which TrafficSpeedCalculator decodes once per
+ * search and advances arithmetically. Both run the time-dependent Dijkstra of traffic isochrones on a grid in which
+ * every edge has a traffic pattern.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrafficSpeedBenchmark {
+    private static final long SEED = 42;
+    private static final int PATTERNS = 50;
+    // Monday morning, so that the search crosses several quarter hours of the rush hour
+    private static final ZonedDateTime DEPARTURE = ZonedDateTime.of(2024, 1, 1, 7, 50, 0, 0, ZoneOffset.ofHours(1));
+
+    @Param({"200"})
+    public int gridSize;
+
+    // maximum travel time of the search in seconds
+    @Param({"1200"})
+    public double range;
+
+    private GraphHopperStorage graph;
+    private Weighting calendarWeighting;
+    private Weighting weekSlotWeighting;
+    private TrafficSpeedCalculator calendarSpeedCalculator;
+    private TrafficSpeedCalculator weekSlotSpeedCalculator;
+    private int start;
+
+    @Setup
+    public void setUp() {
+        CarFlagEncoder encoder = new CarFlagEncoder();
+        EncodingManager encodingManager = EncodingManager.create(encoder);
+        graph = new GraphBuilder(encodingManager).create();
+        BenchmarkGraphs.createGrid(graph, encoder, gridSize, SEED);
+        graph.freeze();
+        TrafficGraphStorage trafficStorage = createTrafficStorage(graph.getEdges());
+
+        calendarWeighting = new FastestWeighting(encoder);
+        calendarSpeedCalculator = new CalendarTrafficSpeedCalculator(calendarWeighting.getSpeedCalculator());
+        calendarSpeedCalculator.setTrafficGraphStorage(trafficStorage);
+        calendarWeighting.setSpeedCalculator(calendarSpeedCalculator);
+
+        weekSlotWeighting = new FastestWeighting(encoder);
+        weekSlotSpeedCalculator = new TrafficSpeedCalculator(weekSlotWeighting.getSpeedCalculator());
+        weekSlotSpeedCalculator.setTrafficGraphStorage(trafficStorage);
+        weekSlotWeighting.setSpeedCalculator(weekSlotSpeedCalculator);
+
+        start = (gridSize / 2) * gridSize + gridSize / 2;
+    }
+
+    /**
+     * Assigns one of a few random daily patterns to both directions of every edge for every day of the week.
+     */
+    private static TrafficGraphStorage createTrafficStorage(int edges) {
+        TrafficGraphStorage storage = new TrafficGraphStorage();
+        storage.init();
+        storage.create(1);
+        Random random = new Random(SEED);
+        short[] pattern = new short[TrafficGraphStorage.DAILY_TRAFFIC_PATTERNS_BYTE_COUNT];
+        for (int patternId = 1; patternId <= PATTERNS; patternId++) {
+            for (int i = 0; i < pattern.length; i++)
+                pattern[i] = (short) (20 + random.nextInt(100));
+            storage.setTrafficPatterns(patternId, pattern);
+        }
+        for (int edgeKey = 0; edgeKey < 2 * edges; edgeKey++) {
+            for (TrafficEnums.WeekDay weekDay : TrafficEnums.WeekDay.values())
+                storage.setEdgeIdTrafficPatternLookup(edgeKey, 1 + random.nextInt(PATTERNS), weekDay, 1);
+        }
+        return storage;
+    }
+
+    @Benchmark
+    public Path calendar() {
+        return search(calendarWeighting, calendarSpeedCalculator);
+    }
+
+    @Benchmark
+    public Path weekSlot() {
+        return search(weekSlotWeighting, weekSlotSpeedCalculator);
+    }
+
+    private Path search(Weighting weighting, TrafficSpeedCalculator speedCalculator) {
+        speedCalculator.setZonedDateTime(DEPARTURE);
+        TDDijkstraCostCondition algorithm = new TDDijkstraCostCondition(graph, weighting, range, false, TraversalMode.NODE_BASED);
+        return algorithm.calcPath(start, Integer.MIN_VALUE, DEPARTURE.toInstant().toEpochMilli());
+    }
+
+    /**
+     * Decodes the time of every edge with a Calendar of the request's offset like TrafficGraphStorage did before the
+     * week slots.
+     */
+    private static class CalendarTrafficSpeedCalculator extends TrafficSpeedCalculator {
+        CalendarTrafficSpeedCalculator(SpeedCalculator superSpeedCalculator) {
+            super(superSpeedCalculator);
+        }
+
+        @Override
+        public double getSpeed(EdgeIteratorState edge, boolean reverse, long time) {
+            double speed = superSpeedCalculator.getSpeed(edge, reverse, time);
+            Calendar calendarDate = Calendar.getInstance(TimeZone.getTimeZone("GMT+" + timeZoneOffset));
+            calendarDate.setTimeInMillis(time);
+            int weekSlot = (calendarDate.get(Calendar.DAY_OF_WEEK) - 1) * TrafficGraphStorage.DAILY_TRAFFIC_PATTERNS_BYTE_COUNT
+                    + calendarDate.get(Calendar.HOUR_OF_DAY) * 4 + calendarDate.get(Calendar.MINUTE) / 15;
+            double trafficSpeed = trafficGraphStorage.getSpeedValue(getEdgeKey(edge, reverse), weekSlot);
+            if (trafficSpeed > 0 && (speed >= 45.0 && !(trafficSpeed > 1.1 * speed) || trafficSpeed < speed))
+                speed = trafficSpeed;
+            return speed;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.common;
+
+import com.graphhopper.util.PMap;
+import org.heigit.ors.matrix.MatrixSearchParameters;
+import org.heigit.ors.routing.*;
+import org.heigit.ors.routing.parameters.ProfileParameters;
+import org.heigit.ors.routing.parameters.VehicleParameters;
+import org.heigit.ors.routing.parameters.WheelchairParameters;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+/**
+ * Builds a canonical string form of a request from its values, so that two requests which would be computed the
+ * same way get the same key. Used to identify requests for caching and for coalescing identical requests.
+ */
+public class RequestKeyBuilder {
+    private static final char SEPARATOR = ';';
+
+    private final StringBuilder key = new StringBuilder(256);
+
+    public RequestKeyBuilder add(Object value) {
+        key.append(value).append(SEPARATOR);
+        return this;
+    }
+
+    public RequestKeyBuilder add(double[] values) {
+        return add(Arrays.toString(values));
+    }
+
+    public RequestKeyBuilder add(int[] values) {
+        return add(Arrays.toString(values));
+    }
+
+    public RequestKeyBuilder add(String[] values) {
+        return add(values == null ? null : String.join(",", values));
+    }
+
+    public RequestKeyBuilder add(Coordinate coordinate) {
+        return add(coordinate == null ? null : coordinate.x + "," + coordinate.y);
+    }
+
+    public RequestKeyBuilder add(Coordinate[] coordinates) {
+        if (coordinates == null)
+            return add((Object) null);
+        for (Coordinate coordinate : coordinates)
+            add(coordinate);
+        return add(coordinates.length);
+    }
+
+    /**
+     * Adds the coordinates rounded to multiples of {@code 1 / factor} degrees.
+     */
+    public RequestKeyBuilder addRounded(Coordinate[] coordinates, double factor) {
+        for (Coordinate coordinate : coordinates)
+            add(Math.round(coordinate.x * factor) + "," + Math.round(coordinate.y * factor));
+        return add(coordinates.length);
+    }
+
+    /**
+     * Adds all options of a route request except for its coordinates and search parameters.
+     */
+    public RequestKeyBuilder addOutputOptions(RoutingRequest req) {
+        return add(req.getUnits())
+                .add(req.getLanguage())
+                .add(req.getGeometryFormat())
+                .add(req.getGeometrySimplify())
+                .add(req.getInstructionsFormat())
+                .add(req.getIncludeInstructions())
+                .add(req.getIncludeElevation())
+                .add(req.getIncludeGeometry())
+                .add(req.getIncludeManeuvers())
+                .add(req.getIncludeRoundaboutExits())
+                .add(req.getAttributes())
+                .add(req.getExtraInfo())
+                .add(req.getLocationIndex())
+                .add(req.getContinueStraight())
+                .add(req.getSkipSegments())
+                .add(req.getIncludeCountryInfo())
+                .add(req.getMaximumSpeed())
+                .add(req.getResponseFormat());
+    }
+
+    public RequestKeyBuilder add(RouteSearchParameters searchParams) {
+        if (searchParams == null)
+            return add((Object) null);
+        add(searchParams.getProfileType())
+                .add(searchParams.getWeightingMethod())
+                .add(searchParams.getConsiderTurnRestrictions())
+                .add(searchParams.getAvoidFeatureTypes())
+                .add(searchParams.getAvoidCountries())
+                .add(searchParams.getAvoidBorders())
+                .add(searchParams.getVehicleType())
+                .add(searchParams.hasFlexibleMode())
+                .add(searchParams.getOptimized())
+                .add(searchParams.getExtraInfo())
+                .add(searchParams.getSuppressWarnings())
+                .add(searchParams.hasContinueStraight())
+                .add(searchParams.getMaximumRadiuses())
+                .add(searchParams.getAlternativeRoutesCount())
+                .add(searchParams.getAlternativeRoutesWeightFactor())
+                .add(searchParams.getAlternativeRoutesShareFactor())
+                .add(searchParams.getRoundTripLength())
+                .add(searchParams.getRoundTripPoints())
+                .add(searchParams.getRoundTripSeed())
+                .add(searchParams.hasMaximumSpeed() ? searchParams.getMaximumSpeed() : null)
+                .add(searchParams.getDeparture())
+                .add(searchParams.getArrival())
+                .add(searchParams.hasSchedule() && searchParams.getSchedule())
+                .add(searchParams.hasScheduleRows() ? searchParams.getScheduleRows() : null)
+                .add(searchParams.hasScheduleDuration() ? searchParams.getScheduleDuaration() : null)
+                .add(searchParams.hasWalkingTime() ? searchParams.getWalkingTime() : null)
+                .add(searchParams.getIgnoreTransfers());
+        if (searchParams instanceof MatrixSearchParameters matrixParams)
+            add(matrixParams.getDynamicSpeeds());
+        if (searchParams.hasBearings()) {
+            for (WayPointBearing bearing : searchParams.getBearings())
+                add(bearing == null ? null : bearing.getValue());
+        }
+        if (searchParams.hasAvoidAreas()) {
+            for (Polygon polygon : searchParams.getAvoidAreas())
+                add(polygon.toText());
+        }
+        return add(searchParams.getProfileParameters());
+    }
+
+    private RequestKeyBuilder add(ProfileParameters profileParams) {
+        if (profileParams == null)
+            return add((Object) null);
+        add(profileParams.getClass().getName());
+        if (profileParams instanceof VehicleParameters vehicleParams) {
+            add(vehicleParams.getLength())
+                    .add(vehicleParams.getHeight())
+                    .add(vehicleParams.getWidth())
+                    .add(vehicleParams.getWeight())
+                    .add(vehicleParams.getAxleload())
+                    .add(vehicleParams.getLoadCharacteristics());
+        } else if (profileParams instanceof WheelchairParameters wheelchairParams) {
+            add(wheelchairParams.getMaximumIncline())
+                    .add(wheelchairParams.getMaximumSlopedKerb())
+                    .add(wheelchairParams.getSurfaceType())
+                    .add(wheelchairParams.getTrackType())
+                    .add(wheelchairParams.getSmoothnessType())
+                    .add(wheelchairParams.getMinimumWidth())
+                    .add(wheelchairParams.isRequireSurfaceQualityKnown())
+                    .add(wheelchairParams.allowUnsuitable());
+        }
+        if (profileParams.hasWeightings()) {
+            Iterator<ProfileWeighting> iterator = profileParams.getWeightings().getIterator();
+            while (iterator.hasNext()) {
+                ProfileWeighting weighting = iterator.next();
+                PMap parameters = weighting.getParameters();
+                add(weighting.getName() + new TreeMap<>(parameters.toMap()));
+            }
+        }
+        return this;
+    }
+
+    public String build() {
+        return key.toString();
+    }
+}
@@ -25,6 +25,11 @@ public class StatusCode {
      * syntactically incorrect.
      */
     public static final int BAD_REQUEST = HttpURLConnection.HTTP_BAD_REQUEST;
+    /**
+     * Status code (401) indicating that the request requires authentication
+     * which has not been provided or is not valid.
+     */
+    public static final int UNAUTHORIZED = HttpURLConnection.HTTP_UNAUTHORIZED;
     /**
      * Status code (405) indicating that the method specified in the
      * <code><em>Request-Line</em></code> is not allowed for the resource
@@ -13,8 +13,12 @@
  */
 package org.heigit.ors.isochrones;
 
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntDoubleHashMap;
 import com.carrotsearch.hppc.IntObjectMap;
 import com.graphhopper.GraphHopper;
+import com.graphhopper.coll.GHIntObjectHashMap;
 import com.graphhopper.routing.SPTEntry;
 import com.graphhopper.routing.ev.Subnetwork;
 import com.graphhopper.routing.querygraph.QueryGraph;
@@ -27,14 +31,19 @@ import com.graphhopper.routing.weighting.ShortestWeighting;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
 import com.graphhopper.util.shapes.GHPoint3D;
 import org.heigit.ors.common.TravelRangeType;
 import org.heigit.ors.exceptions.InternalServerException;
 import org.heigit.ors.routing.RouteSearchContext;
 import org.heigit.ors.routing.algorithms.DijkstraCostCondition;
+import org.heigit.ors.routing.algorithms.PHASTAlgorithm;
+import org.heigit.ors.routing.algorithms.PHASTGraph;
 import org.heigit.ors.routing.algorithms.TDDijkstraCostCondition;
 import org.heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
 import org.heigit.ors.routing.graphhopper.extensions.ORSEdgeFilterFactory;
+import org.heigit.ors.routing.graphhopper.extensions.ORSGraphHopper;
 import org.heigit.ors.routing.traffic.TrafficSpeedCalculator;
 import org.heigit.ors.util.ProfileTools;
 import org.locationtech.jts.geom.Coordinate;
@@ -48,17 +57,29 @@ public class GraphEdgeMapFinder {
     }
 
     public static AccessibilityMap findEdgeMap(RouteSearchContext searchCntx, IsochroneSearchParameters parameters) throws Exception {
+        return findEdgeMap(searchCntx, parameters, false);
+    }
+
+    /**
+     * @param usePHAST compute the costs of the nodes with a PHAST search on the contraction hierarchy of the
+     *                 weighting instead of a Dijkstra search, see {@link ORSGraphHopper#isPHASTIsochroneAvailable}
+     */
+    public static AccessibilityMap findEdgeMap(RouteSearchContext searchCntx, IsochroneSearchParameters parameters, boolean usePHAST) throws Exception {
         GraphHopper gh = searchCntx.getGraphHopper();
         FlagEncoder encoder = searchCntx.getEncoder();
         Weighting weighting = createWeighting(parameters, encoder);
         String profileName = ProfileTools.makeProfileName(encoder.toString(), weighting.getName(), false);
         GraphHopperStorage graph = gh.getGraphHopperStorage();
-        EdgeFilter defaultSnapFilter = new DefaultSnapFilter(weighting, graph.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
-        ORSEdgeFilterFactory edgeFilterFactory = new ORSEdgeFilterFactory();
-        EdgeFilter edgeFilter = edgeFilterFactory.createEdgeFilter(searchCntx.getProperties(), encoder, graph, defaultSnapFilter);
+        EdgeFilter edgeFilter = createEdgeFilter(searchCntx, weighting);
 
-        Coordinate loc = parameters.getLocation();
-        Snap res = gh.getLocationIndex().findClosest(loc.y, loc.x, edgeFilter);
+        // the location may have been snapped with the same filter before, the snap can not be reused after the query
+        // graph has been created
+        Snap res = parameters.getSnap();
+        parameters.setSnap(null);
+        if (res == null) {
+            Coordinate loc = parameters.getLocation();
+            res = gh.getLocationIndex().findClosest(loc.y, loc.x, edgeFilter);
+        }
         List<Snap> snaps = new ArrayList<>(1);
         snaps.add(res);
         QueryGraph queryGraph = QueryGraph.create(graph, snaps);
@@ -72,18 +93,33 @@ public class GraphEdgeMapFinder {
 
         if (parameters.isTimeDependent()) {
             return calculateTimeDependentAccessibilityMap(parameters, encoder, graph, edgeFilter, queryGraph, snappedPosition, fromId, weighting);
+        } else if (usePHAST) {
+            PHASTGraph phastGraph = ((ORSGraphHopper) gh).getPHASTGraph(profileName, parameters.getReverseDirection());
+            return calculatePHASTAccessibilityMap(parameters, phastGraph, edgeFilter, queryGraph, snappedPosition, fromId, weighting);
         } else {
-            // IMPORTANT: It only works with TraversalMode.NODE_BASED.
-            DijkstraCostCondition dijkstraAlg = new DijkstraCostCondition(queryGraph, weighting, parameters.getMaximumRange(), parameters.getReverseDirection(),
-                    TraversalMode.NODE_BASED);
-            dijkstraAlg.setEdgeFilter(edgeFilter);
-            dijkstraAlg.calcPath(fromId, Integer.MIN_VALUE);
-
-            IntObjectMap<SPTEntry> edgeMap = dijkstraAlg.getMap();
-            return new AccessibilityMap(edgeMap, dijkstraAlg.getCurrentEdge(), snappedPosition);
+            return calculateAccessibilityMap(parameters, edgeFilter, queryGraph, snappedPosition, fromId, weighting);
         }
     }
 
+    /**
+     * @return the position on the graph the isochrones of the location start at, as found by {@link #findEdgeMap}. It
+     * can be passed to the search with {@link IsochroneSearchParameters#setSnap}.
+     */
+    public static Snap findSnap(RouteSearchContext searchCntx, IsochroneSearchParameters parameters) {
+        Weighting weighting = createWeighting(parameters, searchCntx.getEncoder());
+        Coordinate loc = parameters.getLocation();
+        return searchCntx.getGraphHopper().getLocationIndex().findClosest(loc.y, loc.x, createEdgeFilter(searchCntx, weighting));
+    }
+
+    private static EdgeFilter createEdgeFilter(RouteSearchContext searchCntx, Weighting weighting) {
+        FlagEncoder encoder = searchCntx.getEncoder();
+        String profileName = ProfileTools.makeProfileName(encoder.toString(), weighting.getName(), false);
+        GraphHopperStorage graph = searchCntx.getGraphHopper().getGraphHopperStorage();
+        EdgeFilter defaultSnapFilter = new DefaultSnapFilter(weighting, graph.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
+        ORSEdgeFilterFactory edgeFilterFactory = new ORSEdgeFilterFactory();
+        return edgeFilterFactory.createEdgeFilter(searchCntx.getProperties(), encoder, graph, defaultSnapFilter);
+    }
+
     /**
      * Calculate all nodes that are within the reach of the maximum range and return a map of them.
      *
@@ -116,6 +152,120 @@ public class GraphEdgeMapFinder {
         return new AccessibilityMap(edgeMap, tdDijkstraCostCondition.getCurrentEdge(), snappedPosition);
     }
 
+    /**
+     * Calculate all nodes that are within the reach of the maximum range with a Dijkstra search and return a map of them.
+     *
+     * @param parameters      IsochroneSearchParameters
+     * @param edgeFilter      The EdgeFilter to be used for finding the nodes
+     * @param queryGraph      Graph containing all normal nodes and virtual node of the queried location
+     * @param snappedPosition Position the query has been snapped to on the querygraph
+     * @param fromId          origin of query
+     * @param weighting       weighting to be used
+     * @return accessibility map containing all reachable nodes
+     */
+    static AccessibilityMap calculateAccessibilityMap(IsochroneSearchParameters parameters, EdgeFilter edgeFilter, QueryGraph queryGraph, GHPoint3D snappedPosition, int fromId, Weighting weighting) {
+        // IMPORTANT: It only works with TraversalMode.NODE_BASED.
+        DijkstraCostCondition dijkstraAlg = new DijkstraCostCondition(queryGraph, weighting, parameters.getMaximumRange(), parameters.getReverseDirection(),
+                TraversalMode.NODE_BASED);
+        dijkstraAlg.setEdgeFilter(edgeFilter);
+        dijkstraAlg.calcPath(fromId, Integer.MIN_VALUE);
+
+        IntObjectMap<SPTEntry> edgeMap = dijkstraAlg.getMap();
+        return new AccessibilityMap(edgeMap, dijkstraAlg.getCurrentEdge(), snappedPosition);
+    }
+
+    /**
+     * Calculate the costs of all nodes within the maximum range with a PHAST search and return the same map a
+     * Dijkstra search would have built: the entries of the reached nodes with their cheapest parent, and the entries
+     * of the nodes just outside the range which are reached by an edge from inside.
+     *
+     * @param parameters      IsochroneSearchParameters
+     * @param phastGraph      the contraction hierarchy of the weighting arranged for the search direction
+     * @param edgeFilter      The EdgeFilter to be used for finding the edges of the nodes
+     * @param queryGraph      Graph containing all normal nodes and virtual node of the queried location
+     * @param snappedPosition Position the query has been snapped to on the querygraph
+     * @param fromId          origin of query
+     * @param weighting       weighting to be used
+     * @return accessibility map containing all reachable nodes
+     */
+    static AccessibilityMap calculatePHASTAccessibilityMap(IsochroneSearchParameters parameters, PHASTGraph phastGraph, EdgeFilter edgeFilter, QueryGraph queryGraph, GHPoint3D snappedPosition, int fromId, Weighting weighting) {
+        boolean reverse = parameters.getReverseDirection();
+        int nodeCount = phastGraph.getNodes();
+        EdgeExplorer explorer = queryGraph.createEdgeExplorer(edgeFilter);
+
+        // a location on an edge is a virtual node, so the search starts at the nodes of that edge
+        IntArrayList startNodes = new IntArrayList(2);
+        DoubleArrayList startWeights = new DoubleArrayList(2);
+        if (fromId < nodeCount) {
+            startNodes.add(fromId);
+            startWeights.add(0);
+        } else {
+            EdgeIterator iter = explorer.setBaseNode(fromId);
+            while (iter.next()) {
+                double weight = weighting.calcEdgeWeight(iter, reverse);
+                if (iter.getAdjNode() < nodeCount && !Double.isInfinite(weight)) {
+                    startNodes.add(iter.getAdjNode());
+                    startWeights.add(weight);
+                }
+            }
+        }
+
+        PHASTAlgorithm algorithm = new PHASTAlgorithm(phastGraph, parameters.getMaximumRange());
+        IntObjectMap<SPTEntry> edgeMap;
+        IntArrayList expandedNodes;
+        try {
+            algorithm.calcWeights(startNodes.toArray(), startWeights.toArray());
+
+            IntArrayList reachedNodes = algorithm.getReachedNodes();
+            edgeMap = new GHIntObjectHashMap<>(reachedNodes.size() + reachedNodes.size() / 4);
+            SPTEntry startEntry = new SPTEntry(EdgeIterator.NO_EDGE, fromId, 0);
+            startEntry.originalEdge = EdgeIterator.NO_EDGE;
+            edgeMap.put(fromId, startEntry);
+            expandedNodes = new IntArrayList(reachedNodes.size() + 1);
+            expandedNodes.add(fromId);
+            for (int i = 0; i < reachedNodes.size(); i++) {
+                int node = reachedNodes.get(i);
+                if (node == fromId)
+                    continue;
+                SPTEntry entry = new SPTEntry(EdgeIterator.NO_EDGE, node, algorithm.getWeight(node));
+                entry.originalEdge = EdgeIterator.NO_EDGE;
+                edgeMap.put(node, entry);
+                expandedNodes.add(node);
+            }
+        } finally {
+            algorithm.release();
+        }
+
+        // the parent of each entry is the node from which it is reached at the lowest cost
+        IntDoubleHashMap parentWeights = new IntDoubleHashMap(expandedNodes.size());
+        double maxCost = parameters.getMaximumRange();
+        for (int i = 0; i < expandedNodes.size(); i++) {
+            SPTEntry entry = edgeMap.get(expandedNodes.get(i));
+            EdgeIterator iter = explorer.setBaseNode(entry.adjNode);
+            while (iter.next()) {
+                int adjNode = iter.getAdjNode();
+                double weight = entry.weight + weighting.calcEdgeWeight(iter, reverse);
+                if (adjNode == fromId || Double.isInfinite(weight))
+                    continue;
+
+                SPTEntry adjEntry = edgeMap.get(adjNode);
+                if (adjEntry == null) {
+                    adjEntry = new SPTEntry(iter.getEdge(), adjNode, weight);
+                    edgeMap.put(adjNode, adjEntry);
+                } else if (weight >= parentWeights.getOrDefault(adjNode, Double.POSITIVE_INFINITY)) {
+                    continue;
+                } else if (adjEntry.weight > maxCost) {
+                    adjEntry.weight = weight;
+                }
+                adjEntry.edge = iter.getEdge();
+                adjEntry.originalEdge = iter.getEdge();
+                adjEntry.parent = entry;
+                parentWeights.put(adjNode, weight);
+            }
+        }
+        return new AccessibilityMap(edgeMap, snappedPosition);
+    }
+
     private static Weighting createWeighting(IsochroneSearchParameters parameters, FlagEncoder encoder) {
         return parameters.getRangeType() == TravelRangeType.TIME ? new FastestWeighting(encoder)
                 : new ShortestWeighting(encoder);
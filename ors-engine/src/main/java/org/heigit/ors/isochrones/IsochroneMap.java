@@ -66,6 +66,17 @@ public class IsochroneMap {
         return envelope;
     }
 
+    /**
+     * @return a map with the same center and isochrones for another traveller
+     */
+    public IsochroneMap copy(int travellerId) {
+        IsochroneMap copy = new IsochroneMap(travellerId, center);
+        for (Isochrone isochrone : isochrones)
+            copy.addIsochrone(isochrone);
+        copy.setGraphDate(graphDate);
+        return copy;
+    }
+
     public String getGraphDate() {
         return graphDate;
     }
@@ -17,16 +17,35 @@ import com.graphhopper.util.Helper;
 import org.heigit.ors.isochrones.builders.IsochroneMapBuilder;
 import org.heigit.ors.isochrones.builders.concaveballs.ConcaveBallsIsochroneMapBuilder;
 import org.heigit.ors.isochrones.builders.fast.FastIsochroneMapBuilder;
+import org.heigit.ors.isochrones.builders.phast.PHASTIsochroneMapBuilder;
+import org.heigit.ors.isochrones.builders.raster.RasterIsochroneMapBuilder;
 import org.heigit.ors.routing.RouteSearchContext;
 import org.heigit.ors.routing.graphhopper.extensions.ORSGraphHopper;
 
 public class IsochroneMapBuilderFactory {
+    public static final double DEFAULT_RASTER_CELL_SIZE = 100;
     private final RouteSearchContext searchContext;
+    private String defaultMethod;
+    private double rasterCellSize = DEFAULT_RASTER_CELL_SIZE;
 
     public IsochroneMapBuilderFactory(RouteSearchContext searchContext) {
         this.searchContext = searchContext;
     }
 
+    /**
+     * Sets the method of the profile which replaces the default method of the requests, e.g. "PHAST".
+     */
+    public void setDefaultMethod(String defaultMethod) {
+        this.defaultMethod = defaultMethod;
+    }
+
+    /**
+     * Sets the size of the grid cells of the "Raster" method in metres.
+     */
+    public void setRasterCellSize(double rasterCellSize) {
+        this.rasterCellSize = rasterCellSize;
+    }
+
 
     public IsochroneMap buildMap(IsochroneSearchParameters parameters) throws Exception {
         IsochroneMapBuilder isochroneBuilder = createIsochroneMapBuilder(parameters);
@@ -38,8 +57,19 @@ public class IsochroneMapBuilderFactory {
     private IsochroneMapBuilder createIsochroneMapBuilder(IsochroneSearchParameters parameters) throws IllegalArgumentException {
         IsochroneMapBuilder isochroneBuilder;
         String method = parameters.getCalcMethod();
-        boolean canUseFastIsochrones = !(parameters.getRouteParameters().requiresDynamicPreprocessedWeights() || parameters.getRouteParameters().requiresFullyDynamicWeights() || parameters.getReverseDirection());
-        if (Helper.isEmpty(method) || "FastIsochrone".equalsIgnoreCase(method) || "Default".equalsIgnoreCase(method)) {
+        boolean isDefaultMethod = Helper.isEmpty(method) || "FastIsochrone".equalsIgnoreCase(method) || "Default".equalsIgnoreCase(method);
+        if (isDefaultMethod && !Helper.isEmpty(defaultMethod))
+            method = defaultMethod;
+        boolean hasStaticWeights = !(parameters.getRouteParameters().requiresDynamicPreprocessedWeights() || parameters.getRouteParameters().requiresFullyDynamicWeights());
+        boolean canUseFastIsochrones = hasStaticWeights && !parameters.getReverseDirection();
+        if ("PHAST".equalsIgnoreCase(method)) {
+            // the contraction hierarchy only holds the static weights of the edges
+            if (hasStaticWeights && !parameters.isTimeDependent() &&
+                    ((ORSGraphHopper) searchContext.getGraphHopper()).isPHASTIsochroneAvailable(searchContext, parameters.getRangeType()))
+                isochroneBuilder = new PHASTIsochroneMapBuilder();
+            else
+                isochroneBuilder = new ConcaveBallsIsochroneMapBuilder();
+        } else if (Helper.isEmpty(method) || "FastIsochrone".equalsIgnoreCase(method) || "Default".equalsIgnoreCase(method)) {
             if (canUseFastIsochrones &&
                     ((ORSGraphHopper) searchContext.getGraphHopper()).isFastIsochroneAvailable(searchContext, parameters.getRangeType()))
                 isochroneBuilder = new FastIsochroneMapBuilder();
@@ -47,6 +77,8 @@ public class IsochroneMapBuilderFactory {
                 isochroneBuilder = new ConcaveBallsIsochroneMapBuilder();
         } else if ("ConcaveBalls".equalsIgnoreCase(method)) {
             isochroneBuilder = new ConcaveBallsIsochroneMapBuilder();
+        } else if ("Raster".equalsIgnoreCase(method)) {
+            isochroneBuilder = new RasterIsochroneMapBuilder(rasterCellSize);
         } else {
             throw new IllegalArgumentException("Unknown method.");
         }
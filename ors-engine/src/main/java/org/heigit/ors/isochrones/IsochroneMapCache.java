@@ -0,0 +1,190 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.isochrones;
+
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.shapes.GHPoint3D;
+import io.micrometer.core.instrument.*;
+import org.heigit.ors.common.RequestKeyBuilder;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Least recently used cache of isochrone maps which is shared by all isochrone requests of a profile, bounded by the
+ * estimated memory of the cached geometries.
+ * <p>
+ * Locations are identified by the position they are snapped to instead of their coordinates, so all locations which
+ * snap to the same node or the same position on an edge share their isochrones. The whole cache is dropped as soon as
+ * a request is made with a different graph date. Time-dependent isochrones are not cached.
+ */
+public class IsochroneMapCache {
+    // rough per-object sizes used for the memory estimate
+    private static final long BYTES_PER_COORDINATE = 48;
+    private static final long BYTES_PER_ISOCHRONE = 512;
+
+    private final long maximumBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final List<Meter> meters = new ArrayList<>();
+    private long usedBytes;
+    private String graphDate;
+
+    public IsochroneMapCache(long maximumBytes) {
+        this.maximumBytes = maximumBytes;
+    }
+
+    private record Entry(IsochroneMap isochroneMap, long bytes) {
+    }
+
+    public static boolean isCacheable(IsochroneSearchParameters parameters) {
+        return !parameters.isTimeDependent();
+    }
+
+    /**
+     * @param snap the position the location of the request is snapped to
+     * @return the canonical form of the request, which contains the snapped position instead of the location and
+     * every option which affects the isochrones or their attributes
+     */
+    public static String createKey(Snap snap, IsochroneSearchParameters parameters) {
+        GHPoint3D point = snap.getSnappedPoint();
+        return new RequestKeyBuilder()
+                .add(snap.getClosestEdge().getEdge())
+                .add(point.getLat())
+                .add(point.getLon())
+                .add(parameters.getReverseDirection())
+                .add(parameters.getRangeType())
+                .add(parameters.getRanges())
+                .add(parameters.getCalcMethod())
+                .add(parameters.getSmoothingFactor())
+                .add(parameters.getAttributes())
+                .add(parameters.getUnits())
+                .add(parameters.getAreaUnits())
+                .add(parameters.getRouteParameters())
+                .build();
+    }
+
+    /**
+     * @param graphDate the date of the graph the isochrones would be computed on
+     * @return the cached isochrone map or null
+     */
+    public IsochroneMap get(String key, String graphDate) {
+        Entry entry;
+        synchronized (this) {
+            invalidateIfGraphChanged(graphDate);
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.isochroneMap();
+    }
+
+    /**
+     * Adds an isochrone map which has been computed on the graph of the given date and evicts the least recently used
+     * ones until the cache fits its memory limit again. Maps which are larger than the whole cache are not stored.
+     */
+    public void put(String key, String graphDate, IsochroneMap isochroneMap) {
+        long bytes = estimateSize(key, isochroneMap);
+        if (bytes > maximumBytes)
+            return;
+        synchronized (this) {
+            invalidateIfGraphChanged(graphDate);
+            Entry previous = entries.put(key, new Entry(isochroneMap, bytes));
+            if (previous != null)
+                usedBytes -= previous.bytes();
+            usedBytes += bytes;
+
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (usedBytes > maximumBytes && iterator.hasNext()) {
+                usedBytes -= iterator.next().bytes();
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    static long estimateSize(String key, IsochroneMap isochroneMap) {
+        long bytes = 2L * key.length();
+        for (Isochrone isochrone : isochroneMap.getIsochrones())
+            bytes += BYTES_PER_ISOCHRONE + isochrone.getGeometry().getNumPoints() * BYTES_PER_COORDINATE;
+        return bytes;
+    }
+
+    private void invalidateIfGraphChanged(String graphDate) {
+        if (!Objects.equals(this.graphDate, graphDate)) {
+            entries.clear();
+            usedBytes = 0;
+            this.graphDate = graphDate;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Registers hit, miss and eviction counters, the hit ratio and the size of the cache with the given registry.
+     */
+    public void bindTo(MeterRegistry registry, String profileName) {
+        Tags tags = Tags.of("profile", profileName);
+        meters.add(FunctionCounter.builder("ors.isochrones.result_cache.hits", this, IsochroneMapCache::getHits).tags(tags).register(registry));
+        meters.add(FunctionCounter.builder("ors.isochrones.result_cache.misses", this, IsochroneMapCache::getMisses).tags(tags).register(registry));
+        meters.add(FunctionCounter.builder("ors.isochrones.result_cache.evictions", this, IsochroneMapCache::getEvictions).tags(tags).register(registry));
+        meters.add(Gauge.builder("ors.isochrones.result_cache.hit_ratio", this, IsochroneMapCache::getHitRatio).tags(tags).register(registry));
+        meters.add(Gauge.builder("ors.isochrones.result_cache.entries", this, IsochroneMapCache::size).tags(tags).register(registry));
+        meters.add(Gauge.builder("ors.isochrones.result_cache.bytes", this, IsochroneMapCache::getUsedBytes).baseUnit("bytes").tags(tags).register(registry));
+    }
+
+    /**
+     * Clears the cache and removes its meters from the registry.
+     */
+    public void close(MeterRegistry registry) {
+        for (Meter meter : meters)
+            registry.remove(meter);
+        meters.clear();
+        clear();
+    }
+}
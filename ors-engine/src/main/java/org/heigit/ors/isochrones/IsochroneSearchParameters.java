@@ -13,6 +13,7 @@
  */
 package org.heigit.ors.isochrones;
 
+import com.graphhopper.storage.index.Snap;
 import org.heigit.ors.common.TravelRangeType;
 import org.heigit.ors.isochrones.statistics.StatisticsProviderConfiguration;
 import org.heigit.ors.routing.RouteSearchParameters;
@@ -33,6 +34,7 @@ public class IsochroneSearchParameters {
     private String units;
     private String areaUnits;
     private Map<String, StatisticsProviderConfiguration> statsProviders;
+    private Snap snap;
 
     public boolean hasAttribute(String attr) {
         if (attributes == null || attr == null)
@@ -161,4 +163,19 @@ public class IsochroneSearchParameters {
     public void setStatsProviders(Map<String, StatisticsProviderConfiguration> statsProviders) {
         this.statsProviders = statsProviders;
     }
+
+    /**
+     * @return the location snapped to the graph before the search, e.g. for looking up cached isochrones, or null if
+     * the search has to snap it
+     */
+    public Snap getSnap() {
+        return snap;
+    }
+
+    /**
+     * The snap is changed by the query graph of the search, so it is only used by a single search.
+     */
+    public void setSnap(Snap snap) {
+        this.snap = snap;
+    }
 }
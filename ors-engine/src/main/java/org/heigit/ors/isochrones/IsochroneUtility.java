@@ -13,7 +13,13 @@
  */
 package org.heigit.ors.isochrones;
 
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.HikeFlagEncoder;
 import org.heigit.ors.common.Pair;
+import org.heigit.ors.routing.graphhopper.extensions.flagencoders.FootFlagEncoder;
+import org.heigit.ors.routing.graphhopper.extensions.flagencoders.ORSAbstractFlagEncoder;
+import org.heigit.ors.routing.graphhopper.extensions.flagencoders.WheelchairFlagEncoder;
+import org.heigit.ors.routing.graphhopper.extensions.flagencoders.bike.CommonBikeFlagEncoder;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 
@@ -25,6 +31,33 @@ public class IsochroneUtility {
     private IsochroneUtility() {
     }
 
+    /**
+     * @return the speed in km/h with which the isochrone polygons are buffered
+     */
+    public static double getMaximumSpeed(FlagEncoder encoder) {
+        if (encoder instanceof FootFlagEncoder || encoder instanceof HikeFlagEncoder) {
+            // in the GH FootFlagEncoder, the maximum speed is set to 15km/h which is way too high
+            return 4;
+        }
+        if (encoder instanceof WheelchairFlagEncoder) {
+            return WheelchairFlagEncoder.MEAN_SPEED;
+        }
+        return encoder.getMaxSpeed();
+    }
+
+    /**
+     * @return the speed in km/h the reach factor of the isochrones is based on
+     */
+    public static double getMeanSpeed(FlagEncoder encoder) {
+        if (encoder instanceof ORSAbstractFlagEncoder flagEncoder) {
+            return flagEncoder.getMeanSpeed();
+        }
+        if (encoder instanceof CommonBikeFlagEncoder flagEncoder) {
+            return flagEncoder.getMeanSpeed();
+        }
+        return getMaximumSpeed(encoder);
+    }
+
     public static List<IsochronesIntersection> computeIntersections(IsochroneMapCollection isochroneMaps) {
         List<IsochronesIntersection> result = new ArrayList<>();
         if (isochroneMaps.size() == 1)
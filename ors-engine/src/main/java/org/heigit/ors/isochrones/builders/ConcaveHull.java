@@ -0,0 +1,196 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.isochrones.builders;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.graphhopper.coll.MinHeapWithUpdate;
+import org.locationtech.jts.algorithm.Orientation;
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.triangulate.DelaunayTriangulationBuilder;
+import org.locationtech.jts.triangulate.quadedge.Vertex;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes the concave hull of a set of points with the algorithm of Duckham et al. (2008), like
+ * {@link org.opensphere.geometry.algorithm.ConcaveHullOpenSphere}: starting from the Delaunay triangulation, the
+ * longest border edge is removed together with its triangle as long as it is longer than the threshold and the
+ * removal keeps the hull a simple polygon.
+ * <p>
+ * The triangulation is kept in arrays indexed by vertex, edge and triangle instead of maps of boxed ids and objects,
+ * so building the hull of the large point sets of isochrones costs little more than the triangulation itself.
+ */
+public class ConcaveHull {
+    private final GeometryFactory geometryFactory;
+    private final Coordinate[] coordinates;
+    private final double threshold;
+
+    // vertices of the triangles in counterclockwise order, indexed by 3 * triangle + k
+    private int[] triangleVertices;
+    // edges between the vertices k and k + 1 of the triangles, indexed like the vertices
+    private int[] triangleEdges;
+    // the triangles on both sides of the edges, indexed by 2 * edge, -1 if there is only one
+    private int[] edgeTriangles;
+    private double[] edgeLengths;
+    private int triangleCount;
+    private int edgeCount;
+
+    /**
+     * @param geometry  the points to build the hull of, usually a {@link GeometryCollection} of points
+     * @param threshold the length in degrees up to which border edges are kept
+     */
+    public ConcaveHull(Geometry geometry, double threshold) {
+        this.geometryFactory = geometry.getFactory();
+        this.coordinates = geometry.getCoordinates();
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return if the concave hull contains 3 or more points, a {@link Polygon}; 2 points, a {@link LineString};
+     * 1 point, a {@link Point}; 0 points, an empty {@link GeometryCollection}. Points which are all collinear result
+     * in their convex hull.
+     */
+    public Geometry getConcaveHull() {
+        // the index of each coordinate is carried through the triangulation as its z value
+        Coordinate[] sites = new Coordinate[coordinates.length];
+        for (int i = 0; i < coordinates.length; i++)
+            sites[i] = new Coordinate(coordinates[i].x, coordinates[i].y, i);
+        CoordinateList uniqueSites = DelaunayTriangulationBuilder.unique(sites);
+
+        if (uniqueSites.isEmpty())
+            return geometryFactory.createGeometryCollection(null);
+        if (uniqueSites.size() == 1)
+            return geometryFactory.createPoint(coordinates[(int) uniqueSites.getCoordinate(0).getZ()].copy());
+        if (uniqueSites.size() == 2)
+            return geometryFactory.createLineString(new Coordinate[]{
+                    coordinates[(int) uniqueSites.getCoordinate(0).getZ()].copy(),
+                    coordinates[(int) uniqueSites.getCoordinate(1).getZ()].copy()});
+
+        DelaunayTriangulationBuilder builder = new DelaunayTriangulationBuilder();
+        builder.setSites(uniqueSites);
+        createTriangulation(builder.getSubdivision().getTriangleVertices(false));
+        if (triangleCount == 0)
+            return geometryFactory.createMultiPoint(uniqueSites.toCoordinateArray()).convexHull();
+
+        boolean[] removedTriangles = new boolean[triangleCount];
+        boolean[] borderVertices = new boolean[coordinates.length];
+        MinHeapWithUpdate queue = new MinHeapWithUpdate(edgeCount);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (edgeTriangles[2 * edge + 1] != -1)
+                continue;
+            int triangle = edgeTriangles[2 * edge];
+            int slot = getSlot(triangle, edge);
+            borderVertices[triangleVertices[3 * triangle + slot]] = true;
+            borderVertices[triangleVertices[3 * triangle + (slot + 1) % 3]] = true;
+            if (edgeLengths[edge] > threshold)
+                queue.push(edge, (float) -edgeLengths[edge]);
+        }
+
+        while (!queue.isEmpty()) {
+            int edge = queue.poll();
+            int triangle = removedTriangles[edgeTriangles[2 * edge]] ? edgeTriangles[2 * edge + 1] : edgeTriangles[2 * edge];
+            int slot = getSlot(triangle, edge);
+            int opposite = triangleVertices[3 * triangle + (slot + 2) % 3];
+            // removing the triangle would make the opposite vertex appear twice on the border
+            if (borderVertices[opposite])
+                continue;
+            removedTriangles[triangle] = true;
+            borderVertices[opposite] = true;
+            for (int i = 1; i < 3; i++) {
+                int borderEdge = triangleEdges[3 * triangle + (slot + i) % 3];
+                if (edgeLengths[borderEdge] > threshold)
+                    queue.push(borderEdge, (float) -edgeLengths[borderEdge]);
+            }
+        }
+
+        return createHull(removedTriangles);
+    }
+
+    private void createTriangulation(List<Vertex[]> triangles) {
+        triangleVertices = new int[3 * triangles.size()];
+        triangleEdges = new int[3 * triangles.size()];
+        edgeTriangles = new int[6 * triangles.size()];
+        edgeLengths = new double[3 * triangles.size()];
+        LongIntHashMap edgeIds = new LongIntHashMap(3 * triangles.size());
+
+        for (Vertex[] vertices : triangles) {
+            int orientation = Orientation.index(vertices[0].getCoordinate(), vertices[1].getCoordinate(), vertices[2].getCoordinate());
+            if (orientation == Orientation.COLLINEAR)
+                continue;
+            int triangle = triangleCount++;
+            for (int k = 0; k < 3; k++) {
+                Vertex vertex = vertices[orientation == Orientation.COUNTERCLOCKWISE ? k : 2 - k];
+                triangleVertices[3 * triangle + k] = (int) vertex.getZ();
+            }
+            for (int k = 0; k < 3; k++) {
+                int from = triangleVertices[3 * triangle + k];
+                int to = triangleVertices[3 * triangle + (k + 1) % 3];
+                long key = Math.min(from, to) * (long) coordinates.length + Math.max(from, to);
+                int edge = edgeIds.getOrDefault(key, -1);
+                if (edge == -1) {
+                    edge = edgeCount++;
+                    edgeIds.put(key, edge);
+                    edgeTriangles[2 * edge] = triangle;
+                    edgeTriangles[2 * edge + 1] = -1;
+                    edgeLengths[edge] = coordinates[from].distance(coordinates[to]);
+                } else {
+                    edgeTriangles[2 * edge + 1] = triangle;
+                }
+                triangleEdges[3 * triangle + k] = edge;
+            }
+        }
+    }
+
+    private int getSlot(int triangle, int edge) {
+        for (int k = 0; k < 2; k++) {
+            if (triangleEdges[3 * triangle + k] == edge)
+                return k;
+        }
+        return 2;
+    }
+
+    /**
+     * Walks along the border edges of the remaining triangles, which form a single counterclockwise ring.
+     */
+    private Geometry createHull(boolean[] removedTriangles) {
+        int[] next = new int[coordinates.length];
+        Arrays.fill(next, -1);
+        int start = -1;
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            if (removedTriangles[triangle])
+                continue;
+            for (int k = 0; k < 3; k++) {
+                int edge = triangleEdges[3 * triangle + k];
+                int other = edgeTriangles[2 * edge] == triangle ? edgeTriangles[2 * edge + 1] : edgeTriangles[2 * edge];
+                if (other == -1 || removedTriangles[other]) {
+                    start = triangleVertices[3 * triangle + k];
+                    next[start] = triangleVertices[3 * triangle + (k + 1) % 3];
+                }
+            }
+        }
+
+        CoordinateList ring = new CoordinateList();
+        int vertex = start;
+        do {
+            ring.add(coordinates[vertex].copy(), false);
+            vertex = next[vertex];
+        } while (vertex != start && vertex != -1 && ring.size() <= coordinates.length);
+
+        if (vertex != start)
+            return geometryFactory.createLineString(ring.toCoordinateArray());
+        ring.closeRing();
+        return geometryFactory.createPolygon(ring.toCoordinateArray());
+    }
+}
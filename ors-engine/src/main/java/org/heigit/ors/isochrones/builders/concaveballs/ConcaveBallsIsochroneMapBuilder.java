@@ -18,7 +18,6 @@ import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import com.graphhopper.coll.GHIntObjectHashMap;
 import com.graphhopper.routing.SPTEntry;
 import com.graphhopper.routing.util.FlagEncoder;
-import com.graphhopper.routing.util.HikeFlagEncoder;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.storage.NodeAccess;
 import com.graphhopper.util.*;
@@ -29,17 +28,14 @@ import org.heigit.ors.isochrones.GraphEdgeMapFinder;
 import org.heigit.ors.isochrones.Isochrone;
 import org.heigit.ors.isochrones.IsochroneMap;
 import org.heigit.ors.isochrones.IsochroneSearchParameters;
+import org.heigit.ors.isochrones.IsochroneUtility;
+import org.heigit.ors.isochrones.builders.ConcaveHull;
 import org.heigit.ors.isochrones.builders.IsochroneMapBuilder;
 import org.heigit.ors.routing.RouteSearchContext;
 import org.heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
-import org.heigit.ors.routing.graphhopper.extensions.flagencoders.FootFlagEncoder;
-import org.heigit.ors.routing.graphhopper.extensions.flagencoders.ORSAbstractFlagEncoder;
-import org.heigit.ors.routing.graphhopper.extensions.flagencoders.WheelchairFlagEncoder;
-import org.heigit.ors.routing.graphhopper.extensions.flagencoders.bike.CommonBikeFlagEncoder;
 import org.heigit.ors.util.GeomUtility;
 import org.locationtech.jts.geom.*;
 import org.locationtech.jts.index.quadtree.Quadtree;
-import org.opensphere.geometry.algorithm.ConcaveHullOpenSphere;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -80,26 +76,10 @@ public class ConcaveBallsIsochroneMapBuilder implements IsochroneMapBuilder {
 
         // 1. Find all graph edges for a given cost.
         FlagEncoder encoder = searchContext.getEncoder();
-        double maxSpeed = encoder.getMaxSpeed();
+        double maxSpeed = IsochroneUtility.getMaximumSpeed(encoder);
+        double meanSpeed = IsochroneUtility.getMeanSpeed(encoder);
 
-        if (encoder instanceof FootFlagEncoder || encoder instanceof HikeFlagEncoder) {
-            // in the GH FootFlagEncoder, the maximum speed is set to 15km/h which is way too high
-            maxSpeed = 4;
-        }
-
-        if (encoder instanceof WheelchairFlagEncoder) {
-            maxSpeed = WheelchairFlagEncoder.MEAN_SPEED;
-        }
-
-        double meanSpeed = maxSpeed;
-        if (encoder instanceof ORSAbstractFlagEncoder flagEncoder) {
-            meanSpeed = flagEncoder.getMeanSpeed();
-        }
-        if (encoder instanceof CommonBikeFlagEncoder flagEncoder) {
-            meanSpeed = flagEncoder.getMeanSpeed();
-        }
-
-        AccessibilityMap edgeMap = GraphEdgeMapFinder.findEdgeMap(searchContext, parameters);
+        AccessibilityMap edgeMap = findEdgeMap(searchContext, parameters);
 
         GHPoint3D point = edgeMap.getSnappedPosition();
 
@@ -190,6 +170,13 @@ public class ConcaveBallsIsochroneMapBuilder implements IsochroneMapBuilder {
         return isochroneMap;
     }
 
+    /**
+     * Finds all graph edges within the maximum range of the isochrone, see {@link GraphEdgeMapFinder}.
+     */
+    protected AccessibilityMap findEdgeMap(RouteSearchContext searchContext, IsochroneSearchParameters parameters) throws Exception {
+        return GraphEdgeMapFinder.findEdgeMap(searchContext, parameters);
+    }
+
     /**
      * Converts the smoothing factor into a distance (which can be used in algorithms for generating isochrone polygons).
      * The distance value returned is dependent on the radius and smoothing factor.
@@ -236,7 +223,7 @@ public class ConcaveBallsIsochroneMapBuilder implements IsochroneMapBuilder {
             sw = new StopWatch();
             sw.start();
         }
-        ConcaveHullOpenSphere concaveHullShell = new ConcaveHullOpenSphere(geometry, convertSmoothingFactorToDistance(smoothingFactor, maxRadius), false);
+        ConcaveHull concaveHullShell = new ConcaveHull(geometry, convertSmoothingFactorToDistance(smoothingFactor, maxRadius));
         Geometry shellGeometry = concaveHullShell.getConcaveHull();
         if (shellGeometry instanceof GeometryCollection geomColl) {
             if (geomColl.isEmpty())
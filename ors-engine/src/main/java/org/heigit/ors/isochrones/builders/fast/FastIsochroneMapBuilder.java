@@ -42,6 +42,7 @@ import org.heigit.ors.isochrones.Isochrone;
 import org.heigit.ors.isochrones.IsochroneMap;
 import org.heigit.ors.isochrones.IsochroneSearchParameters;
 import org.heigit.ors.isochrones.IsochronesErrorCodes;
+import org.heigit.ors.isochrones.builders.ConcaveHull;
 import org.heigit.ors.isochrones.builders.IsochroneMapBuilder;
 import org.heigit.ors.isochrones.builders.concaveballs.PointItemVisitor;
 import org.heigit.ors.routing.AvoidFeatureFlags;
@@ -60,7 +61,6 @@ import org.heigit.ors.util.GeomUtility;
 import org.locationtech.jts.geom.*;
 import org.locationtech.jts.index.quadtree.Quadtree;
 import org.locationtech.jts.operation.union.UnaryUnionOp;
-import org.opensphere.geometry.algorithm.ConcaveHullOpenSphere;
 
 import java.util.*;
 
@@ -409,7 +409,7 @@ public class FastIsochroneMapBuilder implements IsochroneMapBuilder {
         LinearRing ring;
         Geometry concaveHull;
         try {
-            ConcaveHullOpenSphere ch = new ConcaveHullOpenSphere(points, convertSmoothingFactorToDistance(smoothingFactor, maxRadius), false);
+            ConcaveHull ch = new ConcaveHull(points, convertSmoothingFactorToDistance(smoothingFactor, maxRadius));
             concaveHull = ch.getConcaveHull();
             if (concaveHull instanceof Polygon polygon) {
                 ring = polygon.getExteriorRing();
@@ -441,7 +441,7 @@ public class FastIsochroneMapBuilder implements IsochroneMapBuilder {
             return;
         Polygon poly;
         try {
-            ConcaveHullOpenSphere ch = new ConcaveHullOpenSphere(points, convertSmoothingFactorToDistance(smoothingFactor, maxRadius), false);
+            ConcaveHull ch = new ConcaveHull(points, convertSmoothingFactorToDistance(smoothingFactor, maxRadius));
             Geometry geom = ch.getConcaveHull();
 
             if (geom instanceof GeometryCollection geomColl) {
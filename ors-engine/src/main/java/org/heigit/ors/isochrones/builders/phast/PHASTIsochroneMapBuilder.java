@@ -0,0 +1,32 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.isochrones.builders.phast;
+
+import org.heigit.ors.isochrones.GraphEdgeMapFinder;
+import org.heigit.ors.isochrones.IsochroneSearchParameters;
+import org.heigit.ors.isochrones.builders.concaveballs.ConcaveBallsIsochroneMapBuilder;
+import org.heigit.ors.routing.RouteSearchContext;
+import org.heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
+
+/**
+ * Builds the isochrone polygons like {@link ConcaveBallsIsochroneMapBuilder}, but finds the reachable edges with a
+ * PHAST search on the contraction hierarchy of the isochrone weighting. This avoids settling every node within the
+ * range in a Dijkstra search, which dominates the time of large isochrones.
+ */
+public class PHASTIsochroneMapBuilder extends ConcaveBallsIsochroneMapBuilder {
+    @Override
+    protected AccessibilityMap findEdgeMap(RouteSearchContext searchContext, IsochroneSearchParameters parameters) throws Exception {
+        return GraphEdgeMapFinder.findEdgeMap(searchContext, parameters, true);
+    }
+}
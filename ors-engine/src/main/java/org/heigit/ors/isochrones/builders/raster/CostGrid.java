@@ -0,0 +1,243 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.isochrones.builders.raster;
+
+import com.carrotsearch.hppc.IntIntHashMap;
+import org.locationtech.jts.algorithm.Area;
+import org.locationtech.jts.algorithm.Orientation;
+import org.locationtech.jts.geom.*;
+
+import java.util.Arrays;
+
+/**
+ * Grid holding the minimum travel cost of each cell, from which the isochrone polygons of all ranges are extracted
+ * with marching squares in a single pass over the grid.
+ * <p>
+ * The costs are sampled at the cell centres. The contours run between the centres of neighbouring cells, at the
+ * position where the linearly interpolated cost reaches the range.
+ */
+public class CostGrid {
+    // empty cells around the envelope, so every contour is closed even after filling the gaps
+    private static final int PADDING = 2;
+    // bottom, right, top and left edge of a square
+    private static final int BOTTOM = 0;
+    private static final int RIGHT = 1;
+    private static final int TOP = 2;
+    private static final int LEFT = 3;
+    // directed contour segments of the squares by the corners within the range (1 = bottom left, 2 = bottom right,
+    // 4 = top right, 8 = top left); the inside is always on the left, so shells are counterclockwise. Saddles are
+    // resolved by keeping the corners separated.
+    private static final int[][] SEGMENTS = {
+            {},
+            {BOTTOM, LEFT},
+            {RIGHT, BOTTOM},
+            {RIGHT, LEFT},
+            {TOP, RIGHT},
+            {BOTTOM, LEFT, TOP, RIGHT},
+            {TOP, BOTTOM},
+            {TOP, LEFT},
+            {LEFT, TOP},
+            {BOTTOM, TOP},
+            {RIGHT, BOTTOM, LEFT, TOP},
+            {RIGHT, TOP},
+            {LEFT, RIGHT},
+            {BOTTOM, RIGHT},
+            {LEFT, BOTTOM},
+            {}
+    };
+
+    private final GeometryFactory geometryFactory;
+    private final double minX;
+    private final double minY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    private float[] costs;
+
+    public CostGrid(GeometryFactory geometryFactory, Envelope envelope, double cellWidth, double cellHeight) {
+        this.geometryFactory = geometryFactory;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.minX = envelope.getMinX() - PADDING * cellWidth;
+        this.minY = envelope.getMinY() - PADDING * cellHeight;
+        this.columns = (int) Math.ceil(envelope.getWidth() / cellWidth) + 1 + 2 * PADDING;
+        this.rows = (int) Math.ceil(envelope.getHeight() / cellHeight) + 1 + 2 * PADDING;
+        this.costs = new float[columns * rows];
+        Arrays.fill(costs, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @return the number of cells of a grid covering the envelope
+     */
+    public static long getCellCount(Envelope envelope, double cellWidth, double cellHeight) {
+        return ((long) Math.ceil(envelope.getWidth() / cellWidth) + 1 + 2 * PADDING) * ((long) Math.ceil(envelope.getHeight() / cellHeight) + 1 + 2 * PADDING);
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public float getCost(int column, int row) {
+        return costs[row * columns + column];
+    }
+
+    /**
+     * Lowers the cost of the cell containing the given position to the given cost.
+     */
+    public void addCost(double x, double y, double cost) {
+        int column = (int) Math.floor((x - minX) / cellWidth);
+        int row = (int) Math.floor((y - minY) / cellHeight);
+        if (column < 0 || column >= columns || row < 0 || row >= rows)
+            return;
+        int index = row * columns + column;
+        if (cost < costs[index])
+            costs[index] = (float) cost;
+    }
+
+    /**
+     * Lowers the costs of the cells along a line whose cost changes linearly from start to end. The line is sampled
+     * at least twice per cell, so it never skips a cell.
+     */
+    public void addLine(double x0, double y0, double cost0, double x1, double y1, double cost1) {
+        double cells = Math.max(Math.abs(x1 - x0) / cellWidth, Math.abs(y1 - y0) / cellHeight);
+        int steps = Math.max(1, (int) Math.ceil(2 * cells));
+        for (int i = 0; i <= steps; i++) {
+            double fraction = (double) i / steps;
+            addCost(x0 + (x1 - x0) * fraction, y0 + (y1 - y0) * fraction, cost0 + (cost1 - cost0) * fraction);
+        }
+    }
+
+    /**
+     * Lets every cell take the minimum cost of its eight neighbours, which closes the gaps between neighbouring roads
+     * and buffers the roads at the edge of the isochrones by one cell.
+     */
+    public void fillGaps() {
+        float[] filled = costs.clone();
+        for (int row = 1; row < rows - 1; row++) {
+            for (int column = 1; column < columns - 1; column++) {
+                int index = row * columns + column;
+                float cost = filled[index];
+                for (int neighbourRow = row - 1; neighbourRow <= row + 1; neighbourRow++) {
+                    for (int neighbourColumn = column - 1; neighbourColumn <= column + 1; neighbourColumn++)
+                        cost = Math.min(cost, costs[neighbourRow * columns + neighbourColumn]);
+                }
+                filled[index] = cost;
+            }
+        }
+        costs = filled;
+    }
+
+    /**
+     * Traces the contours of all ranges in one pass over the squares between the cell centres.
+     *
+     * @param ranges the ranges in ascending order
+     * @return the largest polygon within each range, or null if no cell is within the range
+     */
+    public Polygon[] extractContours(double[] ranges) {
+        IntIntHashMap[] segments = new IntIntHashMap[ranges.length];
+        for (int k = 0; k < ranges.length; k++)
+            segments[k] = new IntIntHashMap();
+        double minRange = ranges[0];
+        double maxRange = ranges[ranges.length - 1];
+
+        for (int row = 0; row < rows - 1; row++) {
+            for (int column = 0; column < columns - 1; column++) {
+                float bottomLeft = getCost(column, row);
+                float bottomRight = getCost(column + 1, row);
+                float topRight = getCost(column + 1, row + 1);
+                float topLeft = getCost(column, row + 1);
+                float min = Math.min(Math.min(bottomLeft, bottomRight), Math.min(topRight, topLeft));
+                float max = Math.max(Math.max(bottomLeft, bottomRight), Math.max(topRight, topLeft));
+                // squares which are completely inside or outside of all ranges have no contours
+                if (min > maxRange || max <= minRange)
+                    continue;
+                for (int k = 0; k < ranges.length; k++) {
+                    double range = ranges[k];
+                    int corners = (bottomLeft <= range ? 1 : 0) | (bottomRight <= range ? 2 : 0)
+                            | (topRight <= range ? 4 : 0) | (topLeft <= range ? 8 : 0);
+                    int[] squareSegments = SEGMENTS[corners];
+                    for (int i = 0; i < squareSegments.length; i += 2)
+                        segments[k].put(getEdgeId(column, row, squareSegments[i]), getEdgeId(column, row, squareSegments[i + 1]));
+                }
+            }
+        }
+
+        Polygon[] polygons = new Polygon[ranges.length];
+        for (int k = 0; k < ranges.length; k++)
+            polygons[k] = createPolygon(segments[k], ranges[k]);
+        return polygons;
+    }
+
+    /**
+     * Horizontal edges between the centres of the cells (column, row) and (column + 1, row) have even ids, vertical
+     * edges between (column, row) and (column, row + 1) odd ids.
+     */
+    private int getEdgeId(int column, int row, int side) {
+        return switch (side) {
+            case BOTTOM -> 2 * (row * columns + column);
+            case RIGHT -> 2 * (row * columns + column + 1) + 1;
+            case TOP -> 2 * ((row + 1) * columns + column);
+            default -> 2 * (row * columns + column) + 1;
+        };
+    }
+
+    private Coordinate getEdgePoint(int edgeId, double range) {
+        int index = edgeId / 2;
+        int column = index % columns;
+        int row = index / columns;
+        boolean horizontal = edgeId % 2 == 0;
+        float from = getCost(column, row);
+        float to = horizontal ? getCost(column + 1, row) : getCost(column, row + 1);
+        double fraction = Float.isInfinite(from) || Float.isInfinite(to) ? 0.5 : Math.max(0, Math.min(1, (range - from) / (to - from)));
+        double x = column + 0.5 + (horizontal ? fraction : 0);
+        double y = row + 0.5 + (horizontal ? 0 : fraction);
+        return new Coordinate(minX + x * cellWidth, minY + y * cellHeight);
+    }
+
+    /**
+     * Joins the contour segments of a range to rings and returns the largest shell.
+     */
+    private Polygon createPolygon(IntIntHashMap segments, double range) {
+        Coordinate[] largestShell = null;
+        double largestArea = 0;
+        for (int start : segments.keys().toArray()) {
+            if (!segments.containsKey(start))
+                continue;
+            CoordinateList ring = new CoordinateList();
+            int edgeId = start;
+            do {
+                ring.add(getEdgePoint(edgeId, range), false);
+                int next = segments.getOrDefault(edgeId, -1);
+                segments.remove(edgeId);
+                edgeId = next;
+            } while (edgeId != start && edgeId != -1);
+            ring.closeRing();
+            if (edgeId != start || ring.size() < 4)
+                continue;
+            Coordinate[] coordinates = ring.toCoordinateArray();
+            double area = Area.ofRing(coordinates);
+            // holes run clockwise
+            if (Orientation.isCCW(coordinates) && area > largestArea) {
+                largestShell = coordinates;
+                largestArea = area;
+            }
+        }
+        return largestShell == null ? null : geometryFactory.createPolygon(largestShell);
+    }
+}
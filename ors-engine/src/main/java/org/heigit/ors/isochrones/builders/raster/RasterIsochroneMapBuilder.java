@@ -0,0 +1,190 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.isochrones.builders.raster;
+
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntObjectMap;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.graphhopper.routing.SPTEntry;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.util.*;
+import com.graphhopper.util.shapes.GHPoint3D;
+import org.apache.log4j.Logger;
+import org.heigit.ors.common.TravelRangeType;
+import org.heigit.ors.isochrones.GraphEdgeMapFinder;
+import org.heigit.ors.isochrones.Isochrone;
+import org.heigit.ors.isochrones.IsochroneMap;
+import org.heigit.ors.isochrones.IsochroneSearchParameters;
+import org.heigit.ors.isochrones.IsochroneUtility;
+import org.heigit.ors.isochrones.builders.IsochroneMapBuilder;
+import org.heigit.ors.routing.RouteSearchContext;
+import org.heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
+import org.heigit.ors.util.GeomUtility;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds coarse isochrone polygons from a raster: the costs along the reachable edges are drawn into a
+ * {@link CostGrid}, which keeps the minimum cost of each cell, and the polygons of all ranges are traced from the
+ * grid with marching squares. This trades the detail of the concave hulls for a build time which is linear in the
+ * number of reached edges and cells.
+ */
+public class RasterIsochroneMapBuilder implements IsochroneMapBuilder {
+    private static final Logger LOGGER = Logger.getLogger(RasterIsochroneMapBuilder.class.getName());
+    // the cells are enlarged for large isochrones to bound the memory of the grid
+    private static final long MAXIMUM_CELLS = 4_000_000;
+    private static final DistanceCalc dcFast = new DistancePlaneProjection();
+    private final double cellSize;
+    private GeometryFactory geometryFactory;
+    private RouteSearchContext searchContext;
+
+    /**
+     * @param cellSize the width and height of the grid cells in metres
+     */
+    public RasterIsochroneMapBuilder(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void initialize(RouteSearchContext searchContext) {
+        geometryFactory = new GeometryFactory();
+        this.searchContext = searchContext;
+    }
+
+    public IsochroneMap compute(IsochroneSearchParameters parameters) throws Exception {
+        StopWatch sw = null;
+        if (LOGGER.isDebugEnabled()) {
+            sw = new StopWatch();
+            sw.start();
+        }
+
+        GraphHopperStorage graph = searchContext.getGraphHopper().getGraphHopperStorage();
+        String graphdate = graph.getProperties().get("datareader.import.date");
+
+        AccessibilityMap edgeMap = findEdgeMap(searchContext, parameters);
+        GHPoint3D point = edgeMap.getSnappedPosition();
+        Coordinate loc = (point == null) ? parameters.getLocation() : new Coordinate(point.lon, point.lat);
+
+        IsochroneMap isochroneMap = new IsochroneMap(parameters.getTravellerId(), loc);
+        isochroneMap.setGraphDate(graphdate);
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Find edges: " + sw.stop().getSeconds());
+            sw = new StopWatch();
+            sw.start();
+        }
+
+        if (edgeMap.isEmpty())
+            return isochroneMap;
+
+        double[] ranges = parameters.getRanges();
+        List<PointList> geometries = new ArrayList<>(edgeMap.getMap().size());
+        DoubleArrayList edgeCosts = new DoubleArrayList(2 * edgeMap.getMap().size());
+        Envelope envelope = new Envelope(loc);
+        collectEdges(edgeMap.getMap(), ranges[ranges.length - 1], geometries, edgeCosts, envelope);
+
+        CostGrid grid = createGrid(envelope);
+        grid.addCost(loc.x, loc.y, 0);
+        for (int i = 0; i < geometries.size(); i++)
+            addEdge(grid, geometries.get(i), edgeCosts.get(2 * i), edgeCosts.get(2 * i + 1));
+        grid.fillGaps();
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Rasterize " + geometries.size() + " edges on " + grid.getColumns() + "x" + grid.getRows() + " cells: " + sw.stop().getSeconds());
+            sw = new StopWatch();
+            sw.start();
+        }
+
+        Polygon[] polygons = grid.extractContours(ranges);
+        double meanMetersPerSecond = IsochroneUtility.getMeanSpeed(searchContext.getEncoder()) / 3.6;
+        for (int i = 0; i < ranges.length; i++) {
+            if (polygons[i] == null)
+                continue;
+            double meanRadius = parameters.getRangeType() == TravelRangeType.DISTANCE ? ranges[i] : meanMetersPerSecond * ranges[i];
+            isochroneMap.addIsochrone(new Isochrone(polygons[i], ranges[i], meanRadius));
+        }
+
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Trace contours: " + sw.stop().getSeconds());
+
+        return isochroneMap;
+    }
+
+    protected AccessibilityMap findEdgeMap(RouteSearchContext searchContext, IsochroneSearchParameters parameters) throws Exception {
+        return GraphEdgeMapFinder.findEdgeMap(searchContext, parameters);
+    }
+
+    /**
+     * Collects the geometries of the edges which start within the maximum range together with the costs at their
+     * start and end.
+     */
+    private void collectEdges(IntObjectMap<SPTEntry> map, double maxRange, List<PointList> geometries, DoubleArrayList edgeCosts, Envelope envelope) {
+        GraphHopperStorage graph = searchContext.getGraphHopper().getGraphHopperStorage();
+        int maxNodeId = graph.getNodes() - 1;
+        int maxEdgeId = graph.getEdges() - 1;
+
+        for (IntObjectCursor<SPTEntry> entry : map) {
+            SPTEntry goalEdge = entry.value;
+            int edgeId = goalEdge.originalEdge;
+            int nodeId = goalEdge.adjNode;
+            if (edgeId == -1 || nodeId == -1 || nodeId > maxNodeId || edgeId > maxEdgeId || goalEdge.parent == null)
+                continue;
+            if (goalEdge.parent.weight > maxRange)
+                continue;
+
+            PointList pl = graph.getEdgeIteratorState(edgeId, nodeId).fetchWayGeometry(FetchMode.ALL);
+            if (pl.isEmpty())
+                continue;
+            for (int i = 0; i < pl.size(); i++)
+                envelope.expandToInclude(pl.getLon(i), pl.getLat(i));
+            geometries.add(pl);
+            edgeCosts.add(goalEdge.parent.weight, goalEdge.weight);
+        }
+    }
+
+    private CostGrid createGrid(Envelope envelope) {
+        double cellHeight = GeomUtility.metresToDegrees(cellSize);
+        double cellWidth = cellHeight / Math.cos(Math.toRadians(envelope.centre().y));
+        long cells = CostGrid.getCellCount(envelope, cellWidth, cellHeight);
+        if (cells > MAXIMUM_CELLS) {
+            double scale = Math.sqrt((double) cells / MAXIMUM_CELLS);
+            cellWidth *= scale;
+            cellHeight *= scale;
+        }
+        return new CostGrid(geometryFactory, envelope, cellWidth, cellHeight);
+    }
+
+    /**
+     * Draws the edge into the grid with the cost interpolated along its geometry by distance.
+     */
+    private static void addEdge(CostGrid grid, PointList pl, double startCost, double endCost) {
+        if (pl.size() == 1) {
+            grid.addCost(pl.getLon(0), pl.getLat(0), Math.min(startCost, endCost));
+            return;
+        }
+        double[] distances = new double[pl.size()];
+        for (int i = 1; i < pl.size(); i++)
+            distances[i] = distances[i - 1] + dcFast.calcDist(pl.getLat(i - 1), pl.getLon(i - 1), pl.getLat(i), pl.getLon(i));
+        double length = distances[pl.size() - 1];
+        double costPerMeter = length > 0 ? (endCost - startCost) / length : 0;
+        for (int i = 1; i < pl.size(); i++) {
+            grid.addLine(pl.getLon(i - 1), pl.getLat(i - 1), startCost + distances[i - 1] * costPerMeter,
+                    pl.getLon(i), pl.getLat(i), startCost + distances[i] * costPerMeter);
+        }
+    }
+}
@@ -32,6 +32,9 @@ public class MatrixErrorCodes {
     public static final int POINT_NOT_FOUND = 6010;
     public static final int UNKNOWN_PARAMETER = 6011;
     public static final int MAX_VISITED_NODES_EXCEEDED = 6020;
+    public static final int JOB_NOT_FOUND = 6030;
+    public static final int JOB_NOT_FINISHED = 6031;
+    public static final int JOBS_UNAVAILABLE = 6032;
     public static final int UNKNOWN = 6099;
 
     private MatrixErrorCodes() {
@@ -150,4 +150,25 @@ public class MatrixRequest extends ServiceRequest {
     public void setInfiniteUTurnCosts(boolean hasInfiniteUTurnCosts) {
         this.hasInfiniteUTurnCosts = hasInfiniteUTurnCosts;
     }
+
+    /**
+     * Creates a request with the same settings for a subset of the sources and destinations, e.g. one tile of a
+     * large matrix.
+     */
+    public MatrixRequest createSubRequest(Coordinate[] sources, Coordinate[] destinations) {
+        MatrixRequest subRequest = new MatrixRequest(maximumSearchRadius, maximumVisitedNodes, 0);
+        subRequest.setId(getId());
+        subRequest.profileType = profileType;
+        subRequest.sources = sources;
+        subRequest.destinations = destinations;
+        subRequest.metrics = metrics;
+        subRequest.weightingMethod = weightingMethod;
+        subRequest.units = units;
+        subRequest.resolveLocations = resolveLocations;
+        subRequest.flexibleMode = flexibleMode;
+        subRequest.algorithm = algorithm;
+        subRequest.searchParameters = searchParameters;
+        subRequest.hasInfiniteUTurnCosts = hasInfiniteUTurnCosts;
+        return subRequest;
+    }
 }
@@ -21,12 +21,18 @@ public class MatrixSearchContext {
     private final RoutingCHGraph routingCHGraph;
     private final MatrixLocations sources;
     private final MatrixLocations destinations;
+    private final long[] snapSignature;
 
     public MatrixSearchContext(Graph graph, RoutingCHGraph routingCHGraph, MatrixLocations sources, MatrixLocations destinations) {
+        this(graph, routingCHGraph, sources, destinations, null);
+    }
+
+    public MatrixSearchContext(Graph graph, RoutingCHGraph routingCHGraph, MatrixLocations sources, MatrixLocations destinations, long[] snapSignature) {
         this.graph = graph;
         this.routingCHGraph = routingCHGraph;
         this.sources = sources;
         this.destinations = destinations;
+        this.snapSignature = snapSignature;
     }
 
     public Graph getGraph() {
@@ -44,4 +50,12 @@ public class MatrixSearchContext {
     public MatrixLocations getDestinations() {
         return destinations;
     }
+
+    /**
+     * Identifies the snapped positions the query graph has been built from. Two contexts with equal signatures
+     * built on the same graph have identical query graphs, including the ids of their virtual nodes and edges.
+     */
+    public long[] getSnapSignature() {
+        return snapSignature;
+    }
 }
@@ -30,14 +30,26 @@ import org.heigit.ors.exceptions.PointNotFoundException;
 import org.locationtech.jts.geom.Coordinate;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 public class MatrixSearchContextBuilder {
+    // requests with fewer unresolved locations are snapped on the calling thread
+    private static final int PARALLEL_SNAP_MINIMUM = 256;
     private final boolean resolveNames;
     private final LocationIndex locIndex;
     private final EdgeFilter edgeFilter;
     private Map<Coordinate, LocationEntry> locationCache;
     private final GraphHopperStorage graphHopperStorage;
     private Weighting weighting;
+    private Supplier<Weighting> weightingSupplier;
+    private ExecutorService executor;
+    private int parallelism = 1;
+    private SnapCache snapCache;
+    private String snapFilterKey;
 
     public MatrixSearchContextBuilder(GraphHopperStorage graphHopperStorage, LocationIndex index, EdgeFilter edgeFilter, boolean resolveNames) {
         locIndex = index;
@@ -46,6 +58,32 @@ public class MatrixSearchContextBuilder {
         this.graphHopperStorage = graphHopperStorage;
     }
 
+    /**
+     * Snap large location sets in parallel using at most parallelism threads of the executor.
+     */
+    public void setExecutor(ExecutorService executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Create the weighting of the snap filter of every parallel worker. Several ORS weightings keep a mutable buffer
+     * for reading the extended storages, so the weighting passed to create must not be shared between threads.
+     * Without a supplier locations are always snapped on the calling thread.
+     */
+    public void setWeightingSupplier(Supplier<Weighting> weightingSupplier) {
+        this.weightingSupplier = weightingSupplier;
+    }
+
+    /**
+     * Look up snaps in a cache shared between requests. The filter key has to identify the snap filter, i.e. the
+     * profile and weighting passed to create, since cached snaps are only valid for the same filter.
+     */
+    public void setSnapCache(SnapCache snapCache, String snapFilterKey) {
+        this.snapCache = snapCache;
+        this.snapFilterKey = snapFilterKey;
+    }
+
     public MatrixSearchContext create(Graph graph, RoutingCHGraph chGraph, Weighting weighting, String profileName, Coordinate[] sources, Coordinate[] destinations, double maxSearchRadius) throws Exception {
         if (locationCache == null)
             locationCache = new HashMap<>();
@@ -69,7 +107,19 @@ public class MatrixSearchContextBuilder {
         MatrixLocations mlSources = createLocations(sources);
         MatrixLocations mlDestinations = createLocations(destinations);
 
-        return new MatrixSearchContext(queryGraph, routingCHGraph, mlSources, mlDestinations);
+        return new MatrixSearchContext(queryGraph, routingCHGraph, mlSources, mlDestinations, createSnapSignature(snaps));
+    }
+
+    private static long[] createSnapSignature(List<Snap> snaps) {
+        long[] signature = new long[snaps.size() * 3];
+        for (int i = 0; i < snaps.size(); i++) {
+            Snap snap = snaps.get(i);
+            GHPoint3D point = snap.getSnappedPoint();
+            signature[i * 3] = ((long) snap.getClosestEdge().getEdge() << 32) | ((long) snap.getWayIndex() << 2) | snap.getSnappedPosition().ordinal();
+            signature[i * 3 + 1] = Double.doubleToLongBits(point.getLat());
+            signature[i * 3 + 2] = Double.doubleToLongBits(point.getLon());
+        }
+        return signature;
     }
 
     private void checkBounds(BBox bounds, Coordinate[] sources, Coordinate[] destinations) throws PointNotFoundException {
@@ -119,30 +169,85 @@ public class MatrixSearchContextBuilder {
         return idsArray;
     }
 
-    private void resolveLocations(String profileName, Coordinate[] coords, List<Snap> queryResults, double maxSearchRadius) {
+    private void resolveLocations(String profileName, Coordinate[] coords, List<Snap> queryResults, double maxSearchRadius) throws Exception {
+        Set<Coordinate> unresolvedSet = new LinkedHashSet<>();
         for (Coordinate p : coords) {
-            LocationEntry ld = locationCache.get(p);
-            if (ld == null) {
-                Snap qr = locIndex.findClosest(p.y, p.x, getSnapFilter(profileName));
+            if (!locationCache.containsKey(p))
+                unresolvedSet.add(p);
+        }
+        List<Coordinate> unresolved = new ArrayList<>(unresolvedSet);
 
-                ld = new LocationEntry();
-                ld.snap = qr;
+        LocationEntry[] entries = new LocationEntry[unresolved.size()];
+        if (executor != null && weightingSupplier != null && parallelism > 1 && unresolved.size() >= PARALLEL_SNAP_MINIMUM)
+            resolveParallel(profileName, unresolved, entries, maxSearchRadius);
+        else {
+            EdgeFilter snapFilter = getSnapFilter(profileName, weighting);
+            for (int i = 0; i < entries.length; i++)
+                entries[i] = resolveLocation(snapFilter, unresolved.get(i), maxSearchRadius);
+        }
 
-                if (qr.isValid() && qr.getQueryDistance() < maxSearchRadius) {
-                    GHPoint3D pt = qr.getSnappedPoint();
-                    ld.nodeId = qr.getClosestNode();
-                    ld.location = new ResolvedLocation(new Coordinate(pt.getLon(), pt.getLat()), resolveNames ? qr.getClosestEdge().getName() : null, qr.getQueryDistance());
+        // snaps are added in the order of the locations, since it determines the ids of the virtual nodes
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].nodeId != -1)
+                queryResults.add(entries[i].snap);
+            locationCache.put(unresolved.get(i), entries[i]);
+        }
+    }
 
-                    queryResults.add(qr);
-                } else {
-                    ld.nodeId = -1;
-                }
-                locationCache.put(p, ld);
-            }
+    private void resolveParallel(String profileName, List<Coordinate> coords, LocationEntry[] entries, double maxSearchRadius) throws Exception {
+        int tasks = Math.min(parallelism, coords.size());
+        int chunkSize = (coords.size() + tasks - 1) / tasks;
+        List<Callable<Void>> workers = new ArrayList<>(tasks);
+        for (int from = 0; from < coords.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(from + chunkSize, coords.size());
+            workers.add(() -> {
+                EdgeFilter snapFilter = getSnapFilter(profileName, weightingSupplier.get());
+                for (int i = start; i < end; i++)
+                    entries[i] = resolveLocation(snapFilter, coords.get(i), maxSearchRadius);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : executor.invokeAll(workers))
+                future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    private LocationEntry resolveLocation(EdgeFilter snapFilter, Coordinate p, double maxSearchRadius) {
+        Snap qr = findClosest(snapFilter, p);
+
+        LocationEntry ld = new LocationEntry();
+        ld.snap = qr;
+
+        if (qr.isValid() && qr.getQueryDistance() < maxSearchRadius) {
+            GHPoint3D pt = qr.getSnappedPoint();
+            ld.nodeId = qr.getClosestNode();
+            ld.location = new ResolvedLocation(new Coordinate(pt.getLon(), pt.getLat()), resolveNames ? qr.getClosestEdge().getName() : null, qr.getQueryDistance());
+        } else {
+            ld.nodeId = -1;
+        }
+        return ld;
+    }
+
+    private Snap findClosest(EdgeFilter snapFilter, Coordinate p) {
+        if (snapCache == null)
+            return locIndex.findClosest(p.y, p.x, snapFilter);
+
+        Snap snap = snapCache.get(snapFilterKey, p);
+        if (snap == null) {
+            snap = locIndex.findClosest(p.y, p.x, snapFilter);
+            snapCache.put(snapFilterKey, p, snap);
         }
+        return snap;
     }
 
-    protected EdgeFilter getSnapFilter(String profileName) {
+    protected EdgeFilter getSnapFilter(String profileName, Weighting weighting) {
         EdgeFilter defaultSnapFilter = new DefaultSnapFilter(weighting, this.graphHopperStorage.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
         //TODO when Matrix supports additional parameters such as avoidables in the future, the corresponding filters need to be added here for snapping
 //		if (edgeFilterFactory != null)
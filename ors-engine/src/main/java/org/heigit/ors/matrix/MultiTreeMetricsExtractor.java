@@ -13,6 +13,7 @@
  */
 package org.heigit.ors.matrix;
 
+import com.carrotsearch.hppc.IntArrayList;
 import com.graphhopper.coll.GHLongObjectHashMap;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.weighting.FastestWeighting;
@@ -25,6 +26,8 @@ import com.graphhopper.util.EdgeIteratorState;
 import org.heigit.ors.common.DistanceUnit;
 import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntry;
 import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntryItem;
+import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPTable;
+import org.heigit.ors.routing.graphhopper.extensions.storages.ShortcutMetricsStorage;
 import org.heigit.ors.util.DistanceUnitUtil;
 
 public class MultiTreeMetricsExtractor {
@@ -41,6 +44,7 @@ public class MultiTreeMetricsExtractor {
     private double edgeTime;
     private boolean reverseOrder = true;
     private boolean swap;
+    private ShortcutMetricsStorage shortcutMetrics;
 
     public MultiTreeMetricsExtractor(int metrics, RoutingCHGraph chGraph, FlagEncoder encoder, Weighting weighting,
                                      DistanceUnit units) {
@@ -61,6 +65,14 @@ public class MultiTreeMetricsExtractor {
         this.swap = swap;
     }
 
+    /**
+     * Use precomputed shortcut distances and times instead of unpacking shortcuts. Only used if no weights are
+     * requested, since those are not part of the storage.
+     */
+    public void setShortcutMetrics(ShortcutMetricsStorage shortcutMetrics) {
+        this.shortcutMetrics = shortcutMetrics;
+    }
+
     public void setEmptyValues(int sourceIndex, MatrixLocations dstData, float[] times, float[] distances, float[] weights) {
         int i = sourceIndex * dstData.size();
         int[] targetNodes = dstData.getNodeIds();
@@ -85,7 +97,6 @@ public class MultiTreeMetricsExtractor {
         double pathTime;
         double pathDistance;
         double pathWeight;
-        long entryHash = 0;
         boolean calcTime = MatrixMetricsType.isSet(metrics, MatrixMetricsType.DURATION);
         boolean calcDistance = MatrixMetricsType.isSet(metrics, MatrixMetricsType.DISTANCE);
         boolean calcWeight = MatrixMetricsType.isSet(metrics, MatrixMetricsType.WEIGHT);
@@ -116,66 +127,15 @@ public class MultiTreeMetricsExtractor {
 
                         if (sptItem.getParent() != null) {
                             while (EdgeIterator.Edge.isValid(sptItem.getEdge())) {
-                                edgeMetricsItem = null;
-                                if (edgeMetrics != null) {
-                                    entryHash = getMultiTreeSPEntryHash(targetEntry, srcNode);
-                                    edgeMetricsItem = edgeMetrics.get(entryHash);
-                                }
-
-                                if (edgeMetricsItem == null) {
-                                    if (chGraph != null) {
-                                        RoutingCHEdgeIteratorState iterState = chGraph.getEdgeIteratorState(sptItem.getEdge(), targetEntry.getAdjNode());
-
-                                        if (iterState.isShortcut()) {
-                                            if (chGraph.getLevel(iterState.getBaseNode()) >= chGraph.getLevel(iterState.getAdjNode())) {
-                                                reverseOrder = true;
-                                                extractEdgeValues(iterState, swap);
-                                            } else {
-                                                reverseOrder = false;
-                                                extractEdgeValues(iterState, !swap);
-                                            }
-                                        } else {
-                                            extractEdgeValues(iterState, swap);
-                                        }
-
-                                        edgeDistance = (distUnits == DistanceUnit.METERS) ? edgeDistance
-                                                : DistanceUnitUtil.convert(edgeDistance, DistanceUnit.METERS, distUnits);
-                                    } else {
-                                        EdgeIteratorState iter = graph.getEdgeIteratorState(sptItem.getEdge(),
-                                                targetEntry.getAdjNode());
-
-                                        if (calcDistance)
-                                            edgeDistance = (distUnits == DistanceUnit.METERS) ? iter.getDistance()
-                                                    : DistanceUnitUtil.convert(iter.getDistance(), DistanceUnit.METERS,
-                                                    distUnits);
-
-                                        if (calcTime)
-                                            edgeTime = timeWeighting.calcEdgeMillis(iter, false, EdgeIterator.NO_EDGE)
-                                                    / 1000.0;
-
-                                        if (calcWeight)
-                                            edgeWeight = weighting.calcEdgeWeight(iter, false, EdgeIterator.NO_EDGE);
-                                    }
-
-                                    if (edgeMetrics != null) {
-                                        edgeMetricsItem = new MetricsItem();
-                                        edgeMetricsItem.distance = edgeDistance;
-                                        edgeMetricsItem.time = edgeTime;
-                                        edgeMetricsItem.weight = edgeWeight;
-                                        edgeMetrics.put(entryHash, edgeMetricsItem);
-                                    }
-
-                                    pathDistance += edgeDistance;
-                                    pathTime += edgeTime;
-                                    pathWeight += edgeWeight;
-                                } else {
-                                    if (calcDistance)
-                                        pathDistance += edgeMetricsItem.distance;
-                                    if (calcTime)
-                                        pathTime += edgeMetricsItem.time;
-                                    if (calcWeight)
-                                        pathWeight += edgeMetricsItem.weight;
-                                }
+                                edgeMetricsItem = getEdgeMetrics(sptItem.getEdge(), targetEntry.getAdjNode(), calcTime, calcDistance, calcWeight);
+
+                                if (calcDistance)
+                                    pathDistance += edgeMetricsItem.distance;
+                                if (calcTime)
+                                    pathTime += edgeMetricsItem.time;
+                                if (calcWeight)
+                                    pathWeight += edgeMetricsItem.weight;
+
                                 targetEntry = sptItem.getParent();
 
                                 if (targetEntry == null)
@@ -200,8 +160,155 @@ public class MultiTreeMetricsExtractor {
         }
     }
 
-    private long getMultiTreeSPEntryHash(MultiTreeSPEntry entry, int sptEntry) {
-        return entry.getAdjNode() * maxEdgeId + entry.getItem(sptEntry).getEdge();
+    /**
+     * Same as {@link #calcValues(MultiTreeSPEntry[], MatrixLocations, MatrixLocations, float[], float[], float[])}
+     * but walks the parent slots of an array based search result.
+     */
+    public void calcValues(MultiTreeSPTable spTable, MatrixLocations srcData, MatrixLocations dstData, float[] times,
+                           float[] distances, float[] weights) throws Exception {
+        if (spTable == null)
+            throw new IllegalStateException("Target destinations not set");
+
+        boolean calcTime = MatrixMetricsType.isSet(metrics, MatrixMetricsType.DURATION);
+        boolean calcDistance = MatrixMetricsType.isSet(metrics, MatrixMetricsType.DISTANCE);
+        boolean calcWeight = MatrixMetricsType.isSet(metrics, MatrixMetricsType.WEIGHT);
+
+        for (int i = 0; i < dstData.size(); ++i) {
+            int targetNode = dstData.getNodeId(i);
+            int targetSlot = targetNode == -1 ? MultiTreeSPTable.NO_SLOT : spTable.getSlot(targetNode);
+            int srcNode = 0;
+            for (int j = 0; j < srcData.size(); ++j) {
+                double pathTime = -1;
+                double pathDistance = -1;
+                double pathWeight = -1;
+
+                int index = j * dstData.size() + i;
+
+                if (srcData.getNodeId(j) != -1) {
+                    if (targetSlot != MultiTreeSPTable.NO_SLOT) {
+                        int slot = targetSlot;
+                        int parent = spTable.getParent(slot, srcNode);
+
+                        //Only set values to 0 if target and start node are the same
+                        if (srcData.getNodeId(j) == targetNode || parent != MultiTreeSPTable.NO_SLOT) {
+                            pathTime = 0.0;
+                            pathDistance = 0.0;
+                            pathWeight = 0.0;
+                        }
+
+                        while (parent != MultiTreeSPTable.NO_SLOT && EdgeIterator.Edge.isValid(spTable.getEdge(slot, srcNode))) {
+                            MetricsItem edgeMetricsItem = getEdgeMetrics(spTable.getEdge(slot, srcNode), spTable.getAdjNode(slot), calcTime, calcDistance, calcWeight);
+
+                            if (calcDistance)
+                                pathDistance += edgeMetricsItem.distance;
+                            if (calcTime)
+                                pathTime += edgeMetricsItem.time;
+                            if (calcWeight)
+                                pathWeight += edgeMetricsItem.weight;
+
+                            slot = parent;
+                            parent = spTable.getParent(slot, srcNode);
+                        }
+                    }
+                    srcNode++;
+                }
+
+                if (calcTime)
+                    times[index] = (float) pathTime;
+
+                if (calcDistance)
+                    distances[index] = (float) pathDistance;
+
+                if (calcWeight)
+                    weights[index] = (float) pathWeight;
+            }
+        }
+    }
+
+    /**
+     * Sums the metrics of a single path and stores them at the given index of the tables. The path is given as its CH
+     * edges, each together with the node it is traversed towards; an empty path has the value 0.
+     */
+    public void setPathValues(int index, IntArrayList edges, IntArrayList adjNodes, float[] times, float[] distances,
+                              float[] weights) {
+        boolean calcTime = MatrixMetricsType.isSet(metrics, MatrixMetricsType.DURATION);
+        boolean calcDistance = MatrixMetricsType.isSet(metrics, MatrixMetricsType.DISTANCE);
+        boolean calcWeight = MatrixMetricsType.isSet(metrics, MatrixMetricsType.WEIGHT);
+        double pathTime = 0.0;
+        double pathDistance = 0.0;
+        double pathWeight = 0.0;
+
+        for (int i = 0; i < edges.size(); i++) {
+            MetricsItem edgeMetricsItem = getEdgeMetrics(edges.get(i), adjNodes.get(i), calcTime, calcDistance, calcWeight);
+            pathDistance += edgeMetricsItem.distance;
+            pathTime += edgeMetricsItem.time;
+            pathWeight += edgeMetricsItem.weight;
+        }
+
+        if (calcTime)
+            times[index] = (float) pathTime;
+        if (calcDistance)
+            distances[index] = (float) pathDistance;
+        if (calcWeight)
+            weights[index] = (float) pathWeight;
+    }
+
+    private MetricsItem getEdgeMetrics(int edge, int adjNode, boolean calcTime, boolean calcDistance, boolean calcWeight) {
+        long entryHash = adjNode * maxEdgeId + edge;
+        MetricsItem edgeMetricsItem = edgeMetrics.get(entryHash);
+        if (edgeMetricsItem != null)
+            return edgeMetricsItem;
+
+        if (chGraph != null) {
+            RoutingCHEdgeIteratorState iterState = chGraph.getEdgeIteratorState(edge, adjNode);
+
+            if (iterState.isShortcut() && !calcWeight && hasStoredMetrics(iterState)) {
+                edgeDistance = shortcutMetrics.getDistance(edge);
+                edgeTime = swap ? shortcutMetrics.getTime(edge, iterState.getAdjNode(), iterState.getBaseNode())
+                        : shortcutMetrics.getTime(edge, iterState.getBaseNode(), iterState.getAdjNode());
+            } else if (iterState.isShortcut()) {
+                if (chGraph.getLevel(iterState.getBaseNode()) >= chGraph.getLevel(iterState.getAdjNode())) {
+                    reverseOrder = true;
+                    extractEdgeValues(iterState, swap);
+                } else {
+                    reverseOrder = false;
+                    extractEdgeValues(iterState, !swap);
+                }
+            } else {
+                extractEdgeValues(iterState, swap);
+            }
+
+            edgeDistance = (distUnits == DistanceUnit.METERS) ? edgeDistance
+                    : DistanceUnitUtil.convert(edgeDistance, DistanceUnit.METERS, distUnits);
+        } else {
+            EdgeIteratorState iter = graph.getEdgeIteratorState(edge, adjNode);
+
+            if (calcDistance)
+                edgeDistance = (distUnits == DistanceUnit.METERS) ? iter.getDistance()
+                        : DistanceUnitUtil.convert(iter.getDistance(), DistanceUnit.METERS,
+                        distUnits);
+
+            if (calcTime)
+                edgeTime = timeWeighting.calcEdgeMillis(iter, false, EdgeIterator.NO_EDGE)
+                        / 1000.0;
+
+            if (calcWeight)
+                edgeWeight = weighting.calcEdgeWeight(iter, false, EdgeIterator.NO_EDGE);
+        }
+
+        edgeMetricsItem = new MetricsItem();
+        edgeMetricsItem.distance = edgeDistance;
+        edgeMetricsItem.time = edgeTime;
+        edgeMetricsItem.weight = edgeWeight;
+        edgeMetrics.put(entryHash, edgeMetricsItem);
+        return edgeMetricsItem;
+    }
+
+    private boolean hasStoredMetrics(RoutingCHEdgeIteratorState iterState) {
+        if (shortcutMetrics == null || !shortcutMetrics.hasMetrics(iterState.getEdge()))
+            return false;
+        return swap ? !Double.isNaN(shortcutMetrics.getTime(iterState.getEdge(), iterState.getAdjNode(), iterState.getBaseNode()))
+                : !Double.isNaN(shortcutMetrics.getTime(iterState.getEdge(), iterState.getBaseNode(), iterState.getAdjNode()));
     }
 
     private void extractEdgeValues(RoutingCHEdgeIteratorState iterState, boolean reverse) {
@@ -0,0 +1,138 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.matrix;
+
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.DistancePlaneProjection;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.shapes.GHPoint3D;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Least recently used cache of location index lookups which is shared by all requests of a profile.
+ * <p>
+ * Coordinates are rounded to 1e-7 degrees for the lookup. Only the closest edge and position on it are reused, the
+ * snapped point and distance are computed for the requested coordinate, so a rounded hit gives the same result as a
+ * new lookup. Snaps are modified when a query graph is created from them, therefore the cache stores their data and
+ * returns a new {@link Snap} on every hit.
+ */
+public class SnapCache {
+    private static final double COORDINATE_FACTOR = 1e7;
+
+    private final Graph graph;
+    private final Map<Key, SnapData> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param graph the base graph the cached snaps refer to
+     */
+    public SnapCache(Graph graph, int maximumEntries) {
+        this.graph = graph;
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SnapData> eldest) {
+                return size() > maximumEntries;
+            }
+        };
+    }
+
+    /**
+     * @param filterKey identifies the snap filter the snap has been found with, e.g. the profile name
+     */
+    private record Key(String filterKey, long lat, long lon) {
+        static Key of(String filterKey, Coordinate coordinate) {
+            return new Key(filterKey, Math.round(coordinate.y * COORDINATE_FACTOR), Math.round(coordinate.x * COORDINATE_FACTOR));
+        }
+    }
+
+    private record SnapData(double queryLat, double queryLon, int closestNode, int edge, int adjNode, int wayIndex,
+                            Snap.Position position, double queryDistance) {
+        Snap toSnap(Graph graph, double lat, double lon) {
+            Snap snap = new Snap(lat, lon);
+            if (closestNode < 0)
+                return snap;
+            snap.setClosestNode(closestNode);
+            snap.setClosestEdge(graph.getEdgeIteratorState(edge, adjNode));
+            snap.setWayIndex(wayIndex);
+            snap.setSnappedPosition(position);
+            snap.calcSnappedPoint(DistancePlaneProjection.DIST_PLANE);
+            if (lat == queryLat && lon == queryLon) {
+                snap.setQueryDistance(queryDistance);
+            } else {
+                GHPoint3D snappedPoint = snap.getSnappedPoint();
+                snap.setQueryDistance(DistancePlaneProjection.DIST_PLANE.calcDist(lat, lon, snappedPoint.getLat(), snappedPoint.getLon()));
+            }
+            return snap;
+        }
+    }
+
+    /**
+     * @return a new snap for the coordinate or null if it is not cached
+     */
+    public Snap get(String filterKey, Coordinate coordinate) {
+        SnapData data;
+        synchronized (entries) {
+            data = entries.get(Key.of(filterKey, coordinate));
+        }
+        if (data == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return data.toSnap(graph, coordinate.y, coordinate.x);
+    }
+
+    /**
+     * Stores the result of a location index lookup. Has to be called before a query graph is created from the snap.
+     */
+    public void put(String filterKey, Coordinate coordinate, Snap snap) {
+        SnapData data;
+        if (snap.isValid()) {
+            EdgeIteratorState edge = snap.getClosestEdge();
+            data = new SnapData(coordinate.y, coordinate.x, snap.getClosestNode(), edge.getEdge(), edge.getAdjNode(),
+                    snap.getWayIndex(), snap.getSnappedPosition(), snap.getQueryDistance());
+        } else {
+            data = new SnapData(coordinate.y, coordinate.x, -1, -1, -1, 0, null, Double.POSITIVE_INFINITY);
+        }
+        synchronized (entries) {
+            entries.put(Key.of(filterKey, coordinate), data);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -20,6 +20,14 @@ import com.graphhopper.storage.Graph;
 import org.heigit.ors.exceptions.MaxVisitedNodesExceededException;
 import org.heigit.ors.matrix.MatrixRequest;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 public abstract class AbstractMatrixAlgorithm implements MatrixAlgorithm {
     protected GraphHopper graphHopper;
     protected Graph graph;
@@ -27,6 +35,8 @@ public abstract class AbstractMatrixAlgorithm implements MatrixAlgorithm {
     protected Weighting weighting;
     protected int visitedNodes = 0;
     protected int maxVisitedNodes = Integer.MAX_VALUE;
+    protected ExecutorService executor;
+    protected int parallelism = 1;
 
     public void init(MatrixRequest req, GraphHopper gh, Graph graph, FlagEncoder encoder, Weighting weighting) {
         graphHopper = gh;
@@ -36,6 +46,41 @@ public abstract class AbstractMatrixAlgorithm implements MatrixAlgorithm {
         this.maxVisitedNodes = req.getMaximumVisitedNodes();
     }
 
+    /**
+     * Allow the algorithm to use at most parallelism threads of the given executor for one matrix.
+     */
+    public void setExecutor(ExecutorService executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    protected int getWorkerCount(int tasks) {
+        return executor == null ? 1 : Math.max(1, Math.min(parallelism, tasks));
+    }
+
+    /**
+     * Run the workers on the executor and wait for all of them. The first failure cancels the remaining workers
+     * and is rethrown unwrapped.
+     */
+    protected void invokeWorkers(List<Callable<Void>> workers) throws Exception {
+        ExecutorCompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<Void>> futures = new ArrayList<>(workers.size());
+        for (Callable<Void> worker : workers)
+            futures.add(completionService.submit(worker));
+
+        try {
+            for (int i = 0; i < futures.size(); i++)
+                completionService.take().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause)
+                throw cause;
+            throw e;
+        } finally {
+            for (Future<Void> future : futures)
+                future.cancel(true);
+        }
+    }
+
     protected boolean isMaxVisitedNodesExceeded() {
         if (visitedNodes > maxVisitedNodes)
             throw new MaxVisitedNodesExceededException();
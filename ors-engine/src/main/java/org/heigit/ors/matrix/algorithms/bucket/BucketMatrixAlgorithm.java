@@ -0,0 +1,306 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.matrix.algorithms.bucket;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntHashMap;
+import com.carrotsearch.hppc.IntObjectMap;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.graphhopper.GraphHopper;
+import com.graphhopper.coll.GHIntObjectHashMap;
+import com.graphhopper.routing.SPTEntry;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.RoutingCHEdgeExplorer;
+import com.graphhopper.storage.RoutingCHEdgeIterator;
+import com.graphhopper.storage.RoutingCHGraph;
+import com.graphhopper.util.EdgeIterator;
+import org.heigit.ors.exceptions.MaxVisitedNodesExceededException;
+import org.heigit.ors.matrix.*;
+import org.heigit.ors.matrix.algorithms.AbstractMatrixAlgorithm;
+import org.heigit.ors.routing.algorithms.IndexedMinHeap;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.ch.CHLevelEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.ch.DownwardSearchEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.ch.UpwardSearchEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.storages.ShortcutMetricsStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bucket based many-to-many algorithm on a contraction hierarchy. A backward upward search from every target stores
+ * its distance in a bucket at every node it settles. A forward upward search from every source then scans the buckets
+ * of the nodes it settles, and the minimum of source distance plus bucket distance over all meeting nodes is the
+ * shortest path to the target.
+ * <p>
+ * In contrast to {@link org.heigit.ors.matrix.algorithms.rphast.RPHASTMatrixAlgorithm} no downward sweep over the
+ * search space of all targets is needed, which can make it faster for small matrices.
+ */
+public class BucketMatrixAlgorithm extends AbstractMatrixAlgorithm {
+    private MultiTreeMetricsExtractor pathMetricsExtractor;
+    private RoutingCHGraph chGraph;
+    private MatrixRequest request;
+    private ShortcutMetricsStorage shortcutMetrics;
+
+    public void init(MatrixRequest req, GraphHopper gh, RoutingCHGraph chGraph, FlagEncoder encoder, Weighting weighting) {
+        super.init(req, gh, chGraph.getBaseGraph(), encoder, weighting);
+        this.chGraph = chGraph;
+        this.request = req;
+
+        pathMetricsExtractor = createMetricsExtractor();
+    }
+
+    private MultiTreeMetricsExtractor createMetricsExtractor() {
+        MultiTreeMetricsExtractor extractor = new MultiTreeMetricsExtractor(request.getMetrics(), chGraph, encoder,
+                weighting, request.getUnits());
+        extractor.setShortcutMetrics(shortcutMetrics);
+        return extractor;
+    }
+
+    /**
+     * Use precomputed shortcut distances and times instead of unpacking the shortcuts of the found paths.
+     */
+    public void setShortcutMetrics(ShortcutMetricsStorage shortcutMetrics) {
+        this.shortcutMetrics = shortcutMetrics;
+        if (pathMetricsExtractor != null)
+            pathMetricsExtractor.setShortcutMetrics(shortcutMetrics);
+    }
+
+    @Override
+    public MatrixResult compute(MatrixLocations srcData, MatrixLocations dstData, int metrics) throws Exception {
+        MatrixResult mtxResult = new MatrixResult(srcData.getLocations(), dstData.getLocations());
+
+        float[] times = null;
+        float[] distances = null;
+        float[] weights = null;
+
+        int tableSize = srcData.size() * dstData.size();
+        if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.DURATION))
+            times = new float[tableSize];
+        if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.DISTANCE))
+            distances = new float[tableSize];
+        if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.WEIGHT))
+            weights = new float[tableSize];
+
+        if (!srcData.hasValidNodes() || !dstData.hasValidNodes()) {
+            for (int srcIndex = 0; srcIndex < srcData.size(); srcIndex++)
+                pathMetricsExtractor.setEmptyValues(srcIndex, dstData, times, distances, weights);
+        } else {
+            if (graphHopper != null)
+                mtxResult.setGraphDate(graphHopper.getGraphHopperStorage().getProperties().get("datareader.import.date"));
+
+            computeRows(srcData, dstData, times, distances, weights);
+        }
+
+        if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.DURATION))
+            mtxResult.setTable(MatrixMetricsType.DURATION, times);
+        if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.DISTANCE))
+            mtxResult.setTable(MatrixMetricsType.DISTANCE, distances);
+        if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.WEIGHT))
+            mtxResult.setTable(MatrixMetricsType.WEIGHT, weights);
+
+        return mtxResult;
+    }
+
+    private void computeRows(MatrixLocations srcData, MatrixLocations dstData, float[] times, float[] distances,
+                             float[] weights) throws Exception {
+        // targets located at the same node share one backward search
+        IntIntHashMap targetIndices = new IntIntHashMap();
+        IntArrayList targetNodes = new IntArrayList();
+        for (int dst : dstData.getNodeIds()) {
+            if (dst != -1 && !targetIndices.containsKey(dst)) {
+                targetIndices.put(dst, targetNodes.size());
+                targetNodes.add(dst);
+            }
+        }
+
+        IntObjectMap<List<BucketEntry>> buckets = fillBuckets(targetNodes);
+
+        AtomicInteger nextRow = new AtomicInteger();
+        Callable<Void> worker = () -> {
+            MultiTreeMetricsExtractor extractor = createMetricsExtractor();
+            UpwardSearch search = new UpwardSearch(false);
+            int row;
+            while ((row = nextRow.getAndIncrement()) < srcData.size()) {
+                if (Thread.currentThread().isInterrupted())
+                    throw new InterruptedException("Matrix computation was cancelled.");
+                computeRow(row, srcData, dstData, targetIndices, targetNodes.size(), buckets, search, extractor,
+                        times, distances, weights);
+            }
+            return null;
+        };
+
+        int workers = getWorkerCount(srcData.size());
+        if (workers > 1)
+            invokeWorkers(Collections.nCopies(workers, worker));
+        else
+            worker.call();
+    }
+
+    /**
+     * Runs the backward searches from all targets and stores their settled nodes in the buckets.
+     */
+    private IntObjectMap<List<BucketEntry>> fillBuckets(IntArrayList targetNodes) {
+        IntObjectMap<List<BucketEntry>> buckets = new GHIntObjectHashMap<>();
+        UpwardSearch search = new UpwardSearch(true);
+        for (int target = 0; target < targetNodes.size(); target++) {
+            for (IntObjectCursor<SPTEntry> cursor : search.run(targetNodes.get(target))) {
+                List<BucketEntry> bucket = buckets.get(cursor.key);
+                if (bucket == null) {
+                    bucket = new ArrayList<>(2);
+                    buckets.put(cursor.key, bucket);
+                }
+                bucket.add(new BucketEntry(target, cursor.value));
+            }
+        }
+        return buckets;
+    }
+
+    private void computeRow(int row, MatrixLocations srcData, MatrixLocations dstData, IntIntHashMap targetIndices,
+                            int targetCount, IntObjectMap<List<BucketEntry>> buckets, UpwardSearch search,
+                            MultiTreeMetricsExtractor extractor, float[] times, float[] distances, float[] weights) {
+        int source = srcData.getNodeId(row);
+        if (source == -1) {
+            extractor.setEmptyValues(row, dstData, times, distances, weights);
+            return;
+        }
+
+        double[] bestWeights = new double[targetCount];
+        SPTEntry[] forwardMeetings = new SPTEntry[targetCount];
+        SPTEntry[] backwardMeetings = new SPTEntry[targetCount];
+        Arrays.fill(bestWeights, Double.POSITIVE_INFINITY);
+
+        for (IntObjectCursor<SPTEntry> cursor : search.run(source)) {
+            List<BucketEntry> bucket = buckets.get(cursor.key);
+            if (bucket == null)
+                continue;
+            for (BucketEntry entry : bucket) {
+                double weight = cursor.value.weight + entry.entry().weight;
+                if (weight < bestWeights[entry.target()]) {
+                    bestWeights[entry.target()] = weight;
+                    forwardMeetings[entry.target()] = cursor.value;
+                    backwardMeetings[entry.target()] = entry.entry();
+                }
+            }
+        }
+
+        IntArrayList edges = new IntArrayList();
+        IntArrayList adjNodes = new IntArrayList();
+        for (int column = 0; column < dstData.size(); column++) {
+            int index = row * dstData.size() + column;
+            int target = dstData.getNodeId(column);
+            int targetIndex = target == -1 ? -1 : targetIndices.get(target);
+            if (targetIndex == -1 || forwardMeetings[targetIndex] == null) {
+                setUnreachable(index, times, distances, weights);
+                continue;
+            }
+
+            edges.clear();
+            adjNodes.clear();
+            // the forward tree is traversed towards each entry's node, the backward tree away from it
+            for (SPTEntry entry = forwardMeetings[targetIndex]; EdgeIterator.Edge.isValid(entry.edge); entry = entry.parent) {
+                edges.add(entry.edge);
+                adjNodes.add(entry.adjNode);
+            }
+            for (SPTEntry entry = backwardMeetings[targetIndex]; EdgeIterator.Edge.isValid(entry.edge); entry = entry.parent) {
+                edges.add(entry.edge);
+                adjNodes.add(entry.parent.adjNode);
+            }
+            extractor.setPathValues(index, edges, adjNodes, times, distances, weights);
+        }
+    }
+
+    private static void setUnreachable(int index, float[] times, float[] distances, float[] weights) {
+        if (times != null)
+            times[index] = -1;
+        if (distances != null)
+            distances[index] = -1;
+        if (weights != null)
+            weights[index] = -1;
+    }
+
+    private record BucketEntry(int target, SPTEntry entry) {
+    }
+
+    /**
+     * Dijkstra search which only relaxes edges towards nodes of a higher level. A forward search follows out edges,
+     * a backward search in edges with their reverse weights. Instances are reused but not thread safe.
+     */
+    private class UpwardSearch {
+        private final boolean reverse;
+        private final RoutingCHEdgeExplorer explorer;
+        private final CHLevelEdgeFilter levelFilter;
+        private final IndexedMinHeap heap = new IndexedMinHeap(Math.min(Math.max(200, chGraph.getNodes() / 10), 2000));
+        private final IntObjectMap<SPTEntry> settled = new GHIntObjectHashMap<>();
+
+        UpwardSearch(boolean reverse) {
+            this.reverse = reverse;
+            FlagEncoder flagEncoder = chGraph.getWeighting().getFlagEncoder();
+            if (reverse) {
+                explorer = chGraph.createInEdgeExplorer();
+                levelFilter = new DownwardSearchEdgeFilter(chGraph, flagEncoder);
+            } else {
+                explorer = chGraph.createOutEdgeExplorer();
+                levelFilter = new UpwardSearchEdgeFilter(chGraph, flagEncoder);
+            }
+        }
+
+        /**
+         * @return the search space of the given node; the map is reused by the next search
+         */
+        IntObjectMap<SPTEntry> run(int node) {
+            heap.clear();
+            settled.clear();
+            SPTEntry start = new SPTEntry(EdgeIterator.NO_EDGE, node, 0);
+            settled.put(node, start);
+            heap.update(node, 0);
+
+            int visited = 0;
+            while (!heap.isEmpty()) {
+                if (++visited > maxVisitedNodes)
+                    throw new MaxVisitedNodesExceededException();
+
+                SPTEntry current = settled.get(heap.poll());
+                RoutingCHEdgeIterator iter = explorer.setBaseNode(current.adjNode);
+                levelFilter.setBaseNode(current.adjNode);
+                while (iter.next()) {
+                    if (!levelFilter.accept(iter))
+                        continue;
+
+                    double weight = current.weight + iter.getWeight(reverse);
+                    if (Double.isInfinite(weight))
+                        continue;
+
+                    SPTEntry entry = settled.get(iter.getAdjNode());
+                    if (entry == null) {
+                        entry = new SPTEntry(iter.getEdge(), iter.getAdjNode(), weight);
+                        entry.parent = current;
+                        settled.put(iter.getAdjNode(), entry);
+                        heap.update(iter.getAdjNode(), weight);
+                    } else if (entry.weight > weight) {
+                        entry.edge = iter.getEdge();
+                        entry.weight = weight;
+                        entry.parent = current;
+                        heap.update(iter.getAdjNode(), weight);
+                    }
+                }
+            }
+            return settled;
+        }
+    }
+}
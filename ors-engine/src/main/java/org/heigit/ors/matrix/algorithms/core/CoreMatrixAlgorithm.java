@@ -35,6 +35,7 @@ import org.heigit.ors.routing.graphhopper.extensions.core.CoreDijkstraFilter;
 import org.heigit.ors.routing.graphhopper.extensions.core.CoreMatrixFilter;
 import org.heigit.ors.routing.graphhopper.extensions.storages.AveragedMultiTreeSPEntry;
 import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntryItem;
+import org.heigit.ors.routing.graphhopper.extensions.storages.ShortcutMetricsStorage;
 import org.heigit.ors.routing.graphhopper.extensions.util.GraphUtils;
 
 import java.util.ArrayList;
@@ -92,6 +93,13 @@ public class CoreMatrixAlgorithm extends AbstractContractedMatrixAlgorithm {
         this.init(req, null, chGraph, encoder, weighting, additionalEdgeFilter);
     }
 
+    /**
+     * Use precomputed shortcut distances and times when extracting the metrics. Has to be called after init.
+     */
+    public void setShortcutMetrics(ShortcutMetricsStorage shortcutMetrics) {
+        pathMetricsExtractor.setShortcutMetrics(shortcutMetrics);
+    }
+
     protected void initCollections(int size) {
         upwardQueue = new PriorityQueue<>(size);
         coreEntryPoints = new IntHashSet(size);
@@ -24,14 +24,30 @@ import org.heigit.ors.matrix.*;
 import org.heigit.ors.matrix.algorithms.AbstractMatrixAlgorithm;
 import org.heigit.ors.routing.algorithms.DijkstraOneToManyAlgorithm;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
 public class DijkstraMatrixAlgorithm extends AbstractMatrixAlgorithm {
     private PathMetricsExtractor pathMetricsExtractor;
+    private MatrixRequest request;
+    private Supplier<Weighting> weightingSupplier;
+
+    /**
+     * Create a new weighting for every parallel worker. Several ORS weightings and edge filters keep a mutable buffer
+     * for reading the extended storages, so a single instance must not be shared between threads.
+     */
+    public void setWeightingSupplier(Supplier<Weighting> weightingSupplier) {
+        this.weightingSupplier = weightingSupplier;
+    }
 
     @Override
     public void init(MatrixRequest req, GraphHopper gh, Graph graph, FlagEncoder encoder, Weighting weighting) {
         weighting = graph.wrapWeighting(weighting);
         super.init(req, gh, graph, encoder, weighting);
 
+        request = req;
         pathMetricsExtractor = new PathMetricsExtractor(req.getMetrics(), this.graph, this.weighting, req.getUnits());
     }
 
@@ -55,31 +71,11 @@ public class DijkstraMatrixAlgorithm extends AbstractMatrixAlgorithm {
             for (int srcIndex = 0; srcIndex < srcData.size(); srcIndex++)
                 pathMetricsExtractor.setEmptyValues(srcIndex, dstData, times, distances, weights);
         } else {
-            DijkstraOneToManyAlgorithm algorithm = new DijkstraOneToManyAlgorithm(graph, weighting, TraversalMode.NODE_BASED, true);
-            //TODO Refactoring : Check whether this access filter is unnecessary
-            algorithm.setEdgeFilter(AccessFilter.allEdges(this.encoder.getAccessEnc()));
-            algorithm.prepare(srcData.getNodeIds(), dstData.getNodeIds());
-            algorithm.setMaxVisitedNodes(this.maxVisitedNodes);
-
-            int sourceId = -1;
-
-            for (int srcIndex = 0; srcIndex < srcData.size(); srcIndex++) {
-                sourceId = srcData.getNodeId(srcIndex);
-
-                if (sourceId == -1) {
-                    pathMetricsExtractor.setEmptyValues(srcIndex, dstData, times, distances, weights);
-                } else {
-                    algorithm.reset();
-                    SPTEntry[] targets = algorithm.calcPaths(sourceId, dstData.getNodeIds());
-
-                    if (algorithm.getFoundTargets() != algorithm.getTargetsCount())
-                        throw new Exception("Some target nodes could not be found.");
-
-                    if (targets != null) {
-                        pathMetricsExtractor.calcValues(srcIndex, targets, dstData, times, distances, weights);
-                    }
-                }
-            }
+            int workers = getWorkerCount(srcData.size());
+            if (workers > 1)
+                computeParallel(workers, srcData, dstData, times, distances, weights);
+            else
+                computeRows(0, srcData.size(), weighting, pathMetricsExtractor, srcData, dstData, times, distances, weights);
         }
 
         if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.DURATION))
@@ -91,4 +87,61 @@ public class DijkstraMatrixAlgorithm extends AbstractMatrixAlgorithm {
 
         return mtxResult;
     }
+
+    /**
+     * Split the sources into one contiguous range of rows per worker. Every worker uses its own weighting, algorithm
+     * and metrics extractor instance.
+     */
+    private void computeParallel(int workers, MatrixLocations srcData, MatrixLocations dstData, float[] times, float[] distances, float[] weights) throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>(workers);
+        int rowsPerWorker = (srcData.size() + workers - 1) / workers;
+
+        for (int fromRow = 0; fromRow < srcData.size(); fromRow += rowsPerWorker) {
+            final int from = fromRow;
+            final int to = Math.min(fromRow + rowsPerWorker, srcData.size());
+            tasks.add(() -> {
+                Weighting workerWeighting = weightingSupplier == null ? weighting : graph.wrapWeighting(weightingSupplier.get());
+                PathMetricsExtractor extractor = new PathMetricsExtractor(request.getMetrics(), graph, workerWeighting, request.getUnits());
+                computeRows(from, to, workerWeighting, extractor, srcData, dstData, times, distances, weights);
+                return null;
+            });
+        }
+
+        invokeWorkers(tasks);
+    }
+
+    /**
+     * Compute the rows [fromRow, toRow) of the matrix. Workers only ever write to the rows they were given, so the
+     * result tables can be shared between them.
+     */
+    private void computeRows(int fromRow, int toRow, Weighting weighting, PathMetricsExtractor extractor, MatrixLocations srcData, MatrixLocations dstData, float[] times, float[] distances, float[] weights) throws Exception {
+        DijkstraOneToManyAlgorithm algorithm = new DijkstraOneToManyAlgorithm(graph, weighting, TraversalMode.NODE_BASED, true);
+        //TODO Refactoring : Check whether this access filter is unnecessary
+        algorithm.setEdgeFilter(AccessFilter.allEdges(this.encoder.getAccessEnc()));
+        algorithm.prepare(srcData.getNodeIds(), dstData.getNodeIds());
+        algorithm.setMaxVisitedNodes(this.maxVisitedNodes);
+
+        int sourceId = -1;
+
+        for (int srcIndex = fromRow; srcIndex < toRow; srcIndex++) {
+            if (Thread.currentThread().isInterrupted())
+                throw new InterruptedException("Matrix computation was cancelled.");
+
+            sourceId = srcData.getNodeId(srcIndex);
+
+            if (sourceId == -1) {
+                extractor.setEmptyValues(srcIndex, dstData, times, distances, weights);
+            } else {
+                algorithm.reset();
+                SPTEntry[] targets = algorithm.calcPaths(sourceId, dstData.getNodeIds());
+
+                if (algorithm.getFoundTargets() != algorithm.getTargetsCount())
+                    throw new Exception("Some target nodes could not be found.");
+
+                if (targets != null) {
+                    extractor.calcValues(srcIndex, targets, dstData, times, distances, weights);
+                }
+            }
+        }
+    }
 }
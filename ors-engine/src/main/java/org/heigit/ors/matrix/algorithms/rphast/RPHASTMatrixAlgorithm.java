@@ -21,23 +21,78 @@ import com.graphhopper.storage.RoutingCHGraph;
 import org.heigit.ors.matrix.*;
 import org.heigit.ors.matrix.algorithms.AbstractMatrixAlgorithm;
 import org.heigit.ors.routing.algorithms.RPHASTAlgorithm;
+import org.heigit.ors.routing.algorithms.RPHASTArrayAlgorithm;
+import org.heigit.ors.routing.algorithms.SubGraph;
 import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntry;
+import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPTable;
+import org.heigit.ors.routing.graphhopper.extensions.storages.ShortcutMetricsStorage;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RPHASTMatrixAlgorithm extends AbstractMatrixAlgorithm {
     private MultiTreeMetricsExtractor pathMetricsExtractor;
     private RoutingCHGraph chGraph;
+    private MatrixRequest request;
+    private boolean flatStorage;
+    private int sourceBlockSize;
+    private ShortcutMetricsStorage shortcutMetrics;
+    private RPHASTTargetGraphCache targetGraphCache;
+    private String profileName;
+    private long[] snapSignature;
 
     //        @Override
     public void init(MatrixRequest req, GraphHopper gh, RoutingCHGraph chGraph, FlagEncoder encoder, Weighting weighting) {
         //TODO Refactoring : check if base graph necessary. Probably not.
         super.init(req, gh, chGraph.getBaseGraph(), encoder, weighting);
         this.chGraph = chGraph;
+        this.request = req;
 
-        pathMetricsExtractor = new MultiTreeMetricsExtractor(req.getMetrics(), chGraph, this.encoder, weighting,
-                req.getUnits());
+        pathMetricsExtractor = createMetricsExtractor();
+    }
+
+    private MultiTreeMetricsExtractor createMetricsExtractor() {
+        MultiTreeMetricsExtractor extractor = new MultiTreeMetricsExtractor(request.getMetrics(), chGraph, encoder,
+                weighting, request.getUnits());
+        extractor.setShortcutMetrics(shortcutMetrics);
+        return extractor;
+    }
+
+    /**
+     * Use precomputed shortcut distances and times instead of unpacking the shortcuts of the found paths.
+     */
+    public void setShortcutMetrics(ShortcutMetricsStorage shortcutMetrics) {
+        this.shortcutMetrics = shortcutMetrics;
+        if (pathMetricsExtractor != null)
+            pathMetricsExtractor.setShortcutMetrics(shortcutMetrics);
+    }
+
+    /**
+     * Reuse target graphs of earlier requests with the same snapped locations. The snap signature has to be the one
+     * of the search context the CH graph passed to init belongs to.
+     */
+    public void setTargetGraphCache(RPHASTTargetGraphCache targetGraphCache, String profileName, long[] snapSignature) {
+        this.targetGraphCache = targetGraphCache;
+        this.profileName = profileName;
+        this.snapSignature = snapSignature;
+    }
+
+    /**
+     * Use {@link RPHASTArrayAlgorithm} instead of the object based {@link RPHASTAlgorithm}.
+     */
+    public void setFlatStorage(boolean flatStorage) {
+        this.flatStorage = flatStorage;
+    }
+
+    /**
+     * Split the sources into blocks of at most blockSize rows. Every block runs its own upward and downward search
+     * against one shared target graph, using the executor if one is set. A value of 0 searches all sources at once.
+     */
+    public void setSourceBlockSize(int blockSize) {
+        this.sourceBlockSize = blockSize;
     }
 
     @Override
@@ -60,32 +115,15 @@ public class RPHASTMatrixAlgorithm extends AbstractMatrixAlgorithm {
             for (int srcIndex = 0; srcIndex < srcData.size(); srcIndex++)
                 pathMetricsExtractor.setEmptyValues(srcIndex, dstData, times, distances, weights);
         } else {
-            RPHASTAlgorithm algorithm = new RPHASTAlgorithm(chGraph, chGraph.getWeighting(), TraversalMode.NODE_BASED);
-            algorithm.setMaxVisitedNodes(this.maxVisitedNodes);
-
-            int[] srcIds = getValidNodeIds(srcData.getNodeIds());
-            int[] destIds = getValidNodeIds(dstData.getNodeIds());
-
             if (graphHopper != null)
                 mtxResult.setGraphDate(graphHopper.getGraphHopperStorage().getProperties().get("datareader.import.date"));
 
-            algorithm.prepare(srcIds, destIds);
-
-            MultiTreeSPEntry[] destTrees = algorithm.calcPaths(srcIds, destIds);
-
-            MultiTreeSPEntry[] originalDestTrees = new MultiTreeSPEntry[dstData.size()];
-
-            int j = 0;
-            for (int i = 0; i < dstData.size(); i++) {
-                if (dstData.getNodeIds()[i] != -1) {
-                    originalDestTrees[i] = destTrees[j];
-                    ++j;
-                } else {
-                    originalDestTrees[i] = null;
-                }
-            }
-
-            pathMetricsExtractor.calcValues(originalDestTrees, srcData, dstData, times, distances, weights);
+            SubGraph targetGraph = getCachedTargetGraph(dstData);
+            int blockCount = sourceBlockSize > 0 ? (srcData.size() + sourceBlockSize - 1) / sourceBlockSize : 1;
+            if (blockCount > 1)
+                computeBlocks(blockCount, srcData, dstData, targetGraph, times, distances, weights);
+            else
+                computeSources(srcData, dstData, targetGraph, pathMetricsExtractor, times, distances, weights);
         }
 
         if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.DURATION))
@@ -98,6 +136,136 @@ public class RPHASTMatrixAlgorithm extends AbstractMatrixAlgorithm {
         return mtxResult;
     }
 
+    /**
+     * @return the target graph from the cache, which is built and added on a miss, or null if there is no cache
+     */
+    private SubGraph getCachedTargetGraph(MatrixLocations dstData) {
+        if (targetGraphCache == null || snapSignature == null)
+            return null;
+
+        int[] targets = getValidNodeIds(dstData.getNodeIds());
+        String graphDate = graphHopper == null ? null : graphHopper.getGraphHopperStorage().getProperties().get("datareader.import.date");
+        RPHASTTargetGraphCache.Key key = new RPHASTTargetGraphCache.Key(profileName, graphDate, snapSignature, targets);
+        SubGraph targetGraph = targetGraphCache.get(key);
+        if (targetGraph == null) {
+            targetGraph = RPHASTAlgorithm.createTargetGraph(chGraph, targets);
+            targetGraphCache.put(key, targetGraph);
+        }
+        return targetGraph;
+    }
+
+    private void computeBlocks(int blockCount, MatrixLocations srcData, MatrixLocations dstData, SubGraph cachedTargetGraph,
+                               float[] times, float[] distances, float[] weights) throws Exception {
+        SubGraph targetGraph = cachedTargetGraph != null ? cachedTargetGraph
+                : RPHASTAlgorithm.createTargetGraph(chGraph, getValidNodeIds(dstData.getNodeIds()));
+        AtomicInteger nextBlock = new AtomicInteger();
+
+        Callable<Void> worker = () -> {
+            MultiTreeMetricsExtractor extractor = createMetricsExtractor();
+            int block;
+            while ((block = nextBlock.getAndIncrement()) < blockCount) {
+                if (Thread.currentThread().isInterrupted())
+                    throw new InterruptedException("Matrix computation was cancelled.");
+                computeBlock(block, srcData, dstData, targetGraph, extractor, times, distances, weights);
+            }
+            return null;
+        };
+
+        int workers = getWorkerCount(blockCount);
+        if (workers > 1)
+            invokeWorkers(Collections.nCopies(workers, worker));
+        else
+            worker.call();
+    }
+
+    /**
+     * Computes the rows of one source block into block sized tables and copies them to their rows of the result.
+     */
+    private void computeBlock(int block, MatrixLocations srcData, MatrixLocations dstData, SubGraph targetGraph,
+                              MultiTreeMetricsExtractor extractor, float[] times, float[] distances, float[] weights) throws Exception {
+        int fromRow = block * sourceBlockSize;
+        int toRow = Math.min(fromRow + sourceBlockSize, srcData.size());
+
+        MatrixLocations blockSources = new MatrixLocations(toRow - fromRow);
+        for (int i = fromRow; i < toRow; i++)
+            blockSources.setData(i - fromRow, srcData.getNodeId(i), srcData.getLocations()[i]);
+
+        if (!blockSources.hasValidNodes()) {
+            for (int srcIndex = fromRow; srcIndex < toRow; srcIndex++)
+                extractor.setEmptyValues(srcIndex, dstData, times, distances, weights);
+            return;
+        }
+
+        int blockSize = blockSources.size() * dstData.size();
+        float[] blockTimes = times == null ? null : new float[blockSize];
+        float[] blockDistances = distances == null ? null : new float[blockSize];
+        float[] blockWeights = weights == null ? null : new float[blockSize];
+
+        computeSources(blockSources, dstData, targetGraph, extractor, blockTimes, blockDistances, blockWeights);
+
+        int offset = fromRow * dstData.size();
+        if (times != null)
+            System.arraycopy(blockTimes, 0, times, offset, blockSize);
+        if (distances != null)
+            System.arraycopy(blockDistances, 0, distances, offset, blockSize);
+        if (weights != null)
+            System.arraycopy(blockWeights, 0, weights, offset, blockSize);
+    }
+
+    /**
+     * @param targetGraph prepared target graph shared between source blocks, or null to build one for this search
+     */
+    private void computeSources(MatrixLocations srcData, MatrixLocations dstData, SubGraph targetGraph,
+                                MultiTreeMetricsExtractor extractor, float[] times, float[] distances, float[] weights) throws Exception {
+        int[] srcIds = getValidNodeIds(srcData.getNodeIds());
+        int[] destIds = getValidNodeIds(dstData.getNodeIds());
+
+        if (flatStorage)
+            computeFlat(srcIds, destIds, targetGraph, extractor, srcData, dstData, times, distances, weights);
+        else
+            computeTrees(srcIds, destIds, targetGraph, extractor, srcData, dstData, times, distances, weights);
+    }
+
+    private void computeTrees(int[] srcIds, int[] destIds, SubGraph targetGraph, MultiTreeMetricsExtractor extractor,
+                              MatrixLocations srcData, MatrixLocations dstData, float[] times, float[] distances, float[] weights) throws Exception {
+        RPHASTAlgorithm algorithm = new RPHASTAlgorithm(chGraph, chGraph.getWeighting(), TraversalMode.NODE_BASED);
+        algorithm.setMaxVisitedNodes(this.maxVisitedNodes);
+        if (targetGraph == null)
+            algorithm.prepare(srcIds, destIds);
+        else
+            algorithm.prepare(srcIds, targetGraph);
+
+        MultiTreeSPEntry[] destTrees = algorithm.calcPaths(srcIds, destIds);
+
+        MultiTreeSPEntry[] originalDestTrees = new MultiTreeSPEntry[dstData.size()];
+
+        int j = 0;
+        for (int i = 0; i < dstData.size(); i++) {
+            if (dstData.getNodeIds()[i] != -1) {
+                originalDestTrees[i] = destTrees[j];
+                ++j;
+            } else {
+                originalDestTrees[i] = null;
+            }
+        }
+
+        extractor.calcValues(originalDestTrees, srcData, dstData, times, distances, weights);
+    }
+
+    private void computeFlat(int[] srcIds, int[] destIds, SubGraph targetGraph, MultiTreeMetricsExtractor extractor,
+                             MatrixLocations srcData, MatrixLocations dstData, float[] times, float[] distances, float[] weights) throws Exception {
+        RPHASTArrayAlgorithm algorithm = new RPHASTArrayAlgorithm(chGraph, chGraph.getWeighting(), TraversalMode.NODE_BASED);
+        algorithm.setMaxVisitedNodes(this.maxVisitedNodes);
+        if (targetGraph == null)
+            algorithm.prepare(srcIds, destIds);
+        else
+            algorithm.prepare(srcIds, targetGraph);
+
+        MultiTreeSPTable spTable = algorithm.calcPaths(srcIds, destIds);
+
+        extractor.calcValues(spTable, srcData, dstData, times, distances, weights);
+    }
+
     private int[] getValidNodeIds(int[] nodeIds) {
         List<Integer> nodeList = new ArrayList<>();
         for (int dst : nodeIds) {
@@ -0,0 +1,179 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.matrix.algorithms.rphast;
+
+import io.micrometer.core.instrument.*;
+import org.heigit.ors.routing.algorithms.SubGraph;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Least recently used cache of RPHAST target graphs, bounded by the estimated memory of the cached graphs.
+ * <p>
+ * A target graph is built on the query graph of a request, so it contains the virtual nodes and edges of all snapped
+ * locations of that request. It can therefore only be reused by requests whose query graph is identical, which is
+ * the case if the graph date and all snapped positions are the same; see {@link Key}.
+ */
+public class RPHASTTargetGraphCache {
+    // rough per-object sizes used for the memory estimate
+    private static final long BYTES_PER_NODE = 32;
+    private static final long BYTES_PER_EDGE = 96;
+    private static final long BYTES_PER_SNAP = 512;
+
+    private final long maximumBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final List<Meter> meters = new ArrayList<>();
+    private long usedBytes;
+
+    public RPHASTTargetGraphCache(long maximumBytes) {
+        this.maximumBytes = maximumBytes;
+    }
+
+    /**
+     * Identifies a target graph by profile, graph date, the snapped positions of all locations of the request and
+     * the target nodes.
+     */
+    public static final class Key {
+        private final String profileName;
+        private final String graphDate;
+        private final long[] snapSignature;
+        private final int[] targets;
+        private final int hashCode;
+
+        public Key(String profileName, String graphDate, long[] snapSignature, int[] targets) {
+            this.profileName = profileName;
+            this.graphDate = graphDate;
+            this.snapSignature = snapSignature;
+            this.targets = targets;
+            hashCode = 31 * (31 * Objects.hash(profileName, graphDate) + Arrays.hashCode(snapSignature)) + Arrays.hashCode(targets);
+        }
+
+        long getSize() {
+            return snapSignature.length / 3 * BYTES_PER_SNAP + (long) targets.length * Integer.BYTES;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key other))
+                return false;
+            return hashCode == other.hashCode && Objects.equals(profileName, other.profileName)
+                    && Objects.equals(graphDate, other.graphDate) && Arrays.equals(snapSignature, other.snapSignature)
+                    && Arrays.equals(targets, other.targets);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private record Entry(SubGraph targetGraph, long bytes) {
+    }
+
+    /**
+     * @return the cached target graph or null
+     */
+    public synchronized SubGraph get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.targetGraph();
+    }
+
+    /**
+     * Adds a target graph and evicts the least recently used ones until the cache fits its memory limit again.
+     * Graphs which are larger than the whole cache are not stored.
+     */
+    public void put(Key key, SubGraph targetGraph) {
+        long bytes = estimateSize(key, targetGraph);
+        if (bytes > maximumBytes)
+            return;
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(targetGraph, bytes));
+            if (previous != null)
+                usedBytes -= previous.bytes();
+            usedBytes += bytes;
+
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (usedBytes > maximumBytes && iterator.hasNext()) {
+                usedBytes -= iterator.next().bytes();
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    static long estimateSize(Key key, SubGraph targetGraph) {
+        return targetGraph.getNodeCount() * BYTES_PER_NODE + targetGraph.getEdgeCount() * BYTES_PER_EDGE + key.getSize();
+    }
+
+    /**
+     * Removes all entries, e.g. because the graph has been reloaded.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Registers hit, miss and eviction counters as well as the size of the cache with the given registry.
+     */
+    public void bindTo(MeterRegistry registry, String profileName) {
+        Tags tags = Tags.of("profile", profileName);
+        meters.add(FunctionCounter.builder("ors.matrix.target_graph_cache.hits", this, RPHASTTargetGraphCache::getHits).tags(tags).register(registry));
+        meters.add(FunctionCounter.builder("ors.matrix.target_graph_cache.misses", this, RPHASTTargetGraphCache::getMisses).tags(tags).register(registry));
+        meters.add(FunctionCounter.builder("ors.matrix.target_graph_cache.evictions", this, RPHASTTargetGraphCache::getEvictions).tags(tags).register(registry));
+        meters.add(Gauge.builder("ors.matrix.target_graph_cache.entries", this, RPHASTTargetGraphCache::size).tags(tags).register(registry));
+        meters.add(Gauge.builder("ors.matrix.target_graph_cache.bytes", this, RPHASTTargetGraphCache::getUsedBytes).baseUnit("bytes").tags(tags).register(registry));
+    }
+
+    /**
+     * Clears the cache and removes its meters from the registry.
+     */
+    public void close(MeterRegistry registry) {
+        for (Meter meter : meters)
+            registry.remove(meter);
+        meters.clear();
+        clear();
+    }
+}
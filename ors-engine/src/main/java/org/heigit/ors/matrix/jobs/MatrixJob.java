@@ -0,0 +1,279 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.matrix.jobs;
+
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.ResolvedLocation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A matrix computed in the background. The matrix is split into tiles of at most {@code tileSize} sources times
+ * {@code tileSize} destinations, which are computed independently and written to a {@link MatrixResultFile}.
+ */
+public class MatrixJob {
+    public enum Status {
+        QUEUED, RUNNING, FINISHED, FAILED, CANCELLED;
+
+        public boolean isDone() {
+            return this == FINISHED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final MatrixRequest request;
+    private final int tileSize;
+    private final int[] metrics;
+    private final int tileRows;
+    private final int tileColumns;
+    private final MatrixResultFile resultFile;
+    private final ResolvedLocation[] sources;
+    private final ResolvedLocation[] destinations;
+    private final BitSet finishedTiles;
+    private final AtomicInteger finishedTileCount = new AtomicInteger();
+    private final List<Future<?>> futures = new ArrayList<>();
+    private final long createdAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile String error;
+    private volatile String graphDate;
+    private volatile long finishedAt;
+
+    MatrixJob(String id, MatrixRequest request, int tileSize, MatrixResultFile resultFile) {
+        this.id = id;
+        this.request = request;
+        this.tileSize = tileSize;
+        this.resultFile = resultFile;
+        metrics = getMetrics(request.getMetrics());
+        int rows = request.getSources().length;
+        int columns = request.getDestinations().length;
+        tileRows = (rows + tileSize - 1) / tileSize;
+        tileColumns = (columns + tileSize - 1) / tileSize;
+        sources = new ResolvedLocation[rows];
+        destinations = new ResolvedLocation[columns];
+        finishedTiles = new BitSet(tileRows * tileColumns);
+        createdAt = System.currentTimeMillis();
+    }
+
+    static int[] getMetrics(int metrics) {
+        int[] types = new int[Integer.bitCount(metrics)];
+        int i = 0;
+        for (int metric : new int[]{MatrixMetricsType.DURATION, MatrixMetricsType.DISTANCE, MatrixMetricsType.WEIGHT}) {
+            if (MatrixMetricsType.isSet(metrics, metric))
+                types[i++] = metric;
+        }
+        return types;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public MatrixRequest getRequest() {
+        return request;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getGraphDate() {
+        return graphDate;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public int getRows() {
+        return sources.length;
+    }
+
+    public int getColumns() {
+        return destinations.length;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getTileRows() {
+        return tileRows;
+    }
+
+    public int getTileColumns() {
+        return tileColumns;
+    }
+
+    public int getTileCount() {
+        return tileRows * tileColumns;
+    }
+
+    public int getFinishedTileCount() {
+        return finishedTileCount.get();
+    }
+
+    /**
+     * @return the metric types of the tables in the order they are stored
+     */
+    public int[] getMetrics() {
+        return metrics.clone();
+    }
+
+    public boolean hasMetric(int metric) {
+        return getTableIndex(metric) >= 0;
+    }
+
+    public synchronized boolean isTileFinished(int tileRow, int tileColumn) {
+        checkTile(tileRow, tileColumn);
+        return finishedTiles.get(tileRow * tileColumns + tileColumn);
+    }
+
+    /**
+     * @return true if all tiles which cover the given rows have been computed
+     */
+    public synchronized boolean areRowsFinished(int fromRow, int toRow) {
+        for (int tileRow = fromRow / tileSize; tileRow <= (toRow - 1) / tileSize; tileRow++) {
+            int first = tileRow * tileColumns;
+            if (finishedTiles.nextClearBit(first) < first + tileColumns)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a part of a row of the given metric. Only values of finished tiles are meaningful.
+     */
+    public void readRow(int metric, int row, int fromColumn, float[] dst) {
+        resultFile.read(getTableIndex(metric), row, fromColumn, dst);
+    }
+
+    public synchronized ResolvedLocation getSource(int row) {
+        return sources[row];
+    }
+
+    public synchronized ResolvedLocation getDestination(int column) {
+        return destinations[column];
+    }
+
+    private int getTableIndex(int metric) {
+        for (int i = 0; i < metrics.length; i++) {
+            if (metrics[i] == metric)
+                return i;
+        }
+        return -1;
+    }
+
+    private void checkTile(int tileRow, int tileColumn) {
+        if (tileRow < 0 || tileRow >= tileRows || tileColumn < 0 || tileColumn >= tileColumns)
+            throw new IndexOutOfBoundsException("Tile " + tileRow + "/" + tileColumn);
+    }
+
+    int getFirstRow(int tileRow) {
+        return tileRow * tileSize;
+    }
+
+    int getFirstColumn(int tileColumn) {
+        return tileColumn * tileSize;
+    }
+
+    int getTileHeight(int tileRow) {
+        return Math.min(tileSize, getRows() - getFirstRow(tileRow));
+    }
+
+    int getTileWidth(int tileColumn) {
+        return Math.min(tileSize, getColumns() - getFirstColumn(tileColumn));
+    }
+
+    void addFuture(Future<?> future) {
+        synchronized (futures) {
+            futures.add(future);
+        }
+    }
+
+    synchronized void markRunning() {
+        if (status == Status.QUEUED)
+            status = Status.RUNNING;
+    }
+
+    /**
+     * Stores the result of one tile and updates the status once the last tile has been written.
+     */
+    void finishTile(int tileRow, int tileColumn, MatrixResult result) {
+        int fromRow = getFirstRow(tileRow);
+        int fromColumn = getFirstColumn(tileColumn);
+        int height = getTileHeight(tileRow);
+        int width = getTileWidth(tileColumn);
+        for (int i = 0; i < metrics.length; i++)
+            resultFile.write(i, fromRow, fromColumn, height, width, result.getTable(metrics[i]));
+        synchronized (this) {
+            // every tile resolves its own locations, so the locations of a finished tile are always available
+            System.arraycopy(result.getSources(), 0, sources, fromRow, height);
+            System.arraycopy(result.getDestinations(), 0, destinations, fromColumn, width);
+            if (graphDate == null)
+                graphDate = result.getGraphDate();
+            finishedTiles.set(tileRow * tileColumns + tileColumn);
+        }
+        if (finishedTileCount.incrementAndGet() == getTileCount())
+            finish(Status.FINISHED, null);
+    }
+
+    synchronized void fail(String message) {
+        if (!status.isDone()) {
+            finish(Status.FAILED, message);
+            cancelFutures();
+        }
+    }
+
+    synchronized void cancel() {
+        if (!status.isDone()) {
+            finish(Status.CANCELLED, null);
+            cancelFutures();
+        }
+    }
+
+    private synchronized void finish(Status newStatus, String message) {
+        if (status.isDone())
+            return;
+        error = message;
+        finishedAt = System.currentTimeMillis();
+        status = newStatus;
+    }
+
+    private void cancelFutures() {
+        synchronized (futures) {
+            for (Future<?> future : futures)
+                future.cancel(true);
+        }
+    }
+
+    void close() throws IOException {
+        cancel();
+        resultFile.close();
+    }
+}
@@ -0,0 +1,187 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.matrix.jobs;
+
+import org.apache.log4j.Logger;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixResult;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link MatrixJob}s on a fixed pool of background threads. Every tile of a job is a separate task, so the
+ * tiles of a job are computed in parallel and jobs are processed in the order they have been submitted. Finished
+ * jobs are kept for the configured retention time and are removed together with their result file afterwards.
+ */
+public class MatrixJobManager implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MatrixJobManager.class);
+
+    /**
+     * Computes the matrix of one tile, usually {@code RoutingProfileManager.getInstance()::computeMatrix}.
+     */
+    @FunctionalInterface
+    public interface TileCalculator {
+        MatrixResult compute(MatrixRequest request) throws Exception;
+    }
+
+    private final TileCalculator calculator;
+    private final Path directory;
+    private final int tileSize;
+    private final int maximumActiveJobs;
+    private final long retentionTime;
+    private final ExecutorService executor;
+    private final Map<String, MatrixJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * @param retentionTime time in milliseconds for which a finished job can be downloaded
+     */
+    public MatrixJobManager(TileCalculator calculator, Path directory, int tileSize, int threads, int maximumActiveJobs, long retentionTime) throws IOException {
+        if (tileSize < 1)
+            throw new IllegalArgumentException("Tile size must be positive");
+        this.calculator = calculator;
+        this.directory = Files.createDirectories(directory);
+        this.tileSize = tileSize;
+        this.maximumActiveJobs = maximumActiveJobs;
+        this.retentionTime = retentionTime;
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "ors-matrix-jobs-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Queues the computation of the matrix of the given request.
+     *
+     * @throws RejectedExecutionException if the maximum number of unfinished jobs has been reached
+     */
+    public MatrixJob submit(MatrixRequest request) throws IOException {
+        removeExpiredJobs();
+        if (getActiveJobCount() >= maximumActiveJobs)
+            throw new RejectedExecutionException("Only %d matrix jobs can be processed at the same time.".formatted(maximumActiveJobs));
+
+        String id = UUID.randomUUID().toString();
+        int tables = MatrixJob.getMetrics(request.getMetrics()).length;
+        MatrixResultFile resultFile = new MatrixResultFile(directory.resolve(id + ".matrix"), tables, request.getSources().length, request.getDestinations().length);
+        MatrixJob job = new MatrixJob(id, request, tileSize, resultFile);
+        jobs.put(id, job);
+
+        try {
+            for (int tileRow = 0; tileRow < job.getTileRows(); tileRow++) {
+                for (int tileColumn = 0; tileColumn < job.getTileColumns(); tileColumn++) {
+                    int r = tileRow;
+                    int c = tileColumn;
+                    job.addFuture(executor.submit(() -> computeTile(job, r, c)));
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            job.fail("The job could not be queued.");
+            throw e;
+        }
+        return job;
+    }
+
+    private void computeTile(MatrixJob job, int tileRow, int tileColumn) {
+        if (job.getStatus().isDone())
+            return;
+        job.markRunning();
+
+        MatrixRequest request = job.getRequest();
+        int fromRow = job.getFirstRow(tileRow);
+        int fromColumn = job.getFirstColumn(tileColumn);
+        Coordinate[] sources = Arrays.copyOfRange(request.getSources(), fromRow, fromRow + job.getTileHeight(tileRow));
+        Coordinate[] destinations = Arrays.copyOfRange(request.getDestinations(), fromColumn, fromColumn + job.getTileWidth(tileColumn));
+        try {
+            MatrixResult result = calculator.compute(request.createSubRequest(sources, destinations));
+            job.finishTile(tileRow, tileColumn, result);
+        } catch (Exception e) {
+            if (job.getStatus().isDone())
+                return;
+            LOGGER.warn("Matrix job %s failed in tile %d/%d: %s".formatted(job.getId(), tileRow, tileColumn, e.getMessage()));
+            job.fail(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+        }
+    }
+
+    /**
+     * @return the job or null if there is no such job or it has expired
+     */
+    public MatrixJob getJob(String id) {
+        removeExpiredJobs();
+        return jobs.get(id);
+    }
+
+    /**
+     * Cancels the job if it is still running and deletes its result.
+     *
+     * @return false if there is no such job
+     */
+    public boolean removeJob(String id) {
+        MatrixJob job = jobs.remove(id);
+        if (job == null)
+            return false;
+        closeJob(job);
+        return true;
+    }
+
+    public int getActiveJobCount() {
+        int count = 0;
+        for (MatrixJob job : jobs.values()) {
+            if (!job.getStatus().isDone())
+                count++;
+        }
+        return count;
+    }
+
+    private void removeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        Iterator<MatrixJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            MatrixJob job = iterator.next();
+            if (job.getStatus().isDone() && now - job.getFinishedAt() > retentionTime) {
+                iterator.remove();
+                closeJob(job);
+            }
+        }
+    }
+
+    private void closeJob(MatrixJob job) {
+        try {
+            job.close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete the result of matrix job %s: %s".formatted(job.getId(), e.getMessage()));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (MatrixJob job : jobs.values())
+            closeJob(job);
+        jobs.clear();
+    }
+}
@@ -0,0 +1,132 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.matrix.jobs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped file holding the row-major float tables of one large matrix, one table per metric. As a single
+ * mapping is limited to 2 GB the file is mapped in segments, each covering a whole number of rows, so a row never
+ * spans two mappings. Tiles are written with absolute puts, which allows concurrent writers of disjoint tiles.
+ */
+public class MatrixResultFile implements Closeable {
+    private static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int tables;
+    private final int rows;
+    private final int columns;
+    private final int rowsPerSegment;
+
+    public MatrixResultFile(Path path, int tables, int rows, int columns) throws IOException {
+        long rowBytes = (long) columns * Float.BYTES;
+        if (rowBytes > MAX_SEGMENT_BYTES)
+            throw new IllegalArgumentException("Too many columns: " + columns);
+
+        this.path = path;
+        this.tables = tables;
+        this.rows = rows;
+        this.columns = columns;
+        rowsPerSegment = (int) Math.max(1, MAX_SEGMENT_BYTES / Math.max(rowBytes, 1));
+
+        long totalRows = (long) tables * rows;
+        int segmentCount = (int) ((totalRows + rowsPerSegment - 1) / rowsPerSegment);
+        segments = new MappedByteBuffer[segmentCount];
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            for (int i = 0; i < segmentCount; i++) {
+                long firstRow = (long) i * rowsPerSegment;
+                long segmentRows = Math.min(rowsPerSegment, totalRows - firstRow);
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, firstRow * rowBytes, segmentRows * rowBytes);
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public long getSize() {
+        return (long) tables * rows * columns * Float.BYTES;
+    }
+
+    /**
+     * Copies a row-major block of values into the given table.
+     *
+     * @param values {@code rowCount * columnCount} values in row-major order
+     */
+    public void write(int table, int fromRow, int fromColumn, int rowCount, int columnCount, float[] values) {
+        for (int i = 0; i < rowCount; i++) {
+            MappedByteBuffer segment = segment(table, fromRow + i);
+            int position = position(table, fromRow + i, fromColumn);
+            int offset = i * columnCount;
+            for (int j = 0; j < columnCount; j++)
+                segment.putFloat(position + j * Float.BYTES, values[offset + j]);
+        }
+    }
+
+    /**
+     * Reads the values of the columns [fromColumn, fromColumn + dst.length) of a row.
+     */
+    public void read(int table, int row, int fromColumn, float[] dst) {
+        MappedByteBuffer segment = segment(table, row);
+        int position = position(table, row, fromColumn);
+        for (int j = 0; j < dst.length; j++)
+            dst[j] = segment.getFloat(position + j * Float.BYTES);
+    }
+
+    private MappedByteBuffer segment(int table, int row) {
+        checkBounds(table, row);
+        return segments[(int) (((long) table * rows + row) / rowsPerSegment)];
+    }
+
+    private int position(int table, int row, int column) {
+        long segmentRow = ((long) table * rows + row) % rowsPerSegment;
+        return (int) (segmentRow * columns * Float.BYTES) + column * Float.BYTES;
+    }
+
+    private void checkBounds(int table, int row) {
+        if (table < 0 || table >= tables || row < 0 || row >= rows)
+            throw new IndexOutOfBoundsException("Table " + table + ", row " + row);
+    }
+
+    /**
+     * Closes and deletes the file. The mappings are released by the garbage collector.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing;
+
+import java.io.IOException;
+
+/**
+ * Receives the routes of a batch as soon as they have been computed.
+ */
+@FunctionalInterface
+public interface RouteBatchHandler {
+    /**
+     * Called on the thread which started the batch, once for every origin-destination pair.
+     *
+     * @throws IOException if the result can not be delivered, which cancels the remaining routes of the batch
+     */
+    void handle(RouteBatchResult result) throws IOException;
+}
@@ -0,0 +1,27 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing;
+
+/**
+ * The outcome of one route of a batch, see {@link RoutingProfileManager#computeRouteBatch}.
+ *
+ * @param index  the index of the origin-destination pair in the batch
+ * @param routes the computed routes, null if the route could not be computed
+ * @param error  the reason why the route could not be computed, null on success
+ */
+public record RouteBatchResult(int index, RouteResult[] routes, Exception error) {
+    public boolean hasError() {
+        return error != null;
+    }
+}
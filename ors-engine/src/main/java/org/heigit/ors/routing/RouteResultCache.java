@@ -0,0 +1,189 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing;
+
+import io.micrometer.core.instrument.*;
+import org.heigit.ors.common.RequestKeyBuilder;
+import org.heigit.ors.routing.parameters.ProfileParameters;
+import org.heigit.ors.routing.parameters.VehicleParameters;
+import org.heigit.ors.routing.parameters.WheelchairParameters;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Least recently used cache of route results which is shared by all requests of a profile.
+ * <p>
+ * Requests are identified by a canonical form of all their options, with the coordinates rounded to a fixed number of
+ * decimal places, see {@link RequestKeyBuilder}. Entries expire after a fixed time and the whole cache is
+ * dropped as soon as a request is made with a different graph date, so results of a replaced graph are never
+ * returned. Requests whose result depends on the time of the request or on chance are not cached, see
+ * {@link #isCacheable(RoutingRequest)}.
+ */
+public class RouteResultCache {
+    private final Map<String, Entry> entries;
+    private final long timeToLiveNanos;
+    private final double coordinateFactor;
+    private final LongSupplier ticker;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final List<Meter> meters = new ArrayList<>();
+    private String graphDate;
+
+    /**
+     * @param timeToLive          time in seconds for which a result is kept
+     * @param coordinatePrecision number of decimal places the coordinates are rounded to
+     */
+    public RouteResultCache(int maximumEntries, long timeToLive, int coordinatePrecision) {
+        this(maximumEntries, timeToLive, coordinatePrecision, System::nanoTime);
+    }
+
+    RouteResultCache(int maximumEntries, long timeToLive, int coordinatePrecision, LongSupplier ticker) {
+        this.timeToLiveNanos = timeToLive * 1_000_000_000L;
+        this.coordinateFactor = Math.pow(10, coordinatePrecision);
+        this.ticker = ticker;
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= maximumEntries)
+                    return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    private record Entry(RouteResult[] routes, long expiresAt) {
+    }
+
+    /**
+     * Requests with a departure or arrival time, public transport requests and round trips without a fixed seed are
+     * not cached, as their result depends on the time of the request or is meant to differ between requests.
+     */
+    public static boolean isCacheable(RoutingRequest req) {
+        RouteSearchParameters searchParams = req.getSearchParameters();
+        if (searchParams.isTimeDependent() || searchParams.getProfileType() == RoutingProfileType.PUBLIC_TRANSPORT)
+            return false;
+        if (searchParams.getRoundTripLength() > 0 && searchParams.getRoundTripSeed() < 0)
+            return false;
+        ProfileParameters profileParams = searchParams.getProfileParameters();
+        return profileParams == null || profileParams.getClass() == ProfileParameters.class
+                || profileParams instanceof VehicleParameters || profileParams instanceof WheelchairParameters;
+    }
+
+    /**
+     * @return the canonical form of the request, which contains the rounded coordinates and every option which
+     * affects the computed routes or their representation
+     */
+    public String createKey(RoutingRequest req) {
+        return new RequestKeyBuilder()
+                .addRounded(req.getCoordinates(), coordinateFactor)
+                .addOutputOptions(req)
+                .add(req.getSearchParameters())
+                .build();
+    }
+
+    /**
+     * @param graphDate the date of the graph the request would be computed on
+     * @return the cached routes or null
+     */
+    public RouteResult[] get(String key, String graphDate) {
+        Entry entry;
+        synchronized (entries) {
+            invalidateIfGraphChanged(graphDate);
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - ticker.getAsLong() <= 0) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.routes().clone();
+    }
+
+    /**
+     * Stores the routes of a request which have been computed on the graph of the given date.
+     */
+    public void put(String key, String graphDate, RouteResult[] routes) {
+        synchronized (entries) {
+            invalidateIfGraphChanged(graphDate);
+            entries.put(key, new Entry(routes.clone(), ticker.getAsLong() + timeToLiveNanos));
+        }
+    }
+
+    private void invalidateIfGraphChanged(String graphDate) {
+        if (!Objects.equals(this.graphDate, graphDate)) {
+            entries.clear();
+            this.graphDate = graphDate;
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Registers hit, miss and eviction counters, the hit ratio and the size of the cache with the given registry.
+     */
+    public void bindTo(MeterRegistry registry, String profileName) {
+        Tags tags = Tags.of("profile", profileName);
+        meters.add(FunctionCounter.builder("ors.routing.result_cache.hits", this, RouteResultCache::getHits).tags(tags).register(registry));
+        meters.add(FunctionCounter.builder("ors.routing.result_cache.misses", this, RouteResultCache::getMisses).tags(tags).register(registry));
+        meters.add(FunctionCounter.builder("ors.routing.result_cache.evictions", this, RouteResultCache::getEvictions).tags(tags).register(registry));
+        meters.add(Gauge.builder("ors.routing.result_cache.hit_ratio", this, RouteResultCache::getHitRatio).tags(tags).register(registry));
+        meters.add(Gauge.builder("ors.routing.result_cache.entries", this, RouteResultCache::size).tags(tags).register(registry));
+    }
+
+    /**
+     * Clears the cache and removes its meters from the registry.
+     */
+    public void close(MeterRegistry registry) {
+        for (Meter meter : meters)
+            registry.remove(meter);
+        meters.clear();
+        clear();
+    }
+}
@@ -41,6 +41,10 @@ public class RoutingErrorCodes {
     public static final int PT_ROUTE_NOT_FOUND = 2016;
 
     public static final int PT_MAX_VISITED_NODES_EXCEEDED = 2017;
+
+    public static final int BATCH_UNAVAILABLE = 2030;
+    public static final int SPEEDS_UNAVAILABLE = 2031;
+    public static final int SPEEDS_UNAUTHORIZED = 2032;
     public static final int UNKNOWN = 2099;
 
     private RoutingErrorCodes() {
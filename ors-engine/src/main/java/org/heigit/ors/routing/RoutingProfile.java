@@ -27,10 +27,12 @@ import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.*;
 import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.*;
 import com.graphhopper.util.shapes.BBox;
 import com.graphhopper.util.shapes.GHPoint;
 import com.typesafe.config.Config;
+import io.micrometer.core.instrument.Metrics;
 import org.apache.log4j.Logger;
 import org.heigit.ors.common.Pair;
 import org.heigit.ors.config.EngineConfig;
@@ -46,14 +48,17 @@ import org.heigit.ors.isochrones.statistics.StatisticsProvider;
 import org.heigit.ors.isochrones.statistics.StatisticsProviderConfiguration;
 import org.heigit.ors.isochrones.statistics.StatisticsProviderFactory;
 import org.heigit.ors.matrix.*;
+import org.heigit.ors.matrix.algorithms.bucket.BucketMatrixAlgorithm;
 import org.heigit.ors.matrix.algorithms.core.CoreMatrixAlgorithm;
 import org.heigit.ors.matrix.algorithms.dijkstra.DijkstraMatrixAlgorithm;
 import org.heigit.ors.matrix.algorithms.rphast.RPHASTMatrixAlgorithm;
+import org.heigit.ors.matrix.algorithms.rphast.RPHASTTargetGraphCache;
 import org.heigit.ors.routing.configuration.RouteProfileConfiguration;
 import org.heigit.ors.routing.graphhopper.extensions.*;
 import org.heigit.ors.routing.graphhopper.extensions.flagencoders.FlagEncoderNames;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.OsmIdGraphStorage;
+import org.heigit.ors.routing.graphhopper.extensions.storages.SpeedStorage;
 import org.heigit.ors.routing.graphhopper.extensions.storages.WheelchairAttributesGraphStorage;
 import org.heigit.ors.routing.graphhopper.extensions.storages.builders.BordersGraphStorageBuilder;
 import org.heigit.ors.routing.graphhopper.extensions.storages.builders.GraphStorageBuilder;
@@ -73,6 +78,11 @@ import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 
 /**
  * This class generates {@link RoutingProfile} classes and is used by mostly all service classes e.g.
@@ -92,6 +102,22 @@ public class RoutingProfile {
     private Integer mUseCounter;
     private String astarApproximation;
     private Double astarEpsilon;
+    private boolean rphastFlatStorage;
+    private int rphastSourceBlockSize;
+    private ExecutorService matrixExecutor;
+    private int matrixParallelism = 1;
+    private RPHASTTargetGraphCache targetGraphCache;
+    private int bucketMatrixMaximumLocations = 20;
+    private SnapCache snapCache;
+    private ExecutorService segmentExecutor;
+    private ExecutorService isochroneExecutor;
+    private int isochroneParallelism = 1;
+    private String isochroneMethod;
+    private double isochroneRasterCellSize = IsochroneMapBuilderFactory.DEFAULT_RASTER_CELL_SIZE;
+    private boolean sharedQueryGraph;
+    private RouteResultCache routeResultCache;
+    private IsochroneMapCache isochroneMapCache;
+    private PtRouter ptRouter;
 
     public RoutingProfile(EngineConfig engineConfig, RouteProfileConfiguration rpc, RoutingProfileLoadContext loadCntx) throws Exception {
         mRoutePrefs = rpc.getProfilesTypes();
@@ -101,15 +127,99 @@ public class RoutingProfile {
 
         config = rpc;
 
+        int snapCacheSize = 10000;
+        int resultCacheSize = 0;
+        long resultCacheTimeToLive = 300;
+        int resultCachePrecision = 6;
         Config optsExecute = config.getExecutionOpts();
         if (optsExecute != null) {
             if (optsExecute.hasPath("methods.astar.approximation"))
                 astarApproximation = optsExecute.getString("methods.astar.approximation");
             if (optsExecute.hasPath("methods.astar.epsilon"))
                 astarEpsilon = Double.parseDouble(optsExecute.getString("methods.astar.epsilon"));
+            if (optsExecute.hasPath("matrix.rphast_flat_storage"))
+                rphastFlatStorage = Boolean.parseBoolean(optsExecute.getString("matrix.rphast_flat_storage"));
+            if (optsExecute.hasPath("matrix.rphast_source_block_size"))
+                rphastSourceBlockSize = Integer.parseInt(optsExecute.getString("matrix.rphast_source_block_size"));
+            if (optsExecute.hasPath("matrix.pool_size")) {
+                int poolSize = Integer.parseInt(optsExecute.getString("matrix.pool_size"));
+                if (poolSize > 0) {
+                    matrixExecutor = createExecutor("ors-matrix-", poolSize);
+                    matrixParallelism = poolSize;
+                }
+            }
+            if (optsExecute.hasPath("matrix.parallelism"))
+                matrixParallelism = Math.max(1, Integer.parseInt(optsExecute.getString("matrix.parallelism")));
+            if (optsExecute.hasPath("routing.pool_size")) {
+                int poolSize = Integer.parseInt(optsExecute.getString("routing.pool_size"));
+                if (poolSize > 0)
+                    segmentExecutor = createExecutor("ors-routing-", poolSize);
+            }
+            if (optsExecute.hasPath("isochrones.pool_size")) {
+                int poolSize = Integer.parseInt(optsExecute.getString("isochrones.pool_size"));
+                if (poolSize > 0) {
+                    isochroneExecutor = createExecutor("ors-isochrones-", poolSize);
+                    isochroneParallelism = poolSize;
+                }
+            }
+            if (optsExecute.hasPath("isochrones.parallelism"))
+                isochroneParallelism = Math.max(1, Integer.parseInt(optsExecute.getString("isochrones.parallelism")));
+            if (optsExecute.hasPath("isochrones.method"))
+                isochroneMethod = optsExecute.getString("isochrones.method");
+            if (optsExecute.hasPath("isochrones.raster_cell_size"))
+                isochroneRasterCellSize = Double.parseDouble(optsExecute.getString("isochrones.raster_cell_size"));
+            if (optsExecute.hasPath("isochrones.result_cache_size")) {
+                long cacheSize = Long.parseLong(optsExecute.getString("isochrones.result_cache_size"));
+                if (cacheSize > 0) {
+                    isochroneMapCache = new IsochroneMapCache(cacheSize * 1024 * 1024);
+                    isochroneMapCache.bindTo(Metrics.globalRegistry, config.getName());
+                }
+            }
+            if (optsExecute.hasPath("routing.shared_query_graph"))
+                sharedQueryGraph = Boolean.parseBoolean(optsExecute.getString("routing.shared_query_graph"));
+            if (optsExecute.hasPath("routing.result_cache_size"))
+                resultCacheSize = Integer.parseInt(optsExecute.getString("routing.result_cache_size"));
+            if (optsExecute.hasPath("routing.result_cache_ttl"))
+                resultCacheTimeToLive = Long.parseLong(optsExecute.getString("routing.result_cache_ttl"));
+            if (optsExecute.hasPath("routing.result_cache_precision"))
+                resultCachePrecision = Integer.parseInt(optsExecute.getString("routing.result_cache_precision"));
+            if (optsExecute.hasPath("matrix.bucket_maximum_locations"))
+                bucketMatrixMaximumLocations = Integer.parseInt(optsExecute.getString("matrix.bucket_maximum_locations"));
+            if (optsExecute.hasPath("matrix.snap_cache_size"))
+                snapCacheSize = Integer.parseInt(optsExecute.getString("matrix.snap_cache_size"));
+            if (optsExecute.hasPath("matrix.target_graph_cache_size")) {
+                long cacheSize = Long.parseLong(optsExecute.getString("matrix.target_graph_cache_size"));
+                if (cacheSize > 0) {
+                    targetGraphCache = new RPHASTTargetGraphCache(cacheSize * 1024 * 1024);
+                    targetGraphCache.bindTo(Metrics.globalRegistry, config.getName());
+                }
+            }
+        }
+        if ("phast".equalsIgnoreCase(isochroneMethod))
+            mGraphHopper.preparePHASTGraphs(isochroneParallelism);
+        if (snapCacheSize > 0)
+            snapCache = new SnapCache(mGraphHopper.getGraphHopperStorage().getBaseGraph(), snapCacheSize);
+        // the router only holds references to the loaded graph and creates the state of each search per request, so
+        // it is shared by all public transport requests of the profile
+        if (!config.getGtfsFile().isEmpty())
+            ptRouter = new PtRouterImpl.Factory(mGraphHopper.getConfig(), mGraphHopper.getTranslationMap(), mGraphHopper.getGraphHopperStorage(), mGraphHopper.getLocationIndex(), mGraphHopper.getGtfsStorage())
+                    .createWithoutRealtimeFeed();
+        if (resultCacheSize > 0 && resultCacheTimeToLive > 0) {
+            routeResultCache = new RouteResultCache(resultCacheSize, resultCacheTimeToLive, resultCachePrecision);
+            routeResultCache.bindTo(Metrics.globalRegistry, config.getName());
         }
     }
 
+    private static ExecutorService createExecutor(String namePrefix, int poolSize) {
+        ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+        return Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = defaultFactory.newThread(runnable);
+            thread.setName(namePrefix + thread.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     public static ORSGraphHopper initGraphHopper(EngineConfig engineConfig, RouteProfileConfiguration config, RoutingProfileLoadContext loadCntx) throws Exception {
         String osmFile = engineConfig.getSourceFile();
         ORSGraphHopperConfig args = createGHSettings(osmFile, config);
@@ -294,6 +404,8 @@ public class RoutingProfile {
                                 chProfiles.add(new CHProfile(ProfileTools.makeProfileName(vehicle, weighting, false)));
                             ghConfig.setCHProfiles(chProfiles);
                         }
+                        if (chOpts.hasPath(ProfileTools.KEY_SHORTCUT_METRICS))
+                            ghConfig.putObject(ORSParameters.ShortcutMetrics.PREPARE_CH, chOpts.getBoolean(ProfileTools.KEY_SHORTCUT_METRICS));
                     }
                 }
 
@@ -363,6 +475,12 @@ public class RoutingProfile {
                             ghConfig.putObject("prepare.corelm.lmsets", StringUtility.trimQuotes(coreOpts.getString(ProfileTools.KEY_LMSETS)));
                         if (coreOpts.hasPath(ProfileTools.KEY_LANDMARKS))
                             ghConfig.putObject("prepare.corelm.landmarks", coreOpts.getInt(ProfileTools.KEY_LANDMARKS));
+                        if (coreOpts.hasPath(ProfileTools.KEY_LANDMARK_THREADS))
+                            ghConfig.putObject(ORSParameters.CoreLandmark.LANDMARK_THREADS, coreOpts.getInt(ProfileTools.KEY_LANDMARK_THREADS));
+                        if (coreOpts.hasPath(ProfileTools.KEY_SHORTCUT_METRICS))
+                            ghConfig.putObject(ORSParameters.ShortcutMetrics.PREPARE_CORE, coreOpts.getBoolean(ProfileTools.KEY_SHORTCUT_METRICS));
+                        if (coreOpts.hasPath(ProfileTools.KEY_CUSTOMIZABLE))
+                            ghConfig.putObject(ORSParameters.Core.CUSTOMIZABLE, coreOpts.getBoolean(ProfileTools.KEY_CUSTOMIZABLE));
                     }
                 }
             }
@@ -433,6 +551,14 @@ public class RoutingProfile {
         return mGraphHopper;
     }
 
+    /**
+     * @return the isochrone method of execution.isochrones.method which replaces the default method of the requests,
+     * or null if it is not set
+     */
+    public String getIsochroneMethod() {
+        return isochroneMethod;
+    }
+
     public BBox getBounds() {
         return mGraphHopper.getGraphHopperStorage().getBounds();
     }
@@ -445,6 +571,81 @@ public class RoutingProfile {
         return config;
     }
 
+    /**
+     * @return the pool for computing the segments of multi-waypoint routes in parallel, or null if they are computed
+     * on the request thread
+     */
+    public ExecutorService getSegmentExecutor() {
+        return segmentExecutor;
+    }
+
+    /**
+     * @return the pool for computing the isochrones of multi-location requests in parallel, or null if they are
+     * computed on the request thread
+     */
+    public ExecutorService getIsochroneExecutor() {
+        return isochroneExecutor;
+    }
+
+    /**
+     * @return the maximum number of threads of the isochrone pool used by a single request
+     */
+    public int getIsochroneParallelism() {
+        return isochroneParallelism;
+    }
+
+    /**
+     * @return true if multi-waypoint routes should be computed on a single query graph, see {@link #computeViaRoute}
+     */
+    public boolean useSharedQueryGraph() {
+        return sharedQueryGraph;
+    }
+
+    /**
+     * @return the cache of computed routes or null if it is disabled
+     */
+    public RouteResultCache getRouteResultCache() {
+        return routeResultCache;
+    }
+
+    /**
+     * @return true if the graph has a {@link SpeedStorage} which accepts live speed updates
+     */
+    public boolean hasSpeedStorage() {
+        return GraphStorageUtils.getGraphExtension(mGraphHopper.getGraphHopperStorage(), SpeedStorage.class) != null;
+    }
+
+    /**
+     * Applies live speed updates to the {@link SpeedStorage} of the graph and removes expired speeds. Cached routes
+     * are dropped if any speed has changed, and a customizable core is scheduled to be customized.
+     *
+     * @throws IllegalStateException if the graph has no speed storage
+     */
+    public SpeedStorage.UpdateResult applySpeedUpdates(List<ORSSpeedUpdate> updates) {
+        SpeedStorage speedStorage = GraphStorageUtils.getGraphExtension(mGraphHopper.getGraphHopperStorage(), SpeedStorage.class);
+        if (speedStorage == null)
+            throw new IllegalStateException("The graph of profile " + config.getName() + " has no speed storage.");
+        SpeedStorage.UpdateResult result = speedStorage.applyUpdates(updates, System.currentTimeMillis());
+        if (result.hasChanges()) {
+            if (routeResultCache != null)
+                routeResultCache.clear();
+            if (isochroneMapCache != null)
+                isochroneMapCache.clear();
+            // routes computed while the core is being customized may still use the old shortcut weights
+            mGraphHopper.requestCoreCustomization(() -> {
+                if (routeResultCache != null)
+                    routeResultCache.clear();
+                if (isochroneMapCache != null)
+                    isochroneMapCache.clear();
+            });
+        }
+        return result;
+    }
+
+    public String getGraphDate() {
+        return mGraphHopper.getGraphHopperStorage().getProperties().get("datareader.import.date");
+    }
+
     public Integer[] getPreferences() {
         return mRoutePrefs;
     }
@@ -462,6 +663,20 @@ public class RoutingProfile {
     }
 
     public void close() {
+        if (matrixExecutor != null)
+            matrixExecutor.shutdownNow();
+        if (segmentExecutor != null)
+            segmentExecutor.shutdownNow();
+        if (isochroneExecutor != null)
+            isochroneExecutor.shutdownNow();
+        if (targetGraphCache != null)
+            targetGraphCache.close(Metrics.globalRegistry);
+        if (snapCache != null)
+            snapCache.clear();
+        if (routeResultCache != null)
+            routeResultCache.close(Metrics.globalRegistry);
+        if (isochroneMapCache != null)
+            isochroneMapCache.close(Metrics.globalRegistry);
         mGraphHopper.close();
     }
 
@@ -521,6 +736,8 @@ public class RoutingProfile {
             RouteSearchContext searchCntx = createSearchContext(parameters.getRouteParameters());
 
             IsochroneMapBuilderFactory isochroneMapBuilderFactory = new IsochroneMapBuilderFactory(searchCntx);
+            isochroneMapBuilderFactory.setDefaultMethod(isochroneMethod);
+            isochroneMapBuilderFactory.setRasterCellSize(isochroneRasterCellSize);
             result = isochroneMapBuilderFactory.buildMap(parameters);
 
             endUseGH();
@@ -573,8 +790,10 @@ public class RoutingProfile {
     }
 
     /**
-     * Compute a NxM matrix from a request using any of the three available approaches.
-     * For performance reasons, RPHAST is preferred over CoreMatrix, which is preferred over DijkstraMatrix, depending on request conditions.
+     * Compute a NxM matrix from a request using any of the four available approaches.
+     * For performance reasons, the CH based bucket and RPHAST algorithms are preferred over CoreMatrix, which is preferred over DijkstraMatrix, depending on request conditions.
+     * Of the CH based algorithms, the bucket algorithm is used for matrices up to matrix.bucket_maximum_locations and
+     * RPHAST otherwise.
      *
      * @param req The MatrixRequest object containing details which define which approach should be used.
      * @return A MatrixResult object, possibly with both time and distance values for all combinations of N and M input locations
@@ -593,8 +812,10 @@ public class RoutingProfile {
 
         //TODO Refactoring : probably remove MatrixAlgorithmFactory alltogether as the checks for algorithm choice have to be performed here again. Or combine in a single check nicely
         try {
-            // RPHAST
+            // Bucket or RPHAST
             if (!req.getFlexibleMode() && gh.getCHPreparationHandler().isEnabled() && hasCHProfile(CHProfileName)) {
+                if (isBucketMatrix(req))
+                    return computeBucketMatrix(req, gh, flagEncoder, CHProfileName);
                 return computeRPHASTMatrix(req, gh, flagEncoder, CHProfileName);
             }
             // Core
@@ -615,6 +836,34 @@ public class RoutingProfile {
         }
     }
 
+    /**
+     * The bucket algorithm runs one search per source and target, while RPHAST sweeps the search space of all targets
+     * once per source block. The default maximum number of locations is meant to stay below the crossover, which
+     * depends on the graph and can be measured with the BucketMatrixBenchmark of ors-benchmark.
+     */
+    private boolean isBucketMatrix(MatrixRequest req) {
+        return Math.max(req.getSources().length, req.getDestinations().length) <= bucketMatrixMaximumLocations;
+    }
+
+    /**
+     * Compute a matrix based on a contraction hierarchies graph using the bucket based many-to-many algorithm.
+     */
+    private MatrixResult computeBucketMatrix(MatrixRequest req, GraphHopper gh, FlagEncoder flagEncoder, String profileName) throws Exception {
+        RoutingCHGraph routingCHGraph = gh.getGraphHopperStorage().getRoutingCHGraph(profileName);
+        MatrixSearchContextBuilder builder = new MatrixSearchContextBuilder(gh.getGraphHopperStorage(), gh.getLocationIndex(), AccessFilter.allEdges(flagEncoder.getAccessEnc()), req.getResolveLocations());
+        builder.setExecutor(matrixExecutor, matrixParallelism);
+        builder.setWeightingSupplier(() -> mGraphHopper.createCHWeighting(gh.getProfile(profileName)));
+        // the snap filter only depends on the CH weighting of the profile
+        builder.setSnapCache(snapCache, profileName);
+        MatrixSearchContext mtxSearchCntx = builder.create(routingCHGraph.getBaseGraph(), routingCHGraph, routingCHGraph.getWeighting(), profileName, req.getSources(), req.getDestinations(), req.getMaximumSearchRadius());
+
+        BucketMatrixAlgorithm algorithm = new BucketMatrixAlgorithm();
+        algorithm.setExecutor(matrixExecutor, matrixParallelism);
+        algorithm.setShortcutMetrics(mGraphHopper.getCHShortcutMetrics(profileName));
+        algorithm.init(req, gh, mtxSearchCntx.getRoutingCHGraph(), flagEncoder, routingCHGraph.getWeighting());
+        return algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
+    }
+
     /**
      * Compute a matrix based on a contraction hierarchies graph using the RPHAST algorithm. This is fast, but inflexible.
      *
@@ -628,9 +877,18 @@ public class RoutingProfile {
     private MatrixResult computeRPHASTMatrix(MatrixRequest req, GraphHopper gh, FlagEncoder flagEncoder, String profileName) throws Exception {
         RoutingCHGraph routingCHGraph = gh.getGraphHopperStorage().getRoutingCHGraph(profileName);
         MatrixSearchContextBuilder builder = new MatrixSearchContextBuilder(gh.getGraphHopperStorage(), gh.getLocationIndex(), AccessFilter.allEdges(flagEncoder.getAccessEnc()), req.getResolveLocations());
+        builder.setExecutor(matrixExecutor, matrixParallelism);
+        builder.setWeightingSupplier(() -> mGraphHopper.createCHWeighting(gh.getProfile(profileName)));
+        // the snap filter only depends on the CH weighting of the profile
+        builder.setSnapCache(snapCache, profileName);
         MatrixSearchContext mtxSearchCntx = builder.create(routingCHGraph.getBaseGraph(), routingCHGraph, routingCHGraph.getWeighting(), profileName, req.getSources(), req.getDestinations(), req.getMaximumSearchRadius());
 
         RPHASTMatrixAlgorithm algorithm = new RPHASTMatrixAlgorithm();
+        algorithm.setFlatStorage(rphastFlatStorage);
+        algorithm.setSourceBlockSize(rphastSourceBlockSize);
+        algorithm.setExecutor(matrixExecutor, matrixParallelism);
+        algorithm.setShortcutMetrics(mGraphHopper.getCHShortcutMetrics(profileName));
+        algorithm.setTargetGraphCache(targetGraphCache, profileName, mtxSearchCntx.getSnapSignature());
         algorithm.init(req, gh, mtxSearchCntx.getRoutingCHGraph(), flagEncoder, routingCHGraph.getWeighting());
         return algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
     }
@@ -641,18 +899,28 @@ public class RoutingProfile {
      * @return
      */
     private MatrixResult computeCoreMatrix(MatrixRequest req, GraphHopper gh, FlagEncoder flagEncoder, PMap hintsMap, String profileName) throws Exception {
-        Weighting weighting = new ORSWeightingFactory(gh.getGraphHopperStorage(), gh.getEncodingManager()).createWeighting(gh.getProfile(profileName), hintsMap, false);
+        Supplier<Weighting> weightingSupplier = () -> new ORSWeightingFactory(gh.getGraphHopperStorage(), gh.getEncodingManager()).createWeighting(gh.getProfile(profileName), hintsMap, false);
+        Weighting weighting = weightingSupplier.get();
         RoutingCHGraph graph = ((ORSGraphHopperStorage) gh.getGraphHopperStorage()).getCoreGraph(profileName);
         RouteSearchContext searchCntx = createSearchContext(req.getSearchParameters());
         PMap additionalHints = searchCntx.getProperties();
         EdgeFilter edgeFilter = new ORSEdgeFilterFactory().createEdgeFilter(additionalHints, flagEncoder, gh.getGraphHopperStorage());
 
         MatrixSearchContextBuilder builder = new MatrixSearchContextBuilder(gh.getGraphHopperStorage(), gh.getLocationIndex(), edgeFilter, req.getResolveLocations());
+        builder.setExecutor(matrixExecutor, matrixParallelism);
+        builder.setWeightingSupplier(weightingSupplier);
         MatrixSearchContext mtxSearchCntx = builder.create(graph.getBaseGraph(), graph, weighting, profileName, req.getSources(), req.getDestinations(), req.getMaximumSearchRadius());
 
         CoreMatrixAlgorithm algorithm = new CoreMatrixAlgorithm();
         algorithm.init(req, gh, mtxSearchCntx.getRoutingCHGraph(), flagEncoder, weighting, edgeFilter);
-        return algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
+        Lock lock = mGraphHopper.getCoreReadLock();
+        lock.lock();
+        try {
+            algorithm.setShortcutMetrics(mGraphHopper.getCoreShortcutMetrics(profileName));
+            return algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -668,12 +936,17 @@ public class RoutingProfile {
      */
     private MatrixResult computeDijkstraMatrix(MatrixRequest req, GraphHopper gh, FlagEncoder flagEncoder, PMap hintsMap, String profileName) throws Exception {
         Graph graph = gh.getGraphHopperStorage().getBaseGraph();
-        Weighting weighting = new ORSWeightingFactory(gh.getGraphHopperStorage(), gh.getEncodingManager()).createWeighting(gh.getProfile(profileName), hintsMap, false);
+        Supplier<Weighting> weightingSupplier = () -> new ORSWeightingFactory(gh.getGraphHopperStorage(), gh.getEncodingManager()).createWeighting(gh.getProfile(profileName), hintsMap, false);
+        Weighting weighting = weightingSupplier.get();
         MatrixSearchContextBuilder builder = new MatrixSearchContextBuilder(gh.getGraphHopperStorage(), gh.getLocationIndex(), AccessFilter.allEdges(flagEncoder.getAccessEnc()), req.getResolveLocations());
+        builder.setExecutor(matrixExecutor, matrixParallelism);
+        builder.setWeightingSupplier(weightingSupplier);
         MatrixSearchContext mtxSearchCntx = builder.create(graph, null, weighting, profileName, req.getSources(), req.getDestinations(), req.getMaximumSearchRadius());
 
         DijkstraMatrixAlgorithm algorithm = new DijkstraMatrixAlgorithm();
         algorithm.init(req, gh, mtxSearchCntx.getGraph(), flagEncoder, weighting);
+        algorithm.setExecutor(matrixExecutor, matrixParallelism);
+        algorithm.setWeightingSupplier(weightingSupplier);
         return algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
     }
 
@@ -762,7 +1035,7 @@ public class RoutingProfile {
         return res;
     }
 
-    private RouteSearchContext createSearchContext(RouteSearchParameters searchParams) throws Exception {
+    public RouteSearchContext createSearchContext(RouteSearchParameters searchParams) throws Exception {
         PMap props = new PMap();
 
         int profileType = searchParams.getProfileType();
@@ -913,6 +1186,17 @@ public class RoutingProfile {
     public GHResponse computeRoute(double lat0, double lon0, double lat1, double lon1, WayPointBearing[] bearings,
                                    double[] radiuses, boolean directedSegment, RouteSearchParameters searchParams, Boolean geometrySimplify)
             throws Exception {
+        return computeRoute(lat0, lon0, lat1, lon1, bearings, radiuses, directedSegment, searchParams, null, geometrySimplify);
+    }
+
+    /**
+     * @param searchCntx a context created by {@link #createSearchContext} for the search parameters, or null to create
+     *                   a new one
+     */
+    public GHResponse computeRoute(double lat0, double lon0, double lat1, double lon1, WayPointBearing[] bearings,
+                                   double[] radiuses, boolean directedSegment, RouteSearchParameters searchParams,
+                                   RouteSearchContext searchCntx, Boolean geometrySimplify)
+            throws Exception {
 
         GHResponse resp;
 
@@ -921,20 +1205,15 @@ public class RoutingProfile {
         try {
             int profileType = searchParams.getProfileType();
             if (profileType == RoutingProfileType.PUBLIC_TRANSPORT) {
+                if (ptRouter == null)
+                    throw new IllegalStateException("No GTFS data has been loaded for profile " + config.getName());
                 StopWatch stopWatch = (new StopWatch()).start();
-                PtRouter ptRouter = new PtRouterImpl.Factory(mGraphHopper.getConfig(), new TranslationMap().doImport(), mGraphHopper.getGraphHopperStorage(), mGraphHopper.getLocationIndex(), mGraphHopper.getGtfsStorage())
-                        .createWithoutRealtimeFeed();
                 Request ptRequest = createPTRequest(lat0, lon0, lat1, lon1, searchParams);
                 GHResponse res = ptRouter.route(ptRequest);
                 res.addDebugInfo("Request total:" + stopWatch.stop().getSeconds() + "s");
+                endUseGH();
                 return res;
             }
-            int weightingMethod = searchParams.getWeightingMethod();
-            RouteSearchContext searchCntx = createSearchContext(searchParams);
-
-            int flexibleMode = searchParams.hasFlexibleMode() || config.isEnforceTurnCosts() ? ProfileTools.KEY_FLEX_PREPROCESSED : ProfileTools.KEY_FLEX_STATIC;
-            boolean optimized = searchParams.getOptimized();
-
             GHRequest req;
             if (bearings == null || bearings[0] == null)
                 req = new GHRequest(new GHPoint(lat0, lon0), new GHPoint(lat1, lon1));
@@ -943,73 +1222,7 @@ public class RoutingProfile {
             else
                 req = new GHRequest(new GHPoint(lat0, lon0), new GHPoint(lat1, lon1), bearings[0].getValue(), bearings[1].getValue());
 
-            req.setEncoderName(searchCntx.getEncoder().toString());
-            req.setProfile(searchCntx.profileName());
-            req.setAlgorithm(Parameters.Algorithms.ASTAR_BI);
-
-            if (radiuses != null)
-                req.setMaxSearchDistance(radiuses);
-
-            PMap props = searchCntx.getProperties();
-
-            req.setAdditionalHints(props);
-
-            if (props != null && !props.isEmpty())
-                req.getHints().putAll(props);
-
-            if (supportWeightingMethod(profileType)) {
-                ProfileTools.setWeightingMethod(req.getHints(), weightingMethod, profileType, hasTimeDependentSpeed(searchParams, searchCntx));
-                if (requiresTimeDependentWeighting(searchParams, searchCntx))
-                    flexibleMode = ProfileTools.KEY_FLEX_PREPROCESSED;
-                flexibleMode = getFlexibilityMode(flexibleMode, searchParams, profileType);
-            } else
-                throw new IllegalArgumentException("Unsupported weighting " + weightingMethod + " for profile + " + profileType);
-
-            if (flexibleMode == ProfileTools.KEY_FLEX_STATIC)
-                //Speedup order: useCH, useCore, useALT
-                // TODO Future improvement: profileNameCH is an ugly hack and is required because of the hard-coded turnCost=false for CH
-                setSpeedups(req, true, true, true, searchCntx.profileNameCH());
-
-            if (flexibleMode == ProfileTools.KEY_FLEX_PREPROCESSED) {
-                setSpeedups(req, false, optimized, true, searchCntx.profileNameCH());
-            }
-
-            //cannot use CH or CoreALT with requests where the weighting of non-predefined edges might change
-            if (flexibleMode == ProfileTools.KEY_FLEX_FULLY)
-                setSpeedups(req, false, false, true, searchCntx.profileNameCH());
-
-            if (searchParams.isTimeDependent()) {
-                req.setAlgorithm(Parameters.Algorithms.TD_ASTAR);
-
-                String key;
-                LocalDateTime time;
-                if (searchParams.hasDeparture()) {
-                    key = RouteRequestParameterNames.PARAM_DEPARTURE;
-                    time = searchParams.getDeparture();
-                } else {
-                    key = RouteRequestParameterNames.PARAM_ARRIVAL;
-                    time = searchParams.getArrival();
-                }
-
-                req.getHints().putObject(key, time.atZone(ZoneId.of("Europe/Berlin")).toInstant());
-            }
-
-            if (astarEpsilon != null)
-                req.getHints().putObject("astarbi.epsilon", astarEpsilon);
-            if (astarApproximation != null)
-                req.getHints().putObject("astarbi.approximation", astarApproximation);
-
-            if (searchParams.getAlternativeRoutesCount() > 0) {
-                req.setAlgorithm("alternative_route");
-                req.getHints().putObject("alternative_route.max_paths", searchParams.getAlternativeRoutesCount());
-                req.getHints().putObject("alternative_route.max_weight_factor", searchParams.getAlternativeRoutesWeightFactor());
-                req.getHints().putObject("alternative_route.max_share_factor", searchParams.getAlternativeRoutesShareFactor());
-            }
-
-            if (searchParams.hasMaximumSpeed()) {
-                req.getHints().putObject("maximum_speed", searchParams.getMaximumSpeed());
-                req.getHints().putObject("maximum_speed_lower_bound", config.getMaximumSpeedLowerBound());
-            }
+            setRouteOptions(req, radiuses, searchParams, searchCntx);
 
             if (directedSegment) {
                 resp = mGraphHopper.constructFreeHandRoute(req);
@@ -1035,6 +1248,128 @@ public class RoutingProfile {
         return resp;
     }
 
+    /**
+     * Computes a route through all coordinates on a single query graph, so that every waypoint is snapped only once
+     * instead of once for each adjacent segment. The response contains a single path with a via instruction at each
+     * intermediate waypoint, use {@link ViaRouteSplitter} to get the responses of the segments.
+     *
+     * @param headings   the heading at each coordinate, NaN if there is none
+     * @param radiuses   the maximum snapping distance of each coordinate
+     * @param searchCntx a context created by {@link #createSearchContext} for the search parameters, or null
+     */
+    public GHResponse computeViaRoute(Coordinate[] coordinates, double[] headings, double[] radiuses, RouteSearchParameters searchParams,
+                                      RouteSearchContext searchCntx, Boolean geometrySimplify)
+            throws Exception {
+        GHResponse resp;
+
+        beginUseGH();
+
+        try {
+            List<GHPoint> points = new ArrayList<>(coordinates.length);
+            for (Coordinate coordinate : coordinates)
+                points.add(new GHPoint(coordinate.y, coordinate.x));
+
+            GHRequest req = new GHRequest(points);
+            if (headings != null)
+                req.setHeadings(Arrays.stream(headings).boxed().toList());
+
+            setRouteOptions(req, radiuses, searchParams, searchCntx);
+
+            mGraphHopper.getRouterConfig().setSimplifyResponse(geometrySimplify);
+            resp = mGraphHopper.route(req);
+            if (DebugUtility.isDebug()) {
+                LOGGER.info("visited nodes: " + resp.getHints().getObject("visited_nodes.sum", null));
+            }
+            endUseGH();
+        } catch (Exception ex) {
+            endUseGH();
+
+            LOGGER.error(ex);
+
+            throw new InternalServerException(RoutingErrorCodes.UNKNOWN, "Unable to compute a route");
+        }
+
+        return resp;
+    }
+
+    private void setRouteOptions(GHRequest req, double[] radiuses, RouteSearchParameters searchParams, RouteSearchContext searchCntx) throws Exception {
+        int profileType = searchParams.getProfileType();
+        int weightingMethod = searchParams.getWeightingMethod();
+        if (searchCntx == null)
+            searchCntx = createSearchContext(searchParams);
+
+        int flexibleMode = searchParams.hasFlexibleMode() || config.isEnforceTurnCosts() ? ProfileTools.KEY_FLEX_PREPROCESSED : ProfileTools.KEY_FLEX_STATIC;
+        boolean optimized = searchParams.getOptimized();
+
+        req.setEncoderName(searchCntx.getEncoder().toString());
+        req.setProfile(searchCntx.profileName());
+        req.setAlgorithm(Parameters.Algorithms.ASTAR_BI);
+
+        if (radiuses != null)
+            req.setMaxSearchDistance(radiuses);
+
+        PMap props = searchCntx.getProperties();
+
+        req.setAdditionalHints(props);
+
+        if (props != null && !props.isEmpty())
+            req.getHints().putAll(props);
+
+        if (supportWeightingMethod(profileType)) {
+            ProfileTools.setWeightingMethod(req.getHints(), weightingMethod, profileType, hasTimeDependentSpeed(searchParams, searchCntx));
+            if (requiresTimeDependentWeighting(searchParams, searchCntx))
+                flexibleMode = ProfileTools.KEY_FLEX_PREPROCESSED;
+            flexibleMode = getFlexibilityMode(flexibleMode, searchParams, profileType);
+        } else
+            throw new IllegalArgumentException("Unsupported weighting " + weightingMethod + " for profile + " + profileType);
+
+        if (flexibleMode == ProfileTools.KEY_FLEX_STATIC)
+            //Speedup order: useCH, useCore, useALT
+            // TODO Future improvement: profileNameCH is an ugly hack and is required because of the hard-coded turnCost=false for CH
+            setSpeedups(req, true, true, true, searchCntx.profileNameCH());
+
+        if (flexibleMode == ProfileTools.KEY_FLEX_PREPROCESSED) {
+            setSpeedups(req, false, optimized, true, searchCntx.profileNameCH());
+        }
+
+        //cannot use CH or CoreALT with requests where the weighting of non-predefined edges might change
+        if (flexibleMode == ProfileTools.KEY_FLEX_FULLY)
+            setSpeedups(req, false, false, true, searchCntx.profileNameCH());
+
+        if (searchParams.isTimeDependent()) {
+            req.setAlgorithm(Parameters.Algorithms.TD_ASTAR);
+
+            String key;
+            LocalDateTime time;
+            if (searchParams.hasDeparture()) {
+                key = RouteRequestParameterNames.PARAM_DEPARTURE;
+                time = searchParams.getDeparture();
+            } else {
+                key = RouteRequestParameterNames.PARAM_ARRIVAL;
+                time = searchParams.getArrival();
+            }
+
+            req.getHints().putObject(key, time.atZone(ZoneId.of("Europe/Berlin")).toInstant());
+        }
+
+        if (astarEpsilon != null)
+            req.getHints().putObject("astarbi.epsilon", astarEpsilon);
+        if (astarApproximation != null)
+            req.getHints().putObject("astarbi.approximation", astarApproximation);
+
+        if (searchParams.getAlternativeRoutesCount() > 0) {
+            req.setAlgorithm("alternative_route");
+            req.getHints().putObject("alternative_route.max_paths", searchParams.getAlternativeRoutesCount());
+            req.getHints().putObject("alternative_route.max_weight_factor", searchParams.getAlternativeRoutesWeightFactor());
+            req.getHints().putObject("alternative_route.max_share_factor", searchParams.getAlternativeRoutesShareFactor());
+        }
+
+        if (searchParams.hasMaximumSpeed()) {
+            req.getHints().putObject("maximum_speed", searchParams.getMaximumSpeed());
+            req.getHints().putObject("maximum_speed_lower_bound", config.getMaximumSpeedLowerBound());
+        }
+    }
+
     private Request createPTRequest(double lat0, double lon0, double lat1, double lon1, RouteSearchParameters params) throws IncompatibleParameterException {
         List<GHLocation> points = Arrays.asList(new GHPointLocation(new GHPoint(lat0, lon0)), new GHPointLocation(new GHPoint(lat1, lon1)));
 
@@ -1185,12 +1520,57 @@ public class RoutingProfile {
      * @throws Exception
      */
     public IsochroneMap buildIsochrone(IsochroneSearchParameters parameters) throws Exception {
+        RouteSearchContext searchCntx;
+        try {
+            searchCntx = createSearchContext(parameters.getRouteParameters());
+        } catch (Exception ex) {
+            if (DebugUtility.isDebug()) {
+                LOGGER.error(ex);
+            }
+            throw new InternalServerException(IsochronesErrorCodes.UNKNOWN, "Unable to build an isochrone map.");
+        }
+
+        String key = createIsochroneCacheKey(searchCntx, parameters);
+        if (key == null)
+            return computeIsochrone(searchCntx, parameters);
+
+        String graphDate = getGraphDate();
+        IsochroneMap cached = isochroneMapCache.get(key, graphDate);
+        if (cached != null)
+            return cached.copy(parameters.getTravellerId());
+        IsochroneMap result = computeIsochrone(searchCntx, parameters);
+        isochroneMapCache.put(key, graphDate, result);
+        return result;
+    }
+
+    /**
+     * @return the key of the isochrones in the {@link IsochroneMapCache} or null if they can not be cached, e.g.
+     * because the location can not be snapped. The snap is passed on to the search, so it does not snap the location
+     * again.
+     */
+    private String createIsochroneCacheKey(RouteSearchContext searchCntx, IsochroneSearchParameters parameters) {
+        if (isochroneMapCache == null || !IsochroneMapCache.isCacheable(parameters))
+            return null;
+        try {
+            Snap snap = GraphEdgeMapFinder.findSnap(searchCntx, parameters);
+            if (!snap.isValid())
+                return null;
+            parameters.setSnap(snap);
+            return IsochroneMapCache.createKey(snap, parameters);
+        } catch (Exception ex) {
+            // the error is reported when the isochrones are computed
+            return null;
+        }
+    }
+
+    private IsochroneMap computeIsochrone(RouteSearchContext searchCntx, IsochroneSearchParameters parameters) throws Exception {
         IsochroneMap result;
 
         beginUseGH();
         try {
-            RouteSearchContext searchCntx = createSearchContext(parameters.getRouteParameters());
             IsochroneMapBuilderFactory isochroneMapBuilderFactory = new IsochroneMapBuilderFactory(searchCntx);
+            isochroneMapBuilderFactory.setDefaultMethod(isochroneMethod);
+            isochroneMapBuilderFactory.setRasterCellSize(isochroneRasterCellSize);
             result = isochroneMapBuilderFactory.buildMap(parameters);
             endUseGH();
         } catch (Exception ex) {
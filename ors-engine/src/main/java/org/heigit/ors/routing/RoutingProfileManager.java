@@ -34,9 +34,12 @@ import org.heigit.ors.util.*;
 import org.locationtech.jts.geom.Coordinate;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class RoutingProfileManager {
@@ -238,6 +241,24 @@ public class RoutingProfileManager {
     }
 
     public RouteResult[] computeRoute(RoutingRequest req) throws Exception {
+        if (!RouteResultCache.isCacheable(req))
+            return computeUncachedRoute(req);
+        RoutingProfile rp = selectRouteProfile(req.getSearchParameters());
+        RouteResultCache cache = rp.getRouteResultCache();
+        if (cache == null)
+            return computeUncachedRoute(req);
+
+        String key = cache.createKey(req);
+        String graphDate = rp.getGraphDate();
+        RouteResult[] routes = cache.get(key, graphDate);
+        if (routes == null) {
+            routes = computeUncachedRoute(req);
+            cache.put(key, graphDate, routes);
+        }
+        return routes;
+    }
+
+    private RouteResult[] computeUncachedRoute(RoutingRequest req) throws Exception {
         if (req.getSearchParameters().getRoundTripLength() > 0) {
             return computeRoundTripRoute(req);
         } else {
@@ -245,21 +266,51 @@ public class RoutingProfileManager {
         }
     }
 
+    /**
+     * Computes independent routes between pairs of coordinates which share all other options of the request. The
+     * search context of the profile is prepared once for all pairs and the routes are computed on the executor. The
+     * result or error of each pair is passed to the handler on the calling thread as soon as it is available, so the
+     * pairs are handled in the order of completion.
+     *
+     * @param req   the options of all routes, its coordinates are ignored
+     * @param pairs the origin and destination of each route
+     */
+    public void computeRouteBatch(RoutingRequest req, List<Coordinate[]> pairs, ExecutorService executor, RouteBatchHandler handler) throws Exception {
+        RouteSearchParameters searchParams = req.getSearchParameters();
+        RouteSearchContext searchCntx = null;
+        if (searchParams.getProfileType() != RoutingProfileType.PUBLIC_TRANSPORT)
+            searchCntx = selectRouteProfile(searchParams).createSearchContext(searchParams);
+
+        CompletionService<RouteBatchResult> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<RouteBatchResult>> futures = new ArrayList<>(pairs.size());
+        try {
+            for (int i = 0; i < pairs.size(); i++) {
+                RoutingRequest pairRequest = req.copyWithCoordinates(pairs.get(i));
+                pairRequest.setSearchContext(searchCntx);
+                int index = i;
+                futures.add(completionService.submit(() -> {
+                    try {
+                        return new RouteBatchResult(index, computeLinearRoute(pairRequest), null);
+                    } catch (Exception e) {
+                        return new RouteBatchResult(index, null, e);
+                    }
+                }));
+            }
+            for (int i = 0; i < pairs.size(); i++)
+                handler.handle(completionService.take().get());
+        } finally {
+            for (Future<RouteBatchResult> future : futures)
+                future.cancel(true);
+        }
+    }
+
     public RouteResult[] computeLinearRoute(RoutingRequest req) throws Exception {
-        List<Integer> skipSegments = req.getSkipSegments();
         List<GHResponse> routes = new ArrayList<>();
 
         RoutingProfile rp = getRouteProfile(req, false);
-        RouteSearchParameters searchParams = req.getSearchParameters();
 
         Coordinate[] coords = req.getCoordinates();
-        Coordinate c0 = coords[0];
-        Coordinate c1;
         int nSegments = coords.length - 1;
-        GHResponse prevResp = null;
-        WayPointBearing[] bearings = (req.getContinueStraight() || searchParams.getBearings() != null) ? new WayPointBearing[2] : null;
-        int profileType = req.getSearchParameters().getProfileType();
-        double[] radiuses = null;
 
         if (req.getSearchParameters().getAlternativeRoutesCount() > 1 && coords.length > 2) {
             throw new InternalServerException(RoutingErrorCodes.INVALID_PARAMETER_VALUE, "Alternative routes algorithm does not support more than two way points.");
@@ -268,172 +319,291 @@ public class RoutingProfileManager {
         int numberOfExpectedExtraInfoProcessors = req.getSearchParameters().getAlternativeRoutesCount() < 0 ? 1 : req.getSearchParameters().getAlternativeRoutesCount();
         ExtraInfoProcessor[] extraInfoProcessors = new ExtraInfoProcessor[numberOfExpectedExtraInfoProcessors];
 
-        for (int i = 1; i <= nSegments; ++i) {
-            c1 = coords[i];
+        GHResponse[] responses = null;
+        if (rp.useSharedQueryGraph() && canShareQueryGraph(req)) {
+            // if the route can not be split it is computed segment by segment, which also reports errors with the
+            // indices of the affected waypoints
+            GHResponse viaResponse = computeViaRoute(rp, req);
+            responses = ViaRouteSplitter.split(viaResponse, nSegments);
+            if (responses != null)
+                addExtraInfoProcessors(viaResponse, responses[0], extraInfoProcessors);
+        }
 
-            if (bearings != null) {
-                bearings[0] = null;
-                if (prevResp != null && req.getContinueStraight()) {
-                    bearings[0] = new WayPointBearing(getHeadingDirection(prevResp));
-                }
+        if (responses == null) {
+            responses = new GHResponse[nSegments];
+            ExecutorService segmentExecutor = rp.getSegmentExecutor();
+            if (segmentExecutor != null && nSegments > 1 && !dependsOnPreviousSegment(req)) {
+                computeSegmentsParallel(segmentExecutor, rp, req, responses);
+            } else {
+                for (int i = 1; i <= nSegments; ++i)
+                    responses[i - 1] = computeSegment(rp, req, i, i > 1 ? responses[i - 2] : null);
+            }
+            for (GHResponse gr : responses)
+                addExtraInfoProcessors(gr, gr, extraInfoProcessors);
+        }
 
-                if (searchParams.getBearings() != null) {
-                    bearings[0] = searchParams.getBearings()[i - 1];
-                    bearings[1] = (i == nSegments && searchParams.getBearings().length != nSegments + 1) ? new WayPointBearing(Double.NaN) : searchParams.getBearings()[i];
+        Collections.addAll(routes, responses);
+        routes = enrichDirectRoutesTime(routes);
+
+        List<RouteExtraInfo>[] extraInfos = new List[numberOfExpectedExtraInfoProcessors];
+        int i = 0;
+        for (ExtraInfoProcessor e : extraInfoProcessors) {
+            extraInfos[i] = e != null ? e.getExtras() : null;
+            i++;
+        }
+        return new RouteResultBuilder().createRouteResults(routes, req, extraInfos);
+    }
+
+    /**
+     * Collects the extra info processors of a response and marks skipped extra info in the hints of the target
+     * response.
+     */
+    private static void addExtraInfoProcessors(GHResponse gr, GHResponse target, ExtraInfoProcessor[] extraInfoProcessors) {
+        if (extraInfoProcessors.length > 1) {
+            int extraInfoProcessorIndex = 0;
+            for (Object o : gr.getReturnObjects()) {
+                if (o instanceof ExtraInfoProcessor processor) {
+                    extraInfoProcessors[extraInfoProcessorIndex] = processor;
+                    extraInfoProcessorIndex++;
+                    if (!StringUtility.isNullOrEmpty(processor.getSkippedExtraInfo())) {
+                        target.getHints().putObject(KEY_SKIPPED_EXTRA_INFO, processor.getSkippedExtraInfo());
+                    }
                 }
             }
+        } else {
+            for (Object o : gr.getReturnObjects()) {
+                if (o instanceof ExtraInfoProcessor processor) {
+                    if (extraInfoProcessors[0] == null) {
+                        extraInfoProcessors[0] = processor;
+                        if (!StringUtility.isNullOrEmpty(processor.getSkippedExtraInfo())) {
+                            target.getHints().putObject(KEY_SKIPPED_EXTRA_INFO, processor.getSkippedExtraInfo());
+                        }
+                    } else {
+                        extraInfoProcessors[0].appendData(processor);
+                    }
+                }
+            }
+        }
+    }
 
-            if (searchParams.getMaximumRadiuses() != null) {
+    /**
+     * A route can be computed on a single query graph if all of its segments are searched on the road network with
+     * the same options. Skipped segments, public transport, alternative routes and time-dependent routes are computed
+     * segment by segment.
+     */
+    private static boolean canShareQueryGraph(RoutingRequest req) {
+        RouteSearchParameters searchParams = req.getSearchParameters();
+        return req.getCoordinates().length > 2
+                && req.getSkipSegments().isEmpty()
+                && searchParams.getProfileType() != RoutingProfileType.PUBLIC_TRANSPORT
+                && searchParams.getAlternativeRoutesCount() <= 0
+                && !searchParams.isTimeDependent()
+                && !dependsOnPreviousSegment(req);
+    }
+
+    /**
+     * Computes the whole route at once with the same bearings and radiuses which {@link #computeSegment} uses for the
+     * single segments.
+     */
+    private GHResponse computeViaRoute(RoutingProfile rp, RoutingRequest req) throws Exception {
+        RouteSearchParameters searchParams = req.getSearchParameters();
+        Coordinate[] coords = req.getCoordinates();
+
+        double[] headings = null;
+        WayPointBearing[] bearings = searchParams.getBearings();
+        if (bearings != null) {
+            headings = new double[coords.length];
+            for (int i = 0; i < coords.length; i++)
+                headings[i] = i < bearings.length && bearings[i] != null ? bearings[i].getValue() : Double.NaN;
+        }
+
+        double[] radiuses = null;
+        if (searchParams.getMaximumRadiuses() != null) {
+            radiuses = searchParams.getMaximumRadiuses();
+        } else {
+            try {
+                int maximumSnappingRadius = routingProfiles.getRouteProfile(searchParams.getProfileType()).getConfiguration().getMaximumSnappingRadius();
+                radiuses = new double[coords.length];
+                Arrays.fill(radiuses, maximumSnappingRadius);
+            } catch (Exception ex) {
+                // do nothing
+            }
+        }
+
+        return rp.computeViaRoute(coords, headings, radiuses, searchParams, req.getSearchContext(), req.getGeometrySimplify());
+    }
+
+    /**
+     * The start bearing of a segment depends on the heading at the end of the previous segment if the route has to
+     * continue straight at waypoints and no bearings are given.
+     */
+    private static boolean dependsOnPreviousSegment(RoutingRequest req) {
+        return req.getContinueStraight() && req.getSearchParameters().getBearings() == null;
+    }
+
+    /**
+     * Computes all segments on the executor. The responses are checked in segment order, so the error of the first
+     * failing segment is thrown as in a sequential computation.
+     */
+    private void computeSegmentsParallel(ExecutorService executor, RoutingProfile rp, RoutingRequest req, GHResponse[] responses) throws Exception {
+        List<Future<GHResponse>> futures = new ArrayList<>(responses.length);
+        try {
+            for (int i = 1; i <= responses.length; ++i) {
+                int segment = i;
+                futures.add(executor.submit(() -> computeSegment(rp, req, segment, null)));
+            }
+            for (int i = 0; i < responses.length; ++i)
+                responses[i] = futures.get(i).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause)
+                throw cause;
+            throw e;
+        } finally {
+            for (Future<GHResponse> future : futures)
+                future.cancel(true);
+        }
+    }
+
+    /**
+     * Computes the route from waypoint i - 1 to waypoint i.
+     *
+     * @param prevResp the response of the previous segment, only needed if {@link #dependsOnPreviousSegment} is true
+     */
+    private GHResponse computeSegment(RoutingProfile rp, RoutingRequest req, int i, GHResponse prevResp) throws Exception {
+        RouteSearchParameters searchParams = req.getSearchParameters();
+        Coordinate[] coords = req.getCoordinates();
+        Coordinate c0 = coords[i - 1];
+        Coordinate c1 = coords[i];
+        int nSegments = coords.length - 1;
+        int profileType = searchParams.getProfileType();
+
+        WayPointBearing[] bearings = null;
+        if (req.getContinueStraight() || searchParams.getBearings() != null) {
+            bearings = new WayPointBearing[2];
+            if (prevResp != null && req.getContinueStraight()) {
+                bearings[0] = new WayPointBearing(getHeadingDirection(prevResp));
+            }
+
+            if (searchParams.getBearings() != null) {
+                bearings[0] = searchParams.getBearings()[i - 1];
+                bearings[1] = (i == nSegments && searchParams.getBearings().length != nSegments + 1) ? new WayPointBearing(Double.NaN) : searchParams.getBearings()[i];
+            }
+        }
+
+        double[] radiuses = null;
+        if (searchParams.getMaximumRadiuses() != null) {
+            radiuses = new double[2];
+            radiuses[0] = searchParams.getMaximumRadiuses()[i - 1];
+            radiuses[1] = searchParams.getMaximumRadiuses()[i];
+        } else {
+            try {
+                int maximumSnappingRadius = routingProfiles.getRouteProfile(profileType).getConfiguration().getMaximumSnappingRadius();
                 radiuses = new double[2];
-                radiuses[0] = searchParams.getMaximumRadiuses()[i - 1];
-                radiuses[1] = searchParams.getMaximumRadiuses()[i];
-            } else {
-                try {
-                    int maximumSnappingRadius = routingProfiles.getRouteProfile(profileType).getConfiguration().getMaximumSnappingRadius();
-                    radiuses = new double[2];
-                    radiuses[0] = maximumSnappingRadius;
-                    radiuses[1] = maximumSnappingRadius;
-                } catch (Exception ex) {
-                    // do nothing
-                }
+                radiuses[0] = maximumSnappingRadius;
+                radiuses[1] = maximumSnappingRadius;
+            } catch (Exception ex) {
+                // do nothing
             }
+        }
 
-            GHResponse gr = rp.computeRoute(c0.y, c0.x, c1.y, c1.x, bearings, radiuses, skipSegments.contains(i), searchParams, req.getGeometrySimplify());
-
-            if (gr.hasErrors()) {
-                if (!gr.getErrors().isEmpty()) {
-                    if (gr.getErrors().get(0) instanceof com.graphhopper.util.exceptions.ConnectionNotFoundException) {
-                        Map<String, Object> details = ((ConnectionNotFoundException) gr.getErrors().get(0)).getDetails();
-                        if (!details.isEmpty()) {
-                            int code = RoutingErrorCodes.ROUTE_NOT_FOUND;
-                            if (details.containsKey("entry_not_reached") && details.containsKey("exit_not_reached")) {
-                                code = RoutingErrorCodes.PT_NOT_REACHED;
-                            } else if (details.containsKey("entry_not_reached")) {
-                                code = RoutingErrorCodes.PT_ENTRY_NOT_REACHED;
-                            } else if (details.containsKey("exit_not_reached")) {
-                                code = RoutingErrorCodes.PT_EXIT_NOT_REACHED;
-                            } else if (details.containsKey("combined_not_reached")) {
-                                code = RoutingErrorCodes.PT_ROUTE_NOT_FOUND;
-                            }
-                            throw new RouteNotFoundException(
-                                    code,
-                                    "Unable to find a route between points %d (%s) and %d (%s). %s".formatted(
-                                            i,
-                                            FormatUtility.formatCoordinate(c0),
-                                            i + 1,
-                                            FormatUtility.formatCoordinate(c1),
-                                            details.values().stream().map(Object::toString).collect(Collectors.joining(" "))
-                                    )
-                            );
+        GHResponse gr = rp.computeRoute(c0.y, c0.x, c1.y, c1.x, bearings, radiuses, req.getSkipSegments().contains(i), searchParams, req.getSearchContext(), req.getGeometrySimplify());
+
+        if (gr.hasErrors()) {
+            if (!gr.getErrors().isEmpty()) {
+                if (gr.getErrors().get(0) instanceof com.graphhopper.util.exceptions.ConnectionNotFoundException) {
+                    Map<String, Object> details = ((ConnectionNotFoundException) gr.getErrors().get(0)).getDetails();
+                    if (!details.isEmpty()) {
+                        int code = RoutingErrorCodes.ROUTE_NOT_FOUND;
+                        if (details.containsKey("entry_not_reached") && details.containsKey("exit_not_reached")) {
+                            code = RoutingErrorCodes.PT_NOT_REACHED;
+                        } else if (details.containsKey("entry_not_reached")) {
+                            code = RoutingErrorCodes.PT_ENTRY_NOT_REACHED;
+                        } else if (details.containsKey("exit_not_reached")) {
+                            code = RoutingErrorCodes.PT_EXIT_NOT_REACHED;
+                        } else if (details.containsKey("combined_not_reached")) {
+                            code = RoutingErrorCodes.PT_ROUTE_NOT_FOUND;
                         }
                         throw new RouteNotFoundException(
-                                RoutingErrorCodes.ROUTE_NOT_FOUND,
-                                "Unable to find a route between points %d (%s) and %d (%s).".formatted(
-                                        i,
-                                        FormatUtility.formatCoordinate(c0),
-                                        i + 1,
-                                        FormatUtility.formatCoordinate(c1)
-                                )
-                        );
-                    } else if (gr.getErrors().get(0) instanceof com.graphhopper.util.exceptions.MaximumNodesExceededException) {
-                        Map<String, Object> details = ((MaximumNodesExceededException) gr.getErrors().get(0)).getDetails();
-                        throw new RouteNotFoundException(
-                                RoutingErrorCodes.PT_MAX_VISITED_NODES_EXCEEDED,
-                                "Unable to find a route between points %d (%s) and %d (%s). Maximum number of nodes exceeded: %s".formatted(
+                                code,
+                                "Unable to find a route between points %d (%s) and %d (%s). %s".formatted(
                                         i,
                                         FormatUtility.formatCoordinate(c0),
                                         i + 1,
                                         FormatUtility.formatCoordinate(c1),
-                                        details.get(MaximumNodesExceededException.NODES_KEY).toString()
+                                        details.values().stream().map(Object::toString).collect(Collectors.joining(" "))
                                 )
                         );
-                    } else if (gr.getErrors().get(0) instanceof com.graphhopper.util.exceptions.PointNotFoundException) {
-                        StringBuilder message = new StringBuilder();
-                        for (Throwable error : gr.getErrors()) {
-                            if (message.length() > 0)
-                                message.append("; ");
-                            if (error instanceof com.graphhopper.util.exceptions.PointNotFoundException pointNotFoundException) {
-                                int pointReference = (i - 1) + pointNotFoundException.getPointIndex();
-
-                                Coordinate pointCoordinate = (pointNotFoundException.getPointIndex() == 0) ? c0 : c1;
-                                double pointRadius = radiuses[pointNotFoundException.getPointIndex()];
-
-                                // -1 is used to indicate the use of internal limits instead of specifying it in the request.
-                                // we should therefore let them know that they are already using the limit.
-                                if (pointRadius == -1) {
-                                    pointRadius = routingProfiles.getRouteProfile(profileType).getConfiguration().getMaximumSnappingRadius();
-                                    message.append("Could not find routable point within the maximum possible radius of %.1f meters of specified coordinate %d: %s.".formatted(
-                                            pointRadius,
-                                            pointReference,
-                                            FormatUtility.formatCoordinate(pointCoordinate)));
-                                } else {
-                                    message.append("Could not find routable point within a radius of %.1f meters of specified coordinate %d: %s.".formatted(
-                                            pointRadius,
-                                            pointReference,
-                                            FormatUtility.formatCoordinate(pointCoordinate)));
-                                }
-
-                            } else {
-                                message.append(error.getMessage());
-                            }
-                        }
-                        throw new PointNotFoundException(message.toString());
-                    } else {
-                        throw new InternalServerException(RoutingErrorCodes.UNKNOWN, gr.getErrors().get(0).getMessage());
                     }
-                } else {
-                    // If there are no errors stored but there is indication that there are errors, something strange
-                    // has happened, so return that a route could not be found
                     throw new RouteNotFoundException(
                             RoutingErrorCodes.ROUTE_NOT_FOUND,
                             "Unable to find a route between points %d (%s) and %d (%s).".formatted(
                                     i,
                                     FormatUtility.formatCoordinate(c0),
                                     i + 1,
-                                    FormatUtility.formatCoordinate(c1))
+                                    FormatUtility.formatCoordinate(c1)
+                            )
                     );
-                }
-            }
-
-            if (numberOfExpectedExtraInfoProcessors > 1) {
-                int extraInfoProcessorIndex = 0;
-                for (Object o : gr.getReturnObjects()) {
-                    if (o instanceof ExtraInfoProcessor processor) {
-                        extraInfoProcessors[extraInfoProcessorIndex] = processor;
-                        extraInfoProcessorIndex++;
-                        if (!StringUtility.isNullOrEmpty(processor.getSkippedExtraInfo())) {
-                            gr.getHints().putObject(KEY_SKIPPED_EXTRA_INFO, processor.getSkippedExtraInfo());
-                        }
-                    }
-                }
-            } else {
-                for (Object o : gr.getReturnObjects()) {
-                    if (o instanceof ExtraInfoProcessor processor) {
-                        if (extraInfoProcessors[0] == null) {
-                            extraInfoProcessors[0] = processor;
-                            if (!StringUtility.isNullOrEmpty(processor.getSkippedExtraInfo())) {
-                                gr.getHints().putObject(KEY_SKIPPED_EXTRA_INFO, processor.getSkippedExtraInfo());
+                } else if (gr.getErrors().get(0) instanceof com.graphhopper.util.exceptions.MaximumNodesExceededException) {
+                    Map<String, Object> details = ((MaximumNodesExceededException) gr.getErrors().get(0)).getDetails();
+                    throw new RouteNotFoundException(
+                            RoutingErrorCodes.PT_MAX_VISITED_NODES_EXCEEDED,
+                            "Unable to find a route between points %d (%s) and %d (%s). Maximum number of nodes exceeded: %s".formatted(
+                                    i,
+                                    FormatUtility.formatCoordinate(c0),
+                                    i + 1,
+                                    FormatUtility.formatCoordinate(c1),
+                                    details.get(MaximumNodesExceededException.NODES_KEY).toString()
+                            )
+                    );
+                } else if (gr.getErrors().get(0) instanceof com.graphhopper.util.exceptions.PointNotFoundException) {
+                    StringBuilder message = new StringBuilder();
+                    for (Throwable error : gr.getErrors()) {
+                        if (message.length() > 0)
+                            message.append("; ");
+                        if (error instanceof com.graphhopper.util.exceptions.PointNotFoundException pointNotFoundException) {
+                            int pointReference = (i - 1) + pointNotFoundException.getPointIndex();
+
+                            Coordinate pointCoordinate = (pointNotFoundException.getPointIndex() == 0) ? c0 : c1;
+                            double pointRadius = radiuses[pointNotFoundException.getPointIndex()];
+
+                            // -1 is used to indicate the use of internal limits instead of specifying it in the request.
+                            // we should therefore let them know that they are already using the limit.
+                            if (pointRadius == -1) {
+                                pointRadius = routingProfiles.getRouteProfile(profileType).getConfiguration().getMaximumSnappingRadius();
+                                message.append("Could not find routable point within the maximum possible radius of %.1f meters of specified coordinate %d: %s.".formatted(
+                                        pointRadius,
+                                        pointReference,
+                                        FormatUtility.formatCoordinate(pointCoordinate)));
+                            } else {
+                                message.append("Could not find routable point within a radius of %.1f meters of specified coordinate %d: %s.".formatted(
+                                        pointRadius,
+                                        pointReference,
+                                        FormatUtility.formatCoordinate(pointCoordinate)));
                             }
+
                         } else {
-                            extraInfoProcessors[0].appendData(processor);
+                            message.append(error.getMessage());
                         }
                     }
+                    throw new PointNotFoundException(message.toString());
+                } else {
+                    throw new InternalServerException(RoutingErrorCodes.UNKNOWN, gr.getErrors().get(0).getMessage());
                 }
+            } else {
+                // If there are no errors stored but there is indication that there are errors, something strange
+                // has happened, so return that a route could not be found
+                throw new RouteNotFoundException(
+                        RoutingErrorCodes.ROUTE_NOT_FOUND,
+                        "Unable to find a route between points %d (%s) and %d (%s).".formatted(
+                                i,
+                                FormatUtility.formatCoordinate(c0),
+                                i + 1,
+                                FormatUtility.formatCoordinate(c1))
+                );
             }
-
-            prevResp = gr;
-            routes.add(gr);
-            c0 = c1;
         }
-        routes = enrichDirectRoutesTime(routes);
 
-        List<RouteExtraInfo>[] extraInfos = new List[numberOfExpectedExtraInfoProcessors];
-        int i = 0;
-        for (ExtraInfoProcessor e : extraInfoProcessors) {
-            extraInfos[i] = e != null ? e.getExtras() : null;
-            i++;
-        }
-        return new RouteResultBuilder().createRouteResults(routes, req, extraInfos);
+        return gr;
     }
 
     /**
@@ -501,19 +671,12 @@ public class RoutingProfileManager {
 
     public RoutingProfile getRouteProfile(RoutingRequest req, boolean oneToMany) throws Exception {
         RouteSearchParameters searchParams = req.getSearchParameters();
-        int profileType = searchParams.getProfileType();
 
         boolean fallbackAlgorithm = searchParams.requiresFullyDynamicWeights();
         boolean dynamicWeights = searchParams.requiresDynamicPreprocessedWeights();
         boolean useAlternativeRoutes = searchParams.getAlternativeRoutesCount() > 1;
 
-        RoutingProfile rp = routingProfiles.getRouteProfile(profileType, !dynamicWeights);
-
-        if (rp == null && !dynamicWeights)
-            rp = routingProfiles.getRouteProfile(profileType, false);
-
-        if (rp == null)
-            throw new InternalServerException(RoutingErrorCodes.UNKNOWN, "Unable to get an appropriate route profile for RoutePreference = " + RoutingProfileType.getName(req.getSearchParameters().getProfileType()));
+        RoutingProfile rp = selectRouteProfile(searchParams);
 
         RouteProfileConfiguration config = rp.getConfiguration();
 
@@ -575,6 +738,24 @@ public class RoutingProfileManager {
         return rp;
     }
 
+    /**
+     * Selects the profile for the search parameters without checking any of its limits.
+     */
+    private RoutingProfile selectRouteProfile(RouteSearchParameters searchParams) throws InternalServerException {
+        int profileType = searchParams.getProfileType();
+        boolean dynamicWeights = searchParams.requiresDynamicPreprocessedWeights();
+
+        RoutingProfile rp = routingProfiles.getRouteProfile(profileType, !dynamicWeights);
+
+        if (rp == null && !dynamicWeights)
+            rp = routingProfiles.getRouteProfile(profileType, false);
+
+        if (rp == null)
+            throw new InternalServerException(RoutingErrorCodes.UNKNOWN, "Unable to get an appropriate route profile for RoutePreference = " + RoutingProfileType.getName(profileType));
+
+        return rp;
+    }
+
     /**
      * This function sends the {@link IsochroneSearchParameters} together with the Attributes to the {@link RoutingProfile}.
      *
@@ -590,6 +771,66 @@ public class RoutingProfileManager {
         return rp.buildIsochrone(parameters);
     }
 
+    /**
+     * Builds the isochrone maps of several locations. If the profile has an isochrone pool, the locations are computed
+     * on at most {@link RoutingProfile#getIsochroneParallelism()} threads of the pool, otherwise one after another on
+     * the request thread. The maps are returned in the order of the locations and the error of the first failing
+     * location is thrown as in a sequential computation.
+     */
+    public List<IsochroneMap> buildIsochrones(List<IsochroneSearchParameters> parameters) throws Exception {
+        List<IsochroneMap> isochroneMaps = new ArrayList<>(parameters.size());
+        if (parameters.isEmpty())
+            return isochroneMaps;
+
+        int profileType = parameters.get(0).getRouteParameters().getProfileType();
+        RoutingProfile rp = routingProfiles.getRouteProfile(profileType, false);
+        ExecutorService executor = rp.getIsochroneExecutor();
+        int tasks = Math.min(rp.getIsochroneParallelism(), parameters.size());
+        if (executor == null || tasks < 2) {
+            for (IsochroneSearchParameters searchParams : parameters)
+                isochroneMaps.add(buildIsochrone(searchParams));
+            return isochroneMaps;
+        }
+
+        IsochroneMap[] maps = new IsochroneMap[parameters.size()];
+        Exception[] errors = new Exception[parameters.size()];
+        // the locations are taken in order and only the locations after the first failing one are skipped, so every
+        // location before it is completed and its error is the one which is thrown
+        AtomicInteger nextLocation = new AtomicInteger();
+        AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+        List<Future<?>> futures = new ArrayList<>(tasks);
+        try {
+            for (int t = 0; t < tasks; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = nextLocation.getAndIncrement(); i < maps.length && i < firstFailure.get(); i = nextLocation.getAndIncrement()) {
+                        try {
+                            maps[i] = buildIsochrone(parameters.get(i));
+                        } catch (Exception e) {
+                            errors[i] = e;
+                            firstFailure.accumulateAndGet(i, Math::min);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause)
+                throw cause;
+            throw e;
+        } finally {
+            for (Future<?> future : futures)
+                future.cancel(true);
+        }
+
+        for (int i = 0; i < maps.length; i++) {
+            if (errors[i] != null)
+                throw errors[i];
+            isochroneMaps.add(maps[i]);
+        }
+        return isochroneMaps;
+    }
+
     public MatrixResult computeMatrix(MatrixRequest req) throws Exception {
         RoutingProfile rp = routingProfiles.getRouteProfile(req.getProfileType(), !req.getFlexibleMode());
 
@@ -52,6 +52,7 @@ public class RoutingRequest extends ServiceRequest {
     private int scheduleRows;
     private boolean ignoreTransfers;
     private Duration scheduleDuration;
+    private RouteSearchContext searchContext;
 
     public RoutingRequest() {
         searchParameters = new RouteSearchParameters();
@@ -261,4 +262,52 @@ public class RoutingRequest extends ServiceRequest {
     public void setScheduleDuaration(Duration scheduleDuration) {
         this.scheduleDuration = scheduleDuration;
     }
+
+    /**
+     * @return a search context which has been prepared for several requests with the same search parameters, or
+     * null if the context is created for this request
+     */
+    public RouteSearchContext getSearchContext() {
+        return searchContext;
+    }
+
+    public void setSearchContext(RouteSearchContext searchContext) {
+        this.searchContext = searchContext;
+    }
+
+    /**
+     * Creates a request for other coordinates which shares all options, including the search parameters, with this
+     * one.
+     */
+    public RoutingRequest copyWithCoordinates(Coordinate[] coordinates) {
+        RoutingRequest copy = new RoutingRequest();
+        copy.setId(getId());
+        copy.coordinates = coordinates;
+        copy.searchParameters = searchParameters;
+        copy.units = units;
+        copy.language = language;
+        copy.geometryFormat = geometryFormat;
+        copy.geometrySimplify = geometrySimplify;
+        copy.instructionsFormat = instructionsFormat;
+        copy.includeInstructions = includeInstructions;
+        copy.includeElevation = includeElevation;
+        copy.includeGeometry = includeGeometry;
+        copy.includeManeuvers = includeManeuvers;
+        copy.includeRoundaboutExits = includeRoundaboutExits;
+        copy.attributes = attributes;
+        copy.extraInfo = extraInfo;
+        copy.locationIndex = locationIndex;
+        copy.continueStraight = continueStraight;
+        copy.skipSegments = skipSegments;
+        copy.includeCountryInfo = includeCountryInfo;
+        copy.maximumSpeed = maximumSpeed;
+        copy.responseFormat = responseFormat;
+        copy.schedule = schedule;
+        copy.walkingTime = walkingTime;
+        copy.scheduleRows = scheduleRows;
+        copy.ignoreTransfers = ignoreTransfers;
+        copy.scheduleDuration = scheduleDuration;
+        copy.searchContext = searchContext;
+        return copy;
+    }
 }
@@ -0,0 +1,138 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.ResponsePath;
+import com.graphhopper.util.*;
+
+import java.util.Locale;
+
+/**
+ * Splits the response of a route with via points into one response per segment, so that a route which has been
+ * computed on a single query graph can be processed like a route which has been computed segment by segment.
+ * <p>
+ * The segments are separated by the via instructions of the path. Each segment except the last one ends with an
+ * additional finish instruction at its via point, as it would if it had been computed on its own.
+ */
+public final class ViaRouteSplitter {
+    private static final Translation TRANSLATION = new TranslationMap.TranslationHashMap(new Locale(""));
+
+    private ViaRouteSplitter() {
+    }
+
+    /**
+     * @return one response per segment or null if the response can not be split, e.g. because it has errors or
+     * its instructions do not match the number of segments
+     */
+    public static GHResponse[] split(GHResponse response, int segmentCount) {
+        if (response.hasErrors() || response.getAll().size() != 1)
+            return null;
+
+        ResponsePath path = response.getBest();
+        InstructionList instructions = path.getInstructions();
+        PointList points = path.getPoints();
+        if (instructions == null || instructions.isEmpty())
+            return null;
+
+        // the first instruction and point index of each segment, the last entries mark the end of the route
+        int[] firstInstruction = new int[segmentCount + 1];
+        int[] firstPoint = new int[segmentCount + 1];
+        int segment = 0;
+        int pointCount = 0;
+        for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = instructions.get(i);
+            if (i > 0 && instruction instanceof ViaInstruction) {
+                if (++segment == segmentCount)
+                    return null;
+                firstInstruction[segment] = i;
+                firstPoint[segment] = pointCount;
+            }
+            pointCount += instruction.getPoints().size();
+        }
+        if (segment != segmentCount - 1 || pointCount != points.size())
+            return null;
+        firstInstruction[segmentCount] = instructions.size();
+        firstPoint[segmentCount] = points.size() - 1;
+
+        PointList waypoints = path.getWaypoints();
+        boolean hasWaypoints = waypoints != null && waypoints.size() == segmentCount + 1;
+
+        GHResponse[] responses = new GHResponse[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            boolean isLast = s == segmentCount - 1;
+            PointList segmentPoints = copyPoints(points, firstPoint[s], firstPoint[s + 1]);
+
+            InstructionList segmentInstructions = new InstructionList(TRANSLATION);
+            double distance = 0;
+            long time = 0;
+            for (int i = firstInstruction[s]; i < firstInstruction[s + 1]; i++) {
+                Instruction instruction = instructions.get(i);
+                segmentInstructions.add(instruction);
+                distance += instruction.getDistance();
+                time += instruction.getTime();
+            }
+            if (!isLast) {
+                PointList finishPoints = copyPoints(points, firstPoint[s + 1], firstPoint[s + 1]);
+                segmentInstructions.add(new Instruction(Instruction.FINISH, "", finishPoints));
+            }
+
+            ResponsePath segmentPath = new ResponsePath();
+            segmentPath.setPoints(segmentPoints);
+            segmentPath.setInstructions(segmentInstructions);
+            segmentPath.setDistance(distance);
+            segmentPath.setTime(time);
+            setAscendDescend(segmentPath, segmentPoints);
+            if (hasWaypoints)
+                segmentPath.setWaypoints(copyPoints(waypoints, s, s + 1));
+            segmentPath.setDescription(path.getDescription());
+
+            GHResponse segmentResponse = new GHResponse();
+            segmentResponse.add(segmentPath);
+            segmentResponse.getHints().putAll(response.getHints());
+            responses[s] = segmentResponse;
+        }
+        return responses;
+    }
+
+    /**
+     * @return the points from index {@code from} to index {@code to}, both inclusive
+     */
+    private static PointList copyPoints(PointList points, int from, int to) {
+        PointList copy = new PointList(to - from + 1, points.is3D());
+        for (int i = from; i <= to; i++) {
+            if (points.is3D())
+                copy.add(points.getLat(i), points.getLon(i), points.getEle(i));
+            else
+                copy.add(points.getLat(i), points.getLon(i));
+        }
+        return copy;
+    }
+
+    private static void setAscendDescend(ResponsePath path, PointList points) {
+        double ascend = 0;
+        double descend = 0;
+        if (points.is3D()) {
+            for (int i = 1; i < points.size(); i++) {
+                double diff = points.getEle(i) - points.getEle(i - 1);
+                if (diff > 0)
+                    ascend += diff;
+                else
+                    descend -= diff;
+            }
+        }
+        path.setAscend(ascend);
+        path.setDescend(descend);
+    }
+}
@@ -0,0 +1,145 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over integer ids in the range [0, capacity) with double keys. In contrast to
+ * {@link java.util.PriorityQueue} the position of every id is tracked, so changing the key of a queued
+ * id is O(log n) instead of a linear remove followed by an add.
+ */
+public class IndexedMinHeap {
+    private static final int NOT_QUEUED = -1;
+
+    private int[] heap;
+    private double[] keys;
+    private int[] positions;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        capacity = Math.max(capacity, 16);
+        heap = new int[capacity];
+        keys = new double[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, NOT_QUEUED);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return id < positions.length && positions[id] != NOT_QUEUED;
+    }
+
+    public double getKey(int id) {
+        return keys[id];
+    }
+
+    /**
+     * Adds id with the given key or, if it is already queued, moves it to the position matching the new key.
+     */
+    public void update(int id, double key) {
+        ensureCapacity(id + 1);
+        if (positions[id] == NOT_QUEUED) {
+            keys[id] = key;
+            heap[size] = id;
+            positions[id] = size;
+            siftUp(size++);
+        } else {
+            double oldKey = keys[id];
+            keys[id] = key;
+            if (key < oldKey)
+                siftUp(positions[id]);
+            else if (key > oldKey)
+                siftDown(positions[id]);
+        }
+    }
+
+    public int peek() {
+        if (size == 0)
+            throw new IllegalStateException("Heap is empty");
+        return heap[0];
+    }
+
+    public int poll() {
+        int id = peek();
+        positions[id] = NOT_QUEUED;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return id;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            positions[heap[i]] = NOT_QUEUED;
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= positions.length)
+            return;
+        int newCapacity = Math.max(capacity, positions.length * 2);
+        heap = Arrays.copyOf(heap, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        int oldLength = positions.length;
+        positions = Arrays.copyOf(positions, newCapacity);
+        Arrays.fill(positions, oldLength, newCapacity, NOT_QUEUED);
+    }
+
+    private void siftUp(int pos) {
+        int id = heap[pos];
+        double key = keys[id];
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            int parentId = heap[parentPos];
+            if (keys[parentId] <= key)
+                break;
+            heap[pos] = parentId;
+            positions[parentId] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = id;
+        positions[id] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int id = heap[pos];
+        double key = keys[id];
+        int half = size >>> 1;
+        while (pos < half) {
+            int childPos = 2 * pos + 1;
+            int rightPos = childPos + 1;
+            if (rightPos < size && keys[heap[rightPos]] < keys[heap[childPos]])
+                childPos = rightPos;
+            int childId = heap[childPos];
+            if (key <= keys[childId])
+                break;
+            heap[pos] = childId;
+            positions[childId] = pos;
+            pos = childPos;
+        }
+        heap[pos] = id;
+        positions[id] = pos;
+    }
+}
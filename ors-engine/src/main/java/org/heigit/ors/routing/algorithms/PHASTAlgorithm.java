@@ -0,0 +1,145 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.algorithms;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.graphhopper.storage.RoutingCHEdgeExplorer;
+import com.graphhopper.storage.RoutingCHEdgeIterator;
+import com.graphhopper.storage.RoutingCHGraph;
+
+import java.util.Arrays;
+
+/**
+ * One-to-all search on a contraction hierarchy (PHAST): a Dijkstra search along the upward edges of the start nodes,
+ * followed by a single sweep over the downward edges of all nodes in descending level order. The sweep does not need
+ * a priority queue, so its cost only depends on the size of the graph and not on the number of reached nodes.
+ * <p>
+ * The upward search is pruned at the maximum weight, so only the weights of nodes within the maximum weight are
+ * exact. All other nodes are reported as unreachable.
+ */
+public class PHASTAlgorithm {
+    private final PHASTGraph graph;
+    private final double maxWeight;
+    private final IndexedMinHeap prioQueue;
+    // weights by position in the PHAST graph
+    private double[] weights;
+    private int visitedNodes;
+
+    public PHASTAlgorithm(PHASTGraph graph, double maxWeight) {
+        this.graph = graph;
+        this.maxWeight = maxWeight;
+        prioQueue = new IndexedMinHeap(Math.min(Math.max(200, graph.getNodes() / 10), 2000));
+    }
+
+    /**
+     * Computes the weights from the start nodes to all nodes, or from all nodes to the start nodes if the PHAST graph
+     * is reversed. The weights array is taken from the PHAST graph and has to be returned with {@link #release()}
+     * once the weights have been read.
+     *
+     * @param startNodes   the nodes the search starts at
+     * @param startWeights the initial weight of each start node
+     */
+    public void calcWeights(int[] startNodes, double[] startWeights) {
+        int nodeCount = graph.getNodes();
+        if (weights == null)
+            weights = graph.acquireWeights();
+        Arrays.fill(weights, Double.POSITIVE_INFINITY);
+        prioQueue.clear();
+        visitedNodes = 0;
+
+        for (int i = 0; i < startNodes.length; i++) {
+            int position = graph.getPosition(startNodes[i]);
+            if (startWeights[i] <= maxWeight && startWeights[i] < weights[position]) {
+                weights[position] = startWeights[i];
+                prioQueue.update(position, startWeights[i]);
+            }
+        }
+
+        runUpwardSearch();
+
+        for (int position = 0; position < nodeCount; position++) {
+            double weight = weights[position];
+            int end = graph.getFirstEdge(position + 1);
+            for (int edge = graph.getFirstEdge(position); edge < end; edge++) {
+                double tmpWeight = weights[graph.getEdgeSource(edge)] + graph.getEdgeWeight(edge);
+                if (tmpWeight < weight)
+                    weight = tmpWeight;
+            }
+            weights[position] = weight;
+        }
+        visitedNodes += nodeCount;
+    }
+
+    private void runUpwardSearch() {
+        RoutingCHGraph chGraph = graph.getCHGraph();
+        boolean reverse = graph.isReverse();
+        RoutingCHEdgeExplorer explorer = reverse ? chGraph.createInEdgeExplorer() : chGraph.createOutEdgeExplorer();
+
+        while (!prioQueue.isEmpty()) {
+            int position = prioQueue.poll();
+            double weight = weights[position];
+            visitedNodes++;
+
+            RoutingCHEdgeIterator iter = explorer.setBaseNode(graph.getNode(position));
+            while (iter.next()) {
+                int adjPosition = graph.getPosition(iter.getAdjNode());
+                // lower positions belong to higher levels
+                if (adjPosition >= position)
+                    continue;
+
+                double tmpWeight = weight + iter.getWeight(reverse);
+                if (tmpWeight <= maxWeight && tmpWeight < weights[adjPosition]) {
+                    weights[adjPosition] = tmpWeight;
+                    prioQueue.update(adjPosition, tmpWeight);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the weight of the node or infinity if it can not be reached within the maximum weight
+     */
+    public double getWeight(int node) {
+        double weight = weights[graph.getPosition(node)];
+        return weight <= maxWeight ? weight : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return all nodes which can be reached within the maximum weight, in descending level order
+     */
+    public IntArrayList getReachedNodes() {
+        IntArrayList nodes = new IntArrayList();
+        int nodeCount = graph.getNodes();
+        for (int position = 0; position < nodeCount; position++) {
+            if (weights[position] <= maxWeight)
+                nodes.add(graph.getNode(position));
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the weights array to the PHAST graph for reuse by later searches. The weights must not be read
+     * afterwards.
+     */
+    public void release() {
+        if (weights != null) {
+            graph.releaseWeights(weights);
+            weights = null;
+        }
+    }
+
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+}
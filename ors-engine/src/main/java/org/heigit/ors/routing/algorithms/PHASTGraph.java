@@ -0,0 +1,161 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.algorithms;
+
+import com.graphhopper.storage.RoutingCHEdgeExplorer;
+import com.graphhopper.storage.RoutingCHEdgeIterator;
+import com.graphhopper.storage.RoutingCHGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * The contraction hierarchy of a profile rearranged for the linear downward sweep of {@link PHASTAlgorithm}. The
+ * nodes are numbered by descending level and the downward edges are stored by the position of their lower node, so
+ * the sweep reads the edges and the costs of the nodes in memory order.
+ * <p>
+ * The graph is only read by the searches and can be shared by all isochrone requests of a profile. It also keeps the
+ * weight arrays of finished searches for reuse, up to the number of searches expected to run at the same time.
+ */
+public class PHASTGraph {
+    private final RoutingCHGraph chGraph;
+    private final boolean reverse;
+    // node ids by position and positions by node id
+    private final int[] nodes;
+    private final int[] positions;
+    // the downward edges ending at the node at position p are firstEdge[p] to firstEdge[p + 1] - 1
+    private final int[] firstEdge;
+    private final int[] edgeSources;
+    private final float[] edgeWeights;
+    private final ArrayBlockingQueue<double[]> pooledWeights;
+
+    private PHASTGraph(RoutingCHGraph chGraph, boolean reverse, int[] nodes, int[] positions, int[] firstEdge, int[] edgeSources, float[] edgeWeights, int concurrentSearches) {
+        this.chGraph = chGraph;
+        this.reverse = reverse;
+        this.nodes = nodes;
+        this.positions = positions;
+        this.firstEdge = firstEdge;
+        this.edgeSources = edgeSources;
+        this.edgeWeights = edgeWeights;
+        pooledWeights = new ArrayBlockingQueue<>(Math.max(1, concurrentSearches));
+    }
+
+    /**
+     * @param reverse if true the sweep computes the costs from all nodes to the start node instead of the costs
+     *                from the start node to all nodes
+     */
+    public static PHASTGraph create(RoutingCHGraph chGraph, boolean reverse) {
+        return create(chGraph, reverse, 1);
+    }
+
+    /**
+     * @param reverse            if true the sweep computes the costs from all nodes to the start node instead of the
+     *                           costs from the start node to all nodes
+     * @param concurrentSearches the maximum number of weight arrays kept for reuse
+     */
+    public static PHASTGraph create(RoutingCHGraph chGraph, boolean reverse, int concurrentSearches) {
+        int nodeCount = chGraph.getNodes();
+        long[] sortKeys = new long[nodeCount];
+        for (int node = 0; node < nodeCount; node++)
+            sortKeys[node] = ((long) (Integer.MAX_VALUE - chGraph.getLevel(node)) << 32) | node;
+        Arrays.sort(sortKeys);
+
+        int[] nodes = new int[nodeCount];
+        int[] positions = new int[nodeCount];
+        for (int position = 0; position < nodeCount; position++) {
+            nodes[position] = (int) sortKeys[position];
+            positions[nodes[position]] = position;
+        }
+
+        // forward costs flow along the edges from the higher node towards the node, so its incoming edges are needed
+        RoutingCHEdgeExplorer explorer = reverse ? chGraph.createOutEdgeExplorer() : chGraph.createInEdgeExplorer();
+        int[] firstEdge = new int[nodeCount + 1];
+        for (int position = 0; position < nodeCount; position++) {
+            RoutingCHEdgeIterator iter = explorer.setBaseNode(nodes[position]);
+            int count = 0;
+            while (iter.next()) {
+                if (positions[iter.getAdjNode()] < position && !Double.isInfinite(iter.getWeight(!reverse)))
+                    count++;
+            }
+            firstEdge[position + 1] = firstEdge[position] + count;
+        }
+
+        int[] edgeSources = new int[firstEdge[nodeCount]];
+        float[] edgeWeights = new float[firstEdge[nodeCount]];
+        for (int position = 0; position < nodeCount; position++) {
+            RoutingCHEdgeIterator iter = explorer.setBaseNode(nodes[position]);
+            int edge = firstEdge[position];
+            while (iter.next()) {
+                double weight = iter.getWeight(!reverse);
+                if (positions[iter.getAdjNode()] < position && !Double.isInfinite(weight)) {
+                    edgeSources[edge] = positions[iter.getAdjNode()];
+                    edgeWeights[edge] = (float) weight;
+                    edge++;
+                }
+            }
+        }
+        return new PHASTGraph(chGraph, reverse, nodes, positions, firstEdge, edgeSources, edgeWeights, concurrentSearches);
+    }
+
+    public RoutingCHGraph getCHGraph() {
+        return chGraph;
+    }
+
+    public boolean isReverse() {
+        return reverse;
+    }
+
+    public int getNodes() {
+        return nodes.length;
+    }
+
+    public int getNode(int position) {
+        return nodes[position];
+    }
+
+    public int getPosition(int node) {
+        return positions[node];
+    }
+
+    int getFirstEdge(int position) {
+        return firstEdge[position];
+    }
+
+    int getEdgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    float getEdgeWeight(int edge) {
+        return edgeWeights[edge];
+    }
+
+    /**
+     * @return an array with one weight per node, which is released by an earlier search or newly allocated
+     */
+    double[] acquireWeights() {
+        double[] weights = pooledWeights.poll();
+        return weights != null ? weights : new double[nodes.length];
+    }
+
+    /**
+     * Keeps the weights of a finished search for reuse, unless enough arrays are kept already.
+     */
+    void releaseWeights(double[] weights) {
+        pooledWeights.offer(weights);
+    }
+
+    public long getCapacity() {
+        return 4L * (nodes.length + positions.length + firstEdge.length + edgeSources.length + edgeWeights.length);
+    }
+}
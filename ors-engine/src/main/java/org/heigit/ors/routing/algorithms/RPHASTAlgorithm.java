@@ -75,12 +75,33 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 
     @Override
     public void prepare(int[] sources, int[] targets) {
-        PriorityQueue<Integer> localPrioQueue = new PriorityQueue<>(100);
         treeEntrySize = sources.length;
+        targetGraph = createTargetGraph(graph, inEdgeExplorer, downwardEdgeFilter, targets);
+    }
+
+    /**
+     * Like {@link #prepare(int[], int[])}, but reuses a target graph which has already been built for the targets.
+     * The target graph is only read during the search and can be shared between instances running in parallel.
+     */
+    public void prepare(int[] sources, SubGraph targetGraph) {
+        treeEntrySize = sources.length;
+        this.targetGraph = targetGraph;
+    }
+
+    /**
+     * Builds the target graph for phase II which can be shared by several searches towards the same targets.
+     */
+    public static SubGraph createTargetGraph(RoutingCHGraph graph, int[] targets) {
+        DownwardSearchEdgeFilter downwardEdgeFilter = new DownwardSearchEdgeFilter(graph, graph.getWeighting().getFlagEncoder());
+        return createTargetGraph(graph, graph.createInEdgeExplorer(), downwardEdgeFilter, targets);
+    }
 
-        // Phase I: build shortest path tree from all target nodes to the
-        // highest node
-        targetGraph = new SubGraph(graph);
+    /**
+     * Phase I: build shortest path tree from all target nodes to the highest node
+     */
+    static SubGraph createTargetGraph(RoutingCHGraph graph, RoutingCHEdgeExplorer inEdgeExplorer, DownwardSearchEdgeFilter downwardEdgeFilter, int[] targets) {
+        PriorityQueue<Integer> localPrioQueue = new PriorityQueue<>(100);
+        SubGraph targetGraph = new SubGraph(graph);
 
         addNodes(targetGraph, localPrioQueue, targets);
 
@@ -98,9 +119,10 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 
             }
         }
+        return targetGraph;
     }
 
-    private void addNodes(SubGraph graph, PriorityQueue<Integer> prioQueue, int[] nodes) {
+    private static void addNodes(SubGraph graph, PriorityQueue<Integer> prioQueue, int[] nodes) {
         for (int i = 0; i < nodes.length; i++) {
             int nodeId = nodes[i];
             if (nodeId >= 0) {
@@ -0,0 +1,266 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.algorithms;
+
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.RoutingCHEdgeExplorer;
+import com.graphhopper.storage.RoutingCHEdgeIterator;
+import com.graphhopper.storage.RoutingCHGraph;
+import com.graphhopper.util.EdgeIterator;
+import org.heigit.ors.exceptions.MaxVisitedNodesExceededException;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.ch.DownwardSearchEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.ch.UpwardSearchEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPTable;
+
+/**
+ * RPHAST variant of {@link RPHASTAlgorithm} which keeps all per-source search state in a {@link MultiTreeSPTable}
+ * and orders the search with an {@link IndexedMinHeap}, so improving a node neither allocates objects nor
+ * requires a linear scan of the queue.
+ */
+public class RPHASTArrayAlgorithm {
+    private final RoutingCHGraph graph;
+    private final Weighting weighting;
+    private final UpwardSearchEdgeFilter upwardEdgeFilter;
+    private final DownwardSearchEdgeFilter downwardEdgeFilter;
+    private final RoutingCHEdgeExplorer inEdgeExplorer;
+    private final IndexedMinHeap prioQueue;
+    private final int initialSize;
+    private RoutingCHEdgeExplorer outEdgeExplorer;
+    private MultiTreeSPTable spTable;
+    private SubGraph targetGraph;
+    private int treeEntrySize;
+    private int visitedCountFrom;
+    private int visitedCountTo;
+    private int maxVisitedNodes = Integer.MAX_VALUE;
+
+    public RPHASTArrayAlgorithm(RoutingCHGraph graph, Weighting weighting, TraversalMode traversalMode) {
+        if (traversalMode.isEdgeBased())
+            throw new IllegalStateException("Edge-based behavior not supported");
+
+        this.graph = graph;
+        this.weighting = weighting;
+        initialSize = Math.min(Math.max(200, graph.getNodes() / 10), 2000);
+        prioQueue = new IndexedMinHeap(initialSize);
+
+        FlagEncoder encoder = weighting.getFlagEncoder();
+        upwardEdgeFilter = new UpwardSearchEdgeFilter(graph, encoder);
+        downwardEdgeFilter = new DownwardSearchEdgeFilter(graph, encoder);
+        inEdgeExplorer = graph.createInEdgeExplorer();
+    }
+
+    public void setMaxVisitedNodes(int numberOfNodes) {
+        maxVisitedNodes = numberOfNodes;
+    }
+
+    public int getVisitedNodes() {
+        return visitedCountFrom + visitedCountTo;
+    }
+
+    public void prepare(int[] sources, int[] targets) {
+        treeEntrySize = sources.length;
+        targetGraph = RPHASTAlgorithm.createTargetGraph(graph, inEdgeExplorer, downwardEdgeFilter, targets);
+    }
+
+    /**
+     * See {@link RPHASTAlgorithm#prepare(int[], SubGraph)}.
+     */
+    public void prepare(int[] sources, SubGraph targetGraph) {
+        treeEntrySize = sources.length;
+        this.targetGraph = targetGraph;
+    }
+
+    /**
+     * Runs the upward searches from all sources and the downward sweep over the target graph.
+     *
+     * @return the search state of all touched nodes; the entry of a target node can be looked up by its node id
+     */
+    public MultiTreeSPTable calcPaths(int[] from, int[] to) {
+        spTable = new MultiTreeSPTable(treeEntrySize, initialSize);
+        prioQueue.clear();
+
+        for (int i = 0; i < from.length; i++) {
+            if (from[i] == -1)
+                continue;
+
+            //If two queried points are on the same node, this case can occur
+            int existing = spTable.getSlot(from[i]);
+            if (existing != MultiTreeSPTable.NO_SLOT) {
+                spTable.setWeight(existing, i, 0.0);
+                continue;
+            }
+
+            int slot = spTable.addSlot(from[i]);
+            spTable.resetUpdate(slot, true);
+            spTable.setWeight(slot, i, 0.0);
+            spTable.setVisited(slot, true);
+            prioQueue.update(slot, spTable.updateTotalWeight(slot));
+        }
+
+        outEdgeExplorer = graph.createOutEdgeExplorer();
+        while (!prioQueue.isEmpty()) {
+            checkMaxVisitedNodes();
+            int currSlot = prioQueue.poll();
+            upwardEdgeFilter.updateHighestNode(spTable.getAdjNode(currSlot));
+            fillEdgesUpward(currSlot);
+            visitedCountFrom++;
+        }
+
+        if (!upwardEdgeFilter.isHighestNodeFound())
+            throw new IllegalStateException("First RPHAST phase was not successful.");
+
+        int highestSlot = spTable.getSlot(upwardEdgeFilter.getHighestNode());
+        spTable.setVisited(highestSlot, true);
+        spTable.resetUpdate(highestSlot, true);
+        prioQueue.clear();
+        prioQueue.update(highestSlot, spTable.getTotalWeight(highestSlot));
+
+        for (int i = 0; i < from.length; i++) {
+            if (from[i] == -1)
+                continue;
+            int sourceSlot = spTable.getSlot(from[i]);
+            spTable.setUpdate(sourceSlot, i, true);
+            prioQueue.update(sourceSlot, spTable.getTotalWeight(sourceSlot));
+        }
+
+        outEdgeExplorer = targetGraph.createExplorer();
+        while (!prioQueue.isEmpty()) {
+            checkMaxVisitedNodes();
+            fillEdgesDownward(prioQueue.poll());
+            visitedCountTo++;
+        }
+
+        return spTable;
+    }
+
+    private void checkMaxVisitedNodes() {
+        if (getVisitedNodes() > maxVisitedNodes)
+            throw new MaxVisitedNodesExceededException();
+    }
+
+    private void fillEdgesUpward(int currSlot) {
+        int baseNode = spTable.getAdjNode(currSlot);
+        RoutingCHEdgeIterator iter = outEdgeExplorer.setBaseNode(baseNode);
+
+        if (iter == null) // we reach one of the target nodes
+            return;
+
+        upwardEdgeFilter.setBaseNode(baseNode);
+
+        while (iter.next()) {
+            if (!upwardEdgeFilter.accept(iter))
+                continue;
+
+            double edgeWeight = iter.getWeight(false);
+            if (Double.isInfinite(edgeWeight))
+                continue;
+
+            int adjSlot = spTable.getSlot(iter.getAdjNode());
+
+            if (adjSlot == MultiTreeSPTable.NO_SLOT) {
+                adjSlot = createEntry(iter.getAdjNode(), iter.getEdge(), edgeWeight, currSlot);
+                prioQueue.update(adjSlot, spTable.getTotalWeight(adjSlot));
+            } else {
+                boolean addToQueue = false;
+
+                for (int i = 0; i < treeEntrySize; ++i) {
+                    double entryWeight = spTable.getWeight(currSlot, i);
+
+                    if (entryWeight == Double.POSITIVE_INFINITY || !spTable.isUpdate(currSlot, i))
+                        continue;
+
+                    double tmpWeight = edgeWeight + entryWeight;
+
+                    if (spTable.getWeight(adjSlot, i) > tmpWeight) {
+                        spTable.set(adjSlot, i, tmpWeight, iter.getEdge(), currSlot, true);
+                        addToQueue = true;
+                    }
+                }
+
+                if (addToQueue)
+                    prioQueue.update(adjSlot, spTable.updateTotalWeight(adjSlot));
+            }
+        }
+
+        if (!targetGraph.containsNode(baseNode))
+            spTable.resetUpdate(currSlot, false);
+    }
+
+    private void fillEdgesDownward(int currSlot) {
+        RoutingCHEdgeIterator iter = outEdgeExplorer.setBaseNode(spTable.getAdjNode(currSlot));
+
+        if (iter == null)
+            return;
+
+        while (iter.next()) {
+            double edgeWeight = iter.getWeight(false);
+            if (Double.isInfinite(edgeWeight))
+                continue;
+
+            int adjSlot = spTable.getSlot(iter.getAdjNode());
+
+            if (adjSlot == MultiTreeSPTable.NO_SLOT) {
+                adjSlot = createEntry(iter.getAdjNode(), iter.getEdge(), edgeWeight, currSlot);
+                spTable.setVisited(adjSlot, true);
+                prioQueue.update(adjSlot, spTable.getTotalWeight(adjSlot));
+            } else {
+                boolean addToQueue = false;
+
+                for (int i = 0; i < treeEntrySize; ++i) {
+                    double entryWeight = spTable.getWeight(currSlot, i);
+
+                    if (entryWeight == Double.POSITIVE_INFINITY)
+                        continue;
+
+                    double tmpWeight = edgeWeight + entryWeight;
+
+                    if (spTable.getWeight(adjSlot, i) > tmpWeight) {
+                        spTable.set(adjSlot, i, tmpWeight, iter.getEdge(), currSlot, true);
+                        addToQueue = true;
+                    }
+                }
+
+                double totalWeight = spTable.updateTotalWeight(adjSlot);
+
+                // A node which has only been reached in the upward pass still has to be expanded once in the
+                // downward pass to give access to the lower level nodes of the target graph.
+                if (!spTable.isVisited(adjSlot) || addToQueue) {
+                    spTable.setVisited(adjSlot, true);
+                    prioQueue.update(adjSlot, totalWeight);
+                }
+            }
+        }
+    }
+
+    private int createEntry(int adjNode, int edge, double edgeWeight, int parentSlot) {
+        int slot = spTable.addSlot(adjNode);
+        for (int i = 0; i < treeEntrySize; ++i) {
+            double parentWeight = spTable.getWeight(parentSlot, i);
+            if (parentWeight != Double.POSITIVE_INFINITY)
+                spTable.set(slot, i, edgeWeight + parentWeight, edge, parentSlot, true);
+        }
+        spTable.updateTotalWeight(slot);
+        return slot;
+    }
+
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "|" + weighting;
+    }
+}
@@ -73,6 +73,19 @@ public class SubGraph {
         return link == null ? null : new EdgeIteratorLinkIterator(link);
     }
 
+    public int getNodeCount() {
+        return node2EdgesMap.size();
+    }
+
+    public int getEdgeCount() {
+        int edgeCount = 0;
+        for (IntObjectCursor<EdgeIteratorLink> node : node2EdgesMap) {
+            for (EdgeIteratorLink link = node.value; link != null; link = link.next)
+                edgeCount++;
+        }
+        return edgeCount;
+    }
+
     public RoutingCHEdgeExplorer createExplorer() {
         return new SubGraphEdgeExplorer(this);
     }
@@ -48,6 +48,7 @@ import org.heigit.ors.fastisochrones.partitioning.storage.IsochroneNodeStorage;
 import org.heigit.ors.routing.AvoidFeatureFlags;
 import org.heigit.ors.routing.RouteSearchContext;
 import org.heigit.ors.routing.RouteSearchParameters;
+import org.heigit.ors.routing.algorithms.PHASTGraph;
 import org.heigit.ors.routing.graphhopper.extensions.core.*;
 import org.heigit.ors.routing.graphhopper.extensions.edgefilters.AvoidFeaturesEdgeFilter;
 import org.heigit.ors.routing.graphhopper.extensions.edgefilters.EdgeFilterSequence;
@@ -57,6 +58,7 @@ import org.heigit.ors.routing.graphhopper.extensions.flagencoders.FlagEncoderNam
 import org.heigit.ors.routing.graphhopper.extensions.storages.BordersGraphStorage;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.HeavyVehicleAttributesGraphStorage;
+import org.heigit.ors.routing.graphhopper.extensions.storages.ShortcutMetricsStorage;
 import org.heigit.ors.routing.graphhopper.extensions.storages.TrafficGraphStorage;
 import org.heigit.ors.routing.graphhopper.extensions.storages.builders.GraphStorageBuilder;
 import org.heigit.ors.routing.graphhopper.extensions.storages.builders.HereTrafficGraphStorageBuilder;
@@ -64,6 +66,7 @@ import org.heigit.ors.routing.graphhopper.extensions.util.ORSParameters;
 import org.heigit.ors.routing.graphhopper.extensions.weighting.HgvAccessWeighting;
 import org.heigit.ors.routing.pathprocessors.BordersExtractor;
 import org.heigit.ors.util.CoordTools;
+import org.heigit.ors.util.ProfileTools;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
@@ -73,6 +76,13 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
@@ -87,6 +97,17 @@ public class ORSGraphHopper extends GraphHopperGtfs {
     private HashMap<Long, ArrayList<Integer>> osmId2EdgeIds; // one osm id can correspond to multiple edges
     private HashMap<Integer, Long> tmcEdges;
     private Eccentricity eccentricity;
+    private boolean prepareCHShortcutMetrics;
+    private boolean prepareCoreShortcutMetrics;
+    private final Map<String, ShortcutMetricsStorage> chShortcutMetrics = new HashMap<>();
+    // entries are removed while the core is customized
+    private final Map<String, ShortcutMetricsStorage> coreShortcutMetrics = new ConcurrentHashMap<>();
+    private final Map<String, PHASTGraph> phastGraphs = new ConcurrentHashMap<>();
+    private int phastConcurrentSearches = 1;
+    private final AtomicBoolean coreCustomizationPending = new AtomicBoolean();
+    private ExecutorService coreCustomizationExecutor;
+    // searches on the core hold the read lock, the customization writes the new shortcut weights with the write lock
+    private final ReadWriteLock coreLock = new ReentrantReadWriteLock();
 
     private int minNetworkSize = 200;
     private int minOneWayNetworkSize = 0;
@@ -125,6 +146,8 @@ public class ORSGraphHopper extends GraphHopperGtfs {
 
         minNetworkSize = ghConfig.getInt("prepare.min_network_size", minNetworkSize);
         minOneWayNetworkSize = ghConfig.getInt("prepare.min_one_way_network_size", minOneWayNetworkSize);
+        prepareCHShortcutMetrics = ghConfig.getBool(ORSParameters.ShortcutMetrics.PREPARE_CH, false);
+        prepareCoreShortcutMetrics = ghConfig.getBool(ORSParameters.ShortcutMetrics.PREPARE_CORE, false);
         config = ghConfig;
         return ret;
     }
@@ -214,8 +237,13 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         r.setCoreGraphs(coreGraphs);
 
         Map<String, PrepareCoreLandmarks> coreLandmarks = new LinkedHashMap<>();
-        for (PrepareLandmarks preparation : coreLMPreparationHandler.getPreparations()) {
-            coreLandmarks.put(preparation.getLMConfig().getName(), (PrepareCoreLandmarks) preparation);
+        // the landmark weights are not recomputed when a customizable core is customized, so they would not be admissible
+        if (isCoreCustomizable() && !coreLMPreparationHandler.getPreparations().isEmpty()) {
+            LOGGER.warn("Core landmarks are not used, since the core is customizable");
+        } else {
+            for (PrepareLandmarks preparation : coreLMPreparationHandler.getPreparations()) {
+                coreLandmarks.put(preparation.getLMConfig().getName(), (PrepareCoreLandmarks) preparation);
+            }
         }
         r.setCoreLandmarks(coreLandmarks);
 
@@ -382,6 +410,8 @@ public class ORSGraphHopper extends GraphHopperGtfs {
                 if (!getProfileVersion(profile.getProfile()).isEmpty() && !getProfileVersion(profile.getProfile()).equals("" + profilesByName.get(profile.getProfile()).getVersion()))
                     throw new IllegalArgumentException("Core preparation of " + profile.getProfile() + " already exists in storage and doesn't match configuration");
             }
+            if (corePreparationHandler.isCustomizable() && !isCoreCustomizable())
+                LOGGER.warn("The stored core has not been prepared as customizable, its shortcuts will not be updated for live speeds");
         } else {
             prepareCore(closeEarly);
         }
@@ -394,6 +424,8 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         }
         loadOrPrepareCoreLM();
 
+        loadOrPrepareShortcutMetrics();
+
         if (fastIsochroneFactory.isEnabled()) {
             EdgeFilterSequence partitioningEdgeFilter = new EdgeFilterSequence();
             try {
@@ -468,6 +500,21 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         return corePreparationHandler;
     }
 
+    /**
+     * Create a new instance of the weighting the contraction hierarchies of the profile are prepared with. It does not
+     * use live speeds, since they would not be reflected by the shortcuts.
+     */
+    public Weighting createCHWeighting(Profile profile) {
+        Weighting weighting = createWeighting(profile, new PMap().putObject(ORSParameters.Weighting.LIVE_SPEEDS, false));
+
+        if (profile.getVehicle().equals(FlagEncoderNames.HEAVYVEHICLE)) {
+            HeavyVehicleAttributesGraphStorage hgvStorage = GraphStorageUtils.getGraphExtension(getGraphHopperStorage(), HeavyVehicleAttributesGraphStorage.class);
+            EdgeFilter hgvEdgeFilter = new HeavyVehicleEdgeFilter(HeavyVehicleAttributes.HGV, null, hgvStorage);
+            weighting = new HgvAccessWeighting(weighting, hgvEdgeFilter);
+        }
+        return weighting;
+    }
+
     @Override
     protected void initCHPreparationHandler() {
         CHPreparationHandler chPreparationHandler = getCHPreparationHandler();
@@ -477,13 +524,7 @@ public class ORSGraphHopper extends GraphHopperGtfs {
 
         for (CHProfile chProfile : chPreparationHandler.getCHProfiles()) {
             Profile profile = profilesByName.get(chProfile.getProfile());
-            Weighting weighting = createWeighting(profile, new PMap());
-
-            if (profile.getVehicle().equals(FlagEncoderNames.HEAVYVEHICLE)) {
-                HeavyVehicleAttributesGraphStorage hgvStorage = GraphStorageUtils.getGraphExtension(getGraphHopperStorage(), HeavyVehicleAttributesGraphStorage.class);
-                EdgeFilter hgvEdgeFilter = new HeavyVehicleEdgeFilter(HeavyVehicleAttributes.HGV, null, hgvStorage);
-                weighting = new HgvAccessWeighting(weighting, hgvEdgeFilter);
-            }
+            Weighting weighting = createCHWeighting(profile);
 
             if (profile.isTurnCosts()) {
                 chPreparationHandler.addCHConfig(CHConfig.edgeBased(profile.getName(), weighting));
@@ -515,7 +556,9 @@ public class ORSGraphHopper extends GraphHopperGtfs {
 
         for (com.graphhopper.config.CHProfile chProfile : corePreparationHandler.getCHProfiles()) {
             Profile profile = profilesByName.get(chProfile.getProfile());
-            corePreparationHandler.addCHConfig(new CHConfig(profile.getName(), createWeighting(profile, new PMap()), profile.isTurnCosts(), CHConfig.TYPE_CORE));
+            // live speeds are only used for the contracted part if its shortcuts are customized when they change
+            PMap hints = new PMap().putObject(ORSParameters.Weighting.LIVE_SPEEDS, corePreparationHandler.isCustomizable());
+            corePreparationHandler.addCHConfig(new CHConfig(profile.getName(), createWeighting(profile, hints), profile.isTurnCosts(), CHConfig.TYPE_CORE));
         }
     }
 
@@ -551,6 +594,7 @@ public class ORSGraphHopper extends GraphHopperGtfs {
             ghStorage.freeze();
             corePreparationHandler.prepare(ghStorage.getProperties(), closeEarly);
             ghStorage.getProperties().put(ORSParameters.Core.PREPARE + "done", true);
+            ghStorage.getProperties().put(ORSParameters.Core.CUSTOMIZABLE, corePreparationHandler.isCustomizable());
             for (CHProfile profile : corePreparationHandler.getCHProfiles()) {
                 // potentially overwrite existing keys from CH/LM
                 setProfileVersion(profile.getProfile(), profilesByName.get(profile.getProfile()).getVersion());
@@ -558,6 +602,90 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         }
     }
 
+    /**
+     * @return true if the stored core has been prepared without witness searches and can be customized
+     */
+    public final boolean isCoreCustomizable() {
+        return isCoreEnabled() && "true".equals(getGraphHopperStorage().getProperties().get(ORSParameters.Core.CUSTOMIZABLE));
+    }
+
+    /**
+     * @return the lock which has to be held while searching the core graphs, so that no customization writes to them
+     */
+    public Lock getCoreReadLock() {
+        return coreLock.readLock();
+    }
+
+    @Override
+    public GHResponse route(GHRequest request) {
+        Lock lock = coreLock.readLock();
+        lock.lock();
+        try {
+            return super.route(request);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedules the customization of the core shortcuts for the current edge weights, e.g. after live speeds have
+     * changed. Requests which arrive while a customization is waiting to run are merged into it. Nothing is done if the
+     * core is not customizable.
+     *
+     * @param onCustomized called after the shortcuts have been updated
+     */
+    public void requestCoreCustomization(Runnable onCustomized) {
+        if (!isCoreCustomizable() || !coreCustomizationPending.compareAndSet(false, true))
+            return;
+        synchronized (coreCustomizationPending) {
+            if (coreCustomizationExecutor == null) {
+                coreCustomizationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "ors-core-customization");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+        coreCustomizationExecutor.execute(() -> {
+            coreCustomizationPending.set(false);
+            try {
+                customizeCore();
+                onCustomized.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to customize the core: %s".formatted(e.getMessage()), e);
+            }
+        });
+    }
+
+    /**
+     * Recomputes the shortcut weights of all core graphs with their weightings, which read the current live speeds,
+     * and updates their shortcut metrics. The weights are computed while searches continue and written while searches
+     * on the core are blocked. Matrices unpack the core shortcuts while their metrics are updated.
+     */
+    public void customizeCore() {
+        if (!isCoreCustomizable() || !(getGraphHopperStorage() instanceof ORSGraphHopperStorage orsStorage))
+            return;
+        for (CHConfig chConfig : corePreparationHandler.getCHConfigs()) {
+            LOGGER.info("Customizing core of '%s'".formatted(chConfig.getName()));
+            CoreShortcutCustomizer customizer = new CoreShortcutCustomizer(orsStorage.getBaseGraph(), orsStorage.getCoreStore(chConfig.getName()))
+                    .setThreads(corePreparationHandler.getPreparationThreads())
+                    .compute(chConfig.getWeighting());
+            ShortcutMetricsStorage metrics;
+            Lock lock = coreLock.writeLock();
+            lock.lock();
+            try {
+                customizer.apply();
+                metrics = coreShortcutMetrics.remove(chConfig.getName());
+            } finally {
+                lock.unlock();
+            }
+            if (metrics != null) {
+                metrics.update(chConfig.getWeighting());
+                coreShortcutMetrics.put(chConfig.getName(), metrics);
+            }
+        }
+    }
+
     private boolean isCorePrepared() {
         return "true".equals(getGraphHopperStorage().getProperties().get(ORSParameters.Core.PREPARE + "done"))
                 // remove old property in >0.9
@@ -581,6 +709,49 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         }
     }
 
+    /**
+     * Loads the precomputed shortcut distances and times of the CH and core graphs, or builds them if they have not
+     * been stored yet.
+     */
+    protected void loadOrPrepareShortcutMetrics() {
+        GraphHopperStorage gs = getGraphHopperStorage();
+        if (prepareCHShortcutMetrics && getCHPreparationHandler().isEnabled()) {
+            for (CHConfig chConfig : getCHPreparationHandler().getCHConfigs()) {
+                if (!chConfig.isEdgeBased())
+                    chShortcutMetrics.put(chConfig.getName(), loadOrPrepareShortcutMetrics(gs.getRoutingCHGraph(chConfig.getName()), chConfig, "ch_"));
+            }
+        }
+        if (prepareCoreShortcutMetrics && isCoreEnabled() && gs instanceof ORSGraphHopperStorage orsStorage) {
+            for (CHConfig chConfig : corePreparationHandler.getCHConfigs())
+                coreShortcutMetrics.put(chConfig.getName(), loadOrPrepareShortcutMetrics(orsStorage.getCoreGraph(chConfig.getName()), chConfig, "core_"));
+        }
+    }
+
+    private ShortcutMetricsStorage loadOrPrepareShortcutMetrics(RoutingCHGraph chGraph, CHConfig chConfig, String prefix) {
+        ShortcutMetricsStorage storage = new ShortcutMetricsStorage(getGraphHopperStorage().getDirectory(), chGraph, prefix + chConfig.getName());
+        if (!storage.loadExisting()) {
+            ensureWriteAccess();
+            LOGGER.info("Creating shortcut metrics for '%s'".formatted(chConfig.getName()));
+            storage.prepare(chConfig.getWeighting());
+            storage.flush();
+        }
+        return storage;
+    }
+
+    /**
+     * @return the precomputed shortcut metrics of the CH graph or null if they are not available
+     */
+    public ShortcutMetricsStorage getCHShortcutMetrics(String profileName) {
+        return chShortcutMetrics.get(profileName);
+    }
+
+    /**
+     * @return the precomputed shortcut metrics of the core graph or null if they are not available
+     */
+    public ShortcutMetricsStorage getCoreShortcutMetrics(String profileName) {
+        return coreShortcutMetrics.get(profileName);
+    }
+
     //TODO Refactoring : This is a duplication with code in RoutingProfile and should probably be moved to a status keeping class.
     public final boolean isCHAvailable(String profileName) {
         return getCHPreparationHandler().isEnabled() && hasCHProfile(profileName);
@@ -598,6 +769,46 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         return eccentricity != null && eccentricity.isAvailable(ORSWeightingFactory.createIsochroneWeighting(searchContext, travelRangeType));
     }
 
+    /**
+     * @return true if the contraction hierarchy of the isochrone weighting can be used for PHAST isochrones
+     */
+    public final boolean isPHASTIsochroneAvailable(RouteSearchContext searchContext, TravelRangeType travelRangeType) {
+        Weighting weighting = ORSWeightingFactory.createIsochroneWeighting(searchContext, travelRangeType);
+        return isCHAvailable(ProfileTools.makeProfileName(searchContext.getEncoder().toString(), weighting.getName(), false));
+    }
+
+    /**
+     * Builds the PHAST graphs of both directions for all contraction hierarchies which can be used for isochrones, so
+     * that the first isochrone requests do not have to wait for them.
+     *
+     * @param concurrentSearches the number of weight arrays each PHAST graph keeps for reuse by later searches
+     */
+    public void preparePHASTGraphs(int concurrentSearches) {
+        phastConcurrentSearches = concurrentSearches;
+        for (FlagEncoder encoder : getEncodingManager().fetchEdgeEncoders()) {
+            for (String weighting : new String[]{"fastest", "shortest"}) {
+                String profileName = ProfileTools.makeProfileName(encoder.toString(), weighting, false);
+                if (isCHAvailable(profileName)) {
+                    getPHASTGraph(profileName, false);
+                    getPHASTGraph(profileName, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the contraction hierarchy of the profile arranged for PHAST searches. It is built on first use, or when
+     * the profile is loaded by {@link #preparePHASTGraphs(int)}, and shared by all searches afterwards.
+     */
+    public PHASTGraph getPHASTGraph(String profileName, boolean reverse) {
+        return phastGraphs.computeIfAbsent(reverse ? profileName + "_reverse" : profileName, key -> {
+            StopWatch sw = new StopWatch().start();
+            PHASTGraph graph = PHASTGraph.create(getGraphHopperStorage().getRoutingCHGraph(profileName), reverse, phastConcurrentSearches);
+            LOGGER.info("Created PHAST graph for '%s' in %.1f s, %d MB".formatted(key, sw.stop().getSeconds(), graph.getCapacity() / (1024 * 1024)));
+            return graph;
+        });
+    }
+
     /**
      * Partitioning
      */
@@ -656,6 +867,8 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         if (fastIsochroneFactory.isEnabled()) {
             mem += fastIsochroneFactory.getCapacity();
         }
+        mem += chShortcutMetrics.values().stream().mapToLong(ShortcutMetricsStorage::getCapacity).sum();
+        mem += coreShortcutMetrics.values().stream().mapToLong(ShortcutMetricsStorage::getCapacity).sum();
         return mem + getGraphHopperStorage().getCapacity();
     }
 }
@@ -16,9 +16,12 @@ import org.heigit.ors.routing.ProfileWeighting;
 import org.heigit.ors.routing.RouteRequestParameterNames;
 import org.heigit.ors.routing.RouteSearchContext;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
+import org.heigit.ors.routing.graphhopper.extensions.storages.SpeedStorage;
 import org.heigit.ors.routing.graphhopper.extensions.storages.TrafficGraphStorage;
 import org.heigit.ors.routing.graphhopper.extensions.util.MaximumSpeedCalculator;
+import org.heigit.ors.routing.graphhopper.extensions.util.ORSParameters;
 import org.heigit.ors.routing.graphhopper.extensions.weighting.*;
+import org.heigit.ors.routing.traffic.LiveSpeedCalculator;
 import org.heigit.ors.routing.traffic.RoutingTrafficSpeedCalculator;
 
 import java.time.Instant;
@@ -163,6 +166,11 @@ public class ORSWeightingFactory implements WeightingFactory {
             addTrafficSpeedCalculator(weighting, ghStorage, time);
         }
 
+        // live speeds
+        SpeedStorage speedStorage = GraphStorageUtils.getGraphExtension(ghStorage, SpeedStorage.class);
+        if (speedStorage != null && requestHints.getBool(ORSParameters.Weighting.LIVE_SPEEDS, true))
+            weighting.setSpeedCalculator(new LiveSpeedCalculator(weighting.getSpeedCalculator(), speedStorage));
+
         if (requestHints.has("maximum_speed")) {
             double maximumSpeedLowerBound = requestHints.getDouble("maximum_speed_lower_bound", 0);
             double maximumSpeed = requestHints.getDouble("maximum_speed", maximumSpeedLowerBound);
@@ -43,6 +43,7 @@ public class CoreLMPreparationHandler extends LMPreparationHandler {
     private static final Logger logger = Logger.getLogger(CoreLandmarkStorage.class);
 
     private final CoreLMOptions coreLMOptions = new CoreLMOptions();
+    private int landmarkThreads = 1;
 
     public CoreLMPreparationHandler() {
         super();
@@ -54,6 +55,7 @@ public class CoreLMPreparationHandler extends LMPreparationHandler {
 
     public void init(ORSGraphHopperConfig ghConfig) {
         init(ghConfig, ghConfig.getCoreLMProfiles());
+        landmarkThreads = ghConfig.getInt(CoreLandmark.LANDMARK_THREADS, landmarkThreads);
 
         //Get the landmark sets that should be calculated
         String coreLMSets = ghConfig.getString(CoreLandmark.LMSETS, "allow_all");
@@ -86,6 +88,7 @@ public class CoreLMPreparationHandler extends LMPreparationHandler {
 
             PrepareLandmarks tmpPrepareLM = new PrepareCoreLandmarks(ghStorage.getDirectory(), ghStorage,
                     coreLMConfig, getLandmarks(), coreNodeIdMap).
+                    setLandmarkThreads(landmarkThreads).
                     setLandmarkSuggestions(lmSuggestions).
                     setMaximumWeight(maximumWeight).
                     setLogDetails(getLogDetails());
@@ -38,9 +38,14 @@ import org.heigit.ors.routing.graphhopper.extensions.ORSGraphHopperStorage;
 import org.heigit.ors.routing.graphhopper.extensions.edgefilters.core.LMEdgeFilterSequence;
 import org.heigit.ors.routing.graphhopper.extensions.util.GraphUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -61,6 +66,10 @@ public class CoreLandmarkStorage extends LandmarkStorage {
     private final ORSGraphHopperStorage graph;
     private final CoreLMConfig lmConfig;
     private IntHashSet subnetworkNodes;
+    private int landmarkThreads = 1;
+    // runs the explorations of all but the first landmark of each subnetwork while the next subnetwork is processed
+    private ExecutorService landmarkExecutor;
+    private final List<Future<?>> landmarkTasks = new ArrayList<>();
 
     public CoreLandmarkStorage(Directory dir, ORSGraphHopperStorage graph, final CoreLMConfig lmConfig, int landmarks) {
         this(dir, graph, graph.getCoreGraph(lmConfig.getSuperName()), lmConfig, landmarks);
@@ -80,6 +89,14 @@ public class CoreLandmarkStorage extends LandmarkStorage {
         this.coreNodeIdMap = coreNodeIdMap;
     }
 
+    /**
+     * Sets the number of threads computing the landmark weights. Every landmark writes its own columns of the
+     * weight storage, so all landmarks of all subnetworks can be explored concurrently.
+     */
+    public void setLandmarkThreads(int landmarkThreads) {
+        this.landmarkThreads = Math.max(1, landmarkThreads);
+    }
+
     @Override
     public String getLandmarksFileName() {
         return "landmarks_core_";
@@ -92,6 +109,7 @@ public class CoreLandmarkStorage extends LandmarkStorage {
         if (isInitialized())
             throw new IllegalStateException("Initialize the landmark storage only once!");
 
+        StopWatch totalSW = new StopWatch().start();
         int minimumNodes = getMinimumNodes();
         int landmarks = getLandmarkCount();
         DataAccess landmarkWeightDA = getLandmarkWeightDA();
@@ -165,31 +183,47 @@ public class CoreLandmarkStorage extends LandmarkStorage {
         if (logDetails)
             logger.debug(configName() + "init landmarks for subnetworks with node count greater than " + minimumNodes + " with factor:" + factor + additionalInfo);
 
+        if (landmarkThreads > 1) {
+            landmarkExecutor = Executors.newFixedThreadPool(landmarkThreads, runnable -> {
+                Thread thread = new Thread(runnable, "ors-core-landmarks");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
         int nodes = 0;
-        for (IntArrayList subnetworkIds : graphComponents) {
-            nodes += subnetworkIds.size();
-            if (subnetworkIds.size() < minimumNodes)
-                continue;
-            if (factor <= 0)
-                throw new IllegalStateException("factor wasn't initialized " + factor + ", subnetworks:"
-                        + graphComponents.size() + ", minimumNodes:" + minimumNodes + ", current size:" + subnetworkIds.size());
-
-            subnetworkNodes = new IntHashSet(subnetworkIds);
-            int index = subnetworkIds.size() - 1;
-            for (; index >= 0; index--) {
-                int nextStartNode = subnetworkIds.get(index);
-                if (subnetworks[getIndex(nextStartNode)] == UNSET_SUBNETWORK) {
-                    if (logDetails) {
-                        GHPoint p = createPoint(graph, nextStartNode);
-                        logger.debug(configName() + "start node: " + nextStartNode + " (" + p + ") subnetwork " + index + ", subnetwork size: " + subnetworkIds.size()
-                                + ", " + Helper.getMemInfo() + ((areaIndex == null) ? "" : " area:" + areaIndex.query(p.lat, p.lon)));
+        try {
+            for (IntArrayList subnetworkIds : graphComponents) {
+                nodes += subnetworkIds.size();
+                if (subnetworkIds.size() < minimumNodes)
+                    continue;
+                if (factor <= 0)
+                    throw new IllegalStateException("factor wasn't initialized " + factor + ", subnetworks:"
+                            + graphComponents.size() + ", minimumNodes:" + minimumNodes + ", current size:" + subnetworkIds.size());
+
+                subnetworkNodes = new IntHashSet(subnetworkIds);
+                int index = subnetworkIds.size() - 1;
+                for (; index >= 0; index--) {
+                    int nextStartNode = subnetworkIds.get(index);
+                    if (subnetworks[getIndex(nextStartNode)] == UNSET_SUBNETWORK) {
+                        if (logDetails) {
+                            GHPoint p = createPoint(graph, nextStartNode);
+                            logger.debug(configName() + "start node: " + nextStartNode + " (" + p + ") subnetwork " + index + ", subnetwork size: " + subnetworkIds.size()
+                                    + ", " + Helper.getMemInfo() + ((areaIndex == null) ? "" : " area:" + areaIndex.query(p.lat, p.lon)));
+                        }
+                        if (createLandmarksForSubnetwork(nextStartNode, subnetworks, accessFilter))
+                            break;
                     }
-                    if (createLandmarksForSubnetwork(nextStartNode, subnetworks, accessFilter))
-                        break;
                 }
+                if (index < 0)
+                    logger.warn("next start node not found in big enough network of size " + subnetworkIds.size() + ", first element is " + subnetworkIds.get(0) + ", " + createPoint(graph, subnetworkIds.get(0)));
+            }
+            awaitLandmarkTasks();
+        } finally {
+            if (landmarkExecutor != null) {
+                landmarkExecutor.shutdownNow();
+                landmarkExecutor = null;
             }
-            if (index < 0)
-                logger.warn("next start node not found in big enough network of size " + subnetworkIds.size() + ", first element is " + subnetworkIds.get(0) + ", " + createPoint(graph, subnetworkIds.get(0)));
+            landmarkTasks.clear();
         }
 
         int subnetworkCount = landmarkIDs.size();
@@ -220,9 +254,22 @@ public class CoreLandmarkStorage extends LandmarkStorage {
 
         if (logDetails)
             logger.debug(configName() + "Finished landmark creation. Subnetwork node count sum " + nodes + " vs. nodes " + coreNodes);
+        logger.info(configName() + "Created landmarks for " + (subnetworkCount - 1) + " subnetworks with " + landmarkThreads + " threads, took: " + totalSW.stop().getSeconds() + "s");
         setInitialized(true);
     }
 
+    private void awaitLandmarkTasks() {
+        try {
+            for (Future<?> task : landmarkTasks)
+                task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(configName() + "Landmark creation has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(configName() + "Landmark creation failed", e.getCause());
+        }
+    }
+
     private String configName() {
         return "[" + lmConfig.getName() + "] ";
     }
@@ -275,7 +322,9 @@ public class CoreLandmarkStorage extends LandmarkStorage {
 
     @Override
     public LandmarkExplorer getLandmarkExplorer(EdgeFilter accessFilter, Weighting weighting, boolean reverse) {
-        return new CoreLandmarkExplorer(core, accessFilter, reverse, this.subnetworkNodes);
+        CoreLandmarkExplorer explorer = new CoreLandmarkExplorer(core, accessFilter, reverse, this.subnetworkNodes);
+        explorer.deferred = landmarkExecutor != null;
+        return explorer;
     }
 
     @Override
@@ -290,6 +339,8 @@ public class CoreLandmarkStorage extends LandmarkStorage {
     private class CoreLandmarkExplorer extends DijkstraBidirectionCHNoSOD implements LandmarkExplorer {
         private final boolean reverse;
         private SPTEntry lastEntry;
+        // the search of a deferred explorer is only run when its landmark weights are requested
+        private boolean deferred;
 
         public CoreLandmarkExplorer(RoutingCHGraph g, EdgeFilter accessFilter, boolean reverse, IntHashSet subnetworkNodes) {
             super(g);
@@ -325,7 +376,8 @@ public class CoreLandmarkStorage extends LandmarkStorage {
 
         @Override
         public void runAlgo() {
-            super.runAlgo();
+            if (!deferred)
+                super.runAlgo();
         }
 
         // Need to override the DijkstraBidirectionCHNoSOD method as it uses the graphs weighting instead of the CoreLandmarkStorage one.
@@ -382,6 +434,22 @@ public class CoreLandmarkStorage extends LandmarkStorage {
 
         @Override
         public void initLandmarkWeights(final int lmIdx, int lmNodeId, final long rowSize, final int offset) {
+            if (!deferred) {
+                writeLandmarkWeights(lmIdx, lmNodeId, rowSize, offset);
+            } else if (lmIdx == 0) {
+                // the subnetworks are assigned from the explorations of the first landmark right afterwards
+                deferred = false;
+                super.runAlgo();
+                writeLandmarkWeights(lmIdx, lmNodeId, rowSize, offset);
+            } else {
+                landmarkTasks.add(landmarkExecutor.submit(() -> {
+                    super.runAlgo();
+                    writeLandmarkWeights(lmIdx, lmNodeId, rowSize, offset);
+                }));
+            }
+        }
+
+        private void writeLandmarkWeights(final int lmIdx, int lmNodeId, final long rowSize, final int offset) {
             IntObjectMap<SPTEntry> map = reverse ? bestWeightMapTo : bestWeightMapFrom;
             final AtomicInteger maxedout = new AtomicInteger(0);
             final Map.Entry<Double, Double> finalMaxWeight = new MapEntry<>(0d, 0d);
@@ -5,6 +5,7 @@ import com.graphhopper.routing.ch.*;
 import com.graphhopper.storage.CHStorageBuilder;
 import com.graphhopper.util.PMap;
 import com.graphhopper.util.StopWatch;
+import org.heigit.ors.routing.graphhopper.extensions.util.ORSParameters.Core;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -43,6 +44,7 @@ class CoreNodeContractor implements NodeContractor {
     private void extractParams(PMap pMap) {
         params.edgeDifferenceWeight = pMap.getFloat(EDGE_DIFFERENCE_WEIGHT, params.edgeDifferenceWeight);
         params.originalEdgesCountWeight = pMap.getFloat(ORIGINAL_EDGE_COUNT_WEIGHT, params.originalEdgesCountWeight);
+        params.customizable = pMap.getBool(Core.CUSTOMIZABLE, params.customizable);
     }
 
     @Override
@@ -161,19 +163,22 @@ class CoreNodeContractor implements NodeContractor {
             int skippedEdge1 = iter.getSkipped2();
             int skippedEdge2 = iter.getSkipped1();
             // we check if this shortcut already exists (with the same weight) for the other direction and if so we can use
-            // it for both ways instead of adding another one
+            // it for both ways instead of adding another one. A customizable hierarchy keeps the shortcuts directed, since
+            // the weights and skipped edges of both directions may differ after customization.
             boolean bidir = false;
-            for (Shortcut sc : shortcuts) {
-                if (sc.to == iter.getAdjNode()
-                        && Double.doubleToLongBits(sc.weight) == Double.doubleToLongBits(iter.getWeight())
-                        // todo: can we not just compare skippedEdges?
-                        && prepareGraph.getShortcutForPrepareEdge(sc.skippedEdge1) == prepareGraph.getShortcutForPrepareEdge(skippedEdge1)
-                        && prepareGraph.getShortcutForPrepareEdge(sc.skippedEdge2) == prepareGraph.getShortcutForPrepareEdge(skippedEdge2)
-                        && sc.flags == PrepareEncoder.getScFwdDir()) {
-                    sc.flags = PrepareEncoder.getScDirMask();
-                    sc.prepareEdgeBwd = iter.getPrepareEdge();
-                    bidir = true;
-                    break;
+            if (!params.customizable) {
+                for (Shortcut sc : shortcuts) {
+                    if (sc.to == iter.getAdjNode()
+                            && Double.doubleToLongBits(sc.weight) == Double.doubleToLongBits(iter.getWeight())
+                            // todo: can we not just compare skippedEdges?
+                            && prepareGraph.getShortcutForPrepareEdge(sc.skippedEdge1) == prepareGraph.getShortcutForPrepareEdge(skippedEdge1)
+                            && prepareGraph.getShortcutForPrepareEdge(sc.skippedEdge2) == prepareGraph.getShortcutForPrepareEdge(skippedEdge2)
+                            && sc.flags == PrepareEncoder.getScFwdDir()) {
+                        sc.flags = PrepareEncoder.getScDirMask();
+                        sc.prepareEdgeBwd = iter.getPrepareEdge();
+                        bidir = true;
+                        break;
+                    }
                 }
             }
             if (!bidir) {
@@ -234,14 +239,17 @@ class CoreNodeContractor implements NodeContractor {
                 if (Double.isInfinite(existingDirectWeight))
                     continue;
 
-                dijkstraSW.start();
-                dijkstraCount++;
-                double maxWeight = witnessPathSearcher.findUpperBound(toNode, existingDirectWeight, maxVisitedNodes);
-                dijkstraSW.stop();
+                // a customizable hierarchy keeps every shortcut, so that it stays valid when the weights change
+                if (!params.customizable) {
+                    dijkstraSW.start();
+                    dijkstraCount++;
+                    double maxWeight = witnessPathSearcher.findUpperBound(toNode, existingDirectWeight, maxVisitedNodes);
+                    dijkstraSW.stop();
 
-                if (maxWeight <= existingDirectWeight)
-                    // FOUND witness path, so do not add shortcut
-                    continue;
+                    if (maxWeight <= existingDirectWeight)
+                        // FOUND witness path, so do not add shortcut
+                        continue;
+                }
 
                 int time = incomingEdges.getTime() + outgoingEdges.getTime();
 
@@ -313,6 +321,7 @@ class CoreNodeContractor implements NodeContractor {
         // default values were optimized for Unterfranken
         private float edgeDifferenceWeight = 10;
         private float originalEdgesCountWeight = 1;
+        private boolean customizable = false;
     }
 
     private static class Shortcut {
@@ -41,6 +41,7 @@ import org.heigit.ors.routing.graphhopper.extensions.util.ORSParameters.Core;
 public class CorePreparationHandler extends CHPreparationHandler {
 
     private GraphProcessContext processContext;
+    private boolean customizable;
 
     public CorePreparationHandler() {
         super();
@@ -52,6 +53,14 @@ public class CorePreparationHandler extends CHPreparationHandler {
         setPreparationThreads(ghConfig.getInt(PREPARE + "threads", getPreparationThreads()));
         setCHProfiles(ghConfig.getCoreProfiles());
         pMap = ghConfig.asPMap();
+        customizable = ghConfig.getBool(Core.CUSTOMIZABLE, false);
+    }
+
+    /**
+     * @return true if the core is contracted without witness searches so that it can be customized for new weights
+     */
+    public boolean isCustomizable() {
+        return customizable;
     }
 
     @Override
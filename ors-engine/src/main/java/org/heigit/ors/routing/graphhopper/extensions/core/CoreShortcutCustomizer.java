@@ -0,0 +1,331 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.core;
+
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHStorage;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.StopWatch;
+import org.apache.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Recomputes the weights of the shortcuts of a core graph for new edge weights, e.g. after the speeds of a
+ * {@link org.heigit.ors.routing.graphhopper.extensions.storages.SpeedStorage} have been updated, without repeating
+ * the contraction.
+ * <p>
+ * This requires a core which has been prepared with {@link org.heigit.ors.routing.graphhopper.extensions.util.ORSParameters.Core#CUSTOMIZABLE},
+ * so that no shortcut has been dropped because of a witness path which is only valid for the weights at preparation
+ * time. The weight of every shortcut is then the minimum over all its lower triangles, i.e. over all nodes below both
+ * of its endpoints which are connected to them. Shortcuts are processed bottom-up in rounds: all shortcuts of the nodes
+ * of the same depth in the hierarchy depend only on shortcuts of lower rounds and are customized in parallel.
+ * <p>
+ * The node ordering and the topology of the shortcuts are kept, so edges which have been inaccessible during the
+ * preparation remain unusable. A customizable core only contains directed shortcuts, which store the weight and the
+ * skipped edges of their single direction. The times of the shortcuts and the core landmarks are not updated, which is
+ * why core landmarks are not used for a customizable core.
+ */
+public class CoreShortcutCustomizer {
+    private static final Logger LOGGER = Logger.getLogger(CoreShortcutCustomizer.class);
+
+    private final Graph graph;
+    private final CHStorage chStore;
+    private int threads = 1;
+
+    // both directions of every base edge and shortcut; the shortcuts follow the base edges like in the routing graph
+    private float[] weights;
+    // the lower neighbors of each node, every entry holds the neighbor in the upper and the arc key in the lower bits
+    private int[] downStart;
+    private long[] down;
+    private int[] shortcutStart;
+    private int[] shortcutsByNode;
+    private int[] skippedEdges;
+    private int baseEdges;
+
+    public CoreShortcutCustomizer(Graph graph, CHStorage chStore) {
+        this.graph = graph;
+        this.chStore = chStore;
+    }
+
+    public CoreShortcutCustomizer setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+        return this;
+    }
+
+    /**
+     * Recomputes all shortcut weights and skipped edges with the given weighting and writes them to the storage.
+     * Searches must not run at the same time, see {@link #compute(Weighting)} and {@link #apply()}.
+     */
+    public void customize(Weighting weighting) {
+        compute(weighting);
+        apply();
+    }
+
+    /**
+     * Recomputes all shortcut weights and skipped edges with the given weighting without changing the storage, so
+     * searches may continue meanwhile. The results are written by {@link #apply()}.
+     */
+    public CoreShortcutCustomizer compute(Weighting weighting) {
+        StopWatch sw = new StopWatch().start();
+        int nodes = chStore.getNodes();
+        int shortcuts = chStore.getShortcuts();
+        for (int shortcut = 0; shortcut < shortcuts; shortcut++) {
+            long pointer = chStore.toShortcutPointer(shortcut);
+            if (chStore.getFwdAccess(pointer) && chStore.getBwdAccess(pointer))
+                throw new IllegalStateException("The core contains shortcuts for both directions, it has to be prepared again as customizable");
+        }
+        baseEdges = graph.getEdges();
+        int[] levels = new int[nodes];
+        for (int node = 0; node < nodes; node++)
+            levels[node] = chStore.getLevel(chStore.toNodePointer(node));
+
+        weights = new float[2 * (baseEdges + shortcuts)];
+        Arrays.fill(weights, 2 * baseEdges, weights.length, Float.POSITIVE_INFINITY);
+        AllEdgesIterator iter = graph.getAllEdges();
+        while (iter.next()) {
+            weights[2 * iter.getEdge()] = (float) weighting.calcEdgeWeightWithAccess(iter, false);
+            weights[2 * iter.getEdge() + 1] = (float) weighting.calcEdgeWeightWithAccess(iter, true);
+        }
+
+        buildDownwardGraph(levels);
+        int[] nodesByDepth = new int[nodes];
+        int[] depthStart = sortByDepth(levels, nodesByDepth);
+
+        skippedEdges = new int[2 * shortcuts];
+        Arrays.fill(skippedEdges, EdgeIterator.NO_EDGE);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int depth = 0; depth + 1 < depthStart.length; depth++) {
+                int from = depthStart[depth];
+                int to = depthStart[depth + 1];
+                pool.submit(() -> IntStream.range(from, to).parallel().forEach(i -> customizeShortcuts(nodesByDepth[i]))).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Customization of the core has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Customization of the core failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        LOGGER.info("Customized %d shortcuts in %d rounds, took %ss".formatted(shortcuts, depthStart.length - 1, sw.stop().getSeconds()));
+
+        down = null;
+        downStart = null;
+        shortcutStart = null;
+        shortcutsByNode = null;
+        return this;
+    }
+
+    /**
+     * Writes the results of {@link #compute(Weighting)} to the storage. The writes are not atomic, so the caller has to
+     * keep searches on the core from running until this method returns.
+     */
+    public void apply() {
+        if (weights == null)
+            throw new IllegalStateException("The shortcuts have not been computed");
+        int shortcuts = chStore.getShortcuts();
+        for (int shortcut = 0; shortcut < shortcuts; shortcut++) {
+            long pointer = chStore.toShortcutPointer(shortcut);
+            int arc = baseEdges + shortcut;
+            double weight = chStore.getFwdAccess(pointer) ? weights[2 * arc] : weights[2 * arc + 1];
+            chStore.setWeight(pointer, weight);
+            if (skippedEdges[2 * shortcut] != EdgeIterator.NO_EDGE)
+                chStore.setSkippedEdges(pointer, skippedEdges[2 * shortcut], skippedEdges[2 * shortcut + 1]);
+        }
+        weights = null;
+        skippedEdges = null;
+    }
+
+    /**
+     * Collects the lower neighbors of each node sorted by node id and assigns every shortcut to its lower endpoint,
+     * or to its first one if both are core nodes.
+     */
+    private void buildDownwardGraph(int[] levels) {
+        int nodes = levels.length;
+        int shortcuts = chStore.getShortcuts();
+        downStart = new int[nodes + 1];
+        shortcutStart = new int[nodes + 1];
+        AllEdgesIterator iter = graph.getAllEdges();
+        while (iter.next())
+            countArc(levels, iter.getBaseNode(), iter.getAdjNode());
+        for (int shortcut = 0; shortcut < shortcuts; shortcut++) {
+            long pointer = chStore.toShortcutPointer(shortcut);
+            int nodeA = chStore.getNodeA(pointer);
+            int nodeB = chStore.getNodeB(pointer);
+            countArc(levels, nodeA, nodeB);
+            shortcutStart[owner(levels, nodeA, nodeB) + 1]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            downStart[node + 1] += downStart[node];
+            shortcutStart[node + 1] += shortcutStart[node];
+        }
+
+        down = new long[downStart[nodes]];
+        shortcutsByNode = new int[shortcutStart[nodes]];
+        int[] downNext = Arrays.copyOf(downStart, nodes);
+        int[] shortcutNext = Arrays.copyOf(shortcutStart, nodes);
+        iter = graph.getAllEdges();
+        while (iter.next())
+            addArc(levels, downNext, iter.getEdge(), iter.getBaseNode(), iter.getAdjNode());
+        for (int shortcut = 0; shortcut < shortcuts; shortcut++) {
+            long pointer = chStore.toShortcutPointer(shortcut);
+            int nodeA = chStore.getNodeA(pointer);
+            int nodeB = chStore.getNodeB(pointer);
+            addArc(levels, downNext, baseEdges + shortcut, nodeA, nodeB);
+            shortcutsByNode[shortcutNext[owner(levels, nodeA, nodeB)]++] = shortcut;
+        }
+        for (int node = 0; node < nodes; node++)
+            Arrays.sort(down, downStart[node], downStart[node + 1]);
+    }
+
+    private void countArc(int[] levels, int first, int second) {
+        if (levels[first] < levels[second])
+            downStart[second + 1]++;
+        else if (levels[second] < levels[first])
+            downStart[first + 1]++;
+    }
+
+    /**
+     * The key of an arc selects the direction from its lower to its upper node in {@link #weights}, the opposite
+     * direction is found at key ^ 1.
+     */
+    private void addArc(int[] levels, int[] downNext, int arc, int first, int second) {
+        if (levels[first] < levels[second])
+            down[downNext[second]++] = ((long) first << 32) | (2L * arc);
+        else if (levels[second] < levels[first])
+            down[downNext[first]++] = ((long) second << 32) | (2L * arc + 1);
+    }
+
+    private static int owner(int[] levels, int nodeA, int nodeB) {
+        return levels[nodeB] < levels[nodeA] ? nodeB : nodeA;
+    }
+
+    /**
+     * Groups the nodes by their depth, which is one more than the largest depth of their lower neighbors.
+     *
+     * @return the start index of each depth in nodesByDepth
+     */
+    private int[] sortByDepth(int[] levels, int[] nodesByDepth) {
+        int nodes = levels.length;
+        long[] byLevel = new long[nodes];
+        for (int node = 0; node < nodes; node++)
+            byLevel[node] = ((long) levels[node] << 32) | node;
+        Arrays.sort(byLevel);
+
+        int[] depths = new int[nodes];
+        int maxDepth = 0;
+        for (long entry : byLevel) {
+            int node = (int) entry;
+            int depth = 0;
+            for (int i = downStart[node]; i < downStart[node + 1]; i++)
+                depth = Math.max(depth, depths[(int) (down[i] >>> 32)] + 1);
+            depths[node] = depth;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        int[] depthStart = new int[maxDepth + 2];
+        for (int node = 0; node < nodes; node++)
+            depthStart[depths[node] + 1]++;
+        for (int depth = 0; depth <= maxDepth; depth++)
+            depthStart[depth + 1] += depthStart[depth];
+        int[] next = Arrays.copyOf(depthStart, maxDepth + 1);
+        for (int node = 0; node < nodes; node++)
+            nodesByDepth[next[depths[node]]++] = node;
+        return depthStart;
+    }
+
+    private void customizeShortcuts(int node) {
+        for (int i = shortcutStart[node]; i < shortcutStart[node + 1]; i++)
+            customizeShortcut(shortcutsByNode[i]);
+    }
+
+    private void customizeShortcut(int shortcut) {
+        long pointer = chStore.toShortcutPointer(shortcut);
+        int nodeA = chStore.getNodeA(pointer);
+        int nodeB = chStore.getNodeB(pointer);
+        boolean fwd = chStore.getFwdAccess(pointer);
+
+        double weightFwd = Double.POSITIVE_INFINITY;
+        double weightBwd = Double.POSITIVE_INFINITY;
+        int fwdKeyA = -1;
+        int fwdKeyB = -1;
+        int bwdKeyA = -1;
+        int bwdKeyB = -1;
+        // intersect the sorted lower neighbors of both endpoints, there may be several arcs to the same neighbor
+        int i = downStart[nodeA];
+        int j = downStart[nodeB];
+        int endA = downStart[nodeA + 1];
+        int endB = downStart[nodeB + 1];
+        while (i < endA && j < endB) {
+            int lowerA = (int) (down[i] >>> 32);
+            int lowerB = (int) (down[j] >>> 32);
+            if (lowerA < lowerB) {
+                i++;
+            } else if (lowerB < lowerA) {
+                j++;
+            } else {
+                int runA = i;
+                while (runA < endA && (int) (down[runA] >>> 32) == lowerA)
+                    runA++;
+                int runB = j;
+                while (runB < endB && (int) (down[runB] >>> 32) == lowerB)
+                    runB++;
+                for (int a = i; a < runA; a++) {
+                    int keyA = (int) down[a];
+                    for (int b = j; b < runB; b++) {
+                        int keyB = (int) down[b];
+                        // nodeA -> lower -> nodeB
+                        double weight = (double) weights[keyA ^ 1] + weights[keyB];
+                        if (weight < weightFwd) {
+                            weightFwd = weight;
+                            fwdKeyA = keyA;
+                            fwdKeyB = keyB;
+                        }
+                        // nodeB -> lower -> nodeA
+                        weight = (double) weights[keyB ^ 1] + weights[keyA];
+                        if (weight < weightBwd) {
+                            weightBwd = weight;
+                            bwdKeyA = keyA;
+                            bwdKeyB = keyB;
+                        }
+                    }
+                }
+                i = runA;
+                j = runB;
+            }
+        }
+
+        // the shortcut leads from nodeA to nodeB if it is a forward shortcut and from nodeB to nodeA otherwise
+        double weight = fwd ? weightFwd : weightBwd;
+        int keyA = fwd ? fwdKeyA : bwdKeyA;
+        int keyB = fwd ? fwdKeyB : bwdKeyB;
+        int arc = baseEdges + shortcut;
+        weights[2 * arc] = fwd ? (float) weight : Float.POSITIVE_INFINITY;
+        weights[2 * arc + 1] = fwd ? Float.POSITIVE_INFINITY : (float) weight;
+        if (keyA >= 0) {
+            // like during the contraction the first skipped edge is the one at the start of the shortcut
+            int edgeA = keyA >>> 1;
+            int edgeB = keyB >>> 1;
+            skippedEdges[2 * shortcut] = fwd ? edgeA : edgeB;
+            skippedEdges[2 * shortcut + 1] = fwd ? edgeB : edgeA;
+        }
+    }
+}
@@ -44,6 +44,14 @@ public class PrepareCoreLandmarks extends PrepareLandmarks {
         coreLandmarkStorage.setCoreNodeIdMap(coreNodeIdMap);
     }
 
+    /**
+     * @see CoreLandmarkStorage#setLandmarkThreads(int)
+     */
+    public PrepareCoreLandmarks setLandmarkThreads(int landmarkThreads) {
+        ((CoreLandmarkStorage) getLandmarkStorage()).setLandmarkThreads(landmarkThreads);
+        return this;
+    }
+
     @Override
     public LandmarkStorage createLandmarkStorage(Directory dir, GraphHopperStorage graph, LMConfig lmConfig, int landmarks) {
         if (!(lmConfig instanceof CoreLMConfig))
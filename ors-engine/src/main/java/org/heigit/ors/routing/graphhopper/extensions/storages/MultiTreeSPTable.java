@@ -0,0 +1,162 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.carrotsearch.hppc.IntIntHashMap;
+import com.graphhopper.util.EdgeIterator;
+
+import java.util.Arrays;
+
+/**
+ * Array based counterpart of {@link MultiTreeSPEntry}. Every touched node gets a slot, and the per-tree values
+ * (weight, edge, parent slot and update flag) of a slot are stored at {@code slot * treeCount + tree} in flat
+ * primitive arrays instead of one {@link MultiTreeSPEntryItem} object per tree.
+ */
+public class MultiTreeSPTable {
+    public static final int NO_SLOT = -1;
+
+    private final int treeCount;
+    private final IntIntHashMap nodeSlots;
+    private int slotCount;
+    private int[] adjNodes;
+    private boolean[] visited;
+    private double[] totalWeights;
+    private double[] weights;
+    private int[] edges;
+    private int[] parents;
+    private boolean[] updates;
+
+    public MultiTreeSPTable(int treeCount, int expectedNodes) {
+        this.treeCount = treeCount;
+        int capacity = Math.max(expectedNodes, 16);
+        nodeSlots = new IntIntHashMap(capacity);
+        adjNodes = new int[capacity];
+        visited = new boolean[capacity];
+        totalWeights = new double[capacity];
+        weights = new double[capacity * treeCount];
+        edges = new int[capacity * treeCount];
+        parents = new int[capacity * treeCount];
+        updates = new boolean[capacity * treeCount];
+    }
+
+    public int getTreeCount() {
+        return treeCount;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public int getSlot(int node) {
+        return nodeSlots.getOrDefault(node, NO_SLOT);
+    }
+
+    /**
+     * Creates a slot for node whose trees are all unreached.
+     */
+    public int addSlot(int node) {
+        ensureCapacity(slotCount + 1);
+        int slot = slotCount++;
+        nodeSlots.put(node, slot);
+        adjNodes[slot] = node;
+        visited[slot] = false;
+        totalWeights[slot] = 0.0;
+        int offset = slot * treeCount;
+        Arrays.fill(weights, offset, offset + treeCount, Double.POSITIVE_INFINITY);
+        Arrays.fill(edges, offset, offset + treeCount, EdgeIterator.NO_EDGE);
+        Arrays.fill(parents, offset, offset + treeCount, NO_SLOT);
+        Arrays.fill(updates, offset, offset + treeCount, false);
+        return slot;
+    }
+
+    public int getAdjNode(int slot) {
+        return adjNodes[slot];
+    }
+
+    public boolean isVisited(int slot) {
+        return visited[slot];
+    }
+
+    public void setVisited(int slot, boolean value) {
+        visited[slot] = value;
+    }
+
+    public double getTotalWeight(int slot) {
+        return totalWeights[slot];
+    }
+
+    /**
+     * Recomputes the sum of all reached tree weights of slot, which is used as its queue priority.
+     */
+    public double updateTotalWeight(int slot) {
+        double total = 0.0;
+        int offset = slot * treeCount;
+        for (int i = offset; i < offset + treeCount; i++) {
+            if (weights[i] != Double.POSITIVE_INFINITY)
+                total += weights[i];
+        }
+        totalWeights[slot] = total;
+        return total;
+    }
+
+    public double getWeight(int slot, int tree) {
+        return weights[slot * treeCount + tree];
+    }
+
+    public int getEdge(int slot, int tree) {
+        return edges[slot * treeCount + tree];
+    }
+
+    public int getParent(int slot, int tree) {
+        return parents[slot * treeCount + tree];
+    }
+
+    public boolean isUpdate(int slot, int tree) {
+        return updates[slot * treeCount + tree];
+    }
+
+    public void setWeight(int slot, int tree, double weight) {
+        weights[slot * treeCount + tree] = weight;
+    }
+
+    public void setUpdate(int slot, int tree, boolean value) {
+        updates[slot * treeCount + tree] = value;
+    }
+
+    public void resetUpdate(int slot, boolean value) {
+        int offset = slot * treeCount;
+        Arrays.fill(updates, offset, offset + treeCount, value);
+    }
+
+    public void set(int slot, int tree, double weight, int edge, int parent, boolean update) {
+        int index = slot * treeCount + tree;
+        weights[index] = weight;
+        edges[index] = edge;
+        parents[index] = parent;
+        updates[index] = update;
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots <= adjNodes.length)
+            return;
+        int capacity = Math.max(slots, adjNodes.length * 2);
+        adjNodes = Arrays.copyOf(adjNodes, capacity);
+        visited = Arrays.copyOf(visited, capacity);
+        totalWeights = Arrays.copyOf(totalWeights, capacity);
+        weights = Arrays.copyOf(weights, capacity * treeCount);
+        edges = Arrays.copyOf(edges, capacity * treeCount);
+        parents = Arrays.copyOf(parents, capacity * treeCount);
+        updates = Arrays.copyOf(updates, capacity * treeCount);
+    }
+}
@@ -0,0 +1,179 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.coll.GHBitSet;
+import com.graphhopper.coll.GHBitSetImpl;
+import com.graphhopper.routing.ch.ShortcutUnpacker;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.*;
+import com.graphhopper.util.EdgeIterator;
+
+/**
+ * Stores the unpacked distance and travel time of every shortcut of a CH or core graph, so that matrix
+ * algorithms can sum up shortcut values instead of recursively unpacking them for every request.
+ * <p>
+ * For each shortcut three floats are stored: the distance in meters, the time in seconds to travel from the
+ * endpoint with the lower node id to the one with the higher node id and the time in the opposite direction.
+ * Directions in which the shortcut cannot be traversed hold {@link Double#NaN}.
+ */
+public class ShortcutMetricsStorage implements Storable<ShortcutMetricsStorage> {
+    private static final int DISTANCE = 0;
+    private static final int TIME_UP = 4;
+    private static final int TIME_DOWN = 8;
+    private static final int BYTES_PER_SHORTCUT = 12;
+
+    private final DataAccess shortcutMetrics;
+    private final RoutingCHGraph chGraph;
+    private int baseEdges;
+    private int shortcuts;
+
+    public ShortcutMetricsStorage(Directory dir, RoutingCHGraph chGraph, String name) {
+        this.chGraph = chGraph;
+        shortcutMetrics = dir.find("shortcut_metrics_" + name);
+    }
+
+    /**
+     * Loads the stored metrics. Returns false if there are none or if they do not belong to the current graph.
+     */
+    public boolean loadExisting() {
+        if (!shortcutMetrics.loadExisting())
+            return false;
+        baseEdges = shortcutMetrics.getHeader(0);
+        shortcuts = shortcutMetrics.getHeader(4);
+        return baseEdges == chGraph.getBaseGraph().getEdges() && shortcuts == chGraph.getEdges() - baseEdges;
+    }
+
+    /**
+     * Unpacks every shortcut of the graph and stores its metrics. The times are computed with the given weighting,
+     * which has to be the one the graph has been prepared with.
+     */
+    public void prepare(Weighting weighting) {
+        baseEdges = chGraph.getBaseGraph().getEdges();
+        shortcuts = chGraph.getEdges() - baseEdges;
+        shortcutMetrics.create(1000);
+        shortcutMetrics.ensureCapacity((long) shortcuts * BYTES_PER_SHORTCUT);
+        shortcutMetrics.setHeader(0, baseEdges);
+        shortcutMetrics.setHeader(4, shortcuts);
+        update(weighting);
+    }
+
+    /**
+     * Recomputes the metrics of the prepared or loaded storage, e.g. after the shortcuts of the graph have been
+     * customized for new weights. The number of shortcuts must not have changed.
+     */
+    public void update(Weighting weighting) {
+        double[] sum = new double[2];
+        boolean[] calcDistance = new boolean[1];
+        ShortcutUnpacker unpacker = new ShortcutUnpacker(chGraph, (edge, reverse, prevOrNextEdgeId) -> {
+            if (calcDistance[0])
+                sum[0] += edge.getDistance();
+            sum[1] += weighting.calcEdgeMillis(edge, reverse) / 1000.0;
+        }, false);
+
+        GHBitSet done = new GHBitSetImpl(shortcuts);
+        RoutingCHEdgeExplorer outExplorer = chGraph.createOutEdgeExplorer();
+        RoutingCHEdgeExplorer inExplorer = chGraph.createInEdgeExplorer();
+        for (int node = 0; node < chGraph.getNodes(); node++) {
+            for (RoutingCHEdgeExplorer explorer : new RoutingCHEdgeExplorer[]{outExplorer, inExplorer}) {
+                RoutingCHEdgeIterator iter = explorer.setBaseNode(node);
+                while (iter.next()) {
+                    if (!iter.isShortcut() || done.contains(iter.getEdge() - baseEdges))
+                        continue;
+                    done.add(iter.getEdge() - baseEdges);
+
+                    int edge = iter.getEdge();
+                    int higherNode = Math.max(iter.getBaseNode(), iter.getAdjNode());
+                    // oriented from the lower to the higher node id
+                    RoutingCHEdgeIteratorState state = chGraph.getEdgeIteratorState(edge, higherNode);
+                    double distance = Double.NaN;
+                    double timeUp = Double.NaN;
+                    double timeDown = Double.NaN;
+
+                    if (Double.isFinite(state.getWeight(false))) {
+                        sum[0] = 0;
+                        sum[1] = 0;
+                        calcDistance[0] = true;
+                        unpacker.visitOriginalEdgesFwd(edge, higherNode, false, EdgeIterator.NO_EDGE);
+                        distance = sum[0];
+                        timeUp = sum[1];
+                    }
+                    if (Double.isFinite(state.getWeight(true))) {
+                        sum[0] = 0;
+                        sum[1] = 0;
+                        calcDistance[0] = Double.isNaN(distance);
+                        unpacker.visitOriginalEdgesBwd(edge, higherNode, false, EdgeIterator.NO_EDGE);
+                        if (Double.isNaN(distance))
+                            distance = sum[0];
+                        timeDown = sum[1];
+                    }
+
+                    long pointer = (long) (edge - baseEdges) * BYTES_PER_SHORTCUT;
+                    shortcutMetrics.setInt(pointer + DISTANCE, Float.floatToRawIntBits((float) distance));
+                    shortcutMetrics.setInt(pointer + TIME_UP, Float.floatToRawIntBits((float) timeUp));
+                    shortcutMetrics.setInt(pointer + TIME_DOWN, Float.floatToRawIntBits((float) timeDown));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if metrics are stored for the given edge of the graph, i.e. if it is one of the shortcuts
+     * the storage has been prepared for. Virtual edges of a query graph are never covered.
+     */
+    public boolean hasMetrics(int chEdge) {
+        return chEdge >= baseEdges && chEdge < baseEdges + shortcuts;
+    }
+
+    /**
+     * @return the distance of the shortcut in meters
+     */
+    public double getDistance(int chEdge) {
+        return Float.intBitsToFloat(shortcutMetrics.getInt(pointer(chEdge) + DISTANCE));
+    }
+
+    /**
+     * @return the time in seconds to travel along the shortcut from fromNode to toNode, or {@link Double#NaN} if
+     * the shortcut cannot be traversed in this direction
+     */
+    public double getTime(int chEdge, int fromNode, int toNode) {
+        return Float.intBitsToFloat(shortcutMetrics.getInt(pointer(chEdge) + (fromNode < toNode ? TIME_UP : TIME_DOWN)));
+    }
+
+    private long pointer(int chEdge) {
+        return (long) (chEdge - baseEdges) * BYTES_PER_SHORTCUT;
+    }
+
+    public ShortcutMetricsStorage create(long byteCount) {
+        throw new IllegalStateException("Do not call ShortcutMetricsStorage.create directly");
+    }
+
+    public void flush() {
+        shortcutMetrics.flush();
+    }
+
+    @Override
+    public void close() {
+        shortcutMetrics.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return shortcutMetrics.isClosed();
+    }
+
+    public long getCapacity() {
+        return shortcutMetrics.getCapacity();
+    }
+}
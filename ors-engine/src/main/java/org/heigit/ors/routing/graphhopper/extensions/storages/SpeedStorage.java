@@ -1,15 +1,29 @@
 package org.heigit.ors.routing.graphhopper.extensions.storages;
 
+import com.carrotsearch.hppc.IntArrayList;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.storage.DataAccess;
 import com.graphhopper.storage.Directory;
 import com.graphhopper.storage.Graph;
 import com.graphhopper.storage.GraphExtension;
+import org.heigit.ors.routing.graphhopper.extensions.ORSSpeedUpdate;
+
+import java.util.Collection;
 
 /**
  * Simple storage designed to hold edgeID - direction - speed
  * Speeds should be in kph
  * Indexed by edgeIds
+ * <p>
+ * Speeds can be updated at runtime with {@link #applyUpdates(Collection, long)}. The live speeds are kept in two
+ * buffers: the updates are written to the back buffer, which is then swapped with the front buffer that is read by
+ * the searches. Readers therefore never lock, they only see each batch of updates either completely or partly
+ * while the next batch is being applied. The buffers start with the stored speeds, which are restored when a live
+ * speed expires, and speeds stored with {@link #setSpeed(int, boolean, byte)} are written to both buffers unless a
+ * live speed overrides them.
+ * <p>
+ * Like the stored speeds, the live speeds are kept in signed bytes with {@link Byte#MIN_VALUE} marking edges without a
+ * speed. Speeds therefore range from 0 to 127 km/h, updates with higher speeds are rejected instead of being capped.
  *
  * @author Hendrik Leuschner
  */
@@ -17,9 +31,20 @@ public class SpeedStorage implements GraphExtension {
     private static final long BYTE_COUNT = 2; //One byte for forward speed, one byte for backward speed.
     private static final long BYTE_POS_SPEED = 0;
     private static final long BYTE_POS_SPEED_REVERSE = 1;
+    private static final long MILLISECONDS_PER_MINUTE = 60000L;
+    private static final int NO_EXPIRY = Integer.MAX_VALUE;
     protected DataAccess speedData;
     protected int edgeCount;
     protected FlagEncoder flagEncoder;
+    private Graph graph;
+
+    // live speeds, indexed by 2 * edgeId + direction
+    private volatile byte[] liveSpeeds;
+    private byte[] backSpeeds;
+    // expiry of the live speeds in minutes since the epoch, NO_EXPIRY if they do not expire and 0 if the stored speed
+    // is used
+    private int[] expiresAt;
+    private int lastExpiryMinute;
 
     public SpeedStorage(FlagEncoder flagEncoder) {
         this.flagEncoder = flagEncoder;
@@ -27,6 +52,7 @@ public class SpeedStorage implements GraphExtension {
 
     @Override
     public void init(Graph graph, Directory directory) {
+        this.graph = graph;
         this.speedData = directory.find("ext_speeds_" + this.flagEncoder.toString());
     }
 
@@ -54,9 +80,20 @@ public class SpeedStorage implements GraphExtension {
         return this;
     }
 
-    public void setSpeed(int edgeId, boolean reverse, byte speed) {
+    /**
+     * Stores the speed of an edge. Once live speeds have been applied, it is also used by the searches unless a live
+     * speed of the edge overrides it.
+     */
+    public synchronized void setSpeed(int edgeId, boolean reverse, byte speed) {
         checkEdgeInBounds(edgeId);
-        speedData.setBytes(BYTE_COUNT * edgeId + (reverse ? BYTE_POS_SPEED_REVERSE : BYTE_POS_SPEED), new byte[]{speed}, 1);
+        speedData.setByte(BYTE_COUNT * edgeId + (reverse ? BYTE_POS_SPEED_REVERSE : BYTE_POS_SPEED), speed);
+        if (liveSpeeds != null) {
+            int index = speedIndex(edgeId, reverse);
+            if (index < expiresAt.length && expiresAt[index] == 0) {
+                backSpeeds[index] = speed;
+                liveSpeeds[index] = speed;
+            }
+        }
     }
 
     public void setSpeed(int edgeId, boolean reverse, int speed) {
@@ -66,16 +103,112 @@ public class SpeedStorage implements GraphExtension {
     }
 
     public int getSpeed(int edgeId, boolean reverse) {
+        byte[] speeds = liveSpeeds;
+        if (speeds != null) {
+            int index = speedIndex(edgeId, reverse);
+            return index < speeds.length ? speeds[index] : Byte.MIN_VALUE;
+        }
         checkEdgeInBounds(edgeId);
-        byte[] speedByte = new byte[1];
-        speedData.getBytes(BYTE_COUNT * edgeId + (reverse ? BYTE_POS_SPEED_REVERSE : BYTE_POS_SPEED), speedByte, 1);
-        return speedByte[0];
+        return speedData.getByte(BYTE_COUNT * edgeId + (reverse ? BYTE_POS_SPEED_REVERSE : BYTE_POS_SPEED));
     }
 
     public boolean hasSpeed(int edgeId, boolean reverse) {
         return this.getSpeed(edgeId, reverse) != Byte.MIN_VALUE;
     }
 
+    /**
+     * @return The speed applied with {@link #applyUpdates(Collection, long)} or Byte.MIN_VALUE if there is none.
+     */
+    public int getLiveSpeed(int edgeId, boolean reverse) {
+        byte[] speeds = liveSpeeds;
+        if (speeds == null)
+            return Byte.MIN_VALUE;
+        int index = speedIndex(edgeId, reverse);
+        return index < speeds.length ? speeds[index] : Byte.MIN_VALUE;
+    }
+
+    /**
+     * Applies a batch of live speed updates and removes the live speeds which have expired by the given time.
+     * Updates for unknown edges or with speeds outside the range of 0 to {@link Byte#MAX_VALUE} are rejected.
+     * Concurrent calls are serialized, searches keep reading the speeds without locking.
+     *
+     * @param updates The speed updates; updates without a duration do not expire.
+     * @param time    The current time in unix milliseconds.
+     * @return The number of applied, rejected and expired speeds.
+     */
+    public synchronized UpdateResult applyUpdates(Collection<ORSSpeedUpdate> updates, long time) {
+        ensureLiveSpeeds();
+        int minute = (int) (time / MILLISECONDS_PER_MINUTE);
+        byte[] back = backSpeeds;
+        // the changed indices are recorded to bring the other buffer up to date after the swap
+        IntArrayList changes = new IntArrayList(updates.size());
+
+        int expired = 0;
+        if (minute > lastExpiryMinute) {
+            for (int index = 0; index < expiresAt.length; index++) {
+                if (expiresAt[index] != 0 && expiresAt[index] <= minute) {
+                    expiresAt[index] = 0;
+                    back[index] = getStoredSpeed(index);
+                    changes.add(index);
+                    expired++;
+                }
+            }
+            lastExpiryMinute = minute;
+        }
+
+        int applied = 0;
+        int maxEdgeId = back.length / (int) BYTE_COUNT - 1;
+        for (ORSSpeedUpdate update : updates) {
+            if (update.getEdgeId() < 0 || update.getEdgeId() > maxEdgeId || update.getSpeed() < 0 || update.getSpeed() > Byte.MAX_VALUE)
+                continue;
+            int index = speedIndex(update.getEdgeId(), update.isReverse());
+            expiresAt[index] = update.hasDurationMin() ? minute + update.getDurationMin() : NO_EXPIRY;
+            back[index] = (byte) update.getSpeed();
+            changes.add(index);
+            applied++;
+        }
+
+        if (!changes.isEmpty()) {
+            byte[] front = liveSpeeds;
+            liveSpeeds = back;
+            for (int i = 0; i < changes.size(); i++) {
+                int index = changes.get(i);
+                front[index] = back[index];
+            }
+            backSpeeds = front;
+        }
+        return new UpdateResult(applied, updates.size() - applied, expired);
+    }
+
+    private void ensureLiveSpeeds() {
+        if (liveSpeeds != null)
+            return;
+        int edges = Math.max(graph == null ? 0 : graph.getEdges(), (int) (speedData.getCapacity() / BYTE_COUNT));
+        byte[] speeds = new byte[(int) (BYTE_COUNT * edges)];
+        for (int index = 0; index < speeds.length; index++)
+            speeds[index] = getStoredSpeed(index);
+        backSpeeds = speeds.clone();
+        expiresAt = new int[speeds.length];
+        liveSpeeds = speeds;
+    }
+
+    /**
+     * @param index the index of the speed in the live buffers, which is also its position in the stored data
+     */
+    private byte getStoredSpeed(int index) {
+        return index < speedData.getCapacity() ? speedData.getByte(index) : Byte.MIN_VALUE;
+    }
+
+    private static int speedIndex(int edgeId, boolean reverse) {
+        return (int) (BYTE_COUNT * edgeId + (reverse ? BYTE_POS_SPEED_REVERSE : BYTE_POS_SPEED));
+    }
+
+    public record UpdateResult(int applied, int rejected, int expired) {
+        public boolean hasChanges() {
+            return applied > 0 || expired > 0;
+        }
+    }
+
     @Override
     public long getCapacity() {
         return speedData.getCapacity();
@@ -18,8 +18,6 @@ import com.graphhopper.util.GHUtility;
 import org.heigit.ors.routing.graphhopper.extensions.reader.traffic.TrafficEnums;
 
 import java.time.ZoneId;
-import java.util.Calendar;
-import java.util.TimeZone;
 
 /**
  * Graph storage class for the Border Restriction routing
@@ -69,6 +67,16 @@ public class TrafficGraphStorage implements GraphExtension {
     public static final int DAILY_TRAFFIC_PATTERNS_BYTE_COUNT = 96; // The pattern value is transferred to mph to allow byte storage. 1 byte * 4 (15min per Hour) * 24 hours
     public static final int MAX_DAILY_TRAFFIC_SPEED_BYTE_COUNT = 1; // Maximum over daily traffic pattern values
 
+    private static final long MILLISECONDS_PER_HOUR = 3600000L;
+    public static final long MILLISECONDS_PER_SLOT = 900000L; // the patterns have a resolution of 15 minutes
+    public static final int SLOTS_PER_WEEK = 7 * DAILY_TRAFFIC_PATTERNS_BYTE_COUNT;
+    private static final int EPOCH_WEEK_SLOT = 4 * DAILY_TRAFFIC_PATTERNS_BYTE_COUNT; // 1970-01-01 was a Thursday
+    // weekdays indexed by the day of the week slot, starting with Sunday
+    private static final TrafficEnums.WeekDay[] WEEK_DAYS = {
+            TrafficEnums.WeekDay.SUNDAY, TrafficEnums.WeekDay.MONDAY, TrafficEnums.WeekDay.TUESDAY,
+            TrafficEnums.WeekDay.WEDNESDAY, TrafficEnums.WeekDay.THURSDAY, TrafficEnums.WeekDay.FRIDAY,
+            TrafficEnums.WeekDay.SATURDAY};
+
     private DataAccess orsEdgesProperties; // RAMDataAccess
     private DataAccess orsEdgesTrafficLinkLookup; // RAMDataAccess
     private DataAccess orsSpeedPatternLookup; // RAMDataAccess
@@ -249,12 +257,11 @@ public class TrafficGraphStorage implements GraphExtension {
      * @return The value of the requested property
      */
     public int getOrsRoadProperties(int edgeId, Property prop) {
-        byte[] propertyValue = new byte[1];
         long edgePointer = (long) edgeId * edgePropertyEntryBytes;
         if (prop == Property.ROAD_TYPE) {
-            orsEdgesProperties.getBytes(edgePointer + LOCATION_ROAD_TYPE, propertyValue, 1);
+            return Byte.toUnsignedInt(orsEdgesProperties.getByte(edgePointer + LOCATION_ROAD_TYPE));
         }
-        return Byte.toUnsignedInt(propertyValue[0]);
+        return 0;
     }
 
     /**
@@ -266,14 +273,18 @@ public class TrafficGraphStorage implements GraphExtension {
      * @param weekday Enum of Weekday to get the pattern for.
      **/
     public int getEdgeIdTrafficPatternLookup(int edgeKey, TrafficEnums.WeekDay weekday) {
+        return getEdgeIdTrafficPatternLookup(edgeKey, weekday.getByteLocation());
+    }
+
+    private int getEdgeIdTrafficPatternLookup(int edgeKey, int weekdayByteLocation) {
         int edgeId = GHUtility.getEdgeFromEdgeKey(edgeKey);
         if (invalidEdgeId(edgeId))
             return 0;
         long edgePointer = (long) edgeId * edgeLinkLookupEntryBytes;
         if (isForward(edgeKey))
-            return Short.toUnsignedInt(orsEdgesTrafficLinkLookup.getShort(edgePointer + LOCATION_FORWARD_TRAFFIC + weekday.getByteLocation()));
+            return Short.toUnsignedInt(orsEdgesTrafficLinkLookup.getShort(edgePointer + LOCATION_FORWARD_TRAFFIC + weekdayByteLocation));
         else
-            return Short.toUnsignedInt(orsEdgesTrafficLinkLookup.getShort(edgePointer + LOCATION_BACKWARD_TRAFFIC + weekday.getByteLocation()));
+            return Short.toUnsignedInt(orsEdgesTrafficLinkLookup.getShort(edgePointer + LOCATION_BACKWARD_TRAFFIC + weekdayByteLocation));
     }
 
     private boolean invalidEdgeId(int edgeId) {
@@ -295,12 +306,10 @@ public class TrafficGraphStorage implements GraphExtension {
      **/
     private int getEdgeIdTrafficPatternPriority(int edgeId, boolean forward) {
         long edgePointer = (long) edgeId * edgeLinkLookupEntryBytes;
-        byte[] priority = new byte[1];
         if (forward)
-            orsEdgesTrafficLinkLookup.getBytes(edgePointer + LOCATION_FORWARD_TRAFFIC_PRIORITY, priority, 1);
+            return Byte.toUnsignedInt(orsEdgesTrafficLinkLookup.getByte(edgePointer + LOCATION_FORWARD_TRAFFIC_PRIORITY));
         else
-            orsEdgesTrafficLinkLookup.getBytes(edgePointer + LOCATION_BACKWARD_TRAFFIC_PRIORITY, priority, 1);
-        return Byte.toUnsignedInt(priority[0]);
+            return Byte.toUnsignedInt(orsEdgesTrafficLinkLookup.getByte(edgePointer + LOCATION_BACKWARD_TRAFFIC_PRIORITY));
     }
 
     /**
@@ -313,21 +322,20 @@ public class TrafficGraphStorage implements GraphExtension {
      * @param minute    Minute to get the patterns for.
      **/
     public int getTrafficSpeed(int patternId, int hour, int minute) {
-        byte[] values = new byte[1];
-        int minutePointer = generateMinutePointer(minute);
+        return getTrafficSpeed(patternId, hour * 4 + generateMinutePointer(minute));
+    }
+
+    private int getTrafficSpeed(int patternId, int daySlot) {
         long patternPointer = (long) patternId * patternEntryBytes;
-        orsSpeedPatternLookup.getBytes(patternPointer + ((hour * 4L) + minutePointer), values, 1);
-        return Byte.toUnsignedInt(values[0]);
+        return Byte.toUnsignedInt(orsSpeedPatternLookup.getByte(patternPointer + daySlot));
     }
 
     /**
      * Maximum speed value encountered in a daily traffic pattern
      **/
     private int getMaxTrafficSpeed(int patternId) {
-        byte[] value = new byte[1];
         long patternPointer = (long) patternId * patternEntryBytes;
-        orsSpeedPatternLookup.getBytes(patternPointer + DAILY_TRAFFIC_PATTERNS_BYTE_COUNT, value, 1);
-        return Byte.toUnsignedInt(value[0]);
+        return Byte.toUnsignedInt(orsSpeedPatternLookup.getByte(patternPointer + DAILY_TRAFFIC_PATTERNS_BYTE_COUNT));
     }
 
     /**
@@ -338,8 +346,9 @@ public class TrafficGraphStorage implements GraphExtension {
      * Only the weekday, hour, minute are taken into consideration since the traffic information are generalized to that resolution at the moment.
      * <p>
      * ## Time decoding ##
-     * The unix time is decoded using GMT+1 for german local time.
-     * For the time being we will use the german UTC until more traffic data comes in.
+     * The unix time is shifted by the time zone offset of the request and decoded arithmetically into a slot of the
+     * week, see {@link #getWeekSlot(long, int)}. This is called for every edge of a time-dependent search, so it
+     * must not allocate.
      * <p>
      * <p>
      * ## TODO's ##
@@ -347,20 +356,39 @@ public class TrafficGraphStorage implements GraphExtension {
      *
      * @param edgeKey          Internal Edge Key
      * @param unixMilliSeconds Time in unix milliseconds.
+     * @param timeZoneOffset   Offset of the local time to UTC in hours.
      * @return Returns the speed value in kph. If no value is found -1 is returned.
      */
     public int getSpeedValue(int edgeKey, long unixMilliSeconds, int timeZoneOffset) {
-        Calendar calendarDate = Calendar.getInstance(TimeZone.getTimeZone("GMT+" + timeZoneOffset));
-        calendarDate.setTimeInMillis(unixMilliSeconds);
-        int calendarWeekDay = calendarDate.get(Calendar.DAY_OF_WEEK);
-        int hour = calendarDate.get(Calendar.HOUR_OF_DAY);
-        int minute = calendarDate.get(Calendar.MINUTE);
-        int patternId = getEdgeIdTrafficPatternLookup(edgeKey, TrafficEnums.WeekDay.valueOfCanonical(calendarWeekDay));
+        return getSpeedValue(edgeKey, getWeekSlot(unixMilliSeconds, timeZoneOffset));
+    }
+
+    /**
+     * @param edgeKey  Internal Edge Key
+     * @param weekSlot Quarter hour of the week as returned by {@link #getWeekSlot(long, int)}.
+     * @return Returns the speed value in kph. If no value is found -1 is returned.
+     */
+    public int getSpeedValue(int edgeKey, int weekSlot) {
+        int day = weekSlot / DAILY_TRAFFIC_PATTERNS_BYTE_COUNT;
+        int patternId = getEdgeIdTrafficPatternLookup(edgeKey, WEEK_DAYS[day].getByteLocation());
         if (patternId > 0)
-            return getTrafficSpeed(patternId, hour, minute);
+            return getTrafficSpeed(patternId, weekSlot - day * DAILY_TRAFFIC_PATTERNS_BYTE_COUNT);
         return -1;
     }
 
+    /**
+     * Decodes a unix time into the quarter hour of the week in local time, starting with 0 at Sunday 00:00.
+     *
+     * @param unixMilliSeconds Time in unix milliseconds.
+     * @param timeZoneOffset   Offset of the local time to UTC in hours.
+     * @return The quarter hour of the week in the range [0, 672).
+     */
+    public static int getWeekSlot(long unixMilliSeconds, int timeZoneOffset) {
+        long localMilliSeconds = unixMilliSeconds + timeZoneOffset * MILLISECONDS_PER_HOUR;
+        long epochSlot = Math.floorDiv(localMilliSeconds, MILLISECONDS_PER_SLOT);
+        return (int) Math.floorMod(epochSlot + EPOCH_WEEK_SLOT, SLOTS_PER_WEEK);
+    }
+
     /**
      * Maximum traffic speed value across the whole week
      **/
@@ -368,11 +396,9 @@ public class TrafficGraphStorage implements GraphExtension {
         int edgeId = GHUtility.getEdgeFromEdgeKey(edgeKey);
         if (invalidEdgeId(edgeId))
             return 0;
-        byte[] value = new byte[1];
         long edgePointer = (long) edgeId * edgeLinkLookupEntryBytes;
         int directionOffset = isForward(edgeKey) ? FORWARD_OFFSET : BACKWARD_OFFSET;
-        orsEdgesTrafficLinkLookup.getBytes(edgePointer + LOCATION_TRAFFIC_MAXSPEED + directionOffset, value, 1);
-        return Byte.toUnsignedInt(value[0]);
+        return Byte.toUnsignedInt(orsEdgesTrafficLinkLookup.getByte(edgePointer + LOCATION_TRAFFIC_MAXSPEED + directionOffset));
     }
 
     public boolean hasTrafficSpeed(int edgeKey) {
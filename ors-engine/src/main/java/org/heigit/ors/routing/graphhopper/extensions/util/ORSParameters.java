@@ -34,6 +34,11 @@ public class ORSParameters {
         }
 
         public static final String TIME_DEPENDENT_SPEED_OR_ACCESS = "time_dependent_speed_or_access";
+        /**
+         * This property name in HintsMap configures if the weighting uses the live speeds of the Speed storage.
+         * Weightings of contracted graphs must not use them, since their shortcuts keep the speeds of the preparation.
+         */
+        public static final String LIVE_SPEEDS = "live_speeds";
     }
 
 
@@ -58,6 +63,28 @@ public class ORSParameters {
          * routing errors.
          */
         public static final String FORCE_HEADING = "core.force_heading";
+        /**
+         * This property name configures at start if the core is prepared without witness searches, so that its
+         * shortcut weights can be recomputed for changed edge weights without a new preparation.
+         */
+        public static final String CUSTOMIZABLE = PREPARE + "customizable";
+    }
+
+    /**
+     * Properties for the precomputed distances and times of CH and core shortcuts
+     */
+    public static final class ShortcutMetrics {
+        private ShortcutMetrics() {
+        }
+
+        /**
+         * This property name configures at start if shortcut metrics are built for the CH graphs.
+         */
+        public static final String PREPARE_CH = "prepare.ch.shortcut_metrics";
+        /**
+         * This property name configures at start if shortcut metrics are built for the core graphs.
+         */
+        public static final String PREPARE_CORE = Core.PREPARE + "shortcut_metrics";
     }
 
     /**
@@ -88,6 +115,10 @@ public class ORSParameters {
          * Specifies how many landmarks should be created
          */
         public static final String COUNT = PREPARE + "landmarks";
+        /**
+         * Specifies how many threads compute the landmark weights of a single landmark set
+         */
+        public static final String LANDMARK_THREADS = PREPARE + "landmark_threads";
         /**
          * This property name configures at start if the DISABLE parameter can have an effect.
          */
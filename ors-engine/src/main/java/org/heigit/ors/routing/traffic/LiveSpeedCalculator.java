@@ -0,0 +1,32 @@
+package org.heigit.ors.routing.traffic;
+
+import com.graphhopper.routing.querygraph.VirtualEdgeIteratorState;
+import com.graphhopper.routing.util.AbstractAdjustedSpeedCalculator;
+import com.graphhopper.routing.util.SpeedCalculator;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.GHUtility;
+import org.heigit.ors.routing.graphhopper.extensions.storages.SpeedStorage;
+
+/**
+ * Speed calculator which replaces the speeds of edges with the live speeds applied to the {@link SpeedStorage}.
+ */
+public class LiveSpeedCalculator extends AbstractAdjustedSpeedCalculator {
+    private final SpeedStorage speedStorage;
+
+    public LiveSpeedCalculator(SpeedCalculator superSpeedCalculator, SpeedStorage speedStorage) {
+        super(superSpeedCalculator);
+        this.speedStorage = speedStorage;
+    }
+
+    @Override
+    public double getSpeed(EdgeIteratorState edge, boolean reverse, long time) {
+        int edgeKey = edge instanceof VirtualEdgeIteratorState iteratorState ? iteratorState.getOriginalEdgeKey() : edge.getEdgeKey();
+        if (reverse)
+            edgeKey = GHUtility.reverseEdgeKey(edgeKey);
+        // odd edge keys are against the storage direction
+        int speed = speedStorage.getLiveSpeed(GHUtility.getEdgeFromEdgeKey(edgeKey), edgeKey % 2 != 0);
+        if (speed != Byte.MIN_VALUE)
+            return speed;
+        return superSpeedCalculator.getSpeed(edge, reverse, time);
+    }
+}
@@ -23,6 +23,11 @@ public class TrafficSpeedCalculator extends AbstractAdjustedSpeedCalculator {
     private boolean isVehicle = false;
     private boolean isHGV = false;
     private final double HGVTrafficSpeedLimit = 80.0;
+    // slot of the week of the last requested time, from which the slots of the later edges of a search are derived
+    private volatile WeekSlot lastWeekSlot;
+
+    private record WeekSlot(long startMilliSeconds, int slot) {
+    }
 
     public TrafficSpeedCalculator(SpeedCalculator superSpeedCalculator) {
         super(superSpeedCalculator);
@@ -46,7 +51,7 @@ public class TrafficSpeedCalculator extends AbstractAdjustedSpeedCalculator {
         if (time == -1)
             trafficSpeed = trafficGraphStorage.getMaxSpeedValue(edgeKey);
         else
-            trafficSpeed = trafficGraphStorage.getSpeedValue(edgeKey, time, timeZoneOffset);
+            trafficSpeed = trafficGraphStorage.getSpeedValue(edgeKey, getWeekSlot(time));
 
         if (trafficSpeed > 0) {
             //TODO: This is a heuristic to provide expected results given traffic data and ORS internal speed calculations.
@@ -66,6 +71,28 @@ public class TrafficSpeedCalculator extends AbstractAdjustedSpeedCalculator {
         return speed;
     }
 
+    /**
+     * Decodes the time into a slot of the week only for the first edge of a search. The times of the following edges
+     * lie close to it, so their slots are derived by advancing the slot by the number of quarter hours passed.
+     */
+    int getWeekSlot(long time) {
+        WeekSlot weekSlot = lastWeekSlot;
+        if (weekSlot == null) {
+            weekSlot = new WeekSlot(time - Math.floorMod(time, TrafficGraphStorage.MILLISECONDS_PER_SLOT),
+                    TrafficGraphStorage.getWeekSlot(time, timeZoneOffset));
+            lastWeekSlot = weekSlot;
+            return weekSlot.slot();
+        }
+        long elapsed = time - weekSlot.startMilliSeconds();
+        if (elapsed >= 0 && elapsed < TrafficGraphStorage.MILLISECONDS_PER_SLOT)
+            return weekSlot.slot();
+        long slots = Math.floorDiv(elapsed, TrafficGraphStorage.MILLISECONDS_PER_SLOT);
+        weekSlot = new WeekSlot(weekSlot.startMilliSeconds() + slots * TrafficGraphStorage.MILLISECONDS_PER_SLOT,
+                (int) Math.floorMod(weekSlot.slot() + slots, TrafficGraphStorage.SLOTS_PER_WEEK));
+        lastWeekSlot = weekSlot;
+        return weekSlot.slot();
+    }
+
     protected int getEdgeKey(EdgeIteratorState edge, boolean reverse) {
         int edgeKey;
         if (edge instanceof VirtualEdgeIteratorState iteratorState) {
@@ -89,6 +116,7 @@ public class TrafficSpeedCalculator extends AbstractAdjustedSpeedCalculator {
 
     public void setZonedDateTime(ZonedDateTime zdt) {
         this.timeZoneOffset = zdt.getOffset().getTotalSeconds() / 3600;
+        lastWeekSlot = null;
     }
 
     public ZoneId getZoneId() {
@@ -0,0 +1,125 @@
+package org.heigit.ors.isochrones;
+
+import com.carrotsearch.hppc.IntObjectMap;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.graphhopper.routing.SPTEntry;
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHConfig;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.storage.index.LocationIndexTree;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.GHUtility;
+import org.heigit.ors.routing.algorithms.PHASTGraph;
+import org.heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.Collections;
+import java.util.Random;
+
+import static com.graphhopper.util.GHUtility.updateDistancesFor;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphEdgeMapFinderTest {
+    private static final int GRID_SIZE = 12;
+    // shortcut weights are stored rounded, so the PHAST weights may differ slightly from the Dijkstra weights
+    private static final double EPSILON = 0.05;
+    private static final double[] SPEEDS = {20, 30, 50, 70, 90};
+
+    private final CarFlagEncoder carEncoder = new CarFlagEncoder().setSpeedTwoDirections(true);
+    private final EncodingManager encodingManager = EncodingManager.create(carEncoder);
+    private final Weighting weighting = new FastestWeighting(carEncoder);
+    private final CHConfig chConfig = CHConfig.nodeBased("c", weighting);
+    private GraphHopperStorage g;
+    private LocationIndexTree locationIndex;
+
+    @BeforeEach
+    void setUp() {
+        g = new GraphBuilder(encodingManager).setCHConfigs(chConfig).create();
+        createGrid(new Random(42));
+        g.freeze();
+        PrepareContractionHierarchies.fromGraphHopperStorage(g, chConfig).doWork();
+        locationIndex = new LocationIndexTree(g.getBaseGraph(), new RAMDirectory());
+        locationIndex.prepareIndex();
+    }
+
+    /**
+     * Creates a grid with random speeds which differ by direction, every eighth edge is a one-way road.
+     */
+    private void createGrid(Random random) {
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                int node = row * GRID_SIZE + col;
+                if (col > 0)
+                    addEdge(node - 1, node, random);
+                if (row > 0)
+                    addEdge(node - GRID_SIZE, node, random);
+            }
+        }
+        for (int node = 0; node < GRID_SIZE * GRID_SIZE; node++)
+            updateDistancesFor(g, node, (node / GRID_SIZE) * 0.005, (node % GRID_SIZE) * 0.005);
+    }
+
+    private void addEdge(int from, int to, Random random) {
+        double speedFwd = SPEEDS[random.nextInt(SPEEDS.length)];
+        double speedBwd = random.nextInt(8) == 0 ? 0 : SPEEDS[random.nextInt(SPEEDS.length)];
+        GHUtility.setSpeed(speedFwd, speedBwd, carEncoder, g.edge(from, to).setDistance(1));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "false, 0.0201, 0.0125, 150",
+            "false, 0.0201, 0.0125, 400",
+            "true, 0.0201, 0.0125, 150",
+            "true, 0.0201, 0.0125, 400",
+            "false, 0.03, 0.0275, 250",
+            "true, 0.03, 0.0275, 250",
+            "false, 0.025, 0.025, 300",
+            "true, 0.025, 0.025, 300"
+    })
+    void testPHASTAccessibilityMapMatchesDijkstra(boolean reverse, double lat, double lon, double range) {
+        Coordinate location = new Coordinate(lon, lat);
+        Snap snap = locationIndex.findClosest(lat, lon, EdgeFilter.ALL_EDGES);
+        QueryGraph queryGraph = QueryGraph.create(g, Collections.singletonList(snap));
+        IsochroneSearchParameters parameters = new IsochroneSearchParameters(0, location, new double[]{range});
+        parameters.setReverseDirection(reverse);
+        int fromId = snap.getClosestNode();
+
+        AccessibilityMap dijkstra = GraphEdgeMapFinder.calculateAccessibilityMap(parameters, EdgeFilter.ALL_EDGES, queryGraph, snap.getSnappedPoint(), fromId, weighting);
+        AccessibilityMap phast = GraphEdgeMapFinder.calculatePHASTAccessibilityMap(parameters, PHASTGraph.create(g.getRoutingCHGraph(), reverse),
+                EdgeFilter.ALL_EDGES, queryGraph, snap.getSnappedPoint(), fromId, weighting);
+
+        assertTrue(dijkstra.getMap().size() > 10);
+        assertSameEntries(dijkstra.getMap(), phast.getMap(), range);
+        assertSameEntries(phast.getMap(), dijkstra.getMap(), range);
+    }
+
+    private static void assertSameEntries(IntObjectMap<SPTEntry> expected, IntObjectMap<SPTEntry> actual, double range) {
+        for (IntObjectCursor<SPTEntry> cursor : expected) {
+            SPTEntry entry = cursor.value;
+            if (isNearRange(entry, range))
+                continue;
+            SPTEntry actualEntry = actual.get(cursor.key);
+            assertNotNull(actualEntry, "node " + cursor.key);
+            if (entry.weight <= range)
+                assertEquals(entry.weight, actualEntry.weight, EPSILON, "node " + cursor.key);
+            else
+                assertTrue(actualEntry.weight > range, "node " + cursor.key);
+        }
+    }
+
+    // whether an entry is part of the map can only be decided reliably if neither it nor its parent is at the range
+    private static boolean isNearRange(SPTEntry entry, double range) {
+        return Math.abs(entry.weight - range) < EPSILON || entry.parent != null && Math.abs(entry.parent.weight - range) < EPSILON;
+    }
+}
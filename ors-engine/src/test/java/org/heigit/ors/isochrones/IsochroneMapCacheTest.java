@@ -0,0 +1,73 @@
+package org.heigit.ors.isochrones;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsochroneMapCacheTest {
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private static IsochroneMap createIsochroneMap(double size) {
+        IsochroneMap map = new IsochroneMap(0, new Coordinate(0, 0));
+        map.addIsochrone(new Isochrone(GEOMETRY_FACTORY.createPolygon(new Coordinate[]{
+                new Coordinate(0, 0), new Coordinate(size, 0), new Coordinate(size, size), new Coordinate(0, 0)}), size, size / 2));
+        return map;
+    }
+
+    @Test
+    void returnsCachedMaps() {
+        IsochroneMapCache cache = new IsochroneMapCache(1024 * 1024);
+        IsochroneMap map = createIsochroneMap(1);
+        cache.put("a", "2024-01-01", map);
+        assertSame(map, cache.get("a", "2024-01-01"));
+        assertNull(cache.get("b", "2024-01-01"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    void dropsEntriesWhenGraphChanges() {
+        IsochroneMapCache cache = new IsochroneMapCache(1024 * 1024);
+        cache.put("a", "2024-01-01", createIsochroneMap(1));
+        assertNull(cache.get("a", "2024-02-01"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getUsedBytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesByMemory() {
+        long entryBytes = IsochroneMapCache.estimateSize("a", createIsochroneMap(1));
+        IsochroneMapCache cache = new IsochroneMapCache(2 * entryBytes);
+        cache.put("a", "2024-01-01", createIsochroneMap(1));
+        cache.put("b", "2024-01-01", createIsochroneMap(2));
+        assertNotNull(cache.get("a", "2024-01-01"));
+        cache.put("c", "2024-01-01", createIsochroneMap(3));
+
+        assertNotNull(cache.get("a", "2024-01-01"));
+        assertNull(cache.get("b", "2024-01-01"));
+        assertNotNull(cache.get("c", "2024-01-01"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2 * entryBytes, cache.getUsedBytes());
+    }
+
+    @Test
+    void skipsMapsLargerThanCache() {
+        IsochroneMapCache cache = new IsochroneMapCache(16);
+        cache.put("a", "2024-01-01", createIsochroneMap(1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void copiesShareIsochrones() {
+        IsochroneMap map = createIsochroneMap(1);
+        map.setGraphDate("2024-01-01");
+        IsochroneMap copy = map.copy(3);
+        assertEquals(3, copy.getTravellerId());
+        assertEquals(1, copy.getIsochronesCount());
+        assertSame(map.getIsochrone(0), copy.getIsochrone(0));
+        assertEquals("2024-01-01", copy.getGraphDate());
+    }
+}
@@ -0,0 +1,69 @@
+package org.heigit.ors.isochrones.builders;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.*;
+import org.opensphere.geometry.algorithm.ConcaveHullOpenSphere;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcaveHullTest {
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    /**
+     * Random points in an L-shaped area of 0.1 by 0.1 degrees.
+     */
+    private static GeometryCollection createPoints(int count, long seed) {
+        Random random = new Random(seed);
+        Geometry[] points = new Geometry[count];
+        int i = 0;
+        while (i < count) {
+            double x = random.nextDouble() * 0.1;
+            double y = random.nextDouble() * 0.1;
+            if (x > 0.04 && y > 0.04)
+                continue;
+            points[i++] = GEOMETRY_FACTORY.createPoint(new Coordinate(8.6 + x, 49.4 + y));
+        }
+        return GEOMETRY_FACTORY.createGeometryCollection(points);
+    }
+
+    @Test
+    void matchesOpenSphereHull() {
+        for (long seed = 1; seed <= 5; seed++) {
+            GeometryCollection points = createPoints(2000, seed);
+            Geometry expected = new ConcaveHullOpenSphere(points, 0.006, false).getConcaveHull();
+            Geometry hull = new ConcaveHull(points, 0.006).getConcaveHull();
+            assertInstanceOf(Polygon.class, hull);
+            assertTrue(hull.isValid());
+            assertEquals(expected.getArea(), hull.getArea(), 1e-9);
+            assertEquals(expected.getNumPoints(), hull.getNumPoints());
+        }
+    }
+
+    @Test
+    void containsAllPoints() {
+        GeometryCollection points = createPoints(1000, 42);
+        Geometry hull = new ConcaveHull(points, 0.006).getConcaveHull();
+        assertTrue(hull.covers(points));
+        assertTrue(hull.getArea() < points.convexHull().getArea());
+    }
+
+    @Test
+    void keepsConvexHullForLargeThreshold() {
+        GeometryCollection points = createPoints(1000, 42);
+        Geometry hull = new ConcaveHull(points, 1).getConcaveHull();
+        assertEquals(points.convexHull().getArea(), hull.getArea(), 1e-12);
+    }
+
+    @Test
+    void handlesDegeneratePointSets() {
+        Point a = GEOMETRY_FACTORY.createPoint(new Coordinate(0, 0));
+        Point b = GEOMETRY_FACTORY.createPoint(new Coordinate(1, 1));
+        Point c = GEOMETRY_FACTORY.createPoint(new Coordinate(2, 2));
+        assertTrue(new ConcaveHull(GEOMETRY_FACTORY.createGeometryCollection(new Geometry[0]), 1).getConcaveHull().isEmpty());
+        assertInstanceOf(Point.class, new ConcaveHull(GEOMETRY_FACTORY.createGeometryCollection(new Geometry[]{a, a}), 1).getConcaveHull());
+        assertInstanceOf(LineString.class, new ConcaveHull(GEOMETRY_FACTORY.createGeometryCollection(new Geometry[]{a, b}), 1).getConcaveHull());
+        assertInstanceOf(LineString.class, new ConcaveHull(GEOMETRY_FACTORY.createGeometryCollection(new Geometry[]{a, b, c}), 1).getConcaveHull());
+    }
+}
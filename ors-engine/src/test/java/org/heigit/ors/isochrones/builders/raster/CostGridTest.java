@@ -0,0 +1,69 @@
+package org.heigit.ors.isochrones.builders.raster;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CostGridTest {
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    /**
+     * A grid of 1 by 1 cells whose costs are the distance of the cell centres from (50, 50).
+     */
+    private static CostGrid createRadialGrid() {
+        CostGrid grid = new CostGrid(GEOMETRY_FACTORY, new Envelope(0, 100, 0, 100), 1, 1);
+        for (int x = 0; x < 100; x++) {
+            for (int y = 0; y < 100; y++)
+                grid.addCost(x + 0.5, y + 0.5, Math.hypot(x + 0.5 - 50, y + 0.5 - 50));
+        }
+        return grid;
+    }
+
+    @Test
+    void tracesContoursOfAllRanges() {
+        Polygon[] polygons = createRadialGrid().extractContours(new double[]{10, 20, 30});
+        assertEquals(3, polygons.length);
+        for (int i = 0; i < polygons.length; i++) {
+            double radius = 10.0 * (i + 1);
+            assertTrue(polygons[i].isValid());
+            assertEquals(Math.PI * radius * radius, polygons[i].getArea(), 0.02 * Math.PI * radius * radius);
+            assertTrue(polygons[i].contains(GEOMETRY_FACTORY.createPoint(new Coordinate(50, 50))));
+        }
+        assertTrue(polygons[1].contains(polygons[0]));
+        assertTrue(polygons[2].contains(polygons[1]));
+    }
+
+    @Test
+    void returnsNullForUnreachedRanges() {
+        CostGrid grid = new CostGrid(GEOMETRY_FACTORY, new Envelope(0, 10, 0, 10), 1, 1);
+        grid.addCost(5, 5, 50);
+        Polygon[] polygons = grid.extractContours(new double[]{10, 100});
+        assertNull(polygons[0]);
+        assertNotNull(polygons[1]);
+    }
+
+    @Test
+    void keepsMinimumCostAlongLines() {
+        CostGrid grid = new CostGrid(GEOMETRY_FACTORY, new Envelope(0, 10, 0, 10), 1, 1);
+        grid.addLine(0.5, 0.5, 0, 9.5, 0.5, 90);
+        grid.addLine(9.5, 0.5, 0, 0.5, 0.5, 90);
+        assertEquals(0, grid.getCost(2, 2), 1e-6);
+        // the cell from x = 4 to 5 is reached at 35 to 40 from the left end and at 50 to 55 from the right end
+        assertTrue(grid.getCost(6, 2) >= 35 - 1e-4 && grid.getCost(6, 2) <= 40 + 1e-4);
+        assertEquals(0, grid.getCost(11, 2), 1e-6);
+    }
+
+    @Test
+    void fillsGapsBetweenRoads() {
+        CostGrid grid = new CostGrid(GEOMETRY_FACTORY, new Envelope(0, 10, 0, 10), 1, 1);
+        grid.addLine(0.5, 4.5, 10, 9.5, 4.5, 10);
+        grid.addLine(0.5, 6.5, 20, 9.5, 6.5, 20);
+        assertTrue(Float.isInfinite(grid.getCost(5, 7)));
+        grid.fillGaps();
+        assertEquals(10, grid.getCost(5, 7), 1e-6);
+    }
+}
@@ -0,0 +1,87 @@
+package org.heigit.ors.matrix;
+
+import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.storage.index.LocationIndexTree;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.shapes.GHPoint3D;
+import org.heigit.ors.util.ToyGraphCreationUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapCacheTest {
+    private final CarFlagEncoder carEncoder = new CarFlagEncoder();
+    private final EncodingManager encodingManager = EncodingManager.create(carEncoder);
+    private GraphHopperStorage g;
+    private LocationIndexTree locationIndex;
+
+    @BeforeEach
+    void setUp() {
+        g = ToyGraphCreationUtil.createMediumGraph(encodingManager);
+        locationIndex = new LocationIndexTree(g, new RAMDirectory());
+        locationIndex.prepareIndex();
+    }
+
+    @Test
+    void returnsUnmodifiedSnapAfterQueryGraphCreation() {
+        SnapCache cache = new SnapCache(g.getBaseGraph(), 10);
+        Coordinate coordinate = new Coordinate(4.5, 4.001);
+        Snap snap = locationIndex.findClosest(coordinate.y, coordinate.x, EdgeFilter.ALL_EDGES);
+        int closestNode = snap.getClosestNode();
+        GHPoint3D snappedPoint = snap.getSnappedPoint();
+        double queryDistance = snap.getQueryDistance();
+        assertEquals(Snap.Position.EDGE, snap.getSnappedPosition());
+
+        cache.put("car", coordinate, snap);
+        QueryGraph.create(g.getBaseGraph(), snap);
+        assertNotEquals(closestNode, snap.getClosestNode());
+
+        Snap cached = cache.get("car", coordinate);
+        assertNotNull(cached);
+        assertNotSame(snap, cached);
+        assertEquals(closestNode, cached.getClosestNode());
+        assertEquals(snappedPoint.getLat(), cached.getSnappedPoint().getLat(), 1e-9);
+        assertEquals(snappedPoint.getLon(), cached.getSnappedPoint().getLon(), 1e-9);
+        assertEquals(queryDistance, cached.getQueryDistance(), 1e-9);
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void recomputesDistanceForRoundedCoordinate() {
+        SnapCache cache = new SnapCache(g.getBaseGraph(), 10);
+        Coordinate coordinate = new Coordinate(4.5, 4.001);
+        cache.put("car", coordinate, locationIndex.findClosest(coordinate.y, coordinate.x, EdgeFilter.ALL_EDGES));
+
+        Coordinate nearby = new Coordinate(4.50000001, 4.00100001);
+        Snap expected = locationIndex.findClosest(nearby.y, nearby.x, EdgeFilter.ALL_EDGES);
+        Snap cached = cache.get("car", nearby);
+        assertNotNull(cached);
+        assertEquals(expected.getClosestNode(), cached.getClosestNode());
+        assertEquals(expected.getSnappedPoint().getLon(), cached.getSnappedPoint().getLon(), 1e-9);
+        assertEquals(expected.getQueryDistance(), cached.getQueryDistance(), 1e-6);
+    }
+
+    @Test
+    void separatesFiltersAndEvictsLeastRecentlyUsed() {
+        SnapCache cache = new SnapCache(g.getBaseGraph(), 2);
+        Coordinate first = new Coordinate(4.5, 4.001);
+        Coordinate second = new Coordinate(1.0, 1.001);
+        cache.put("car", first, locationIndex.findClosest(first.y, first.x, EdgeFilter.ALL_EDGES));
+        cache.put("car", second, locationIndex.findClosest(second.y, second.x, EdgeFilter.ALL_EDGES));
+        assertNull(cache.get("car_fastest", first));
+
+        assertNotNull(cache.get("car", first));
+        cache.put("car_fastest", first, locationIndex.findClosest(first.y, first.x, EdgeFilter.ALL_EDGES));
+        assertEquals(2, cache.size());
+        assertNull(cache.get("car", second));
+        assertNotNull(cache.get("car", first));
+        assertEquals(2, cache.getMisses());
+    }
+}
@@ -0,0 +1,118 @@
+package org.heigit.ors.matrix.bucket;
+
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.*;
+import org.heigit.ors.exceptions.MaxVisitedNodesExceededException;
+import org.heigit.ors.matrix.MatrixLocations;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.algorithms.bucket.BucketMatrixAlgorithm;
+import org.heigit.ors.matrix.algorithms.rphast.RPHASTMatrixAlgorithm;
+import org.heigit.ors.util.ToyGraphCreationUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.graphhopper.routing.weighting.Weighting.INFINITE_U_TURN_COSTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BucketMatrixTest {
+    private final CarFlagEncoder carEncoder = new CarFlagEncoder().setSpeedTwoDirections(true);
+    private final EncodingManager encodingManager = EncodingManager.create(carEncoder);
+    private final Weighting weighting = new ShortestWeighting(carEncoder);
+    private final CHConfig chConfig = CHConfig.nodeBased("c", weighting);
+    private final float[] expected = new float[]{
+            0.0f, 1.0f, 1.0f, 3.0f, 5.0f, 5.0f, 6.0f, 4.0f, 1.0f,
+            1.0f, 0.0f, 1.0f, 3.0f, 5.0f, 6.0f, 6.0f, 5.0f, 2.0f,
+            1.0f, 1.0f, 0.0f, 2.0f, 4.0f, 5.0f, 5.0f, 5.0f, 2.0f,
+            3.0f, 3.0f, 2.0f, 0.0f, 2.0f, 3.0f, 3.0f, 4.0f, 4.0f,
+            5.0f, 5.0f, 4.0f, 2.0f, 0.0f, 1.0f, 1.0f, 2.0f, 5.0f,
+            5.0f, 6.0f, 5.0f, 3.0f, 1.0f, 0.0f, 2.0f, 1.0f, 4.0f,
+            6.0f, 6.0f, 5.0f, 3.0f, 1.0f, 2.0f, 0.0f, 2.0f, 5.0f,
+            4.0f, 5.0f, 5.0f, 4.0f, 2.0f, 1.0f, 2.0f, 0.0f, 3.0f,
+            1.0f, 2.0f, 2.0f, 4.0f, 5.0f, 4.0f, 5.0f, 3.0f, 0.0f
+    };
+    private GraphHopperStorage g;
+    private RoutingCHGraph routingCHGraph;
+
+    @BeforeEach
+    void setUp() {
+        g = new GraphBuilder(encodingManager).setCHConfigs(chConfig).create();
+        routingCHGraph = g.getRoutingCHGraph();
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        g.freeze();
+        PrepareContractionHierarchies.fromGraphHopperStorage(g, chConfig).doWork();
+    }
+
+    private static MatrixLocations createLocations(int... nodes) {
+        MatrixLocations locations = new MatrixLocations(nodes.length);
+        for (int i = 0; i < nodes.length; i++)
+            locations.setData(i, nodes[i], null);
+        return locations;
+    }
+
+    @Test
+    void testManyToMany() throws Exception {
+        MatrixRequest matrixRequest = new MatrixRequest(2000, 50000, INFINITE_U_TURN_COSTS);
+        matrixRequest.setMetrics(MatrixMetricsType.DISTANCE | MatrixMetricsType.WEIGHT);
+        MatrixLocations locations = createLocations(0, 1, 2, 3, 4, 5, 6, 7, 8);
+
+        BucketMatrixAlgorithm algorithm = new BucketMatrixAlgorithm();
+        algorithm.init(matrixRequest, null, routingCHGraph, carEncoder, weighting);
+        MatrixResult result = algorithm.compute(locations, locations, MatrixMetricsType.DISTANCE | MatrixMetricsType.WEIGHT);
+        float[] distances = result.getTable(MatrixMetricsType.DISTANCE);
+        float[] weights = result.getTable(MatrixMetricsType.WEIGHT);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], distances[i], 1e-6);
+            assertEquals(expected[i], weights[i], 1e-6);
+        }
+    }
+
+    @Test
+    void testSameResultAsRPHAST() throws Exception {
+        MatrixRequest matrixRequest = new MatrixRequest(2000, 50000, INFINITE_U_TURN_COSTS);
+        matrixRequest.setMetrics(MatrixMetricsType.DISTANCE | MatrixMetricsType.DURATION);
+        MatrixLocations sources = createLocations(1, 4, 4, -1, 8);
+        MatrixLocations destinations = createLocations(6, 0, -1, 6, 3, 1);
+        int metrics = MatrixMetricsType.DISTANCE | MatrixMetricsType.DURATION;
+
+        RPHASTMatrixAlgorithm rphast = new RPHASTMatrixAlgorithm();
+        rphast.init(matrixRequest, null, routingCHGraph, carEncoder, weighting);
+        MatrixResult expectedResult = rphast.compute(sources, destinations, metrics);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            BucketMatrixAlgorithm algorithm = new BucketMatrixAlgorithm();
+            algorithm.init(matrixRequest, null, routingCHGraph, carEncoder, weighting);
+            algorithm.setExecutor(executor, 2);
+            MatrixResult result = algorithm.compute(sources, destinations, metrics);
+            for (int metric : new int[]{MatrixMetricsType.DISTANCE, MatrixMetricsType.DURATION}) {
+                float[] expectedTable = expectedResult.getTable(metric);
+                float[] table = result.getTable(metric);
+                for (int i = 0; i < expectedTable.length; i++)
+                    assertEquals(expectedTable[i], table[i], 1e-3);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testMaxVisitedNodesExceededException() {
+        MatrixRequest matrixRequest = new MatrixRequest(2000, 50000, INFINITE_U_TURN_COSTS);
+        matrixRequest.setMaximumVisitedNodes(1);
+        MatrixLocations locations = createLocations(0, 1, 2, 3, 4, 5, 6, 7, 8);
+
+        BucketMatrixAlgorithm algorithm = new BucketMatrixAlgorithm();
+        algorithm.init(matrixRequest, null, routingCHGraph, carEncoder, weighting);
+        assertThrows(MaxVisitedNodesExceededException.class, () -> algorithm.compute(locations, locations, MatrixMetricsType.DISTANCE));
+    }
+}
@@ -0,0 +1,105 @@
+package org.heigit.ors.matrix.dijkstra;
+
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import org.heigit.ors.matrix.MatrixLocations;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.algorithms.dijkstra.DijkstraMatrixAlgorithm;
+import org.heigit.ors.util.ToyGraphCreationUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.graphhopper.routing.weighting.Weighting.INFINITE_U_TURN_COSTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DijkstraMatrixTest {
+    private static final float[] EXPECTED = new float[]{
+            0.0f, 1.0f, 1.0f, 3.0f, 5.0f, 5.0f, 6.0f, 4.0f, 1.0f,
+            1.0f, 0.0f, 1.0f, 3.0f, 5.0f, 6.0f, 6.0f, 5.0f, 2.0f,
+            1.0f, 1.0f, 0.0f, 2.0f, 4.0f, 5.0f, 5.0f, 5.0f, 2.0f,
+            3.0f, 3.0f, 2.0f, 0.0f, 2.0f, 3.0f, 3.0f, 4.0f, 4.0f,
+            5.0f, 5.0f, 4.0f, 2.0f, 0.0f, 1.0f, 1.0f, 2.0f, 5.0f,
+            5.0f, 6.0f, 5.0f, 3.0f, 1.0f, 0.0f, 2.0f, 1.0f, 4.0f,
+            6.0f, 6.0f, 5.0f, 3.0f, 1.0f, 2.0f, 0.0f, 2.0f, 5.0f,
+            4.0f, 5.0f, 5.0f, 4.0f, 2.0f, 1.0f, 2.0f, 0.0f, 3.0f,
+            1.0f, 2.0f, 2.0f, 4.0f, 5.0f, 4.0f, 5.0f, 3.0f, 0.0f
+    };
+
+    private final CarFlagEncoder carEncoder = new CarFlagEncoder().setSpeedTwoDirections(true);
+    private final EncodingManager encodingManager = EncodingManager.create(carEncoder);
+    private final Weighting weighting = new ShortestWeighting(carEncoder);
+    private GraphHopperStorage g;
+    private MatrixRequest matrixRequest;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        g = new GraphBuilder(encodingManager).create();
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        matrixRequest = new MatrixRequest(2000, 50000, INFINITE_U_TURN_COSTS);
+        matrixRequest.setMetrics(MatrixMetricsType.DISTANCE);
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private MatrixLocations createLocations(int... nodes) {
+        MatrixLocations locations = new MatrixLocations(nodes.length);
+        for (int i = 0; i < nodes.length; i++)
+            locations.setData(i, nodes[i], null);
+        return locations;
+    }
+
+    private void assertMatrix(MatrixResult result) {
+        float[] distances = result.getTable(MatrixMetricsType.DISTANCE);
+        for (int i = 0; i < EXPECTED.length; i++)
+            assertEquals(EXPECTED[i], distances[i], 1e-6);
+    }
+
+    @Test
+    void testManyToManySequential() throws Exception {
+        DijkstraMatrixAlgorithm algorithm = new DijkstraMatrixAlgorithm();
+        algorithm.init(matrixRequest, null, g.getBaseGraph(), carEncoder, weighting);
+        MatrixLocations locations = createLocations(0, 1, 2, 3, 4, 5, 6, 7, 8);
+        assertMatrix(algorithm.compute(locations, locations, MatrixMetricsType.DISTANCE));
+    }
+
+    @Test
+    void testManyToManyParallel() throws Exception {
+        DijkstraMatrixAlgorithm algorithm = new DijkstraMatrixAlgorithm();
+        algorithm.init(matrixRequest, null, g.getBaseGraph(), carEncoder, weighting);
+        algorithm.setExecutor(executor, 4);
+        MatrixLocations locations = createLocations(0, 1, 2, 3, 4, 5, 6, 7, 8);
+        assertMatrix(algorithm.compute(locations, locations, MatrixMetricsType.DISTANCE));
+    }
+
+    @Test
+    void testParallelWithUnresolvedSource() throws Exception {
+        DijkstraMatrixAlgorithm algorithm = new DijkstraMatrixAlgorithm();
+        algorithm.init(matrixRequest, null, g.getBaseGraph(), carEncoder, weighting);
+        algorithm.setExecutor(executor, 2);
+        MatrixLocations sources = createLocations(0, -1, 4);
+        MatrixLocations destinations = createLocations(1, 5);
+        MatrixResult result = algorithm.compute(sources, destinations, MatrixMetricsType.DISTANCE);
+        float[] distances = result.getTable(MatrixMetricsType.DISTANCE);
+        assertEquals(1.0f, distances[0], 1e-6);
+        assertEquals(5.0f, distances[1], 1e-6);
+        assertEquals(-1.0f, distances[2], 1e-6);
+        assertEquals(-1.0f, distances[3], 1e-6);
+        assertEquals(5.0f, distances[4], 1e-6);
+        assertEquals(1.0f, distances[5], 1e-6);
+    }
+}
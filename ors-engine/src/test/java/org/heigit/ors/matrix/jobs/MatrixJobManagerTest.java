@@ -0,0 +1,172 @@
+package org.heigit.ors.matrix.jobs;
+
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.ResolvedLocation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrixJobManagerTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Fills the duration table with x-coordinate of the source * 1000 + x-coordinate of the destination and the
+     * distance table with the negated value.
+     */
+    private static MatrixResult computeFake(MatrixRequest request) {
+        Coordinate[] sources = request.getSources();
+        Coordinate[] destinations = request.getDestinations();
+        ResolvedLocation[] resolvedSources = new ResolvedLocation[sources.length];
+        ResolvedLocation[] resolvedDestinations = new ResolvedLocation[destinations.length];
+        for (int i = 0; i < sources.length; i++)
+            resolvedSources[i] = new ResolvedLocation(sources[i], null, 0);
+        for (int j = 0; j < destinations.length; j++)
+            resolvedDestinations[j] = new ResolvedLocation(destinations[j], null, 0);
+
+        float[] durations = new float[sources.length * destinations.length];
+        float[] distances = new float[durations.length];
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < destinations.length; j++) {
+                durations[i * destinations.length + j] = (float) (sources[i].x * 1000 + destinations[j].x);
+                distances[i * destinations.length + j] = -durations[i * destinations.length + j];
+            }
+        }
+        MatrixResult result = new MatrixResult(resolvedSources, resolvedDestinations);
+        result.setTable(MatrixMetricsType.DURATION, durations);
+        result.setTable(MatrixMetricsType.DISTANCE, distances);
+        result.setGraphDate("2024-01-01");
+        return result;
+    }
+
+    private static MatrixRequest createRequest(int sourceCount, int destinationCount) {
+        MatrixRequest request = new MatrixRequest(2000, 100000, -1);
+        Coordinate[] sources = new Coordinate[sourceCount];
+        for (int i = 0; i < sourceCount; i++)
+            sources[i] = new Coordinate(i, 0);
+        Coordinate[] destinations = new Coordinate[destinationCount];
+        for (int j = 0; j < destinationCount; j++)
+            destinations[j] = new Coordinate(j, 1);
+        request.setSources(sources);
+        request.setDestinations(destinations);
+        request.setMetrics(MatrixMetricsType.DURATION | MatrixMetricsType.DISTANCE);
+        return request;
+    }
+
+    private static void awaitDone(MatrixJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!job.getStatus().isDone() && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertTrue(job.getStatus().isDone());
+    }
+
+    @Test
+    void computesAllTiles() throws Exception {
+        try (MatrixJobManager manager = new MatrixJobManager(MatrixJobManagerTest::computeFake, directory, 4, 3, 2, 60000)) {
+            MatrixJob job = manager.submit(createRequest(10, 7));
+            assertEquals(3, job.getTileRows());
+            assertEquals(2, job.getTileColumns());
+            awaitDone(job);
+
+            assertEquals(MatrixJob.Status.FINISHED, job.getStatus());
+            assertEquals(6, job.getFinishedTileCount());
+            assertTrue(job.areRowsFinished(0, 10));
+            assertEquals("2024-01-01", job.getGraphDate());
+
+            float[] row = new float[7];
+            for (int i = 0; i < 10; i++) {
+                job.readRow(MatrixMetricsType.DURATION, i, 0, row);
+                for (int j = 0; j < 7; j++)
+                    assertEquals(i * 1000 + j, row[j]);
+                job.readRow(MatrixMetricsType.DISTANCE, i, 0, row);
+                for (int j = 0; j < 7; j++)
+                    assertEquals(-(i * 1000 + j), row[j]);
+                assertEquals(i, job.getSource(i).getCoordinate().x);
+            }
+            for (int j = 0; j < 7; j++)
+                assertEquals(j, job.getDestination(j).getCoordinate().x);
+
+            float[] part = new float[2];
+            job.readRow(MatrixMetricsType.DURATION, 5, 4, part);
+            assertArrayEquals(new float[]{5004, 5005}, part);
+        }
+    }
+
+    @Test
+    void finishedTileProvidesItsLocations() throws Exception {
+        MatrixRequest request = createRequest(10, 7);
+        MatrixJob job = new MatrixJob("tile", request, 4, new MatrixResultFile(directory.resolve("tile.matrix"), 2, 10, 7));
+        MatrixRequest tileRequest = createRequest(0, 0);
+        tileRequest.setSources(Arrays.copyOfRange(request.getSources(), 4, 8));
+        tileRequest.setDestinations(Arrays.copyOfRange(request.getDestinations(), 4, 7));
+        job.finishTile(1, 1, computeFake(tileRequest));
+
+        assertTrue(job.isTileFinished(1, 1));
+        assertFalse(job.isTileFinished(1, 0));
+        for (int i = 4; i < 8; i++)
+            assertEquals(i, job.getSource(i).getCoordinate().x);
+        for (int j = 4; j < 7; j++)
+            assertEquals(j, job.getDestination(j).getCoordinate().x);
+        assertEquals("2024-01-01", job.getGraphDate());
+        job.close();
+    }
+
+    @Test
+    void failedTileFailsJob() throws Exception {
+        MatrixJobManager.TileCalculator failing = request -> {
+            if (request.getSources()[0].x >= 4)
+                throw new IllegalStateException("boom");
+            return computeFake(request);
+        };
+        try (MatrixJobManager manager = new MatrixJobManager(failing, directory, 4, 1, 2, 60000)) {
+            MatrixJob job = manager.submit(createRequest(8, 4));
+            awaitDone(job);
+            assertEquals(MatrixJob.Status.FAILED, job.getStatus());
+            assertEquals("boom", job.getError());
+            assertFalse(job.areRowsFinished(4, 8));
+        }
+    }
+
+    @Test
+    void limitsActiveJobsAndRemovesResults() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MatrixJobManager.TileCalculator blocking = request -> {
+            release.await(10, TimeUnit.SECONDS);
+            return computeFake(request);
+        };
+        try (MatrixJobManager manager = new MatrixJobManager(blocking, directory, 4, 1, 1, 60000)) {
+            MatrixJob job = manager.submit(createRequest(4, 4));
+            assertThrows(RejectedExecutionException.class, () -> manager.submit(createRequest(4, 4)));
+            assertFalse(job.isTileFinished(0, 0));
+            assertTrue(Files.exists(directory.resolve(job.getId() + ".matrix")));
+
+            release.countDown();
+            awaitDone(job);
+            assertSame(job, manager.getJob(job.getId()));
+            assertTrue(manager.removeJob(job.getId()));
+            assertNull(manager.getJob(job.getId()));
+            assertFalse(Files.exists(directory.resolve(job.getId() + ".matrix")));
+        }
+    }
+
+    @Test
+    void expiresFinishedJobs() throws Exception {
+        try (MatrixJobManager manager = new MatrixJobManager(MatrixJobManagerTest::computeFake, directory, 4, 1, 1, 0)) {
+            MatrixJob job = manager.submit(createRequest(2, 2));
+            awaitDone(job);
+            Thread.sleep(5);
+            assertNull(manager.getJob(job.getId()));
+        }
+    }
+}
@@ -9,13 +9,26 @@ import com.graphhopper.routing.weighting.ShortestWeighting;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.*;
 import org.heigit.ors.exceptions.MaxVisitedNodesExceededException;
+import org.heigit.ors.matrix.MatrixLocations;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.algorithms.rphast.RPHASTMatrixAlgorithm;
+import org.heigit.ors.matrix.algorithms.rphast.RPHASTTargetGraphCache;
 import org.heigit.ors.routing.algorithms.RPHASTAlgorithm;
+import org.heigit.ors.routing.algorithms.RPHASTArrayAlgorithm;
 import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntry;
+import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPTable;
+import org.heigit.ors.routing.graphhopper.extensions.storages.ShortcutMetricsStorage;
 import org.heigit.ors.util.DebugUtility;
 import org.heigit.ors.util.ToyGraphCreationUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.graphhopper.routing.weighting.Weighting.INFINITE_U_TURN_COSTS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -143,6 +156,161 @@ class RPHASTMatrixTest {
         }
     }
 
+    @Test
+    void testManyToManyFlatStorage() {
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        PrepareContractionHierarchies prepare = createPrepareContractionHierarchies(g);
+        prepare.doWork();
+        RPHASTArrayAlgorithm algorithm = new RPHASTArrayAlgorithm(routingCHGraph, weighting,
+                TraversalMode.NODE_BASED);
+        int[] srcIds = new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8};
+        int[] dstIds = new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8};
+        algorithm.prepare(srcIds, dstIds);
+        MultiTreeSPTable spTable = algorithm.calcPaths(srcIds, dstIds);
+        float[] expected = new float[]{
+                0.0f, 1.0f, 1.0f, 3.0f, 5.0f, 5.0f, 6.0f, 4.0f, 1.0f,
+                1.0f, 0.0f, 1.0f, 3.0f, 5.0f, 6.0f, 6.0f, 5.0f, 2.0f,
+                1.0f, 1.0f, 0.0f, 2.0f, 4.0f, 5.0f, 5.0f, 5.0f, 2.0f,
+                3.0f, 3.0f, 2.0f, 0.0f, 2.0f, 3.0f, 3.0f, 4.0f, 4.0f,
+                5.0f, 5.0f, 4.0f, 2.0f, 0.0f, 1.0f, 1.0f, 2.0f, 5.0f,
+                5.0f, 6.0f, 5.0f, 3.0f, 1.0f, 0.0f, 2.0f, 1.0f, 4.0f,
+                6.0f, 6.0f, 5.0f, 3.0f, 1.0f, 2.0f, 0.0f, 2.0f, 5.0f,
+                4.0f, 5.0f, 5.0f, 4.0f, 2.0f, 1.0f, 2.0f, 0.0f, 3.0f,
+                1.0f, 2.0f, 2.0f, 4.0f, 5.0f, 4.0f, 5.0f, 3.0f, 0.0f
+        };
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                int slot = spTable.getSlot(dstIds[j]);
+                assertEquals(expected[i * 9 + j], spTable.getWeight(slot, i), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void testOneToManyFlatStorage() {
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        PrepareContractionHierarchies prepare = createPrepareContractionHierarchies(g);
+        prepare.doWork();
+        RPHASTArrayAlgorithm algorithm = new RPHASTArrayAlgorithm(routingCHGraph, weighting,
+                TraversalMode.NODE_BASED);
+        int[] srcIds = new int[]{1};
+        int[] dstIds = new int[]{4, 5, 6, 7};
+        algorithm.prepare(srcIds, dstIds);
+        MultiTreeSPTable spTable = algorithm.calcPaths(srcIds, dstIds);
+        assertEquals(5.0, spTable.getWeight(spTable.getSlot(4), 0), 1e-6);
+        assertEquals(6.0, spTable.getWeight(spTable.getSlot(5), 0), 1e-6);
+        assertEquals(6.0, spTable.getWeight(spTable.getSlot(6), 0), 1e-6);
+        assertEquals(5.0, spTable.getWeight(spTable.getSlot(7), 0), 1e-6);
+    }
+
+    @Test
+    void testSourceBlocksInParallel() throws Exception {
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        PrepareContractionHierarchies prepare = createPrepareContractionHierarchies(g);
+        prepare.doWork();
+        MatrixRequest matrixRequest = new MatrixRequest(2000, 50000, INFINITE_U_TURN_COSTS);
+        matrixRequest.setMetrics(MatrixMetricsType.DISTANCE);
+        MatrixLocations locations = new MatrixLocations(9);
+        for (int i = 0; i < 9; i++)
+            locations.setData(i, i, null);
+        float[] expected = new float[]{
+                0.0f, 1.0f, 1.0f, 3.0f, 5.0f, 5.0f, 6.0f, 4.0f, 1.0f,
+                1.0f, 0.0f, 1.0f, 3.0f, 5.0f, 6.0f, 6.0f, 5.0f, 2.0f,
+                1.0f, 1.0f, 0.0f, 2.0f, 4.0f, 5.0f, 5.0f, 5.0f, 2.0f,
+                3.0f, 3.0f, 2.0f, 0.0f, 2.0f, 3.0f, 3.0f, 4.0f, 4.0f,
+                5.0f, 5.0f, 4.0f, 2.0f, 0.0f, 1.0f, 1.0f, 2.0f, 5.0f,
+                5.0f, 6.0f, 5.0f, 3.0f, 1.0f, 0.0f, 2.0f, 1.0f, 4.0f,
+                6.0f, 6.0f, 5.0f, 3.0f, 1.0f, 2.0f, 0.0f, 2.0f, 5.0f,
+                4.0f, 5.0f, 5.0f, 4.0f, 2.0f, 1.0f, 2.0f, 0.0f, 3.0f,
+                1.0f, 2.0f, 2.0f, 4.0f, 5.0f, 4.0f, 5.0f, 3.0f, 0.0f
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (boolean flatStorage : new boolean[]{false, true}) {
+                RPHASTMatrixAlgorithm algorithm = new RPHASTMatrixAlgorithm();
+                algorithm.init(matrixRequest, null, routingCHGraph, carEncoder, weighting);
+                algorithm.setFlatStorage(flatStorage);
+                algorithm.setSourceBlockSize(4);
+                algorithm.setExecutor(executor, 2);
+                MatrixResult result = algorithm.compute(locations, locations, MatrixMetricsType.DISTANCE);
+                float[] distances = result.getTable(MatrixMetricsType.DISTANCE);
+                for (int i = 0; i < expected.length; i++)
+                    assertEquals(expected[i], distances[i], 1e-6);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testShortcutMetrics() throws Exception {
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        PrepareContractionHierarchies prepare = createPrepareContractionHierarchies(g);
+        prepare.doWork();
+        ShortcutMetricsStorage shortcutMetrics = new ShortcutMetricsStorage(g.getDirectory(), routingCHGraph, "c");
+        shortcutMetrics.prepare(weighting);
+
+        MatrixRequest matrixRequest = new MatrixRequest(2000, 50000, INFINITE_U_TURN_COSTS);
+        matrixRequest.setMetrics(MatrixMetricsType.DISTANCE);
+        MatrixLocations locations = new MatrixLocations(9);
+        for (int i = 0; i < 9; i++)
+            locations.setData(i, i, null);
+
+        RPHASTMatrixAlgorithm algorithm = new RPHASTMatrixAlgorithm();
+        algorithm.init(matrixRequest, null, routingCHGraph, carEncoder, weighting);
+        float[] unpacked = algorithm.compute(locations, locations, MatrixMetricsType.DISTANCE).getTable(MatrixMetricsType.DISTANCE);
+
+        algorithm = new RPHASTMatrixAlgorithm();
+        algorithm.setShortcutMetrics(shortcutMetrics);
+        algorithm.init(matrixRequest, null, routingCHGraph, carEncoder, weighting);
+        float[] stored = algorithm.compute(locations, locations, MatrixMetricsType.DISTANCE).getTable(MatrixMetricsType.DISTANCE);
+
+        for (int i = 0; i < unpacked.length; i++)
+            assertEquals(unpacked[i], stored[i], 1e-3);
+    }
+
+    @Test
+    void testTargetGraphCache() throws Exception {
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        PrepareContractionHierarchies prepare = createPrepareContractionHierarchies(g);
+        prepare.doWork();
+        MatrixRequest matrixRequest = new MatrixRequest(2000, 50000, INFINITE_U_TURN_COSTS);
+        matrixRequest.setMetrics(MatrixMetricsType.DISTANCE);
+        MatrixLocations locations = new MatrixLocations(9);
+        for (int i = 0; i < 9; i++)
+            locations.setData(i, i, null);
+        long[] snapSignature = new long[]{1, 2, 3};
+
+        RPHASTMatrixAlgorithm algorithm = new RPHASTMatrixAlgorithm();
+        algorithm.init(matrixRequest, null, routingCHGraph, carEncoder, weighting);
+        float[] uncached = algorithm.compute(locations, locations, MatrixMetricsType.DISTANCE).getTable(MatrixMetricsType.DISTANCE);
+
+        RPHASTTargetGraphCache cache = new RPHASTTargetGraphCache(1024 * 1024);
+        for (int run = 0; run < 2; run++) {
+            algorithm = new RPHASTMatrixAlgorithm();
+            algorithm.setTargetGraphCache(cache, "c", snapSignature);
+            algorithm.init(matrixRequest, null, routingCHGraph, carEncoder, weighting);
+            float[] cached = algorithm.compute(locations, locations, MatrixMetricsType.DISTANCE).getTable(MatrixMetricsType.DISTANCE);
+            for (int i = 0; i < uncached.length; i++)
+                assertEquals(uncached[i], cached[i], 1e-6);
+        }
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.size());
+
+        // a cache which is too small for the graph does not store it
+        RPHASTTargetGraphCache tinyCache = new RPHASTTargetGraphCache(16);
+        for (int run = 0; run < 2; run++) {
+            algorithm = new RPHASTMatrixAlgorithm();
+            algorithm.setTargetGraphCache(tinyCache, "c", snapSignature);
+            algorithm.init(matrixRequest, null, routingCHGraph, carEncoder, weighting);
+            algorithm.compute(locations, locations, MatrixMetricsType.DISTANCE);
+        }
+        assertEquals(2, tinyCache.getMisses());
+        assertEquals(0, tinyCache.size());
+    }
+
     @Test
     void testMaxVisitedNodesExceededException() {
         ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
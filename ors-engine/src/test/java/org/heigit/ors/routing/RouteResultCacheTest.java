@@ -0,0 +1,83 @@
+package org.heigit.ors.routing;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteResultCacheTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    private static RoutingRequest createRequest(double x0, double y0, double x1, double y1) throws Exception {
+        RouteSearchParameters searchParams = new RouteSearchParameters();
+        searchParams.setProfileType(RoutingProfileType.DRIVING_CAR);
+        RoutingRequest req = new RoutingRequest();
+        req.setSearchParameters(searchParams);
+        req.setCoordinates(new Coordinate[]{new Coordinate(x0, y0), new Coordinate(x1, y1)});
+        return req;
+    }
+
+    @Test
+    void roundsCoordinatesOfKey() throws Exception {
+        RouteResultCache cache = new RouteResultCache(10, 60, 5);
+        RoutingRequest req = createRequest(8.68149, 49.41461, 8.687872, 49.420318);
+        assertEquals(cache.createKey(req), cache.createKey(createRequest(8.681492, 49.414611, 8.687872, 49.420318)));
+        assertNotEquals(cache.createKey(req), cache.createKey(createRequest(8.68159, 49.41461, 8.687872, 49.420318)));
+
+        RoutingRequest otherOptions = createRequest(8.68149, 49.41461, 8.687872, 49.420318);
+        otherOptions.getSearchParameters().setWeightingMethod(WeightingMethod.SHORTEST);
+        assertNotEquals(cache.createKey(req), cache.createKey(otherOptions));
+    }
+
+    @Test
+    void expiresEntries() {
+        AtomicLong time = new AtomicLong();
+        RouteResultCache cache = new RouteResultCache(10, 60, 6, time::get);
+        RouteResult[] routes = {new RouteResult(0)};
+        cache.put("a", "2024-01-01", routes);
+        assertSame(routes[0], cache.get("a", "2024-01-01")[0]);
+
+        time.set(61 * SECOND);
+        assertNull(cache.get("a", "2024-01-01"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void dropsEntriesOfOtherGraphDate() {
+        RouteResultCache cache = new RouteResultCache(10, 60, 6);
+        cache.put("a", "2024-01-01", new RouteResult[]{new RouteResult(0)});
+        assertNull(cache.get("a", "2024-02-01"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        RouteResultCache cache = new RouteResultCache(2, 60, 6);
+        cache.put("a", "", new RouteResult[0]);
+        cache.put("b", "", new RouteResult[0]);
+        cache.get("a", "");
+        cache.put("c", "", new RouteResult[0]);
+        assertNotNull(cache.get("a", ""));
+        assertNull(cache.get("b", ""));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void bypassesTimeDependentAndRandomRequests() throws Exception {
+        assertTrue(RouteResultCache.isCacheable(createRequest(8.68, 49.41, 8.69, 49.42)));
+
+        RoutingRequest departure = createRequest(8.68, 49.41, 8.69, 49.42);
+        departure.getSearchParameters().setDeparture(LocalDateTime.of(2024, 1, 1, 8, 0));
+        assertFalse(RouteResultCache.isCacheable(departure));
+
+        RoutingRequest roundTrip = createRequest(8.68, 49.41, 8.68, 49.41);
+        roundTrip.getSearchParameters().setRoundTripLength(5000);
+        assertFalse(RouteResultCache.isCacheable(roundTrip));
+        roundTrip.getSearchParameters().setRoundTripSeed(42);
+        assertTrue(RouteResultCache.isCacheable(roundTrip));
+    }
+}
@@ -0,0 +1,86 @@
+package org.heigit.ors.routing;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.ResponsePath;
+import com.graphhopper.util.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViaRouteSplitterTest {
+    private static PointList createPoints(double... latLons) {
+        PointList points = new PointList(latLons.length / 2, false);
+        for (int i = 0; i < latLons.length; i += 2)
+            points.add(latLons[i], latLons[i + 1]);
+        return points;
+    }
+
+    private static Instruction createInstruction(Instruction instruction, double distance, long time) {
+        instruction.setDistance(distance);
+        instruction.setTime(time);
+        return instruction;
+    }
+
+    /**
+     * A route through three waypoints at (0,0), (0,2) and (0,3), with a via instruction at the second waypoint.
+     */
+    private static GHResponse createViaResponse() {
+        InstructionList instructions = new InstructionList(new TranslationMap.TranslationHashMap(new Locale("")));
+        instructions.add(createInstruction(new Instruction(Instruction.CONTINUE_ON_STREET, "a", createPoints(0, 0, 0, 1)), 200, 20));
+        instructions.add(createInstruction(new Instruction(Instruction.TURN_LEFT, "b", createPoints(0, 1.5)), 100, 10));
+        instructions.add(createInstruction(new ViaInstruction("c", createPoints(0, 2, 0, 2.5)), 150, 15));
+        instructions.add(new Instruction(Instruction.FINISH, "", createPoints(0, 3)));
+
+        ResponsePath path = new ResponsePath();
+        path.setPoints(createPoints(0, 0, 0, 1, 0, 1.5, 0, 2, 0, 2.5, 0, 3));
+        path.setWaypoints(createPoints(0, 0, 0, 2, 0, 3));
+        path.setInstructions(instructions);
+        path.setDistance(450);
+        path.setTime(45);
+
+        GHResponse response = new GHResponse();
+        response.add(path);
+        response.getHints().putObject("data.date", "2024-01-01T00:00:00Z");
+        return response;
+    }
+
+    @Test
+    void splitsAtViaInstructions() {
+        GHResponse[] responses = ViaRouteSplitter.split(createViaResponse(), 2);
+        assertNotNull(responses);
+        assertEquals(2, responses.length);
+
+        ResponsePath first = responses[0].getBest();
+        assertEquals(4, first.getPoints().size());
+        assertEquals(2.0, first.getPoints().getLon(3), 1e-9);
+        assertEquals(300, first.getDistance(), 1e-9);
+        assertEquals(30, first.getTime());
+        assertEquals(3, first.getInstructions().size());
+        assertEquals(Instruction.FINISH, first.getInstructions().get(2).getSign());
+        assertEquals(2.0, first.getInstructions().get(2).getPoints().getLon(0), 1e-9);
+        assertEquals(2, first.getWaypoints().size());
+
+        ResponsePath second = responses[1].getBest();
+        assertEquals(3, second.getPoints().size());
+        assertEquals(2.0, second.getPoints().getLon(0), 1e-9);
+        assertEquals(150, second.getDistance(), 1e-9);
+        assertEquals(15, second.getTime());
+        assertEquals(2, second.getInstructions().size());
+        assertEquals("2024-01-01T00:00:00Z", responses[1].getHints().getString("data.date", ""));
+    }
+
+    @Test
+    void returnsNullIfSegmentsDoNotMatch() {
+        assertNull(ViaRouteSplitter.split(createViaResponse(), 3));
+        assertNull(ViaRouteSplitter.split(createViaResponse(), 1));
+    }
+
+    @Test
+    void returnsNullForErrors() {
+        GHResponse response = new GHResponse();
+        response.addError(new IllegalArgumentException("error"));
+        assertNull(ViaRouteSplitter.split(response, 2));
+    }
+}
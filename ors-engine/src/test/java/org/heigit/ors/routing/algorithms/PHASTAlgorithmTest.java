@@ -0,0 +1,122 @@
+package org.heigit.ors.routing.algorithms;
+
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHConfig;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.util.GHUtility;
+import org.heigit.ors.util.ToyGraphCreationUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PHASTAlgorithmTest {
+    private final CarFlagEncoder carEncoder = new CarFlagEncoder().setSpeedTwoDirections(true);
+    private final EncodingManager encodingManager = EncodingManager.create(carEncoder);
+    private final Weighting weighting = new ShortestWeighting(carEncoder);
+    private final CHConfig chConfig = CHConfig.nodeBased("c", weighting);
+    private GraphHopperStorage g;
+
+    @BeforeEach
+    void setUp() {
+        g = new GraphBuilder(encodingManager).setCHConfigs(chConfig).create();
+    }
+
+    private void prepareCH() {
+        g.freeze();
+        PrepareContractionHierarchies.fromGraphHopperStorage(g, chConfig).doWork();
+    }
+
+    private static double[] calcWeights(PHASTGraph graph, double maxWeight, int startNode) {
+        PHASTAlgorithm algorithm = new PHASTAlgorithm(graph, maxWeight);
+        algorithm.calcWeights(new int[]{startNode}, new double[]{0});
+        double[] weights = new double[graph.getNodes()];
+        for (int node = 0; node < weights.length; node++)
+            weights[node] = algorithm.getWeight(node);
+        algorithm.release();
+        return weights;
+    }
+
+    @Test
+    void testOneToAll() {
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        prepareCH();
+        PHASTGraph graph = PHASTGraph.create(g.getRoutingCHGraph(), false);
+
+        double[] expected = {1, 0, 1, 3, 5, 6, 6, 5, 2};
+        double[] weights = calcWeights(graph, 100, 1);
+        for (int node = 0; node < expected.length; node++)
+            assertEquals(expected[node], weights[node], 1e-6, "node " + node);
+    }
+
+    @Test
+    void testMaximumWeight() {
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        prepareCH();
+        PHASTAlgorithm algorithm = new PHASTAlgorithm(PHASTGraph.create(g.getRoutingCHGraph(), false), 3);
+        algorithm.calcWeights(new int[]{1}, new double[]{0});
+
+        assertEquals(3, algorithm.getWeight(3), 1e-6);
+        assertEquals(Double.POSITIVE_INFINITY, algorithm.getWeight(4));
+        assertEquals(Double.POSITIVE_INFINITY, algorithm.getWeight(7));
+        assertEquals(5, algorithm.getReachedNodes().size());
+    }
+
+    @Test
+    void testReverse() {
+        // 0 --> 1 --> 2 --> 0 and 0 <-> 3
+        GHUtility.setSpeed(60, 0, carEncoder,
+                g.edge(0, 1).setDistance(1),
+                g.edge(1, 2).setDistance(1),
+                g.edge(2, 0).setDistance(1));
+        GHUtility.setSpeed(60, 60, carEncoder, g.edge(0, 3).setDistance(2));
+        prepareCH();
+
+        double[] forward = calcWeights(PHASTGraph.create(g.getRoutingCHGraph(), false), 100, 0);
+        double[] reverse = calcWeights(PHASTGraph.create(g.getRoutingCHGraph(), true), 100, 0);
+        double[] expectedForward = {0, 1, 2, 2};
+        double[] expectedReverse = {0, 2, 1, 2};
+        for (int node = 0; node < 4; node++) {
+            assertEquals(expectedForward[node], forward[node], 1e-6, "forward node " + node);
+            assertEquals(expectedReverse[node], reverse[node], 1e-6, "reverse node " + node);
+        }
+    }
+
+    @Test
+    void testConcurrentSearchesOnSharedGraph() {
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        prepareCH();
+        PHASTGraph graph = PHASTGraph.create(g.getRoutingCHGraph(), false, 1);
+        calcWeights(graph, 100, 1);
+
+        PHASTAlgorithm first = new PHASTAlgorithm(graph, 100);
+        first.calcWeights(new int[]{1}, new double[]{0});
+        PHASTAlgorithm second = new PHASTAlgorithm(graph, 3);
+        second.calcWeights(new int[]{1}, new double[]{0});
+
+        assertEquals(5, first.getWeight(4), 1e-6);
+        assertEquals(Double.POSITIVE_INFINITY, second.getWeight(4));
+        first.release();
+        second.release();
+    }
+
+    @Test
+    void testNumberOfReleasedWeights() {
+        ToyGraphCreationUtil.createMediumGraph(g, encodingManager);
+        prepareCH();
+        PHASTGraph graph = PHASTGraph.create(g.getRoutingCHGraph(), false, 1);
+
+        double[] first = graph.acquireWeights();
+        double[] second = graph.acquireWeights();
+        assertEquals(graph.getNodes(), first.length);
+        graph.releaseWeights(first);
+        graph.releaseWeights(second);
+        assertSame(first, graph.acquireWeights());
+        assertNotSame(second, graph.acquireWeights());
+    }
+}
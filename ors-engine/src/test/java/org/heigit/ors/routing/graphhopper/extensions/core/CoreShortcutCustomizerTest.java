@@ -0,0 +1,190 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.core;
+
+import com.graphhopper.routing.ch.NodeOrderingProvider;
+import com.graphhopper.routing.ch.ShortcutUnpacker;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.*;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.PMap;
+import org.heigit.ors.routing.graphhopper.extensions.ORSGraphHopperStorage;
+import org.heigit.ors.routing.graphhopper.extensions.util.ORSParameters;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.graphhopper.routing.ch.CHParameters.CONTRACTED_NODES;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoreShortcutCustomizerTest {
+    private static final int[] NODE_ORDERING = {1, 6, 0, 5, 8, 2, 3, 7, 4};
+    private final CarFlagEncoder carEncoder = new CarFlagEncoder(5, 5, 3);
+    private final EncodingManager encodingManager = EncodingManager.create(carEncoder);
+    private final Weighting shortestWeighting = new ShortestWeighting(carEncoder);
+    private final Weighting fastestWeighting = new FastestWeighting(carEncoder);
+
+    private ORSGraphHopperStorage createGraph(CHConfig chConfig) {
+        return createGraph(chConfig, false);
+    }
+
+    /**
+     * @param asymmetric whether some edges have different speeds in both directions and 0->3 and 7->6 are one-way
+     */
+    private ORSGraphHopperStorage createGraph(CHConfig chConfig, boolean asymmetric) {
+        ORSGraphHopperStorage g = new ORSGraphHopperStorage(new RAMDirectory(), encodingManager, false, false, -1);
+        g.addCoreGraph(chConfig);
+        g.create(1000);
+        //    3---4--5
+        //   /\   |  |
+        //  2--0  6--7
+        //  | / \   /
+        //  |/   \ /
+        //  1-----8
+        addEdge(g, 0, 1, 1, 10);
+        addEdge(g, 0, 2, 1, 50);
+        addEdge(g, 0, 3, 5, 100, asymmetric ? 0 : 100);
+        addEdge(g, 0, 8, 1, 20);
+        addEdge(g, 1, 2, 1, 60);
+        addEdge(g, 1, 8, 2, 90, asymmetric ? 20 : 90);
+        addEdge(g, 2, 3, 2, 30);
+        addEdge(g, 3, 4, 2, 70, asymmetric ? 10 : 70);
+        addEdge(g, 4, 5, 1, 40);
+        addEdge(g, 4, 6, 1, 10);
+        addEdge(g, 5, 7, 1, 80);
+        addEdge(g, 6, 7, 2, asymmetric ? 0 : 20, 20);
+        addEdge(g, 7, 8, 3, 100, asymmetric ? 30 : 100);
+        return g;
+    }
+
+    private void addEdge(ORSGraphHopperStorage g, int a, int b, double distance, double speed) {
+        addEdge(g, a, b, distance, speed, speed);
+    }
+
+    private void addEdge(ORSGraphHopperStorage g, int a, int b, double distance, double speedFwd, double speedBwd) {
+        GHUtility.setSpeed(speedFwd, speedBwd, carEncoder, g.edge(a, b).setDistance(distance));
+    }
+
+    private RoutingCHGraph contractCustomizable(ORSGraphHopperStorage g, CHConfig chConfig) {
+        g.freeze();
+        PrepareCore prepare = new PrepareCore(g, chConfig, new CoreTestEdgeFilter());
+        prepare.useFixedNodeOrdering(NodeOrderingProvider.fromArray(NODE_ORDERING));
+        prepare.setParams(new PMap().putObject(CONTRACTED_NODES, 100).putObject(ORSParameters.Core.CUSTOMIZABLE, true));
+        prepare.doWork();
+        return g.getCoreGraph(chConfig.getName());
+    }
+
+    private Map<String, Double> getShortcutWeights(RoutingCHGraph chGraph) {
+        Map<String, Double> weights = new HashMap<>();
+        RoutingCHEdgeExplorer explorer = chGraph.createOutEdgeExplorer();
+        for (int node = 0; node < chGraph.getNodes(); node++) {
+            RoutingCHEdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                if (iter.isShortcut())
+                    weights.put(iter.getBaseNode() + "-" + iter.getAdjNode(), iter.getWeight(false));
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Every finite shortcut has to be the weight of the path of original edges it unpacks to in its own direction.
+     */
+    private void assertShortcutsMatchUnpackedPaths(RoutingCHGraph chGraph, Weighting weighting) {
+        double[] sum = new double[1];
+        ShortcutUnpacker unpacker = new ShortcutUnpacker(chGraph, (edge, reverse, prevOrNextEdgeId) -> sum[0] += weighting.calcEdgeWeight(edge, reverse), false);
+        RoutingCHEdgeExplorer explorer = chGraph.createOutEdgeExplorer();
+        for (int node = 0; node < chGraph.getNodes(); node++) {
+            RoutingCHEdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                if (!iter.isShortcut() || Double.isInfinite(iter.getWeight(false)))
+                    continue;
+                sum[0] = 0;
+                unpacker.visitOriginalEdgesFwd(iter.getEdge(), iter.getAdjNode(), false, EdgeIterator.NO_EDGE);
+                assertEquals(iter.getWeight(false), sum[0], 1e-2, iter.getBaseNode() + "-" + iter.getAdjNode());
+            }
+        }
+    }
+
+    private void assertWeights(Map<String, Double> expected, Map<String, Double> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, Double> entry : expected.entrySet())
+            assertEquals(entry.getValue(), actual.get(entry.getKey()), 1e-2, entry.getKey());
+    }
+
+    @Test
+    void testCustomizationWithSameWeightingKeepsWeights() {
+        CHConfig chConfig = new CHConfig("c", fastestWeighting, false, CHConfig.TYPE_CORE);
+        ORSGraphHopperStorage g = createGraph(chConfig);
+        RoutingCHGraph chGraph = contractCustomizable(g, chConfig);
+        Map<String, Double> prepared = getShortcutWeights(chGraph);
+        assertFalse(prepared.isEmpty());
+
+        new CoreShortcutCustomizer(g.getBaseGraph(), g.getCoreStore(chConfig.getName())).customize(fastestWeighting);
+
+        assertWeights(prepared, getShortcutWeights(chGraph));
+    }
+
+    @Test
+    void testCustomizationMatchesPreparationWithNewWeighting() {
+        CHConfig fastestConfig = new CHConfig("c", fastestWeighting, false, CHConfig.TYPE_CORE);
+        ORSGraphHopperStorage fastestGraph = createGraph(fastestConfig);
+        Map<String, Double> expected = getShortcutWeights(contractCustomizable(fastestGraph, fastestConfig));
+
+        CHConfig shortestConfig = new CHConfig("c", shortestWeighting, false, CHConfig.TYPE_CORE);
+        ORSGraphHopperStorage g = createGraph(shortestConfig);
+        RoutingCHGraph chGraph = contractCustomizable(g, shortestConfig);
+        assertNotEquals(expected, getShortcutWeights(chGraph));
+
+        new CoreShortcutCustomizer(g.getBaseGraph(), g.getCoreStore(shortestConfig.getName())).setThreads(2).customize(fastestWeighting);
+
+        assertWeights(expected, getShortcutWeights(chGraph));
+    }
+
+    @Test
+    void testCustomizableCoreOnlyContainsDirectedShortcuts() {
+        CHConfig chConfig = new CHConfig("c", fastestWeighting, false, CHConfig.TYPE_CORE);
+        ORSGraphHopperStorage g = createGraph(chConfig);
+        contractCustomizable(g, chConfig);
+
+        CHStorage chStore = g.getCoreStore(chConfig.getName());
+        assertTrue(chStore.getShortcuts() > 0);
+        for (int shortcut = 0; shortcut < chStore.getShortcuts(); shortcut++) {
+            long pointer = chStore.toShortcutPointer(shortcut);
+            assertNotEquals(chStore.getFwdAccess(pointer), chStore.getBwdAccess(pointer));
+        }
+    }
+
+    @Test
+    void testCustomizationOfOneWayAndAsymmetricEdges() {
+        CHConfig fastestConfig = new CHConfig("c", fastestWeighting, false, CHConfig.TYPE_CORE);
+        ORSGraphHopperStorage fastestGraph = createGraph(fastestConfig, true);
+        Map<String, Double> expected = getShortcutWeights(contractCustomizable(fastestGraph, fastestConfig));
+
+        CHConfig shortestConfig = new CHConfig("c", shortestWeighting, false, CHConfig.TYPE_CORE);
+        ORSGraphHopperStorage g = createGraph(shortestConfig, true);
+        RoutingCHGraph chGraph = contractCustomizable(g, shortestConfig);
+
+        new CoreShortcutCustomizer(g.getBaseGraph(), g.getCoreStore(shortestConfig.getName())).setThreads(2).customize(fastestWeighting);
+
+        assertWeights(expected, getShortcutWeights(chGraph));
+        assertShortcutsMatchUnpackedPaths(chGraph, fastestWeighting);
+    }
+}
@@ -79,8 +79,7 @@ class PrepareCoreLandmarksTest
         graph.create(1000);
     }
 
-    @Test
-    void testLandmarkStorageAndRouting() {
+    private void createGrid() {
         // create graph with lat,lon
         // 0  1  2  ...
         // 15 16 17 ...
@@ -105,7 +104,11 @@ class PrepareCoreLandmarksTest
                 updateDistancesFor(graph, node, -hIndex / 50.0, wIndex / 50.0);
             }
         }
+    }
 
+    @Test
+    void testLandmarkStorageAndRouting() {
+        createGrid();
         RoutingCHGraph core = contractGraph(graph, chConfig, new AllCoreEdgeFilter());
         HashMap<Integer, Integer> coreNodeIdMap = createCoreNodeIdMap(core);
         Directory dir = new RAMDirectory();
@@ -195,6 +198,34 @@ class PrepareCoreLandmarksTest
         assertEquals(expectedAlgo.getVisitedNodes(), qGraphOneDirAlgo.getVisitedNodes() + 133);
     }
 
+    @Test
+    void testParallelLandmarkWeights() {
+        createGrid();
+        RoutingCHGraph core = contractGraph(graph, chConfig, new AllCoreEdgeFilter());
+        HashMap<Integer, Integer> coreNodeIdMap = createCoreNodeIdMap(core);
+        CoreLMConfig coreLMConfig = new CoreLMConfig("car", weighting).setEdgeFilter(new LMEdgeFilterSequence());
+
+        CoreLandmarkStorage expected = new CoreLandmarkStorage(new RAMDirectory(), graph, core, coreLMConfig, 5);
+        expected.setCoreNodeIdMap(coreNodeIdMap);
+        expected.setMinimumNodes(2);
+        expected.createLandmarks();
+
+        CoreLandmarkStorage store = new CoreLandmarkStorage(new RAMDirectory(), graph, core, coreLMConfig, 5);
+        store.setCoreNodeIdMap(coreNodeIdMap);
+        store.setMinimumNodes(2);
+        store.setLandmarkThreads(4);
+        store.createLandmarks();
+
+        assertEquals(expected.getSubnetworksWithLandmarks(), store.getSubnetworksWithLandmarks());
+        assertEquals(Arrays.toString(expected.getLandmarks(1)), Arrays.toString(store.getLandmarks(1)));
+        for (int lmIdx = 0; lmIdx < 5; lmIdx++) {
+            for (int node = 0; node < graph.getNodes(); node++) {
+                assertEquals(expected.getFromWeight(lmIdx, node), store.getFromWeight(lmIdx, node));
+                assertEquals(expected.getToWeight(lmIdx, node), store.getToWeight(lmIdx, node));
+            }
+        }
+    }
+
     @Test
     void testStoreAndLoad() {
         GHUtility.setSpeed(60, true, true, encoder, graph.edge(0, 1).setDistance(80_000));
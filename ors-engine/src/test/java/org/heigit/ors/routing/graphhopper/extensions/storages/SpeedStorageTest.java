@@ -0,0 +1,112 @@
+package org.heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.storage.RAMDirectory;
+import org.heigit.ors.routing.graphhopper.extensions.ORSSpeedUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeedStorageTest {
+    private static final long MINUTE = 60000L;
+    private SpeedStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new SpeedStorage(new CarFlagEncoder());
+        storage.init(null, new RAMDirectory());
+        storage.create(4);
+    }
+
+    private static ORSSpeedUpdate createUpdate(int edgeId, boolean reverse, int speed, int durationMin) {
+        ORSSpeedUpdate update = new ORSSpeedUpdate();
+        update.setEdgeId(edgeId);
+        update.setReverse(reverse);
+        update.setSpeed(speed);
+        update.setDurationMin(durationMin);
+        return update;
+    }
+
+    @Test
+    void testApplyUpdates() {
+        assertEquals(Byte.MIN_VALUE, storage.getLiveSpeed(1, false));
+
+        SpeedStorage.UpdateResult result = storage.applyUpdates(List.of(createUpdate(1, false, 30, 0), createUpdate(2, true, 50, 0)), 0);
+        assertEquals(2, result.applied());
+        assertEquals(0, result.rejected());
+        assertEquals(30, storage.getLiveSpeed(1, false));
+        assertEquals(Byte.MIN_VALUE, storage.getLiveSpeed(1, true));
+        assertEquals(50, storage.getSpeed(2, true));
+        assertTrue(storage.hasSpeed(2, true));
+        assertFalse(storage.hasSpeed(2, false));
+
+        // both buffers have to contain the first batch
+        storage.applyUpdates(List.of(createUpdate(3, false, 70, 0)), 0);
+        assertEquals(30, storage.getLiveSpeed(1, false));
+        assertEquals(50, storage.getLiveSpeed(2, true));
+        assertEquals(70, storage.getLiveSpeed(3, false));
+    }
+
+    @Test
+    void testRejectInvalidUpdates() {
+        SpeedStorage.UpdateResult result = storage.applyUpdates(List.of(createUpdate(-1, false, 30, 0),
+                createUpdate(Integer.MAX_VALUE, false, 30, 0), createUpdate(1, false, 130, 0), createUpdate(1, false, -5, 0)), 0);
+        assertEquals(0, result.applied());
+        assertEquals(4, result.rejected());
+        assertFalse(result.hasChanges());
+        assertEquals(Byte.MIN_VALUE, storage.getLiveSpeed(1, false));
+    }
+
+    @Test
+    void testExpireUpdates() {
+        long time = 1000 * MINUTE;
+        storage.applyUpdates(List.of(createUpdate(1, false, 30, 5), createUpdate(2, false, 40, 10)), time);
+
+        assertEquals(0, storage.applyUpdates(Collections.emptyList(), time + 4 * MINUTE).expired());
+        assertEquals(30, storage.getLiveSpeed(1, false));
+
+        SpeedStorage.UpdateResult result = storage.applyUpdates(Collections.emptyList(), time + 5 * MINUTE);
+        assertEquals(1, result.expired());
+        assertEquals(Byte.MIN_VALUE, storage.getLiveSpeed(1, false));
+        assertEquals(40, storage.getLiveSpeed(2, false));
+
+        // a newer update extends the expiry
+        storage.applyUpdates(List.of(createUpdate(2, false, 45, 10)), time + 6 * MINUTE);
+        assertEquals(0, storage.applyUpdates(Collections.emptyList(), time + 10 * MINUTE).expired());
+        assertEquals(45, storage.getLiveSpeed(2, false));
+        assertEquals(1, storage.applyUpdates(Collections.emptyList(), time + 16 * MINUTE).expired());
+        assertEquals(Byte.MIN_VALUE, storage.getLiveSpeed(2, false));
+    }
+
+    @Test
+    void testExpiryRestoresStoredSpeed() {
+        long time = 1000 * MINUTE;
+        storage.setSpeed(1, false, 25);
+        storage.applyUpdates(List.of(createUpdate(1, false, 30, 5)), time);
+        assertEquals(30, storage.getSpeed(1, false));
+
+        assertEquals(1, storage.applyUpdates(Collections.emptyList(), time + 5 * MINUTE).expired());
+        assertEquals(25, storage.getSpeed(1, false));
+        assertEquals(25, storage.getLiveSpeed(1, false));
+    }
+
+    @Test
+    void testSetSpeedAfterLiveUpdates() {
+        storage.applyUpdates(List.of(createUpdate(1, false, 30, 0)), 0);
+        storage.setSpeed(1, false, 20);
+        storage.setSpeed(2, false, 40);
+        // a live speed overrides the stored one
+        assertEquals(30, storage.getSpeed(1, false));
+        assertEquals(40, storage.getSpeed(2, false));
+
+        // both buffers have to contain the stored speed
+        storage.applyUpdates(List.of(createUpdate(3, false, 70, 0)), 0);
+        assertEquals(40, storage.getSpeed(2, false));
+        storage.applyUpdates(List.of(createUpdate(3, false, 60, 0)), 0);
+        assertEquals(40, storage.getSpeed(2, false));
+    }
+}
@@ -0,0 +1,50 @@
+package org.heigit.ors.routing.graphhopper.extensions.storages;
+
+import org.heigit.ors.routing.graphhopper.extensions.reader.traffic.TrafficEnums;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrafficGraphStorageTest {
+    private final TrafficGraphStorage storage;
+
+    public TrafficGraphStorageTest() {
+        storage = new TrafficGraphStorage();
+        storage.init();
+        storage.create(1);
+    }
+
+    @Test
+    void testWeekSlotMatchesCalendarTime() {
+        long start = ZonedDateTime.of(2023, 12, 30, 22, 50, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        for (int offset = -12; offset <= 14; offset += 13) {
+            // covers the change of the week and times before the epoch
+            for (long time : new long[]{start, start + 7 * 60000L, start + 3 * 3600000L, -3600000L, 0}) {
+                ZonedDateTime local = Instant.ofEpochMilli(time).atOffset(ZoneOffset.ofHours(offset)).toZonedDateTime();
+                int expected = (local.getDayOfWeek().getValue() % 7) * 96 + local.getHour() * 4 + local.getMinute() / 15;
+                assertEquals(expected, TrafficGraphStorage.getWeekSlot(time, offset));
+            }
+        }
+    }
+
+    @Test
+    void testSpeedValueOfWeekSlot() {
+        short[] pattern = new short[96];
+        for (int i = 0; i < pattern.length; i++)
+            pattern[i] = (short) (i + 10);
+        storage.setTrafficPatterns(1, pattern);
+        storage.setEdgeIdTrafficPatternLookup(2, 1, TrafficEnums.WeekDay.MONDAY, 1);
+
+        // Monday, 2024-01-01 08:20 local time
+        long time = ZonedDateTime.of(2024, 1, 1, 7, 20, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        assertEquals(8 * 4 + 1 + 10, storage.getSpeedValue(2, time, 1));
+        assertEquals(storage.getTrafficSpeed(1, 8, 20), storage.getSpeedValue(2, time, 1));
+        // no pattern for Sunday and for the backward direction
+        assertEquals(-1, storage.getSpeedValue(2, time, -8));
+        assertEquals(-1, storage.getSpeedValue(3, time, 1));
+    }
+}
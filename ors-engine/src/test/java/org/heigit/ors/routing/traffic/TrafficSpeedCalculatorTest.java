@@ -9,6 +9,9 @@ import org.heigit.ors.routing.graphhopper.extensions.storages.TrafficGraphStorag
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
 import static com.graphhopper.util.GHUtility.createMockedEdgeIteratorState;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -103,10 +106,19 @@ class TrafficSpeedCalculatorTest {
         assertEquals(65, trafficSpeedCalculator.getSpeed(edgeIteratorState, false, 1), 1e-8);
     }
 
+    @Test
+    void advancesWeekSlotOfLaterTimes() {
+        long start = 1700000000000L;
+        trafficSpeedCalculator.setZonedDateTime(ZonedDateTime.of(2023, 11, 14, 23, 0, 0, 0, ZoneOffset.ofHours(2)));
+        long[] offsets = {0, 1000, 899999, 900000, 3600000, 7 * 24 * 3600000L + 5, 12345678, -900000, -1};
+        for (long offset : offsets)
+            assertEquals(TrafficGraphStorage.getWeekSlot(start + offset, 2), trafficSpeedCalculator.getWeekSlot(start + offset));
+    }
+
     private static class MockTrafficStorage extends TrafficGraphStorage {
 
         @Override
-        public int getSpeedValue(int edgeId, long unixMilliSeconds, int timeZoneOffset) {
+        public int getSpeedValue(int edgeId, int weekSlot) {
             return switch (edgeId) {
                 case 1 -> 10;
                 case 2 -> 38;